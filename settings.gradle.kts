@@ -2,5 +2,7 @@
 rootProject.name = "template-jvm"
 
 // Don't name any of your modules the same name as the root project or else you will be sad.
+include(":template-jvm-benchmarks")
+include(":template-jvm-codec")
 include(":template-jvm-java")
 include(":template-jvm-kotlin")
@@ -0,0 +1,59 @@
+plugins {
+  java
+  id("com.diffplug.spotless").version("7.0.2")
+  id("me.champeau.jmh").version("0.7.3")
+}
+
+repositories {
+  mavenCentral()
+}
+
+java {
+  toolchain {
+    languageVersion.set(JavaLanguageVersion.of(21))
+  }
+}
+
+spotless {
+  java {
+    target("src/*/java/**/*.java")
+    googleJavaFormat("1.17.0")
+    formatAnnotations()
+    importOrder()
+    removeUnusedImports()
+  }
+}
+
+tasks.named("build") {
+  dependsOn("spotlessApply")
+  dependsOn("jmhClasses")
+}
+
+// Run with "gradle :template-jvm-benchmarks:jmh", or narrow it down with a regex, e.g.
+// "gradle :template-jvm-benchmarks:jmh -Pjmh.includes=Locale".  The results are written as JSON to
+// build/results/jmh/results.json; copy that aside before and after a change and compare the two,
+// e.g. at https://jmh.morethan.io.
+jmh {
+  jmhVersion.set("1.37")
+  fork.set(1)
+  warmupIterations.set(3)
+  warmup.set("1s")
+  iterations.set(5)
+  timeOnIteration.set("1s")
+  // Reports gc.alloc.rate.norm, the bytes allocated per operation, next to every score.
+  profilers.add("gc")
+  // As Main sets it, for the HTTP benchmarks; see HttpService.
+  jvmArgsAppend.add("-Dsun.net.httpserver.nodelay=true")
+  resultFormat.set("JSON")
+  resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+  (findProperty("jmh.includes") as String?)?.let { includes.add(it) }
+}
+
+dependencies {
+  jmhAnnotationProcessor(project(":template-jvm-codec"))
+
+  jmhImplementation(project(":template-jvm-codec"))
+  jmhImplementation(project(":template-jvm-java"))
+  jmhImplementation("ch.qos.logback:logback-classic:1.5.18")
+  jmhImplementation("com.ibm.icu:icu4j:77.1")
+}
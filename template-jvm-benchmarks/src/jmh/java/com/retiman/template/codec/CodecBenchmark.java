@@ -0,0 +1,65 @@
+package com.retiman.template.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class CodecBenchmark {
+  @BinaryCodec
+  public record Trade(long id, String symbol, int quantity, long priceMicros, long timestamp)
+      implements Serializable {
+    private static final long serialVersionUID = 1L;
+  }
+
+  private final Trade trade = new Trade(12_345, "SYM42", 100, 187_250_000, 1_700_000_000_000L);
+  private final ByteBuffer buffer = ByteBuffer.allocate(256);
+  private final byte[] encoded = CodecBenchmark_TradeCodec.INSTANCE.toByteArray(trade);
+  private final byte[] serialized = serialize(trade);
+
+  @Benchmark
+  public ByteBuffer encode() {
+    CodecBenchmark_TradeCodec.INSTANCE.encode(trade, buffer.clear());
+    return buffer;
+  }
+
+  @Benchmark
+  public Trade decode() {
+    return CodecBenchmark_TradeCodec.INSTANCE.decode(ByteBuffer.wrap(encoded));
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return serialize(trade);
+  }
+
+  @Benchmark
+  public Object deserialize() throws IOException, ClassNotFoundException {
+    try (var in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+      return in.readObject();
+    }
+  }
+
+  private static byte[] serialize(Object value) {
+    var bytes = new ByteArrayOutputStream();
+    try (var out = new ObjectOutputStream(bytes)) {
+      out.writeObject(value);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+}
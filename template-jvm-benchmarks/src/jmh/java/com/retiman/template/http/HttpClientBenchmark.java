@@ -0,0 +1,59 @@
+package com.retiman.template.http;
+
+import com.retiman.template.server.HttpService;
+import com.retiman.template.server.Response;
+import com.retiman.template.server.ServiceConfig;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Round trips to a service on loopback, so the score is mostly the two HTTP stacks.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class HttpClientBenchmark {
+  private HttpService service;
+  private HttpClient client;
+  private HttpClientPool pool;
+  private HttpProfile profile;
+  private HttpRequest request;
+
+  @Setup
+  public void setup() {
+    service =
+        HttpService.start(
+            ServiceConfig.loopback(), Map.of("/", r -> Response.text("Hello World!")));
+    client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    pool = new HttpClientPool();
+    profile = HttpProfile.of("benchmark").withVersion(HttpClient.Version.HTTP_1_1);
+    request = HttpRequest.newBuilder(service.uri("/")).build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.close();
+    client.close();
+    service.close();
+  }
+
+  @Benchmark
+  public String httpClient() throws IOException, InterruptedException {
+    return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+  }
+
+  @Benchmark
+  public String httpClientPool() throws IOException, InterruptedException {
+    return pool.send(profile, request, HttpResponse.BodyHandlers.ofString()).body();
+  }
+}
@@ -0,0 +1,59 @@
+package com.retiman.template.lang;
+
+import com.retiman.template.collect.IntArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// The pipeline from StreamsTest, boxed and not.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StreamsBenchmark {
+  @Param({"1000", "1000000"})
+  public int count;
+
+  private List<Integer> boxed;
+  private IntArrayList primitive;
+
+  @Setup
+  public void setup() {
+    boxed = IntStream.range(0, count).boxed().toList();
+    primitive = IntArrayList.from(IntStream.range(0, count));
+  }
+
+  @Benchmark
+  public int boxedStream() {
+    return boxed.stream()
+        .filter(x -> x % 3 != 0)
+        .map(x -> x + 1)
+        .takeWhile(x -> x < count)
+        .reduce(0, Integer::sum);
+  }
+
+  @Benchmark
+  public int intStream() {
+    return primitive.stream()
+        .filter(x -> x % 3 != 0)
+        .map(x -> x + 1)
+        .takeWhile(x -> x < count)
+        .reduce(0, Integer::sum);
+  }
+
+  @Benchmark
+  public int intArrayList() {
+    return primitive
+        .filter(x -> x % 3 != 0)
+        .map(x -> x + 1)
+        .takeWhile(x -> x < count)
+        .reduce(0, Integer::sum);
+  }
+}
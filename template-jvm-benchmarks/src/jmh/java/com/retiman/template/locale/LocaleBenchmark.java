@@ -0,0 +1,53 @@
+package com.retiman.template.locale;
+
+import com.ibm.icu.util.ULocale;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class LocaleBenchmark {
+  @Param({"en-US", "zh-Hans-CN", "zh-Hans-CN-wadegile-t-en-u-latn-x-apex"})
+  public String tag;
+
+  private ULocale ulocale;
+
+  @Setup
+  public void setup() {
+    ulocale = ULocale.forLanguageTag(tag);
+  }
+
+  @Benchmark
+  public Locale jdkForLanguageTag() {
+    return Locale.forLanguageTag(tag);
+  }
+
+  @Benchmark
+  public ULocale icuForLanguageTag() {
+    return ULocale.forLanguageTag(tag);
+  }
+
+  @Benchmark
+  public Locale icuToLocale() {
+    return ulocale.toLocale();
+  }
+
+  // The conversion from IcuLocaleTest, which lowercases the variant so the result equals the JDK's
+  // own parse of the tag.
+  @Benchmark
+  public Locale icuToEquivalentLocale() {
+    return new Locale.Builder()
+        .setLocale(ulocale.toLocale())
+        .setVariant(ulocale.getVariant().toLowerCase(Locale.US))
+        .build();
+  }
+}
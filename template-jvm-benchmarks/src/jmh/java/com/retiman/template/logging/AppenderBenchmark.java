@@ -0,0 +1,110 @@
+package com.retiman.template.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Compares log calls/sec and allocation per call, for {@link RingBufferAppender} and logback's
+ * {@link AsyncAppender} in front of a {@link FileAppender}. Both block when their queue is full, so
+ * every event reaches the file, and both write the same line.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+public class AppenderBenchmark {
+  private static final String PATTERN =
+      "%d{yyyy-MM-dd'T'HH:mm:ss.SSSX,UTC} %level [%thread] %logger - %msg%n";
+
+  @Param({"ring", "async"})
+  public String appender;
+
+  // Boxed once, so that the benchmark measures the appender rather than autoboxing.
+  private final Object user = "alice";
+  private final Object count = 42;
+
+  private Path directory;
+  private LoggerContext context;
+  private Logger logger;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("appender-benchmark");
+    var file = directory.resolve("app.log").toString();
+    context = new LoggerContext();
+    logger = context.getLogger(AppenderBenchmark.class);
+    logger.setLevel(Level.INFO);
+    logger.setAdditive(false);
+    logger.addAppender(appender.equals("ring") ? ring(file) : async(file));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    context.stop();
+    try (var files = Files.list(directory)) {
+      for (var file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  @Benchmark
+  public void log() {
+    logger.info("User {} has {} items", user, count);
+  }
+
+  private Appender<ILoggingEvent> ring(String file) {
+    var ring = new RingBufferAppender();
+    ring.setContext(context);
+    ring.setName("ring");
+    ring.setFile(file);
+    ring.setOverflowPolicy(OverflowPolicy.BLOCK);
+    ring.start();
+    return ring;
+  }
+
+  private Appender<ILoggingEvent> async(String file) {
+    var encoder = new PatternLayoutEncoder();
+    encoder.setContext(context);
+    encoder.setPattern(PATTERN);
+    encoder.start();
+
+    var fileAppender = new FileAppender<ILoggingEvent>();
+    fileAppender.setContext(context);
+    fileAppender.setName("file");
+    fileAppender.setFile(file);
+    fileAppender.setEncoder(encoder);
+    fileAppender.start();
+
+    var async = new AsyncAppender();
+    async.setContext(context);
+    async.setName("async");
+    async.setQueueSize(RingBufferAppender.DEFAULT_CAPACITY);
+    // By default, AsyncAppender drops INFO events once the queue is 80% full.
+    async.setDiscardingThreshold(0);
+    async.addAppender(fileAppender);
+    async.start();
+    return async;
+  }
+}
@@ -0,0 +1,75 @@
+package com.retiman.template.text;
+
+import com.ibm.icu.text.Collator;
+import com.retiman.template.locale.CanonicalLocale;
+import com.retiman.template.locale.LocaleRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class CollationBenchmark {
+  private static final String[] WORDS = {
+    "Müller",
+    "Mueller",
+    "straße",
+    "côte",
+    "Ångström",
+    "Zoë",
+    "Łódź",
+    "北京",
+    "東京",
+    "とうきょう",
+    "서울",
+    "Αθήνα",
+    "Москва",
+    "Smith",
+    "smith",
+    "O'Brien"
+  };
+
+  @Param({"en", "de", "ja"})
+  public String tag;
+
+  @Param({"10000", "1000000"})
+  public int size;
+
+  private CanonicalLocale locale;
+  private Collator collator;
+  private List<String> names;
+
+  @Setup
+  public void setup() {
+    locale = LocaleRegistry.shared().resolve(tag);
+    collator = CollationSorter.shared().collator(locale);
+    var random = new Random(42);
+    names = new ArrayList<>(size);
+    for (var i = 0; i < size; i++) {
+      names.add(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]);
+    }
+  }
+
+  @Benchmark
+  public List<String> collationKeys() {
+    return CollationSorter.shared().sort(names, locale);
+  }
+
+  @Benchmark
+  public String[] collatorCompare() {
+    var array = names.toArray(String[]::new);
+    Arrays.sort(array, collator::compare);
+    return array;
+  }
+}
@@ -0,0 +1,53 @@
+package com.retiman.template.text;
+
+import com.ibm.icu.text.MessageFormat;
+import com.retiman.template.locale.LocaleRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class MessageBenchmark {
+  private static final String PATTERN =
+      "{1} has {0, plural, one {# new message} few {# new messages} many {# new messages} other"
+          + " {# new messages}}";
+
+  @Param({"en", "ru", "ar"})
+  public String tag;
+
+  private CompiledMessage compiled;
+  private MessageFormat icu;
+  private final Object[] arguments = {7, "Alice"};
+  private final StringBuilder out = new StringBuilder();
+
+  @Setup
+  public void setup() {
+    var locale = LocaleRegistry.shared().resolve(tag);
+    compiled = CompiledMessage.compile(PATTERN, locale);
+    icu = new MessageFormat(PATTERN, locale.ulocale());
+  }
+
+  @Benchmark
+  public StringBuilder compiledMessage() {
+    out.setLength(0);
+    return compiled.format(arguments, out);
+  }
+
+  @Benchmark
+  public String messageFormat() {
+    return icu.format(arguments);
+  }
+
+  @Benchmark
+  public String parseAndFormat() {
+    return new MessageFormat(PATTERN, compiled.locale().ulocale()).format(arguments);
+  }
+}
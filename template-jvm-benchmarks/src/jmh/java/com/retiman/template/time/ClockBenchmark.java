@@ -0,0 +1,46 @@
+package com.retiman.template.time;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ClockBenchmark {
+  private final Clock system = Clock.systemUTC();
+  private CoarseClock coarse;
+
+  @Setup
+  public void setUp() {
+    coarse = CoarseClock.start(Duration.ofMillis(1));
+  }
+
+  @TearDown
+  public void tearDown() {
+    coarse.close();
+  }
+
+  @Benchmark
+  public long systemMillis() {
+    return system.millis();
+  }
+
+  @Benchmark
+  public int systemInstant() {
+    return system.instant().getNano();
+  }
+
+  @Benchmark
+  public long coarseMillis() {
+    return coarse.millis();
+  }
+}
@@ -0,0 +1,52 @@
+package com.retiman.template.time;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DateTimeFormatterBenchmark {
+  private static final String PATTERN = "uuuu-MM-dd'T'HH:mm:ss.SSS";
+
+  private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(PATTERN);
+  private final FixedWidthFormatter compiled = FixedWidthFormatter.compile(PATTERN);
+  private final LocalDateTime datetime = LocalDateTime.of(2025, 4, 1, 14, 0, 0, 123_000_000);
+  private final String text = formatter.format(datetime);
+  private final DateTimeFields fields = new DateTimeFields().set(datetime);
+  private final char[] chars = new char[compiled.width()];
+
+  @Benchmark
+  public String format() {
+    return formatter.format(datetime);
+  }
+
+  @Benchmark
+  public LocalDateTime parse() {
+    return LocalDateTime.parse(text, formatter);
+  }
+
+  // Looks the formatter up in the shared cache on every call, as request handling code would.
+  @Benchmark
+  public String formatCached() {
+    return DateTimeFormatterCache.shared().formatter(PATTERN).format(datetime);
+  }
+
+  @Benchmark
+  public char[] formatFixedWidth() {
+    compiled.format(fields, chars, 0);
+    return chars;
+  }
+
+  @Benchmark
+  public DateTimeFields parseFixedWidth() {
+    return compiled.parse(text, 0, fields);
+  }
+}
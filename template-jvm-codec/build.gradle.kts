@@ -0,0 +1,69 @@
+plugins {
+  `java-library`
+  id("com.diffplug.spotless").version("7.0.2")
+  id("com.github.spotbugs").version("6.0.15")
+}
+
+repositories {
+  mavenCentral()
+}
+
+java {
+  toolchain {
+    languageVersion.set(JavaLanguageVersion.of(21))
+  }
+}
+
+spotless {
+  java {
+    googleJavaFormat("1.17.0")
+    formatAnnotations()
+    importOrder()
+    removeUnusedImports()
+  }
+}
+
+spotbugs {
+  toolVersion.set("4.8.3") // compatible with JVM 21
+  ignoreFailures.set(false)
+  effort.set(com.github.spotbugs.snom.Effort.MAX)
+  reportLevel.set(com.github.spotbugs.snom.Confidence.LOW)
+}
+
+tasks.withType<JavaCompile>().configureEach {
+  options.compilerArgs.add("-Xlint:deprecation")
+}
+
+tasks.named("build") {
+  dependsOn("spotlessApply")
+  dependsOn("spotbugsMain")
+}
+
+tasks.named("check") {
+  dependsOn("spotbugsTest")
+}
+
+tasks.test {
+  useJUnitPlatform()
+  testLogging {
+    events("passed", "skipped", "failed")
+    exceptionFormat = org.gradle.api.tasks.testing.logging.TestExceptionFormat.FULL
+    showStandardStreams = true
+  }
+}
+
+// This module is both the runtime that generated codecs call into and the annotation processor that
+// generates them.  Consumers put it on "implementation" for the former and "annotationProcessor"
+// for the latter; Gradle does not look for processors on the compile classpath.
+dependencies {
+  compileOnly("com.github.spotbugs:spotbugs-annotations:4.8.3")
+
+  testCompileOnly("com.github.spotbugs:spotbugs-annotations:4.8.3")
+
+  testImplementation("org.assertj:assertj-core:3.27.3")
+  testImplementation("org.junit.jupiter:junit-jupiter-api:5.12.1")
+  testImplementation("org.junit.jupiter:junit-jupiter-params:5.12.1")
+
+  testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.12.1")
+  testRuntimeOnly("org.junit.platform:junit-platform-launcher:1.12.1")
+}
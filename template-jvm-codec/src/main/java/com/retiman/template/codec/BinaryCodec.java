@@ -0,0 +1,33 @@
+package com.retiman.template.codec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a {@link Codec} for a record, a sealed interface or a sealed class, at compile time.
+ *
+ * <p>The codec for {@code com.example.Point} is {@code com.example.PointCodec}, with a static
+ * {@code INSTANCE}; for a nested type {@code Outer.Point}, it is {@code Outer_PointCodec}. A record
+ * is encoded as its components in declaration order, with no names, tags or padding. A sealed
+ * interface is encoded as the index of the value's subtype among the permitted subtypes, as a
+ * varint, followed by the value itself; permitted subtypes get codecs of their own without being
+ * annotated. Adding a component or reordering permitted subtypes changes the encoding, so both
+ * sides of a connection must be compiled against the same types.
+ *
+ * <p>Permitted subtypes may be records, sealed types, or final classes. Classes other than records
+ * have no components, so a final class, or a sealed class that is not abstract, must have no
+ * instance fields (its own or inherited) and a constructor without arguments; it is encoded as its
+ * tag alone. A sealed class's own instances take the tag after its last permitted subtype.
+ *
+ * <p>Components may be primitives, their boxes, strings, byte arrays, enums, lists of any of these,
+ * or other types with codecs. Integral types are zigzag varints, so small values take a byte or two
+ * whatever their sign; floating point types are 4 or 8 bytes, little-endian; strings are a varint
+ * length and then UTF-8. Any component of a reference type may be null.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface BinaryCodec {}
@@ -0,0 +1,47 @@
+package com.retiman.template.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes values of a type to bytes and back. Implementations are generated for types annotated
+ * with {@link BinaryCodec}, are stateless, and are safe for concurrent use.
+ */
+public interface Codec<T> {
+  /**
+   * Writes a value at the buffer's position, and advances it.
+   *
+   * @throws java.nio.BufferOverflowException if the buffer has less room than {@link #size}
+   */
+  void encode(T value, ByteBuffer out);
+
+  /**
+   * Reads a value at the buffer's position, and advances past it.
+   *
+   * @throws java.nio.BufferUnderflowException if the buffer ends before the value does
+   * @throws IllegalArgumentException if the bytes are not an encoded value
+   */
+  T decode(ByteBuffer in);
+
+  /** Returns the number of bytes that {@link #encode} writes for a value. */
+  int size(T value);
+
+  default byte[] toByteArray(T value) {
+    var bytes = new byte[size(value)];
+    encode(value, ByteBuffer.wrap(bytes));
+    return bytes;
+  }
+
+  /**
+   * Decodes a value from all of an array.
+   *
+   * @throws IllegalArgumentException if there are bytes left over
+   */
+  default T fromByteArray(byte[] bytes) {
+    var in = ByteBuffer.wrap(bytes);
+    var value = decode(in);
+    if (in.hasRemaining()) {
+      throw new IllegalArgumentException(in.remaining() + " bytes left over after decoding");
+    }
+    return value;
+  }
+}
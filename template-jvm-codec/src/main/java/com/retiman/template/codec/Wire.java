@@ -0,0 +1,269 @@
+package com.retiman.template.codec;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The wire format that generated codecs read and write, on top of {@link ByteBuffer}.
+ *
+ * <p>Lengths, counts and tags are unsigned varints: 7 bits per byte, least significant first, with
+ * the high bit set on every byte but the last. Signed integers are zigzag encoded first, which maps
+ * 0, -1, 1, -2, ... to 0, 1, 2, 3, ..., so small negative values stay short too. A nullable length
+ * or tag is stored plus one, with 0 meaning null.
+ *
+ * <p>Strings are written as UTF-8 straight into the buffer, without an intermediate array.
+ */
+public final class Wire {
+  private static final int MAXIMUM_VARINT_BYTES = 10;
+
+  private Wire() {}
+
+  public static void writeUnsigned(ByteBuffer out, long value) {
+    while ((value & ~0x7fL) != 0) {
+      out.put((byte) ((value & 0x7f) | 0x80));
+      value >>>= 7;
+    }
+    out.put((byte) value);
+  }
+
+  public static long readUnsigned(ByteBuffer in) {
+    var value = 0L;
+    for (var shift = 0; shift < 7 * MAXIMUM_VARINT_BYTES; shift += 7) {
+      var b = in.get();
+      value |= (long) (b & 0x7f) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Varint is longer than " + MAXIMUM_VARINT_BYTES + " bytes");
+  }
+
+  public static int sizeOfUnsigned(long value) {
+    // Each byte holds 7 bits; zero still takes one byte.
+    return Math.max(1, (70 - Long.numberOfLeadingZeros(value)) / 7);
+  }
+
+  /** Reads an unsigned varint that must fit in an int, such as a length. */
+  public static int readLength(ByteBuffer in) {
+    var value = readUnsigned(in);
+    if (value < 0 || value > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Length is out of range: " + Long.toUnsignedString(value));
+    }
+    return (int) value;
+  }
+
+  public static void writeLong(ByteBuffer out, long value) {
+    writeUnsigned(out, (value << 1) ^ (value >> 63));
+  }
+
+  public static long readLong(ByteBuffer in) {
+    var value = readUnsigned(in);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  public static int sizeOfLong(long value) {
+    return sizeOfUnsigned((value << 1) ^ (value >> 63));
+  }
+
+  public static void writeInt(ByteBuffer out, int value) {
+    writeLong(out, value);
+  }
+
+  /** Reads a zigzag varint that must fit in an int. */
+  public static int readInt(ByteBuffer in) {
+    var value = readLong(in);
+    if ((int) value != value) {
+      throw new IllegalArgumentException("Int is out of range: " + value);
+    }
+    return (int) value;
+  }
+
+  public static int sizeOfInt(int value) {
+    return sizeOfLong(value);
+  }
+
+  public static void writeBoolean(ByteBuffer out, boolean value) {
+    out.put((byte) (value ? 1 : 0));
+  }
+
+  public static boolean readBoolean(ByteBuffer in) {
+    var b = in.get();
+    if (b != 0 && b != 1) {
+      throw new IllegalArgumentException("Boolean is not 0 or 1: " + b);
+    }
+    return b == 1;
+  }
+
+  public static void writeDouble(ByteBuffer out, double value) {
+    var bits = Double.doubleToRawLongBits(value);
+    out.putLong(out.order() == ByteOrder.LITTLE_ENDIAN ? bits : Long.reverseBytes(bits));
+  }
+
+  public static double readDouble(ByteBuffer in) {
+    var bits = in.getLong();
+    return Double.longBitsToDouble(
+        in.order() == ByteOrder.LITTLE_ENDIAN ? bits : Long.reverseBytes(bits));
+  }
+
+  public static void writeFloat(ByteBuffer out, float value) {
+    var bits = Float.floatToRawIntBits(value);
+    out.putInt(out.order() == ByteOrder.LITTLE_ENDIAN ? bits : Integer.reverseBytes(bits));
+  }
+
+  public static float readFloat(ByteBuffer in) {
+    var bits = in.getInt();
+    return Float.intBitsToFloat(
+        in.order() == ByteOrder.LITTLE_ENDIAN ? bits : Integer.reverseBytes(bits));
+  }
+
+  /** Writes a nullable string as its UTF-8 length plus one, and then its UTF-8 bytes. */
+  public static void writeString(ByteBuffer out, String value) {
+    if (value == null) {
+      out.put((byte) 0);
+      return;
+    }
+
+    var length = utf8Length(value);
+    writeUnsigned(out, length + 1L);
+    if (length == value.length()) {
+      // Every char is ASCII, or an unpaired surrogate.
+      for (var i = 0; i < length; i++) {
+        var c = value.charAt(i);
+        out.put(c < 0x80 ? (byte) c : (byte) '?');
+      }
+      return;
+    }
+
+    for (var i = 0; i < value.length(); i++) {
+      var c = value.charAt(i);
+      if (c < 0x80) {
+        out.put((byte) c);
+      } else if (c < 0x800) {
+        out.put((byte) (0xc0 | (c >>> 6)));
+        out.put((byte) (0x80 | (c & 0x3f)));
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        var codePoint = Character.toCodePoint(c, value.charAt(++i));
+        out.put((byte) (0xf0 | (codePoint >>> 18)));
+        out.put((byte) (0x80 | ((codePoint >>> 12) & 0x3f)));
+        out.put((byte) (0x80 | ((codePoint >>> 6) & 0x3f)));
+        out.put((byte) (0x80 | (codePoint & 0x3f)));
+      } else if (Character.isSurrogate(c)) {
+        // An unpaired surrogate becomes '?', as String.getBytes would make it.
+        out.put((byte) '?');
+      } else {
+        out.put((byte) (0xe0 | (c >>> 12)));
+        out.put((byte) (0x80 | ((c >>> 6) & 0x3f)));
+        out.put((byte) (0x80 | (c & 0x3f)));
+      }
+    }
+  }
+
+  public static String readString(ByteBuffer in) {
+    var length = readLength(in);
+    if (length == 0) {
+      return null;
+    }
+
+    length--;
+    if (length > in.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    if (in.hasArray()) {
+      var offset = in.arrayOffset() + in.position();
+      in.position(in.position() + length);
+      return new String(in.array(), offset, length, StandardCharsets.UTF_8);
+    }
+
+    var bytes = new byte[length];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  public static int sizeOfString(String value) {
+    if (value == null) {
+      return 1;
+    }
+    var length = utf8Length(value);
+    return sizeOfUnsigned(length + 1L) + length;
+  }
+
+  /** Writes a nullable byte array as its length plus one, and then its bytes. */
+  public static void writeBytes(ByteBuffer out, byte[] value) {
+    if (value == null) {
+      out.put((byte) 0);
+      return;
+    }
+    writeUnsigned(out, value.length + 1L);
+    out.put(value);
+  }
+
+  @SuppressFBWarnings(
+      value = "PZLA_PREFER_ZERO_LENGTH_ARRAYS",
+      justification = "Null is encoded, and is not the same value as an empty array.")
+  public static byte[] readBytes(ByteBuffer in) {
+    var length = readLength(in);
+    if (length == 0) {
+      return null;
+    }
+    if (length - 1 > in.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    var bytes = new byte[length - 1];
+    in.get(bytes);
+    return bytes;
+  }
+
+  public static int sizeOfBytes(byte[] value) {
+    return value == null ? 1 : sizeOfUnsigned(value.length + 1L) + value.length;
+  }
+
+  /**
+   * Returns the constant of an enum for a nullable ordinal stored plus one.
+   *
+   * @throws IllegalArgumentException if the ordinal is out of range
+   */
+  public static <E extends Enum<E>> E readEnum(ByteBuffer in, E[] constants) {
+    var index = readLength(in);
+    if (index > constants.length) {
+      throw new IllegalArgumentException(
+          "Ordinal is out of range for " + constants.getClass().getComponentType() + ": " + index);
+    }
+    return index == 0 ? null : constants[index - 1];
+  }
+
+  public static void writeEnum(ByteBuffer out, Enum<?> value) {
+    writeUnsigned(out, value == null ? 0 : value.ordinal() + 1L);
+  }
+
+  public static int sizeOfEnum(Enum<?> value) {
+    return sizeOfUnsigned(value == null ? 0 : value.ordinal() + 1L);
+  }
+
+  /** Returns the number of bytes that a string takes in UTF-8. */
+  static int utf8Length(String value) {
+    var length = value.length();
+    var bytes = length;
+    for (var i = 0; i < length; i++) {
+      var c = value.charAt(i);
+      if (c >= 0x80) {
+        if (c < 0x800) {
+          bytes++;
+        } else if (Character.isHighSurrogate(c)
+            && i + 1 < length
+            && Character.isLowSurrogate(value.charAt(i + 1))) {
+          // Two chars, four bytes.
+          bytes += 2;
+          i++;
+        } else if (!Character.isSurrogate(c)) {
+          bytes += 2;
+        }
+      }
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,123 @@
+package com.retiman.template.codec.processor;
+
+import com.retiman.template.codec.BinaryCodec;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a codec for every record, sealed interface and sealed class annotated with {@link
+ * BinaryCodec}, and for every subtype that such a sealed type permits.
+ *
+ * <p>The generated code calls {@link com.retiman.template.codec.Wire} for every field, and other
+ * generated codecs for nested types, so it uses no reflection at run time.
+ */
+public final class BinaryCodecProcessor extends AbstractProcessor {
+  private static final String ANNOTATION = BinaryCodec.class.getCanonicalName();
+
+  // Types whose codecs have been written, across rounds.
+  private final Set<String> generated = new HashSet<>();
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Set.of(ANNOTATION);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+    var types = new LinkedHashMap<String, TypeElement>();
+    for (var element : round.getElementsAnnotatedWith(BinaryCodec.class)) {
+      collect(element, types, false);
+    }
+
+    var generator = new CodecGenerator(processingEnv, types.keySet());
+    for (var type : types.values()) {
+      var name = type.getQualifiedName().toString();
+      if (!generated.add(name)) {
+        continue;
+      }
+
+      try {
+        var source = generator.generate(type);
+        var file =
+            processingEnv
+                .getFiler()
+                .createSourceFile(CodecGenerator.codecName(type, processingEnv), type);
+        try (var writer = file.openWriter()) {
+          writer.write(source);
+        }
+      } catch (CodecGenerator.UnsupportedTypeException e) {
+        error(e.element, e.getMessage());
+      } catch (IOException e) {
+        error(type, "Failed to write the codec for " + name + ": " + e.getMessage());
+      }
+    }
+
+    return true;
+  }
+
+  // Adds a type and, for a sealed type, all of its permitted subtypes.  A permitted subtype may
+  // also be a final class, which the generator checks has no state.
+  private void collect(Element element, Map<String, TypeElement> types, boolean permitted) {
+    if (!(element instanceof TypeElement type)) {
+      error(element, "@BinaryCodec only applies to types");
+      return;
+    }
+
+    var isRecord = type.getKind() == ElementKind.RECORD;
+    var isSealed = type.getModifiers().contains(Modifier.SEALED);
+    var isFinalClass =
+        type.getKind() == ElementKind.CLASS && type.getModifiers().contains(Modifier.FINAL);
+    if (!isRecord && !isSealed && !(permitted && isFinalClass)) {
+      error(
+          type,
+          permitted
+              ? "@BinaryCodec only supports permitted subtypes that are records, sealed types or"
+                  + " final classes, not "
+                  + type
+              : "@BinaryCodec only applies to records, sealed interfaces and sealed classes, not "
+                  + type);
+      return;
+    }
+    if (!type.getTypeParameters().isEmpty()) {
+      error(type, "@BinaryCodec does not support generic types: " + type);
+      return;
+    }
+    if (type.getModifiers().contains(Modifier.PRIVATE)) {
+      error(type, "@BinaryCodec does not support private types: " + type);
+      return;
+    }
+    if (types.putIfAbsent(type.getQualifiedName().toString(), type) != null) {
+      return;
+    }
+
+    if (isSealed) {
+      for (var subtype : type.getPermittedSubclasses()) {
+        if (subtype.getKind() == TypeKind.DECLARED) {
+          collect(((DeclaredType) subtype).asElement(), types, true);
+        }
+      }
+    }
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
@@ -0,0 +1,661 @@
+package com.retiman.template.codec.processor;
+
+import com.retiman.template.codec.BinaryCodec;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+
+// Writes the source of one codec.  Every component is classified into a Kind, and each kind knows
+// how to write, read and size itself as statements; locals are numbered so that nested lists and
+// boxes do not clash.
+final class CodecGenerator {
+  static final class UnsupportedTypeException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    final transient Element element;
+
+    UnsupportedTypeException(Element element, String message) {
+      super(message);
+      this.element = element;
+    }
+  }
+
+  private sealed interface Kind {}
+
+  // One of the eight primitive types, by its TypeKind.
+  private record Primitive(TypeKind kind) implements Kind {}
+
+  private record Boxed(Primitive primitive, String type) implements Kind {}
+
+  private record Text() implements Kind {}
+
+  private record Bytes() implements Kind {}
+
+  private record Enumeration(String type) implements Kind {}
+
+  private record Nested(String type, String codec) implements Kind {}
+
+  private record Sequence(Kind element, String type, String elementType) implements Kind {}
+
+  private final ProcessingEnvironment env;
+  private final Set<String> roundTypes;
+  private final StringBuilder out = new StringBuilder();
+  private final ArrayList<String> enumFields = new ArrayList<>();
+  private int locals;
+
+  CodecGenerator(ProcessingEnvironment env, Set<String> roundTypes) {
+    this.env = env;
+    this.roundTypes = Set.copyOf(roundTypes);
+  }
+
+  /** Returns the qualified name of the codec for a type, e.g. {@code a.b.Outer_InnerCodec}. */
+  static String codecName(TypeElement type, ProcessingEnvironment env) {
+    var packageName = env.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    var simpleName = simpleCodecName(type);
+    return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+  }
+
+  String generate(TypeElement type) throws UnsupportedTypeException {
+    out.setLength(0);
+    enumFields.clear();
+    locals = 0;
+
+    var body = new StringBuilder();
+    if (type.getKind() == ElementKind.RECORD) {
+      generateRecord(type, body);
+    } else if (type.getModifiers().contains(Modifier.SEALED)) {
+      generateSealed(type, body);
+    } else {
+      generateStateless(type, body);
+    }
+
+    var packageName = env.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    var name = simpleCodecName(type);
+    var typeName = type.getQualifiedName().toString();
+    var visibility = type.getModifiers().contains(Modifier.PUBLIC) ? "public " : "";
+
+    var source = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+    source
+        .append("@javax.annotation.processing.Generated(\"")
+        .append(BinaryCodecProcessor.class.getName())
+        .append("\")\n")
+        .append(visibility)
+        .append("final class ")
+        .append(name)
+        .append(" implements com.retiman.template.codec.Codec<")
+        .append(typeName)
+        .append("> {\n")
+        .append("  public static final ")
+        .append(name)
+        .append(" INSTANCE = new ")
+        .append(name)
+        .append("();\n\n");
+    for (var field : enumFields) {
+      source.append(field);
+    }
+    source.append("  private ").append(name).append("() {}\n\n").append(body).append("}\n");
+    return source.toString();
+  }
+
+  private void generateRecord(TypeElement type, StringBuilder body)
+      throws UnsupportedTypeException {
+    var typeName = type.getQualifiedName().toString();
+    var components = type.getRecordComponents();
+    var kinds = new ArrayList<Kind>();
+    for (var component : components) {
+      kinds.add(classify(component.asType(), component));
+    }
+
+    body.append("  @Override\n")
+        .append("  public void encode(")
+        .append(typeName)
+        .append(" value, java.nio.ByteBuffer out) {\n");
+    for (var i = 0; i < components.size(); i++) {
+      var accessor = "value." + components.get(i).getAccessor().getSimpleName() + "()";
+      write(body, kinds.get(i), accessor, "    ");
+    }
+    body.append("  }\n\n");
+
+    body.append("  @Override\n")
+        .append("  public ")
+        .append(typeName)
+        .append(" decode(java.nio.ByteBuffer in) {\n");
+    var arguments = new ArrayList<String>();
+    for (var i = 0; i < components.size(); i++) {
+      var local = "c" + i;
+      read(body, kinds.get(i), local, "    ");
+      arguments.add(local);
+    }
+    body.append("    return new ")
+        .append(typeName)
+        .append("(")
+        .append(String.join(", ", arguments))
+        .append(");\n  }\n\n");
+
+    body.append("  @Override\n")
+        .append("  public int size(")
+        .append(typeName)
+        .append(" value) {\n")
+        .append("    var size = 0;\n");
+    for (var i = 0; i < components.size(); i++) {
+      var accessor = "value." + components.get(i).getAccessor().getSimpleName() + "()";
+      size(body, kinds.get(i), accessor, "    ");
+    }
+    body.append("    return size;\n  }\n");
+  }
+
+  // A final class without state is encoded as nothing at all; only its type says anything.
+  private void generateStateless(TypeElement type, StringBuilder body)
+      throws UnsupportedTypeException {
+    requireStateless(type);
+    var typeName = type.getQualifiedName().toString();
+    body.append("  @Override\n")
+        .append("  public void encode(")
+        .append(typeName)
+        .append(" value, java.nio.ByteBuffer out) {\n")
+        .append("    java.util.Objects.requireNonNull(value, \"value\");\n")
+        .append("  }\n\n");
+
+    body.append("  @Override\n")
+        .append("  public ")
+        .append(typeName)
+        .append(" decode(java.nio.ByteBuffer in) {\n")
+        .append("    return new ")
+        .append(typeName)
+        .append("();\n  }\n\n");
+
+    body.append("  @Override\n")
+        .append("  public int size(")
+        .append(typeName)
+        .append(" value) {\n")
+        .append("    java.util.Objects.requireNonNull(value, \"value\");\n")
+        .append("    return 0;\n  }\n");
+  }
+
+  // A sealed type is a tag, the index of the subtype, followed by the subtype's encoding.  A sealed
+  // class that is not abstract has instances of its own, which take the tag after the last subtype.
+  private void generateSealed(TypeElement type, StringBuilder body)
+      throws UnsupportedTypeException {
+    var typeName = type.getQualifiedName().toString();
+    var subtypes = new ArrayList<TypeElement>();
+    for (var permitted : type.getPermittedSubclasses()) {
+      subtypes.add((TypeElement) ((DeclaredType) permitted).asElement());
+    }
+    if (subtypes.isEmpty()) {
+      throw new UnsupportedTypeException(type, "Sealed type has no permitted subtypes");
+    }
+    var concrete =
+        type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.ABSTRACT);
+    if (concrete) {
+      requireStateless(type);
+    }
+    var own = subtypes.size();
+
+    body.append("  @Override\n")
+        .append("  public void encode(")
+        .append(typeName)
+        .append(" value, java.nio.ByteBuffer out) {\n");
+    for (var i = 0; i < subtypes.size(); i++) {
+      var subtype = subtypes.get(i);
+      body.append("    if (value instanceof ")
+          .append(subtype.getQualifiedName())
+          .append(" v) {\n")
+          .append("      com.retiman.template.codec.Wire.writeUnsigned(out, ")
+          .append(i)
+          .append(");\n")
+          .append("      ")
+          .append(codecName(subtype, env))
+          .append(".INSTANCE.encode(v, out);\n")
+          .append("      return;\n")
+          .append("    }\n");
+    }
+    if (concrete) {
+      body.append("    if (value != null && value.getClass() == ")
+          .append(typeName)
+          .append(".class) {\n")
+          .append("      com.retiman.template.codec.Wire.writeUnsigned(out, ")
+          .append(own)
+          .append(");\n")
+          .append("      return;\n")
+          .append("    }\n");
+    }
+    body.append("    throw unknown(value);\n  }\n\n");
+
+    body.append("  @Override\n")
+        .append("  public ")
+        .append(typeName)
+        .append(" decode(java.nio.ByteBuffer in) {\n")
+        .append("    var tag = com.retiman.template.codec.Wire.readLength(in);\n")
+        .append("    return switch (tag) {\n");
+    for (var i = 0; i < subtypes.size(); i++) {
+      body.append("      case ")
+          .append(i)
+          .append(" -> ")
+          .append(codecName(subtypes.get(i), env))
+          .append(".INSTANCE.decode(in);\n");
+    }
+    if (concrete) {
+      body.append("      case ").append(own).append(" -> new ").append(typeName).append("();\n");
+    }
+    body.append("      default -> throw new IllegalArgumentException(\"Unknown subtype of ")
+        .append(type.getSimpleName())
+        .append(": \" + tag);\n")
+        .append("    };\n  }\n\n");
+
+    body.append("  @Override\n")
+        .append("  public int size(")
+        .append(typeName)
+        .append(" value) {\n");
+    for (var i = 0; i < subtypes.size(); i++) {
+      var subtype = subtypes.get(i);
+      body.append("    if (value instanceof ")
+          .append(subtype.getQualifiedName())
+          .append(" v) {\n")
+          .append("      return com.retiman.template.codec.Wire.sizeOfUnsigned(")
+          .append(i)
+          .append(") + ")
+          .append(codecName(subtype, env))
+          .append(".INSTANCE.size(v);\n")
+          .append("    }\n");
+    }
+    if (concrete) {
+      body.append("    if (value != null && value.getClass() == ")
+          .append(typeName)
+          .append(".class) {\n")
+          .append("      return com.retiman.template.codec.Wire.sizeOfUnsigned(")
+          .append(own)
+          .append(");\n")
+          .append("    }\n");
+    }
+    body.append("    throw unknown(value);\n  }\n\n");
+
+    // Only reachable for null, or a subtype added without recompiling this codec.
+    body.append("  private static IllegalArgumentException unknown(")
+        .append(typeName)
+        .append(" value) {\n")
+        .append("    return new IllegalArgumentException(\"Unknown subtype of ")
+        .append(type.getSimpleName())
+        .append(": \" + value);\n")
+        .append("  }\n");
+  }
+
+  // Classes other than records have no components to encode, so they are only supported without
+  // any: no instance fields of their own or inherited, and a constructor without arguments.
+  private static void requireStateless(TypeElement type) throws UnsupportedTypeException {
+    var constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+    if (constructors.stream()
+        .noneMatch(
+            c -> c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE))) {
+      throw new UnsupportedTypeException(
+          type, "@BinaryCodec needs a constructor without arguments for " + type);
+    }
+
+    for (var current = type;
+        current != null && !current.getQualifiedName().contentEquals("java.lang.Object");
+        current =
+            current.getSuperclass() instanceof DeclaredType superclass
+                ? (TypeElement) superclass.asElement()
+                : null) {
+      for (var field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+        if (!field.getModifiers().contains(Modifier.STATIC)) {
+          throw new UnsupportedTypeException(
+              field,
+              "@BinaryCodec only supports classes without instance fields; use a record for "
+                  + type);
+        }
+      }
+    }
+  }
+
+  private Kind classify(TypeMirror type, Element element) throws UnsupportedTypeException {
+    if (type.getKind().isPrimitive()) {
+      return new Primitive(type.getKind());
+    }
+
+    if (type instanceof ArrayType array && array.getComponentType().getKind() == TypeKind.BYTE) {
+      return new Bytes();
+    }
+
+    if (type instanceof DeclaredType declared) {
+      var typeElement = (TypeElement) declared.asElement();
+      var name = typeElement.getQualifiedName().toString();
+      if (name.equals("java.lang.String")) {
+        return new Text();
+      }
+      if (name.equals("java.util.List") && declared.getTypeArguments().size() == 1) {
+        var elementType = declared.getTypeArguments().get(0);
+        var elementKind = classify(elementType, element);
+        if (elementKind instanceof Primitive) {
+          throw new UnsupportedTypeException(element, "Unsupported list element: " + elementType);
+        }
+        return new Sequence(
+            elementKind, "java.util.List<" + elementType + ">", elementType.toString());
+      }
+      try {
+        var unboxed = env.getTypeUtils().unboxedType(type);
+        return new Boxed(new Primitive(unboxed.getKind()), name);
+      } catch (IllegalArgumentException e) {
+        // Not a box.
+      }
+      if (typeElement.getKind() == ElementKind.ENUM) {
+        return new Enumeration(name);
+      }
+      if (roundTypes.contains(name) || typeElement.getAnnotation(BinaryCodec.class) != null) {
+        return new Nested(name, codecName(typeElement, env));
+      }
+    }
+
+    throw new UnsupportedTypeException(
+        element,
+        "Unsupported type "
+            + type
+            + "; components must be primitives, boxes, strings, byte arrays, enums, lists, or"
+            + " types annotated with @BinaryCodec");
+  }
+
+  @SuppressFBWarnings(
+      value = "DLS_DEAD_LOCAL_STORE",
+      justification = "javac keeps pattern switch state and unused bindings in synthetic locals.")
+  private void write(StringBuilder body, Kind kind, String value, String indent) {
+    switch (kind) {
+      case Primitive primitive -> body.append(indent)
+          .append(writePrimitive(primitive, value))
+          .append(";\n");
+      case Boxed boxed -> {
+        var local = local();
+        body.append(indent).append("var ").append(local).append(" = ").append(value).append(";\n");
+        body.append(indent).append("if (").append(local).append(" == null) {\n");
+        body.append(indent).append("  out.put((byte) 0);\n");
+        body.append(indent).append("} else {\n");
+        body.append(indent).append("  out.put((byte) 1);\n");
+        body.append(indent)
+            .append("  ")
+            .append(writePrimitive(boxed.primitive, local))
+            .append(";\n");
+        body.append(indent).append("}\n");
+      }
+      case Text text -> body.append(indent)
+          .append("com.retiman.template.codec.Wire.writeString(out, ")
+          .append(value)
+          .append(");\n");
+      case Bytes bytes -> body.append(indent)
+          .append("com.retiman.template.codec.Wire.writeBytes(out, ")
+          .append(value)
+          .append(");\n");
+      case Enumeration enumeration -> body.append(indent)
+          .append("com.retiman.template.codec.Wire.writeEnum(out, ")
+          .append(value)
+          .append(");\n");
+      case Nested nested -> {
+        var local = local();
+        body.append(indent).append("var ").append(local).append(" = ").append(value).append(";\n");
+        body.append(indent).append("if (").append(local).append(" == null) {\n");
+        body.append(indent).append("  out.put((byte) 0);\n");
+        body.append(indent).append("} else {\n");
+        body.append(indent).append("  out.put((byte) 1);\n");
+        body.append(indent)
+            .append("  ")
+            .append(nested.codec)
+            .append(".INSTANCE.encode(")
+            .append(local)
+            .append(", out);\n");
+        body.append(indent).append("}\n");
+      }
+      case Sequence sequence -> {
+        var local = local();
+        var element = local();
+        body.append(indent).append("var ").append(local).append(" = ").append(value).append(";\n");
+        body.append(indent).append("if (").append(local).append(" == null) {\n");
+        body.append(indent).append("  out.put((byte) 0);\n");
+        body.append(indent).append("} else {\n");
+        body.append(indent)
+            .append("  com.retiman.template.codec.Wire.writeUnsigned(out, ")
+            .append(local)
+            .append(".size() + 1L);\n");
+        body.append(indent)
+            .append("  for (var ")
+            .append(element)
+            .append(" : ")
+            .append(local)
+            .append(") {\n");
+        write(body, sequence.element, element, indent + "    ");
+        body.append(indent).append("  }\n");
+        body.append(indent).append("}\n");
+      }
+    }
+  }
+
+  @SuppressFBWarnings(
+      value = "DLS_DEAD_LOCAL_STORE",
+      justification = "javac keeps pattern switch state and unused bindings in synthetic locals.")
+  private void read(StringBuilder body, Kind kind, String target, String indent) {
+    switch (kind) {
+      case Primitive primitive -> body.append(indent)
+          .append("var ")
+          .append(target)
+          .append(" = ")
+          .append(readPrimitive(primitive))
+          .append(";\n");
+      case Boxed boxed -> body.append(indent)
+          .append(boxed.type)
+          .append(" ")
+          .append(target)
+          .append(" = com.retiman.template.codec.Wire.readBoolean(in) ? ")
+          .append(boxed.type)
+          .append(".valueOf(")
+          .append(readPrimitive(boxed.primitive))
+          .append(") : null;\n");
+      case Text text -> body.append(indent)
+          .append("var ")
+          .append(target)
+          .append(" = com.retiman.template.codec.Wire.readString(in);\n");
+      case Bytes bytes -> body.append(indent)
+          .append("var ")
+          .append(target)
+          .append(" = com.retiman.template.codec.Wire.readBytes(in);\n");
+      case Enumeration enumeration -> {
+        // values() copies its array on every call, so keep one copy per codec.
+        var field = "ENUM_" + enumFields.size();
+        enumFields.add(
+            "  private static final "
+                + enumeration.type
+                + "[] "
+                + field
+                + " = "
+                + enumeration.type
+                + ".values();\n\n");
+        body.append(indent)
+            .append("var ")
+            .append(target)
+            .append(" = com.retiman.template.codec.Wire.readEnum(in, ")
+            .append(field)
+            .append(");\n");
+      }
+      case Nested nested -> body.append(indent)
+          .append(nested.type)
+          .append(" ")
+          .append(target)
+          .append(" = com.retiman.template.codec.Wire.readBoolean(in) ? ")
+          .append(nested.codec)
+          .append(".INSTANCE.decode(in) : null;\n");
+      case Sequence sequence -> {
+        var count = local();
+        var list = local();
+        var index = local();
+        var element = local();
+        body.append(indent).append(sequence.type).append(" ").append(target).append(";\n");
+        body.append(indent)
+            .append("var ")
+            .append(count)
+            .append(" = com.retiman.template.codec.Wire.readLength(in);\n");
+        body.append(indent).append("if (").append(count).append(" == 0) {\n");
+        body.append(indent).append("  ").append(target).append(" = null;\n");
+        body.append(indent).append("} else {\n");
+        // Every element takes at least a byte, so a corrupt count cannot allocate much.
+        body.append(indent)
+            .append("  var ")
+            .append(list)
+            .append(" = new java.util.ArrayList<")
+            .append(sequence.elementType)
+            .append(">(Math.min(")
+            .append(count)
+            .append(" - 1, in.remaining()));\n");
+        body.append(indent)
+            .append("  for (var ")
+            .append(index)
+            .append(" = 1; ")
+            .append(index)
+            .append(" < ")
+            .append(count)
+            .append("; ")
+            .append(index)
+            .append("++) {\n");
+        read(body, sequence.element, element, indent + "    ");
+        body.append(indent)
+            .append("    ")
+            .append(list)
+            .append(".add(")
+            .append(element)
+            .append(");\n");
+        body.append(indent).append("  }\n");
+        body.append(indent)
+            .append("  ")
+            .append(target)
+            .append(" = java.util.Collections.unmodifiableList(")
+            .append(list)
+            .append(");\n");
+        body.append(indent).append("}\n");
+      }
+    }
+  }
+
+  @SuppressFBWarnings(
+      value = "DLS_DEAD_LOCAL_STORE",
+      justification = "javac keeps pattern switch state and unused bindings in synthetic locals.")
+  private void size(StringBuilder body, Kind kind, String value, String indent) {
+    switch (kind) {
+      case Primitive primitive -> body.append(indent)
+          .append("size += ")
+          .append(sizePrimitive(primitive, value))
+          .append(";\n");
+      case Boxed boxed -> {
+        var local = local();
+        body.append(indent).append("var ").append(local).append(" = ").append(value).append(";\n");
+        body.append(indent)
+            .append("size += ")
+            .append(local)
+            .append(" == null ? 1 : 1 + ")
+            .append(sizePrimitive(boxed.primitive, local))
+            .append(";\n");
+      }
+      case Text text -> body.append(indent)
+          .append("size += com.retiman.template.codec.Wire.sizeOfString(")
+          .append(value)
+          .append(");\n");
+      case Bytes bytes -> body.append(indent)
+          .append("size += com.retiman.template.codec.Wire.sizeOfBytes(")
+          .append(value)
+          .append(");\n");
+      case Enumeration enumeration -> body.append(indent)
+          .append("size += com.retiman.template.codec.Wire.sizeOfEnum(")
+          .append(value)
+          .append(");\n");
+      case Nested nested -> {
+        var local = local();
+        body.append(indent).append("var ").append(local).append(" = ").append(value).append(";\n");
+        body.append(indent)
+            .append("size += ")
+            .append(local)
+            .append(" == null ? 1 : 1 + ")
+            .append(nested.codec)
+            .append(".INSTANCE.size(")
+            .append(local)
+            .append(");\n");
+      }
+      case Sequence sequence -> {
+        var local = local();
+        var element = local();
+        body.append(indent).append("var ").append(local).append(" = ").append(value).append(";\n");
+        body.append(indent).append("if (").append(local).append(" == null) {\n");
+        body.append(indent).append("  size += 1;\n");
+        body.append(indent).append("} else {\n");
+        body.append(indent)
+            .append("  size += com.retiman.template.codec.Wire.sizeOfUnsigned(")
+            .append(local)
+            .append(".size() + 1L);\n");
+        body.append(indent)
+            .append("  for (var ")
+            .append(element)
+            .append(" : ")
+            .append(local)
+            .append(") {\n");
+        size(body, sequence.element, element, indent + "    ");
+        body.append(indent).append("  }\n");
+        body.append(indent).append("}\n");
+      }
+    }
+  }
+
+  private static String writePrimitive(Primitive primitive, String value) {
+    return switch (primitive.kind) {
+      case BOOLEAN -> "com.retiman.template.codec.Wire.writeBoolean(out, " + value + ")";
+      case BYTE -> "out.put(" + value + ")";
+      case SHORT, INT -> "com.retiman.template.codec.Wire.writeInt(out, " + value + ")";
+      case CHAR -> "com.retiman.template.codec.Wire.writeUnsigned(out, " + value + ")";
+      case LONG -> "com.retiman.template.codec.Wire.writeLong(out, " + value + ")";
+      case FLOAT -> "com.retiman.template.codec.Wire.writeFloat(out, " + value + ")";
+      default -> "com.retiman.template.codec.Wire.writeDouble(out, " + value + ")";
+    };
+  }
+
+  private static String readPrimitive(Primitive primitive) {
+    return switch (primitive.kind) {
+      case BOOLEAN -> "com.retiman.template.codec.Wire.readBoolean(in)";
+      case BYTE -> "in.get()";
+      case SHORT -> "(short) com.retiman.template.codec.Wire.readInt(in)";
+      case INT -> "com.retiman.template.codec.Wire.readInt(in)";
+      case CHAR -> "(char) com.retiman.template.codec.Wire.readLength(in)";
+      case LONG -> "com.retiman.template.codec.Wire.readLong(in)";
+      case FLOAT -> "com.retiman.template.codec.Wire.readFloat(in)";
+      default -> "com.retiman.template.codec.Wire.readDouble(in)";
+    };
+  }
+
+  private static String sizePrimitive(Primitive primitive, String value) {
+    return switch (primitive.kind) {
+      case BOOLEAN, BYTE -> "1";
+      case SHORT, INT -> "com.retiman.template.codec.Wire.sizeOfInt(" + value + ")";
+      case CHAR -> "com.retiman.template.codec.Wire.sizeOfUnsigned(" + value + ")";
+      case LONG -> "com.retiman.template.codec.Wire.sizeOfLong(" + value + ")";
+      case FLOAT -> "4";
+      default -> "8";
+    };
+  }
+
+  private String local() {
+    return "v" + locals++;
+  }
+
+  private static String simpleCodecName(TypeElement type) {
+    var name = new StringBuilder(type.getSimpleName());
+    for (var enclosing = type.getEnclosingElement();
+        enclosing instanceof TypeElement outer;
+        enclosing = outer.getEnclosingElement()) {
+      name.insert(0, outer.getSimpleName() + "_");
+    }
+    return name.append("Codec").toString();
+  }
+}
@@ -0,0 +1,132 @@
+package com.retiman.template.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public final class WireTest {
+  @Test
+  public void testUnsigned() {
+    long[] values = {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, Long.MAX_VALUE, -1};
+    int[] sizes = {1, 1, 1, 2, 2, 3, 5, 9, 10};
+    for (var i = 0; i < values.length; i++) {
+      var buffer = ByteBuffer.allocate(16);
+      Wire.writeUnsigned(buffer, values[i]);
+      assertThat(buffer.position()).isEqualTo(sizes[i]);
+      assertThat(Wire.sizeOfUnsigned(values[i])).isEqualTo(sizes[i]);
+      assertThat(Wire.readUnsigned(buffer.flip())).isEqualTo(values[i]);
+    }
+  }
+
+  @Test
+  public void testZigzag() {
+    // Small magnitudes take one byte whatever their sign.
+    long[] values = {0, -1, 1, -64, 63, -65, 64, Long.MIN_VALUE, Long.MAX_VALUE};
+    int[] sizes = {1, 1, 1, 1, 1, 2, 2, 10, 10};
+    for (var i = 0; i < values.length; i++) {
+      var buffer = ByteBuffer.allocate(16);
+      Wire.writeLong(buffer, values[i]);
+      assertThat(buffer.position()).isEqualTo(sizes[i]);
+      assertThat(Wire.sizeOfLong(values[i])).isEqualTo(sizes[i]);
+      assertThat(Wire.readLong(buffer.flip())).isEqualTo(values[i]);
+    }
+
+    var buffer = ByteBuffer.allocate(16);
+    Wire.writeInt(buffer, Integer.MIN_VALUE);
+    assertThat(buffer.position()).isEqualTo(Wire.sizeOfInt(Integer.MIN_VALUE)).isEqualTo(5);
+    assertThat(Wire.readInt(buffer.flip())).isEqualTo(Integer.MIN_VALUE);
+  }
+
+  @Test
+  public void testFloatingPoint() {
+    // The same bytes come out whatever order the buffer is in.
+    var big = ByteBuffer.allocate(12);
+    var little = ByteBuffer.allocate(12).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+    Wire.writeDouble(big, Math.PI);
+    Wire.writeFloat(big, Float.NaN);
+    Wire.writeDouble(little, Math.PI);
+    Wire.writeFloat(little, Float.NaN);
+    assertThat(big.array()).isEqualTo(little.array());
+
+    big.flip();
+    assertThat(Wire.readDouble(big)).isEqualTo(Math.PI);
+    assertThat(Wire.readFloat(big)).isNaN();
+  }
+
+  @Test
+  public void testStrings() {
+    String[] values = {
+      "", "hello", "héllo", "日本語", "emoji 😀", "unpaired \uD800 high", "\uDC00", null
+    };
+    for (var value : values) {
+      for (var buffer : new ByteBuffer[] {ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64)}) {
+        Wire.writeString(buffer, value);
+        assertThat(buffer.position()).isEqualTo(Wire.sizeOfString(value));
+        buffer.flip();
+        if (value != null) {
+          // The bytes are exactly what String.getBytes makes, after the length.
+          var expected = value.getBytes(StandardCharsets.UTF_8);
+          assertThat(Wire.readLength(buffer.duplicate())).isEqualTo(expected.length + 1);
+          assertThat(Wire.utf8Length(value)).isEqualTo(expected.length);
+        }
+        assertThat(Wire.readString(buffer))
+            .isEqualTo(
+                value == null
+                    ? null
+                    : new String(value.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        assertThat(buffer.hasRemaining()).isFalse();
+      }
+    }
+  }
+
+  @Test
+  public void testBytesAndEnums() {
+    var buffer = ByteBuffer.allocate(32);
+    Wire.writeBytes(buffer, new byte[] {1, 2, 3});
+    Wire.writeBytes(buffer, null);
+    Wire.writeEnum(buffer, Thread.State.BLOCKED);
+    Wire.writeEnum(buffer, null);
+    buffer.flip();
+
+    assertThat(Wire.readBytes(buffer)).containsExactly(1, 2, 3);
+    assertThat(Wire.readBytes(buffer)).isNull();
+    assertThat(Wire.readEnum(buffer, Thread.State.values())).isEqualTo(Thread.State.BLOCKED);
+    assertThat(Wire.readEnum(buffer, Thread.State.values())).isNull();
+  }
+
+  @Test
+  public void testMalformedInput() {
+    // Eleven continuation bytes are not a varint.
+    var tooLong = ByteBuffer.wrap(new byte[] {-1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0});
+    assertThat(catchThrowable(() -> Wire.readUnsigned(tooLong)))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    // A length that does not fit in an int.
+    var huge = ByteBuffer.allocate(16);
+    Wire.writeUnsigned(huge, 1L << 40);
+    assertThat(catchThrowable(() -> Wire.readLength(huge.flip())))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    // A string that claims more bytes than there are.
+    var truncated = ByteBuffer.allocate(16);
+    Wire.writeUnsigned(truncated, 100);
+    truncated.put((byte) 'a').flip();
+    assertThat(catchThrowable(() -> Wire.readString(truncated)))
+        .isInstanceOf(BufferUnderflowException.class);
+    assertThat(catchThrowable(() -> Wire.readBytes(truncated.rewind())))
+        .isInstanceOf(BufferUnderflowException.class);
+
+    assertThat(catchThrowable(() -> Wire.readBoolean(ByteBuffer.wrap(new byte[] {2}))))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(
+            catchThrowable(
+                () -> Wire.readEnum(ByteBuffer.wrap(new byte[] {100}), Thread.State.values())))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(catchThrowable(() -> Wire.readLong(ByteBuffer.wrap(new byte[] {-128}))))
+        .isInstanceOf(BufferUnderflowException.class);
+  }
+}
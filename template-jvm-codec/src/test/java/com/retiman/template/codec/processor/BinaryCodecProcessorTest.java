@@ -0,0 +1,161 @@
+package com.retiman.template.codec.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class BinaryCodecProcessorTest {
+  @TempDir private Path output;
+
+  @Test
+  public void testGeneratesCodecs() throws IOException {
+    var diagnostics =
+        compile(
+            Map.of(
+                "a.Tree",
+                """
+                package a;
+
+                @com.retiman.template.codec.BinaryCodec
+                public sealed interface Tree {
+                  record Leaf(long value) implements Tree {}
+
+                  record Node(Tree left, Tree right) implements Tree {}
+                }
+                """));
+
+    assertThat(errors(diagnostics)).isEmpty();
+    assertThat(output.resolve("a/TreeCodec.java")).exists();
+    assertThat(output.resolve("a/Tree_LeafCodec.java")).exists();
+    assertThat(Files.readString(output.resolve("a/Tree_NodeCodec.java")))
+        .contains("a.TreeCodec.INSTANCE.encode");
+  }
+
+  @Test
+  public void testGeneratesSealedClassCodecs() throws IOException {
+    var diagnostics =
+        compile(
+            Map.of(
+                "a.Signal",
+                """
+                package a;
+
+                @com.retiman.template.codec.BinaryCodec
+                public sealed class Signal permits Signal.Stop, Signal.Go {
+                  public static final class Stop extends Signal {}
+
+                  public abstract static sealed class Go extends Signal permits Go.Now {
+                    public static final class Now extends Go {}
+                  }
+                }
+                """));
+
+    assertThat(errors(diagnostics)).isEmpty();
+    assertThat(Files.readString(output.resolve("a/SignalCodec.java")))
+        .contains("value.getClass() == a.Signal.class");
+    assertThat(output.resolve("a/Signal_StopCodec.java")).exists();
+    assertThat(output.resolve("a/Signal_Go_NowCodec.java")).exists();
+  }
+
+  @Test
+  public void testRejectsUnsupportedTypes() {
+    var diagnostics =
+        compile(
+            Map.of(
+                "a.Bad",
+                """
+                package a;
+
+                @com.retiman.template.codec.BinaryCodec
+                public record Bad(java.util.Map<String, String> map) {}
+                """,
+                "a.NotARecord",
+                """
+                package a;
+
+                @com.retiman.template.codec.BinaryCodec
+                public final class NotARecord {}
+                """,
+                "a.Stateful",
+                """
+                package a;
+
+                @com.retiman.template.codec.BinaryCodec
+                public sealed interface Stateful {
+                  final class Counter implements Stateful {
+                    int count;
+                  }
+
+                  non-sealed class Open implements Stateful {}
+                }
+                """,
+                "a.Unannotated",
+                """
+                package a;
+
+                @com.retiman.template.codec.BinaryCodec
+                public record Unannotated(java.time.Instant instant) {}
+                """));
+
+    assertThat(errors(diagnostics))
+        .anySatisfy(e -> assertThat(e).contains("Unsupported type java.util.Map"))
+        .anySatisfy(e -> assertThat(e).contains("Unsupported type java.time.Instant"))
+        .anySatisfy(e -> assertThat(e).contains("only applies to records, sealed interfaces"))
+        .anySatisfy(e -> assertThat(e).contains("only supports classes without instance fields"))
+        .anySatisfy(e -> assertThat(e).contains("only supports permitted subtypes that are"));
+  }
+
+  private List<Diagnostic<? extends JavaFileObject>> compile(Map<String, String> sources) {
+    var compiler = ToolProvider.getSystemJavaCompiler();
+    var diagnostics = new DiagnosticCollector<JavaFileObject>();
+    var files =
+        sources.entrySet().stream()
+            .map(e -> (JavaFileObject) new Source(e.getKey(), e.getValue()))
+            .toList();
+    var options =
+        List.of(
+            "-classpath",
+            System.getProperty("java.class.path"),
+            "-d",
+            output.toString(),
+            "-s",
+            output.toString());
+    var task = compiler.getTask(null, null, diagnostics, options, null, files);
+    task.setProcessors(List.of(new BinaryCodecProcessor()));
+    task.call();
+    return diagnostics.getDiagnostics();
+  }
+
+  private static List<String> errors(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+    return diagnostics.stream()
+        .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+        .map(d -> d.getMessage(null))
+        .toList();
+  }
+
+  private static final class Source extends SimpleJavaFileObject {
+    private final String code;
+
+    Source(String name, String code) {
+      super(URI.create("string:///" + name.replace('.', '/') + ".java"), Kind.SOURCE);
+      this.code = code;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return code;
+    }
+  }
+}
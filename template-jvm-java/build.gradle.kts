@@ -1,4 +1,5 @@
 plugins {
+  application
   kotlin("jvm").version("1.9.22")
   id("com.diffplug.spotless").version("7.0.2")
   id("com.github.spotbugs").version("6.0.15")
@@ -30,6 +31,58 @@ spotbugs {
   reportLevel.set(com.github.spotbugs.snom.Confidence.LOW)
 }
 
+application {
+  mainClass.set("com.retiman.template.Main")
+}
+
+// AppCDS only archives classes loaded from jars, so Main is launched from the jar rather than from
+// build/classes, both to train the archive and to use it.  The archive is only valid for the exact
+// classpath it was trained with; on a mismatch the JVM ignores it and loads classes as usual.
+val launchClasspath = files(tasks.jar, configurations.runtimeClasspath)
+val cdsArchive = layout.buildDirectory.file("cds/template-jvm.jsa")
+
+tasks.register<JavaExec>("cdsArchive") {
+  group = "build"
+  description = "Runs Main in training mode, and archives the classes it loaded for AppCDS."
+  classpath = launchClasspath
+  mainClass.set(application.mainClass)
+  args("--train")
+  jvmArgs(
+    "-XX:ArchiveClassesAtExit=${cdsArchive.get().asFile}",
+    // Lists every class it could not archive, e.g. generated ones, which is noise here.
+    "-Xlog:cds=off",
+    "-Dtemplate.display-names=${layout.buildDirectory.file("cds/display-names.bin").get().asFile}",
+  )
+  inputs.files(launchClasspath)
+  outputs.file(cdsArchive)
+}
+
+tasks.named<JavaExec>("run") {
+  dependsOn("cdsArchive")
+  classpath = launchClasspath
+  jvmArgs("-XX:SharedArchiveFile=${cdsArchive.get().asFile}")
+}
+
+// Compiles the per-locale strings in src/main/strings into one memory-mapped table; see
+// StringTableCompiler.  The compiler is part of the main classes, so its output goes under build/
+// rather than into resources, which the main classes depend on.
+val stringsDirectory = layout.projectDirectory.dir("src/main/strings")
+val stringTable = layout.buildDirectory.file("strings/messages.strings")
+
+tasks.register<JavaExec>("compileStrings") {
+  group = "build"
+  description = "Compiles the .properties files in src/main/strings into a string table."
+  classpath = sourceSets["main"].runtimeClasspath
+  mainClass.set("com.retiman.template.text.StringTableCompiler")
+  args(stringTable.get().asFile, stringsDirectory.asFile, "messages")
+  inputs.dir(stringsDirectory)
+  inputs.files(sourceSets["main"].runtimeClasspath)
+  outputs.file(stringTable)
+  doFirst {
+    stringTable.get().asFile.parentFile.mkdirs()
+  }
+}
+
 tasks.withType<JavaCompile>().configureEach {
   options.compilerArgs.add("-Xlint:deprecation")
 }
@@ -37,6 +90,7 @@ tasks.withType<JavaCompile>().configureEach {
 tasks.named("build") {
   dependsOn("spotlessApply")
   dependsOn("spotbugsMain")
+  dependsOn("compileStrings")
 }
 
 tasks.named("check") {
@@ -44,7 +98,30 @@ tasks.named("check") {
 }
 
 tasks.test {
-  useJUnitPlatform()
+  useJUnitPlatform {
+    excludeTags("measurement")
+  }
+  // As Main sets it; see HttpService.
+  systemProperty("sun.net.httpserver.nodelay", "true")
+  testLogging {
+    events("passed", "skipped", "failed")
+    exceptionFormat = org.gradle.api.tasks.testing.logging.TestExceptionFormat.FULL
+    showStandardStreams = true
+  }
+}
+
+// Tests tagged "measurement" start JVMs of their own to measure what JMH cannot, such as startup
+// time and the heap left in use, and print what they find.  They take minutes and depend on the
+// machine, so "test" leaves them out; run them with "gradle :template-jvm-java:measurements".
+tasks.register<Test>("measurements") {
+  group = "verification"
+  description = "Runs the tests tagged \"measurement\", which the test task leaves out."
+  testClassesDirs = sourceSets["test"].output.classesDirs
+  classpath = sourceSets["test"].runtimeClasspath
+  useJUnitPlatform {
+    includeTags("measurement")
+  }
+  systemProperty("sun.net.httpserver.nodelay", "true")
   testLogging {
     events("passed", "skipped", "failed")
     exceptionFormat = org.gradle.api.tasks.testing.logging.TestExceptionFormat.FULL
@@ -72,12 +149,19 @@ tasks.test {
 //
 // TLDR: 99% of the time you just want "implementation" and "testImplementation".
 dependencies {
+  annotationProcessor(project(":template-jvm-codec"))
+
+  implementation(project(":template-jvm-codec"))
   implementation("ch.qos.logback:logback-classic:1.5.18")
   implementation("com.google.guava:guava:33.4.6-jre")
   implementation("com.google.inject:guice:7.0.0")
   implementation("com.ibm.icu:icu4j:77.1")
   implementation("org.slf4j:slf4j-api:2.0.17")
 
+  compileOnly("com.github.spotbugs:spotbugs-annotations:4.8.3")
+
+  testAnnotationProcessor(project(":template-jvm-codec"))
+
   testCompileOnly("com.github.spotbugs:spotbugs-annotations:4.8.3")
 
   testImplementation("org.assertj:assertj-core:3.27.3")
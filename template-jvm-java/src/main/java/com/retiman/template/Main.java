@@ -1,7 +1,74 @@
 package com.retiman.template;
 
+import com.google.inject.Guice;
+import com.google.inject.Stage;
+import com.retiman.template.app.ClientModule;
+import com.retiman.template.app.LocaleModule;
+import com.retiman.template.app.ServiceModule;
+import com.retiman.template.app.Training;
+import com.retiman.template.metrics.MetricsRegistry;
+import com.retiman.template.metrics.MetricsReporter;
+import com.retiman.template.server.HttpService;
+import com.retiman.template.server.ServiceConfig;
+import java.nio.file.Path;
+import java.time.Duration;
+
 public class Main {
-  public static void main(String[] args) {
-    System.out.println("Hello World!");
+  public static final String TRAIN = "--train";
+
+  public static void main(String[] args) throws Exception {
+    // See HttpService; this has to happen before the JDK's HTTP server is first used.
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    // In training mode the service runs on a free port, takes a few rounds of requests, and exits;
+    // see the cdsArchive task.
+    var train = args.length > 0 && args[0].equals(TRAIN);
+    var config =
+        train
+            ? ServiceConfig.loopback()
+            : ServiceConfig.ofPort(
+                args.length > 0 ? Integer.parseInt(args[0]) : ServiceConfig.DEFAULT_PORT);
+    var displayNames =
+        Path.of(
+            System.getProperty(
+                "template.display-names",
+                Path.of(System.getProperty("java.io.tmpdir"), "template-jvm-display-names.bin")
+                    .toString()));
+
+    // The development stage builds singletons when they are first needed, rather than all of them
+    // up front, which keeps ICU and the HTTP client out of startup; -Dtemplate.stage=PRODUCTION
+    // trades that for finding broken bindings before the first request.
+    var stage = Stage.valueOf(System.getProperty("template.stage", Stage.DEVELOPMENT.name()));
+    var injector =
+        Guice.createInjector(
+            stage, new ServiceModule(config), new LocaleModule(displayNames), new ClientModule());
+    var service = injector.getInstance(HttpService.class);
+
+    if (train) {
+      try (service) {
+        Training.run(service, 10);
+      }
+      return;
+    }
+
+    // Metrics are logged every minute, or -Dtemplate.metrics-interval, e.g. PT10S; they are also
+    // served at /metrics.
+    var reporter =
+        MetricsReporter.start(
+            MetricsRegistry.shared(),
+            Duration.parse(System.getProperty("template.metrics-interval", "PT1M")));
+
+    // Drain requests in flight when the process is asked to stop.
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  service.close();
+                  reporter.close();
+                },
+                "http-service-shutdown"));
+    System.out.println("Listening on " + service.uri("/"));
   }
 }
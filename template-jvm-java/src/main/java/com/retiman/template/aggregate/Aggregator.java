@@ -0,0 +1,180 @@
+package com.retiman.template.aggregate;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Aggregates a column of longs with {@link LongCombiner}s, in parallel on a fork-join pool.
+ *
+ * <p>The source is split until the pieces are small enough to keep every worker busy, each piece is
+ * fed to its own combiner, and the combiners are combined in encounter order, so the result is the
+ * same as a sequential run whenever the combiner is associative.
+ *
+ * <p>{@link #aggregateWhile} keeps the semantics of {@link java.util.stream.LongStream#takeWhile}:
+ * it aggregates the longest prefix whose values all match a predicate. An ordered parallel stream
+ * has to buffer every piece until it knows whether the pieces to its left were cut short, which is
+ * why {@code takeWhile} scales poorly. Here each piece knows its index in the column, the least
+ * index of a value that failed the predicate is shared, and pieces at or past it stop, or are never
+ * started, so the work done past the end of the prefix is about one piece per worker.
+ */
+public final class Aggregator {
+  // Each worker gets about this many pieces, so that pieces that finish early can steal others.
+  private static final int PIECES_PER_WORKER = 8;
+
+  private final ForkJoinPool pool;
+
+  public Aggregator() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public Aggregator(ForkJoinPool pool) {
+    this.pool = Objects.requireNonNull(pool, "pool");
+  }
+
+  /** Feeds every value of a source to combiners from a factory, and returns their combination. */
+  public <C extends LongCombiner<C>> C aggregate(Spliterator.OfLong source, Supplier<C> factory) {
+    return run(source, null, factory);
+  }
+
+  /**
+   * Feeds the values of a source to combiners, up to but not including the first value that does
+   * not match a predicate, and returns their combination.
+   *
+   * @throws IllegalArgumentException if the source is not {@link Spliterator#SUBSIZED}
+   */
+  public <C extends LongCombiner<C>> C aggregateWhile(
+      Spliterator.OfLong source, LongPredicate predicate, Supplier<C> factory) {
+    return run(source, Objects.requireNonNull(predicate, "predicate"), factory);
+  }
+
+  // A null predicate matches everything, and lets each piece be scanned in one bulk traversal.
+  private <C extends LongCombiner<C>> C run(
+      Spliterator.OfLong source, LongPredicate predicate, Supplier<C> factory) {
+    if (predicate != null && !source.hasCharacteristics(Spliterator.SUBSIZED)) {
+      throw new IllegalArgumentException("Source must be SUBSIZED");
+    }
+
+    var size = source.estimateSize();
+    var pieceSize = Math.max(1, size / ((long) pool.getParallelism() * PIECES_PER_WORKER));
+    var task = new Scan<>(source, 0, pieceSize, predicate, factory, new AtomicLong(Long.MAX_VALUE));
+    return pool.invoke(task).combiner;
+  }
+
+  // A combiner for a piece, and whether it saw the whole piece; once a piece was cut short, pieces
+  // to its right do not count.
+  private record Partial<C>(C combiner, boolean complete) {}
+
+  @SuppressFBWarnings(
+      value = "SE_BAD_FIELD",
+      justification = "Tasks are never serialized; RecursiveTask is only Serializable by history.")
+  private static final class Scan<C extends LongCombiner<C>> extends RecursiveTask<Partial<C>> {
+    private static final long serialVersionUID = 1L;
+
+    private final Spliterator.OfLong source;
+    private final long offset;
+    private final long pieceSize;
+    private final LongPredicate predicate;
+    private final Supplier<C> factory;
+    private final AtomicLong cutoff;
+
+    private Scan(
+        Spliterator.OfLong source,
+        long offset,
+        long pieceSize,
+        LongPredicate predicate,
+        Supplier<C> factory,
+        AtomicLong cutoff) {
+      this.source = source;
+      this.offset = offset;
+      this.pieceSize = pieceSize;
+      this.predicate = predicate;
+      this.factory = factory;
+      this.cutoff = cutoff;
+    }
+
+    @Override
+    protected Partial<C> compute() {
+      if (offset >= cutoff.get()) {
+        return new Partial<>(factory.get(), false);
+      }
+
+      var prefix = source.estimateSize() > pieceSize ? source.trySplit() : null;
+      if (prefix == null) {
+        return scan();
+      }
+
+      // The source keeps the suffix, which starts after all of the prefix.
+      var left = new Scan<>(prefix, offset, pieceSize, predicate, factory, cutoff);
+      var right =
+          new Scan<>(source, offset + prefix.estimateSize(), pieceSize, predicate, factory, cutoff);
+      right.fork();
+      var result = left.compute();
+      if (!result.complete) {
+        // Whatever the right half found does not count; skip it if nobody has started it.
+        if (!right.tryUnfork()) {
+          right.join();
+        }
+        return result;
+      }
+
+      var rest = right.join();
+      result.combiner.combine(rest.combiner);
+      return new Partial<>(result.combiner, rest.complete);
+    }
+
+    private Partial<C> scan() {
+      var combiner = factory.get();
+      if (predicate == null) {
+        source.forEachRemaining(combiner);
+        return new Partial<>(combiner, true);
+      }
+
+      var step = new Step<>(combiner, predicate);
+      var index = offset;
+      while (step.passed) {
+        // Check the shared cutoff every so often, rather than per value.
+        var limit = cutoff.get();
+        if (index >= limit) {
+          return new Partial<>(combiner, false);
+        }
+        for (var i = 0; i < 1024 && step.passed; i++, index++) {
+          if (!source.tryAdvance(step)) {
+            return new Partial<>(combiner, true);
+          }
+        }
+      }
+
+      // The value at index - 1 failed; let pieces to the right know that they can stop.
+      cutoff.accumulateAndGet(index - 1, Math::min);
+      return new Partial<>(combiner, false);
+    }
+  }
+
+  // Feeds values to a combiner while they match the predicate.
+  private static final class Step<C extends LongCombiner<C>> implements LongConsumer {
+    private final C combiner;
+    private final LongPredicate predicate;
+    private boolean passed = true;
+
+    private Step(C combiner, LongPredicate predicate) {
+      this.combiner = combiner;
+      this.predicate = predicate;
+    }
+
+    @Override
+    public void accept(long value) {
+      if (predicate.test(value)) {
+        combiner.accept(value);
+      } else {
+        passed = false;
+      }
+    }
+  }
+}
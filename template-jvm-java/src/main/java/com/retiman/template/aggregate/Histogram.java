@@ -0,0 +1,61 @@
+package com.retiman.template.aggregate;
+
+import java.util.Arrays;
+
+/**
+ * Counts longs into buckets with fixed bounds. Bucket 0 counts values below the first bound, bucket
+ * i counts values at or above bound i - 1 and below bound i, and the last bucket counts values at
+ * or above the last bound.
+ */
+public final class Histogram implements LongCombiner<Histogram> {
+  private final long[] bounds;
+  private final long[] counts;
+
+  /** Creates a histogram with bounds in ascending order, and one more bucket than bounds. */
+  public Histogram(long... bounds) {
+    for (var i = 1; i < bounds.length; i++) {
+      if (bounds[i] <= bounds[i - 1]) {
+        throw new IllegalArgumentException("Bounds must be ascending: " + Arrays.toString(bounds));
+      }
+    }
+    this.bounds = bounds.clone();
+    this.counts = new long[bounds.length + 1];
+  }
+
+  @Override
+  public void accept(long value) {
+    var index = Arrays.binarySearch(bounds, value);
+    counts[index >= 0 ? index + 1 : -index - 1]++;
+  }
+
+  @Override
+  public void combine(Histogram other) {
+    if (!Arrays.equals(bounds, other.bounds)) {
+      throw new IllegalArgumentException("Bounds differ: " + Arrays.toString(other.bounds));
+    }
+    for (var i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+  }
+
+  public int bucketCount() {
+    return counts.length;
+  }
+
+  public long count(int bucket) {
+    return counts[bucket];
+  }
+
+  public long[] counts() {
+    return counts.clone();
+  }
+
+  @Override
+  public String toString() {
+    return "Histogram[bounds="
+        + Arrays.toString(bounds)
+        + ", counts="
+        + Arrays.toString(counts)
+        + "]";
+  }
+}
@@ -0,0 +1,17 @@
+package com.retiman.template.aggregate;
+
+import java.util.function.LongConsumer;
+
+/**
+ * A mutable accumulator of longs that can be combined with another of its kind, in the manner of
+ * {@link java.util.LongSummaryStatistics}.
+ *
+ * <p>An {@link Aggregator} gives each piece of a split source its own combiner, and combines them
+ * in encounter order, the left piece's combiner absorbing the right's. For the result to match a
+ * sequential run, combining must be associative: feeding values to one combiner must give the same
+ * result as feeding a prefix to one, the rest to another, and combining them.
+ */
+public interface LongCombiner<C extends LongCombiner<C>> extends LongConsumer {
+  /** Folds another combiner's values into this one, as if they had come after this one's. */
+  void combine(C other);
+}
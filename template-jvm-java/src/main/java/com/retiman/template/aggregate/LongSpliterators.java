@@ -0,0 +1,218 @@
+package com.retiman.template.aggregate;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Spliterators over columns of longs in arrays, chunked buffers and memory-mapped files.
+ *
+ * <p>Each one splits its range at the midpoint, down to {@value #MINIMUM_SPLIT} elements, so that a
+ * fork-join pool gets pieces of equal size no matter how the data is laid out; a spliterator over a
+ * list, by contrast, splits by chunk and can leave one thread with most of the work. All of them
+ * are {@link Spliterator#SIZED} and {@link Spliterator#SUBSIZED}, which an {@link Aggregator} needs
+ * to know where each piece starts.
+ */
+public final class LongSpliterators {
+  /** Spliterators stop splitting below this many elements. */
+  public static final int MINIMUM_SPLIT = 1 << 10;
+
+  // Mapped files are split into buffers of at most this many bytes, as a buffer is indexed by int.
+  private static final long MAXIMUM_MAPPING = 1L << 30;
+
+  private static final int CHARACTERISTICS =
+      Spliterator.ORDERED
+          | Spliterator.SIZED
+          | Spliterator.SUBSIZED
+          | Spliterator.NONNULL
+          | Spliterator.IMMUTABLE;
+
+  private LongSpliterators() {}
+
+  public static Spliterator.OfLong of(long[] array) {
+    return of(array, 0, array.length);
+  }
+
+  /** Returns a spliterator over a range of an array, which the caller must not modify. */
+  public static Spliterator.OfLong of(long[] array, int from, int to) {
+    Objects.checkFromToIndex(from, to, array.length);
+    return new ArraySpliterator(array, from, to);
+  }
+
+  /**
+   * Returns a spliterator over the remaining longs of some buffers, in order, as one column. The
+   * buffers may be of any size, and their positions and limits are not changed.
+   */
+  public static Spliterator.OfLong of(List<LongBuffer> chunks) {
+    var buffers = new LongBuffer[chunks.size()];
+    var starts = new long[chunks.size() + 1];
+    for (var i = 0; i < buffers.length; i++) {
+      buffers[i] = chunks.get(i).slice();
+      starts[i + 1] = starts[i] + buffers[i].remaining();
+    }
+    return new ChunkedSpliterator(buffers, starts, 0, starts[buffers.length]);
+  }
+
+  /**
+   * Maps a file of longs into memory, read-only, and returns a spliterator over it. The mapping
+   * stays valid after the file is closed, until the spliterator is garbage collected.
+   *
+   * @throws IllegalArgumentException if the file's size is not a multiple of 8
+   */
+  public static Spliterator.OfLong map(Path file, ByteOrder order) throws IOException {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      var size = channel.size();
+      if (size % Long.BYTES != 0) {
+        throw new IllegalArgumentException("File size is not a multiple of 8: " + size);
+      }
+
+      var chunks = new ArrayList<LongBuffer>();
+      for (var offset = 0L; offset < size; offset += MAXIMUM_MAPPING) {
+        var length = Math.min(MAXIMUM_MAPPING, size - offset);
+        var mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        chunks.add(mapped.order(order).asLongBuffer());
+      }
+      return of(chunks);
+    }
+  }
+
+  public static LongStream stream(Spliterator.OfLong spliterator, boolean parallel) {
+    return StreamSupport.longStream(spliterator, parallel);
+  }
+
+  private static final class ArraySpliterator implements Spliterator.OfLong {
+    private final long[] array;
+    private int index;
+    private final int end;
+
+    private ArraySpliterator(long[] array, int index, int end) {
+      this.array = array;
+      this.index = index;
+      this.end = end;
+    }
+
+    @Override
+    public OfLong trySplit() {
+      if (end - index < 2 * MINIMUM_SPLIT) {
+        return null;
+      }
+      var start = index;
+      index = (index + end) >>> 1;
+      return new ArraySpliterator(array, start, index);
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+      if (index >= end) {
+        return false;
+      }
+      action.accept(array[index++]);
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+      var array = this.array;
+      var end = this.end;
+      for (var i = index; i < end; i++) {
+        action.accept(array[i]);
+      }
+      index = end;
+    }
+
+    @Override
+    public long estimateSize() {
+      return end - index;
+    }
+
+    @Override
+    public int characteristics() {
+      return CHARACTERISTICS;
+    }
+  }
+
+  // Indexes run over all the chunks as one column: element i is in the chunk whose start is the
+  // greatest one at or below i.
+  private static final class ChunkedSpliterator implements Spliterator.OfLong {
+    private final LongBuffer[] chunks;
+    private final long[] starts;
+    private long index;
+    private final long end;
+
+    private ChunkedSpliterator(LongBuffer[] chunks, long[] starts, long index, long end) {
+      this.chunks = chunks;
+      this.starts = starts;
+      this.index = index;
+      this.end = end;
+    }
+
+    @Override
+    public OfLong trySplit() {
+      if (end - index < 2 * MINIMUM_SPLIT) {
+        return null;
+      }
+      var start = index;
+      index = (index + end) >>> 1;
+      return new ChunkedSpliterator(chunks, starts, start, index);
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+      if (index >= end) {
+        return false;
+      }
+      var chunk = chunk(index);
+      action.accept(chunks[chunk].get((int) (index - starts[chunk])));
+      index++;
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+      var i = index;
+      for (var chunk = chunk(i); i < end; chunk++) {
+        var buffer = chunks[chunk];
+        var from = (int) (i - starts[chunk]);
+        var to = (int) (Math.min(end, starts[chunk + 1]) - starts[chunk]);
+        for (var j = from; j < to; j++) {
+          action.accept(buffer.get(j));
+        }
+        i += to - from;
+      }
+      index = end;
+    }
+
+    @Override
+    public long estimateSize() {
+      return end - index;
+    }
+
+    @Override
+    public int characteristics() {
+      return CHARACTERISTICS;
+    }
+
+    private int chunk(long index) {
+      // Empty chunks share their start with the next one, so take the last chunk with that start.
+      var found = Arrays.binarySearch(starts, index);
+      if (found < 0) {
+        return -found - 2;
+      }
+      while (found + 1 < starts.length && starts[found + 1] == index) {
+        found++;
+      }
+      return found;
+    }
+  }
+}
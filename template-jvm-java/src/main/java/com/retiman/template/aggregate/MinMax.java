@@ -0,0 +1,42 @@
+package com.retiman.template.aggregate;
+
+/**
+ * Tracks the least and greatest of some longs. With no values, the minimum is {@link
+ * Long#MAX_VALUE} and the maximum is {@link Long#MIN_VALUE}.
+ */
+public final class MinMax implements LongCombiner<MinMax> {
+  private long min = Long.MAX_VALUE;
+  private long max = Long.MIN_VALUE;
+  private long count;
+
+  @Override
+  public void accept(long value) {
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+    count++;
+  }
+
+  @Override
+  public void combine(MinMax other) {
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+    count += other.count;
+  }
+
+  public long min() {
+    return min;
+  }
+
+  public long max() {
+    return max;
+  }
+
+  public long count() {
+    return count;
+  }
+
+  @Override
+  public String toString() {
+    return "MinMax[min=" + min + ", max=" + max + ", count=" + count + "]";
+  }
+}
@@ -0,0 +1,36 @@
+package com.retiman.template.aggregate;
+
+/** Sums longs, wrapping around on overflow as {@link java.util.stream.LongStream#sum()} does. */
+public final class Sum implements LongCombiner<Sum> {
+  private long sum;
+  private long count;
+
+  @Override
+  public void accept(long value) {
+    sum += value;
+    count++;
+  }
+
+  @Override
+  public void combine(Sum other) {
+    sum += other.sum;
+    count += other.count;
+  }
+
+  public long sum() {
+    return sum;
+  }
+
+  public long count() {
+    return count;
+  }
+
+  public double mean() {
+    return count == 0 ? 0 : (double) sum / count;
+  }
+
+  @Override
+  public String toString() {
+    return "Sum[sum=" + sum + ", count=" + count + "]";
+  }
+}
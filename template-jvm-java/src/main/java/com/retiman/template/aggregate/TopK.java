@@ -0,0 +1,90 @@
+package com.retiman.template.aggregate;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the k greatest of some longs, in a binary min-heap of primitives, so that each value costs
+ * at most a comparison and a sift of log k steps.
+ */
+public final class TopK implements LongCombiner<TopK> {
+  private final long[] heap;
+  private int size;
+
+  public TopK(int k) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("K must be positive: " + k);
+    }
+    this.heap = new long[k];
+  }
+
+  @Override
+  public void accept(long value) {
+    if (size < heap.length) {
+      siftUp(size++, value);
+    } else if (value > heap[0]) {
+      siftDown(value);
+    }
+  }
+
+  @Override
+  public void combine(TopK other) {
+    for (var i = 0; i < other.size; i++) {
+      accept(other.heap[i]);
+    }
+  }
+
+  public int k() {
+    return heap.length;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Returns the values kept, greatest first. */
+  public long[] values() {
+    var values = Arrays.copyOf(heap, size);
+    Arrays.sort(values);
+    for (int i = 0, j = size - 1; i < j; i++, j--) {
+      var swap = values[i];
+      values[i] = values[j];
+      values[j] = swap;
+    }
+    return values;
+  }
+
+  @Override
+  public String toString() {
+    return "TopK" + Arrays.toString(values());
+  }
+
+  private void siftUp(int index, long value) {
+    while (index > 0) {
+      var parent = (index - 1) >>> 1;
+      if (heap[parent] <= value) {
+        break;
+      }
+      heap[index] = heap[parent];
+      index = parent;
+    }
+    heap[index] = value;
+  }
+
+  // Replaces the least value with a greater one.
+  private void siftDown(long value) {
+    var index = 0;
+    var half = size >>> 1;
+    while (index < half) {
+      var child = 2 * index + 1;
+      if (child + 1 < size && heap[child + 1] < heap[child]) {
+        child++;
+      }
+      if (value <= heap[child]) {
+        break;
+      }
+      heap[index] = heap[child];
+      index = child;
+    }
+    heap[index] = value;
+  }
+}
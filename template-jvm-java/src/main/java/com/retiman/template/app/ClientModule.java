@@ -0,0 +1,19 @@
+package com.retiman.template.app;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.retiman.template.http.HttpClientPool;
+import jakarta.inject.Singleton;
+
+/**
+ * Binds the outbound {@link HttpClientPool}. Its clients, executor and the JDK's HTTP stack are
+ * only loaded the first time it is provided, so services that call out only on some requests should
+ * inject a {@link jakarta.inject.Provider} of it.
+ */
+public final class ClientModule extends AbstractModule {
+  @Provides
+  @Singleton
+  HttpClientPool pool() {
+    return new HttpClientPool();
+  }
+}
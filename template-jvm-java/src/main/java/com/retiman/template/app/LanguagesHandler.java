@@ -0,0 +1,30 @@
+package com.retiman.template.app;
+
+import com.retiman.template.locale.DisplayNameTable;
+import com.retiman.template.server.Handler;
+import com.retiman.template.server.Request;
+import com.retiman.template.server.Response;
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+
+/** Lists the supported locales by name, in the request's locale. */
+public final class LanguagesHandler implements Handler {
+  // A provider, so that ICU is not loaded until someone asks for this page.
+  private final Provider<DisplayNameTable> table;
+
+  @Inject
+  LanguagesHandler(Provider<DisplayNameTable> table) {
+    this.table = table;
+  }
+
+  @Override
+  public Response handle(Request request) {
+    var table = this.table.get();
+    var sb = new StringBuilder();
+    for (var target : table.targets()) {
+      sb.append(target.tag()).append(": ");
+      table.append(sb, target, request.locale(), DisplayNameTable.Field.NAME).append('\n');
+    }
+    return Response.text(sb.toString());
+  }
+}
@@ -0,0 +1,48 @@
+package com.retiman.template.app;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.retiman.template.locale.DisplayNameTable;
+import com.retiman.template.locale.LocaleRegistry;
+import com.retiman.template.server.ServiceConfig;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Binds locale data that is backed by ICU.
+ *
+ * <p>Opening the display name table loads ICU's locale data, which takes longer than the rest of
+ * startup put together, so it is a lazy singleton: it is opened the first time it is provided,
+ * unless the injector was created in {@link com.google.inject.Stage#PRODUCTION}, which builds every
+ * singleton up front.
+ */
+public final class LocaleModule extends AbstractModule {
+  public static final int DISPLAY_NAME_CAPACITY = 1 << 20;
+
+  private final Path displayNames;
+
+  /** Keeps display names in a file, which later processes reopen warm. */
+  public LocaleModule(Path displayNames) {
+    this.displayNames = displayNames;
+  }
+
+  @Provides
+  @Singleton
+  LocaleRegistry registry() {
+    return LocaleRegistry.shared();
+  }
+
+  // Every supported locale's name, in every supported locale.
+  @Provides
+  @Singleton
+  DisplayNameTable displayNameTable(ServiceConfig config, LocaleRegistry registry) {
+    var locales = config.supportedLocales().stream().map(registry::resolve).toList();
+    try {
+      return DisplayNameTable.open(displayNames, locales, locales, DISPLAY_NAME_CAPACITY);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.retiman.template.app;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.multibindings.MapBinder;
+import com.retiman.template.server.Handler;
+import com.retiman.template.server.HttpService;
+import com.retiman.template.server.Response;
+import com.retiman.template.server.ServiceConfig;
+import jakarta.inject.Singleton;
+import java.util.Map;
+
+/**
+ * Binds the {@link HttpService} and its routes.
+ *
+ * <p>Routes are contributed to a map binder, so other modules can add their own. Handlers that need
+ * something expensive should inject a {@link jakarta.inject.Provider} of it rather than the thing
+ * itself, so that it is built on the first request that needs it rather than at startup.
+ */
+public final class ServiceModule extends AbstractModule {
+  private final ServiceConfig config;
+
+  public ServiceModule(ServiceConfig config) {
+    this.config = config;
+  }
+
+  @Override
+  protected void configure() {
+    bind(ServiceConfig.class).toInstance(config);
+
+    var routes = MapBinder.newMapBinder(binder(), String.class, Handler.class);
+    routes.addBinding("/").toInstance(request -> Response.text("Hello World!"));
+    routes.addBinding("/languages").to(LanguagesHandler.class);
+  }
+
+  @Provides
+  @Singleton
+  HttpService service(ServiceConfig config, Map<String, Handler> routes) {
+    return HttpService.start(config, routes);
+  }
+}
@@ -0,0 +1,40 @@
+package com.retiman.template.app;
+
+import com.retiman.template.server.HttpService;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+/**
+ * Sends a service the kinds of requests that production traffic would, so that a JVM run with
+ * {@code -XX:ArchiveClassesAtExit} puts the classes those requests load into its AppCDS archive.
+ */
+public final class Training {
+  private static final List<String> PATHS = List.of("/", "/languages", "/metrics", "/missing");
+  private static final List<String> LANGUAGES =
+      List.of("en-US", "fr-CH, fr;q=0.9, de;q=0.5", "zh-TW", "ja", "*");
+
+  private Training() {}
+
+  public static void run(HttpService service, int rounds) throws IOException, InterruptedException {
+    try (var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+      for (var round = 0; round < rounds; round++) {
+        for (var path : PATHS) {
+          for (var language : LANGUAGES) {
+            var request =
+                HttpRequest.newBuilder(service.uri(path))
+                    .header("Accept-Language", language)
+                    .build();
+            var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 500) {
+              throw new IllegalStateException(
+                  "Training request to " + path + " failed: " + response.statusCode());
+            }
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.retiman.template.collect;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.retiman.template.metrics.LatencyHistogram;
+import com.retiman.template.metrics.MetricsRegistry;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A concurrent cache of compiled values that holds at most a maximum number of entries, evicting
+ * the least recently used once it is full.
+ *
+ * <p>Values are compiled outside the cache's locks, so two threads that miss on the same key at
+ * once may both compile it; the first to finish is kept, and both return it. Lookups never block. A
+ * hit does allocate a little, as the read is queued up to keep the eviction order.
+ *
+ * <p>Hits and misses across every cache of a name are counted in the {@link
+ * MetricsRegistry#shared() shared metrics registry}, as {@code <name>_cache_hits_total} and {@code
+ * <name>_cache_misses_total}, along with the time each compilation takes, as {@code
+ * <name>_compile_seconds}.
+ */
+public final class BoundedCache<K, V> {
+  private final Cache<K, V> cache;
+  private final int maximumSize;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder sharedHits;
+  private final LongAdder sharedMisses;
+  private final LatencyHistogram compileLatencies;
+
+  public BoundedCache(String name, int maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+    }
+
+    var metrics = MetricsRegistry.shared();
+    this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    this.maximumSize = maximumSize;
+    this.sharedHits = metrics.counter(name + "_cache_hits_total");
+    this.sharedMisses = metrics.counter(name + "_cache_misses_total");
+    this.compileLatencies = metrics.histogram(name + "_compile_seconds");
+  }
+
+  /**
+   * Returns the value cached for a key, compiling and caching it on a miss. Exceptions thrown by
+   * the compiler are thrown as they are, and nothing is cached.
+   */
+  public V get(K key, Function<? super K, ? extends V> compiler) {
+    Objects.requireNonNull(key, "key");
+
+    var cached = cache.getIfPresent(key);
+    if (cached != null) {
+      hits.increment();
+      sharedHits.increment();
+      return cached;
+    }
+
+    misses.increment();
+    sharedMisses.increment();
+    var start = System.nanoTime();
+    V value = compiler.apply(key);
+    compileLatencies.recordSince(start);
+    var raced = cache.asMap().putIfAbsent(key, value);
+    return raced != null ? raced : value;
+  }
+
+  public int maximumSize() {
+    return maximumSize;
+  }
+
+  public int size() {
+    return (int) cache.size();
+  }
+
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  public long missCount() {
+    return misses.sum();
+  }
+}
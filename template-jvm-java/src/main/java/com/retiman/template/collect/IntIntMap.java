@@ -0,0 +1,233 @@
+package com.retiman.template.collect;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A hash map from {@code int} to {@code int}, with open addressing, so that neither keys nor values
+ * are boxed.
+ *
+ * <p>Keys and values are kept in two parallel arrays and probed linearly, so a lookup is a hash and
+ * a scan of adjacent slots, with no entry objects to chase. Zero marks an empty slot, so a zero key
+ * is kept on the side. Removal shifts later entries back rather than leaving tombstones, so a map
+ * that churns does not slow down. The table doubles when it is three quarters full.
+ *
+ * <p>{@link #addTo(int, int)} is meant for counting and summing by key, which would otherwise be a
+ * {@code merge} on a {@code Map<Integer, Integer>} and box both sides.
+ *
+ * <p>This class is not safe for concurrent use.
+ */
+public final class IntIntMap {
+  private static final int MINIMUM_CAPACITY = 8;
+
+  /** Receives the entries of a map. */
+  @FunctionalInterface
+  public interface EntryConsumer {
+    void accept(int key, int value);
+  }
+
+  private int[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+  private int threshold;
+  private boolean hasZeroKey;
+  private int zeroValue;
+
+  public IntIntMap() {
+    this(MINIMUM_CAPACITY);
+  }
+
+  /** Creates a map that can hold an expected number of entries without growing. */
+  public IntIntMap(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+    }
+    allocate(tableSize(expectedSize));
+  }
+
+  public int size() {
+    return size + (hasZeroKey ? 1 : 0);
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public boolean containsKey(int key) {
+    return key == 0 ? hasZeroKey : keys[slot(key)] != 0;
+  }
+
+  public int getOrDefault(int key, int defaultValue) {
+    if (key == 0) {
+      return hasZeroKey ? zeroValue : defaultValue;
+    }
+    var slot = slot(key);
+    return keys[slot] != 0 ? values[slot] : defaultValue;
+  }
+
+  /** Maps a key to a value, and returns the value it replaced, or 0 if there was none. */
+  public int put(int key, int value) {
+    if (key == 0) {
+      var previous = hasZeroKey ? zeroValue : 0;
+      hasZeroKey = true;
+      zeroValue = value;
+      return previous;
+    }
+
+    var slot = slot(key);
+    if (keys[slot] != 0) {
+      var previous = values[slot];
+      values[slot] = value;
+      return previous;
+    }
+
+    insert(slot, key, value);
+    return 0;
+  }
+
+  /** Adds to the value of a key, which starts at 0, and returns the new value. */
+  public int addTo(int key, int delta) {
+    if (key == 0) {
+      zeroValue = (hasZeroKey ? zeroValue : 0) + delta;
+      hasZeroKey = true;
+      return zeroValue;
+    }
+
+    var slot = slot(key);
+    if (keys[slot] != 0) {
+      return values[slot] += delta;
+    }
+
+    insert(slot, key, delta);
+    return delta;
+  }
+
+  /** Removes a key, and returns whether it was in the map. */
+  public boolean remove(int key) {
+    if (key == 0) {
+      var had = hasZeroKey;
+      hasZeroKey = false;
+      zeroValue = 0;
+      return had;
+    }
+
+    var slot = slot(key);
+    if (keys[slot] == 0) {
+      return false;
+    }
+
+    // Shift back any later entry in the run that would no longer be found past the hole.
+    var hole = slot;
+    for (var next = (hole + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+      var ideal = hash(keys[next]) & mask;
+      if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+        keys[hole] = keys[next];
+        values[hole] = values[next];
+        hole = next;
+      }
+    }
+    keys[hole] = 0;
+    values[hole] = 0;
+    size--;
+    return true;
+  }
+
+  /** Removes all entries, but keeps the table for reuse. */
+  public void clear() {
+    Arrays.fill(keys, 0);
+    Arrays.fill(values, 0);
+    size = 0;
+    hasZeroKey = false;
+    zeroValue = 0;
+  }
+
+  public void forEach(EntryConsumer action) {
+    if (hasZeroKey) {
+      action.accept(0, zeroValue);
+    }
+    for (var i = 0; i < keys.length; i++) {
+      if (keys[i] != 0) {
+        action.accept(keys[i], values[i]);
+      }
+    }
+  }
+
+  /** Returns the keys, in no particular order, but the same order as {@link #values()}. */
+  public IntStream keys() {
+    var keys = this.keys;
+    var table = IntStream.range(0, keys.length).filter(i -> keys[i] != 0).map(i -> keys[i]);
+    return hasZeroKey ? IntStream.concat(IntStream.of(0), table) : table;
+  }
+
+  /** Returns the values, in no particular order, but the same order as {@link #keys()}. */
+  public IntStream values() {
+    var keys = this.keys;
+    var values = this.values;
+    var table = IntStream.range(0, keys.length).filter(i -> keys[i] != 0).map(i -> values[i]);
+    return hasZeroKey ? IntStream.concat(IntStream.of(zeroValue), table) : table;
+  }
+
+  @Override
+  public String toString() {
+    var builder = new StringBuilder(size() * 8 + 2).append('{');
+    forEach(
+        (key, value) ->
+            builder
+                .append(builder.length() == 1 ? "" : ", ")
+                .append(key)
+                .append('=')
+                .append(value));
+    return builder.append('}').toString();
+  }
+
+  // Returns the slot that holds a nonzero key, or the empty slot where it would go.
+  private int slot(int key) {
+    var slot = hash(key) & mask;
+    while (keys[slot] != 0 && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void insert(int slot, int key, int value) {
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size > threshold) {
+      rehash(keys.length * 2);
+    }
+  }
+
+  private void rehash(int capacity) {
+    var oldKeys = keys;
+    var oldValues = values;
+    allocate(capacity);
+    for (var i = 0; i < oldKeys.length; i++) {
+      var key = oldKeys[i];
+      if (key != 0) {
+        var slot = slot(key);
+        keys[slot] = key;
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+    threshold = capacity / 4 * 3;
+  }
+
+  private static int tableSize(int expectedSize) {
+    var needed = (int) Math.min(1 << 30, (long) expectedSize * 4 / 3 + 1);
+    return Math.max(MINIMUM_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+  }
+
+  // Fibonacci hashing spreads keys that differ only in their high bits, and the shift folds the
+  // well-mixed high bits into the low bits that the mask keeps.
+  private static int hash(int key) {
+    var hash = key * 0x9e3779b9;
+    return hash ^ (hash >>> 16);
+  }
+}
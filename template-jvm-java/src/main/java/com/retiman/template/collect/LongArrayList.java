@@ -0,0 +1,205 @@
+package com.retiman.template.collect;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+
+/**
+ * A growable list of {@code long}s, backed by an {@code long[]}, so that its elements are never
+ * boxed.
+ *
+ * <p>A {@code List<Long>} holds a pointer per element to a Long, and only -128 to 127 are cached,
+ * so most elements are a separate 16 byte object. This list holds 8 bytes per element, and its
+ * operations take primitive functional interfaces. {@link #filter}, {@link #map} and {@link
+ * #takeWhile} are eager: each returns a new list, which costs one array rather than an object per
+ * element. For lazy pipelines, {@link #stream()} bridges to an {@link LongStream}.
+ *
+ * <p>This class is not safe for concurrent use.
+ */
+public final class LongArrayList {
+  private static final long[] EMPTY = {};
+
+  private long[] elements;
+  private int size;
+
+  public LongArrayList() {
+    this.elements = EMPTY;
+  }
+
+  public LongArrayList(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+    }
+    this.elements = capacity == 0 ? EMPTY : new long[capacity];
+  }
+
+  public static LongArrayList of(long... values) {
+    var list = new LongArrayList(values.length);
+    System.arraycopy(values, 0, list.elements, 0, values.length);
+    list.size = values.length;
+    return list;
+  }
+
+  /** Collects a stream into a list; parallel streams are collected in encounter order. */
+  public static LongArrayList from(LongStream stream) {
+    return stream.collect(LongArrayList::new, LongArrayList::add, LongArrayList::addAll);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public long get(int index) {
+    return elements[Objects.checkIndex(index, size)];
+  }
+
+  /** Replaces an element, and returns the element it replaced. */
+  public long set(int index, long value) {
+    var previous = elements[Objects.checkIndex(index, size)];
+    elements[index] = value;
+    return previous;
+  }
+
+  public void add(long value) {
+    if (size == elements.length) {
+      grow(size + 1);
+    }
+    elements[size++] = value;
+  }
+
+  public void addAll(LongArrayList other) {
+    ensureCapacity(size + other.size);
+    System.arraycopy(other.elements, 0, elements, size, other.size);
+    size += other.size;
+  }
+
+  public void ensureCapacity(int capacity) {
+    if (capacity > elements.length) {
+      grow(capacity);
+    }
+  }
+
+  /** Removes all elements, but keeps the backing array for reuse. */
+  public void clear() {
+    size = 0;
+  }
+
+  public boolean contains(long value) {
+    return indexOf(value) >= 0;
+  }
+
+  public int indexOf(long value) {
+    for (var i = 0; i < size; i++) {
+      if (elements[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public void sort() {
+    Arrays.sort(elements, 0, size);
+  }
+
+  public long[] toArray() {
+    return Arrays.copyOf(elements, size);
+  }
+
+  public LongStream stream() {
+    return Arrays.stream(elements, 0, size);
+  }
+
+  public void forEach(LongConsumer action) {
+    for (var i = 0; i < size; i++) {
+      action.accept(elements[i]);
+    }
+  }
+
+  /** Returns a new list of the elements that match a predicate. */
+  public LongArrayList filter(LongPredicate predicate) {
+    var result = new LongArrayList(size);
+    for (var i = 0; i < size; i++) {
+      var value = elements[i];
+      if (predicate.test(value)) {
+        result.elements[result.size++] = value;
+      }
+    }
+    return result;
+  }
+
+  /** Returns a new list of the results of applying a function to each element. */
+  public LongArrayList map(LongUnaryOperator mapper) {
+    var result = new LongArrayList(size);
+    for (var i = 0; i < size; i++) {
+      result.elements[i] = mapper.applyAsLong(elements[i]);
+    }
+    result.size = size;
+    return result;
+  }
+
+  /** Returns a new list of the elements before the first one that does not match a predicate. */
+  public LongArrayList takeWhile(LongPredicate predicate) {
+    var end = 0;
+    while (end < size && predicate.test(elements[end])) {
+      end++;
+    }
+    var result = new LongArrayList(end);
+    System.arraycopy(elements, 0, result.elements, 0, end);
+    result.size = end;
+    return result;
+  }
+
+  public long reduce(long identity, LongBinaryOperator operator) {
+    var result = identity;
+    for (var i = 0; i < size; i++) {
+      result = operator.applyAsLong(result, elements[i]);
+    }
+    return result;
+  }
+
+  /** Returns the sum of the elements, which wraps around on overflow. */
+  public long sum() {
+    var sum = 0L;
+    for (var i = 0; i < size; i++) {
+      sum += elements[i];
+    }
+    return sum;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof LongArrayList other
+        && Arrays.equals(elements, 0, size, other.elements, 0, other.size);
+  }
+
+  @Override
+  public int hashCode() {
+    var hash = 1;
+    for (var i = 0; i < size; i++) {
+      hash = 31 * hash + Long.hashCode(elements[i]);
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    var builder = new StringBuilder(size * 8 + 2).append('[');
+    for (var i = 0; i < size; i++) {
+      builder.append(i == 0 ? "" : ", ").append(elements[i]);
+    }
+    return builder.append(']').toString();
+  }
+
+  private void grow(int minimum) {
+    var capacity = Math.max(minimum, Math.max(10, elements.length + (elements.length >> 1)));
+    elements = Arrays.copyOf(elements, capacity);
+  }
+}
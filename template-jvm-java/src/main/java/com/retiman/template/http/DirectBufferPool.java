@@ -0,0 +1,93 @@
+package com.retiman.template.http;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of equally sized direct buffers.
+ *
+ * <p>Direct buffers are expensive to allocate and are only freed by the garbage collector, so code
+ * that streams large amounts of data should reuse a few of them rather than allocate one per chunk.
+ * The pool retains at most {@link #capacity()} buffers. When they are all in use, {@link
+ * #acquire()} allocates a new one rather than blocking, and {@link #release(ByteBuffer)} drops the
+ * extra buffer again; callers that care should apply backpressure based on {@link #available()}.
+ *
+ * <p>This class is safe for concurrent use.
+ */
+public final class DirectBufferPool {
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  public static final int DEFAULT_CAPACITY = 16;
+
+  private final int bufferSize;
+  private final int capacity;
+  private final ArrayBlockingQueue<ByteBuffer> free;
+  private final AtomicInteger allocated = new AtomicInteger();
+  private final LongAdder overflows = new LongAdder();
+  private final LongAdder drops = new LongAdder();
+
+  public DirectBufferPool() {
+    this(DEFAULT_BUFFER_SIZE, DEFAULT_CAPACITY);
+  }
+
+  public DirectBufferPool(int bufferSize, int capacity) {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+    }
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+
+    this.bufferSize = bufferSize;
+    this.capacity = capacity;
+    this.free = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /** Returns a cleared buffer, which the caller must give back with {@link #release}. */
+  public ByteBuffer acquire() {
+    var buffer = free.poll();
+    if (buffer != null) {
+      return buffer;
+    }
+
+    // Buffers are allocated lazily, up to the capacity; past it they are overflow.
+    if (allocated.getAndUpdate(n -> Math.min(n + 1, capacity)) >= capacity) {
+      overflows.increment();
+    }
+
+    return ByteBuffer.allocateDirect(bufferSize);
+  }
+
+  /** Gives a buffer back to the pool. Buffers that did not come from this pool are ignored. */
+  public void release(ByteBuffer buffer) {
+    // If the pool is already full, this was an overflow buffer, and can be dropped.
+    var pooled = buffer.isDirect() && buffer.capacity() == bufferSize && !buffer.isReadOnly();
+    if (pooled && !free.offer(buffer.clear())) {
+      drops.increment();
+    }
+  }
+
+  public int bufferSize() {
+    return bufferSize;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  /** Returns the number of buffers that can be acquired without allocating or overflowing. */
+  public int available() {
+    return free.size() + (capacity - allocated.get());
+  }
+
+  /** Returns the number of buffers allocated past the capacity because the pool was empty. */
+  public long overflowCount() {
+    return overflows.sum();
+  }
+
+  /** Returns the number of released buffers dropped because the pool was already full. */
+  public long dropCount() {
+    return drops.sum();
+  }
+}
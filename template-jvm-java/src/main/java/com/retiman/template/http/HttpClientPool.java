@@ -0,0 +1,229 @@
+package com.retiman.template.http;
+
+import com.retiman.template.metrics.LatencyHistogram;
+import com.retiman.template.metrics.MetricsRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A shared layer over {@link HttpClient} for services that make many outbound calls.
+ *
+ * <p>There is one client per {@link HttpProfile}, so requests with the same profile share a
+ * connection pool, and every request runs on its own virtual thread. The number of requests in
+ * flight to each host is capped by a semaphore: a request over the cap waits on its virtual thread,
+ * which costs no platform thread, so a burst of calls queues up instead of opening a connection
+ * each. Latencies are recorded per host, from when a request gets its permit to when its response
+ * body has been handled. The same latencies, over all hosts, go to the {@link
+ * MetricsRegistry#shared() shared metrics registry}, and every request is recorded as a {@code
+ * com.retiman.template.HttpExchange} JFR event.
+ *
+ * <p>This class is safe for concurrent use.
+ */
+public final class HttpClientPool implements AutoCloseable {
+  private static final LongAdder REJECTED =
+      MetricsRegistry.shared().counter("http_client_requests_rejected_total");
+  private static final LatencyHistogram LATENCIES =
+      MetricsRegistry.shared().histogram("http_client_request_duration_seconds");
+
+  private final ExecutorService executor;
+  private final ConcurrentHashMap<String, Client> clients = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Host> hosts = new ConcurrentHashMap<>();
+
+  public HttpClientPool() {
+    this.executor =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-client-", 0).factory());
+  }
+
+  /**
+   * Sends a request on a virtual thread.
+   *
+   * <p>If the host already has {@link HttpProfile#maxInFlightPerHost()} requests in flight, the
+   * request waits for one of them to finish; if it waits longer than the request timeout, the
+   * future fails with an {@link HttpTimeoutException}. A request without a timeout of its own is
+   * sent with the profile's, so that a host that never answers cannot hold on to its permits.
+   */
+  public <T> CompletableFuture<HttpResponse<T>> sendAsync(
+      HttpProfile profile, HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+    var future = new CompletableFuture<HttpResponse<T>>();
+    executor.execute(
+        () -> {
+          try {
+            future.complete(send(profile, request, handler));
+          } catch (Throwable t) {
+            future.completeExceptionally(t);
+          }
+        });
+    return future;
+  }
+
+  /**
+   * Sends a request on the calling thread, with the same limits as {@link #sendAsync}. This is
+   * meant for callers that are already on a virtual thread.
+   */
+  public <T> HttpResponse<T> send(
+      HttpProfile profile, HttpRequest request, HttpResponse.BodyHandler<T> handler)
+      throws IOException, InterruptedException {
+    var client = client(profile);
+    if (!client.profile.equals(profile)) {
+      throw new IllegalArgumentException("Profile " + profile.name() + " changed: " + profile);
+    }
+
+    var host = host(request.uri(), profile);
+    var timeout = request.timeout().orElse(profile.requestTimeout());
+    var timed =
+        request.timeout().isPresent()
+            ? request
+            : HttpRequest.newBuilder(request, (name, value) -> true).timeout(timeout).build();
+    var event = new HttpExchangeEvent();
+    event.begin();
+    var queued = System.nanoTime();
+    if (!host.permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+      host.rejected.increment();
+      REJECTED.increment();
+      commit(event, profile, request, 0, System.nanoTime() - queued);
+      throw new HttpTimeoutException("Timed out waiting for a connection to " + host.name);
+    }
+
+    var start = System.nanoTime();
+    var status = 0;
+    try {
+      var response = client.client.send(timed, handler);
+      status = response.statusCode();
+      return response;
+    } finally {
+      host.permits.release();
+      var elapsed = System.nanoTime() - start;
+      host.latencies.record(elapsed);
+      LATENCIES.record(elapsed);
+      commit(event, profile, request, status, start - queued);
+    }
+  }
+
+  /** A blocking convenience for callers on platform threads, e.g. in tests. */
+  public <T> HttpResponse<T> sendAndWait(
+      HttpProfile profile, HttpRequest request, HttpResponse.BodyHandler<T> handler)
+      throws IOException, InterruptedException {
+    try {
+      return sendAsync(profile, request, handler).get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException cause) {
+        throw cause;
+      } else if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /** Returns the latencies of requests to a host, e.g. "example.com:443". */
+  public LatencyHistogram latencies(String host) {
+    var state = hosts.get(host);
+    return state != null ? state.latencies : new LatencyHistogram();
+  }
+
+  /** Returns the number of requests to a host that are in flight right now. */
+  public int inFlight(String host) {
+    var state = hosts.get(host);
+    return state != null ? state.maxInFlight - state.permits.availablePermits() : 0;
+  }
+
+  /** Returns the number of requests to a host that timed out waiting for a permit. */
+  public long rejectedCount(String host) {
+    var state = hosts.get(host);
+    return state != null ? state.rejected.sum() : 0;
+  }
+
+  /** Returns the key that {@link #latencies(String)} and friends use for a URI's host. */
+  public static String hostKey(URI uri) {
+    var port = uri.getPort();
+    if (port < 0) {
+      port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    return uri.getHost() + ":" + port;
+  }
+
+  /** Waits for requests in flight to finish, then closes every client. */
+  @Override
+  public void close() {
+    executor.close();
+    for (var client : clients.values()) {
+      client.client.close();
+    }
+    clients.clear();
+  }
+
+  private static void commit(
+      HttpExchangeEvent event,
+      HttpProfile profile,
+      HttpRequest request,
+      int status,
+      long queuedNanos) {
+    if (event.shouldCommit()) {
+      event.profile = profile.name();
+      event.method = request.method();
+      event.uri = request.uri().toString();
+      event.status = status;
+      event.queued = queuedNanos;
+      event.commit();
+    }
+  }
+
+  private Client client(HttpProfile profile) {
+    var client = clients.get(profile.name());
+    if (client != null) {
+      return client;
+    }
+
+    return clients.computeIfAbsent(
+        profile.name(),
+        name ->
+            new Client(
+                profile,
+                HttpClient.newBuilder()
+                    .version(profile.version())
+                    .connectTimeout(profile.connectTimeout())
+                    .executor(executor)
+                    .build()));
+  }
+
+  // The first profile to reach a host sets its limit; hosts shared between profiles with different
+  // limits get whichever came first.
+  private Host host(URI uri, HttpProfile profile) {
+    var key = hostKey(uri);
+    var host = hosts.get(key);
+    if (host != null) {
+      return host;
+    }
+
+    return hosts.computeIfAbsent(key, k -> new Host(k, profile.maxInFlightPerHost()));
+  }
+
+  private record Client(HttpProfile profile, HttpClient client) {}
+
+  private static final class Host {
+    private final String name;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+
+    private Host(String name, int maxInFlight) {
+      this.name = name;
+      this.maxInFlight = maxInFlight;
+      this.permits = new Semaphore(maxInFlight);
+    }
+  }
+}
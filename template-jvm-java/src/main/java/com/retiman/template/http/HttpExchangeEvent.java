@@ -0,0 +1,38 @@
+package com.retiman.template.http;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Recorded for every request sent through an HttpClientPool, from when it waits for a permit to
+// when its response has been handled.
+@Name("com.retiman.template.HttpExchange")
+@Label("HTTP Exchange")
+@Category({"Template", "HTTP"})
+@Description("An outbound request sent through an HttpClientPool")
+@SuppressFBWarnings(
+    value = "URF_UNREAD_FIELD",
+    justification = "JFR reads the fields when the event is committed.")
+final class HttpExchangeEvent extends Event {
+  @Label("Profile")
+  String profile;
+
+  @Label("Method")
+  String method;
+
+  @Label("URI")
+  String uri;
+
+  @Label("Status")
+  @Description("The response status, or 0 if there was no response")
+  int status;
+
+  @Label("Queued")
+  @Description("Time spent waiting for a permit to the host")
+  @Timespan(Timespan.NANOSECONDS)
+  long queued;
+}
@@ -0,0 +1,69 @@
+package com.retiman.template.http;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The settings for one kind of destination, e.g. a latency sensitive internal service or a slow
+ * third party API. Requests with the same profile share one {@link HttpClient}, and so its
+ * connection pool.
+ *
+ * @param requestTimeout the timeout of requests that do not set their own, both for waiting for a
+ *     permit and for the response
+ * @param maxInFlightPerHost the number of requests that may be in flight to one host at once;
+ *     further requests wait for a permit, for at most the request timeout
+ */
+public record HttpProfile(
+    String name,
+    HttpClient.Version version,
+    Duration connectTimeout,
+    Duration requestTimeout,
+    int maxInFlightPerHost) {
+  public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+  public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+  public static final int DEFAULT_MAX_IN_FLIGHT_PER_HOST = 64;
+
+  public HttpProfile {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(version, "version");
+    requirePositive(connectTimeout, "Connect timeout");
+    requirePositive(requestTimeout, "Request timeout");
+    if (maxInFlightPerHost <= 0) {
+      throw new IllegalArgumentException(
+          "Maximum in flight requests must be positive: " + maxInFlightPerHost);
+    }
+  }
+
+  public static HttpProfile of(String name) {
+    return new HttpProfile(
+        name,
+        HttpClient.Version.HTTP_2,
+        DEFAULT_CONNECT_TIMEOUT,
+        DEFAULT_REQUEST_TIMEOUT,
+        DEFAULT_MAX_IN_FLIGHT_PER_HOST);
+  }
+
+  public HttpProfile withVersion(HttpClient.Version version) {
+    return new HttpProfile(name, version, connectTimeout, requestTimeout, maxInFlightPerHost);
+  }
+
+  public HttpProfile withConnectTimeout(Duration connectTimeout) {
+    return new HttpProfile(name, version, connectTimeout, requestTimeout, maxInFlightPerHost);
+  }
+
+  public HttpProfile withRequestTimeout(Duration requestTimeout) {
+    return new HttpProfile(name, version, connectTimeout, requestTimeout, maxInFlightPerHost);
+  }
+
+  public HttpProfile withMaxInFlightPerHost(int maxInFlightPerHost) {
+    return new HttpProfile(name, version, connectTimeout, requestTimeout, maxInFlightPerHost);
+  }
+
+  private static void requirePositive(Duration duration, String what) {
+    Objects.requireNonNull(duration, what);
+    if (duration.isNegative() || duration.isZero()) {
+      throw new IllegalArgumentException(what + " must be positive: " + duration);
+    }
+  }
+}
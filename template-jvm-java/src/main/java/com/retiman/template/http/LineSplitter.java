@@ -0,0 +1,95 @@
+package com.retiman.template.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Splits a {@link PooledBody} into lines ending in {@code \n} or {@code \r\n}, without copying them
+ * out of the body's buffers.
+ *
+ * <p>Each line is returned as a view of the buffer it arrived in, and the view is reused for the
+ * next line, so a line is only valid until the next call to {@link #nextLine()}. Lines that span
+ * two buffers are the exception, and are copied into a scratch buffer that grows to fit the longest
+ * of them. Buffers go back to the pool as soon as their last line has been read.
+ */
+public final class LineSplitter {
+  private final PooledBody body;
+  private ByteBuffer buffer;
+  private ByteBuffer view;
+  private ByteBuffer carry = ByteBuffer.allocate(256);
+  private boolean ended;
+
+  public LineSplitter(PooledBody body) {
+    this.body = Objects.requireNonNull(body, "body");
+  }
+
+  /**
+   * Returns the next line, without its line ending, or null at the end of the body. A last line
+   * without a line ending is still returned.
+   */
+  public ByteBuffer nextLine() throws IOException, InterruptedException {
+    var carrying = false;
+    carry.clear();
+    while (true) {
+      if (buffer == null || !buffer.hasRemaining()) {
+        if (buffer != null) {
+          body.release(buffer);
+          buffer = null;
+          view = null;
+        }
+        if (!ended) {
+          buffer = body.take();
+          ended = buffer == null;
+        }
+        if (ended) {
+          return carrying ? trim(carry.flip()) : null;
+        }
+        view = buffer.duplicate();
+      }
+
+      var start = buffer.position();
+      var end = indexOfNewline(buffer, start, buffer.limit());
+      if (end < 0) {
+        append(start, buffer.limit());
+        buffer.position(buffer.limit());
+        carrying = true;
+        continue;
+      }
+
+      buffer.position(end + 1);
+      if (carrying) {
+        append(start, end);
+        return trim(carry.flip());
+      }
+      return trim(view.limit(end).position(start));
+    }
+  }
+
+  private void append(int from, int to) {
+    var length = to - from;
+    if (carry.remaining() < length) {
+      var grown = ByteBuffer.allocate(Math.max(carry.capacity() * 2, carry.position() + length));
+      carry = grown.put(carry.flip());
+    }
+    carry.put(carry.position(), buffer, from, length);
+    carry.position(carry.position() + length);
+  }
+
+  private static ByteBuffer trim(ByteBuffer line) {
+    var limit = line.limit();
+    if (limit > line.position() && line.get(limit - 1) == '\r') {
+      line.limit(limit - 1);
+    }
+    return line;
+  }
+
+  private static int indexOfNewline(ByteBuffer buffer, int from, int to) {
+    for (var i = from; i < to; i++) {
+      if (buffer.get(i) == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,225 @@
+package com.retiman.template.http;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A response body that streams into buffers from a {@link DirectBufferPool}, for a consumer to pull
+ * from.
+ *
+ * <p>The HttpClient hands its subscriber heap buffers that it does not reuse, so holding on to them
+ * means the whole body ends up on the heap. This body copies each chunk into a pooled direct buffer
+ * as it arrives, and the consumer reads those buffers in place:
+ *
+ * <pre>{@code
+ * var response = client.send(request, PooledBody.handler(pool));
+ * try (var body = response.body()) {
+ *   for (var buffer = body.take(); buffer != null; buffer = body.take()) {
+ *     consume(buffer);
+ *     body.release(buffer);
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>More of the body is only requested from the client while the pool has a buffer to spare, so a
+ * slow consumer holds back the connection rather than letting the body pile up in memory.
+ *
+ * <p>Each delivery from the client starts a new buffer, so that nothing is held back waiting for
+ * the next one. The client reads a connection in chunks of 16KB or so, which makes larger buffers
+ * mostly empty space.
+ *
+ * <p>Only one thread should consume a body, but buffers may be released from any thread.
+ */
+public final class PooledBody implements AutoCloseable {
+  // Marks the end of the body in the queue; it is never handed to the consumer.
+  private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+  private final DirectBufferPool pool;
+  private final LinkedBlockingQueue<ByteBuffer> ready = new LinkedBlockingQueue<>();
+  private final AtomicBoolean stalled = new AtomicBoolean();
+  private volatile Flow.Subscription subscription;
+  private volatile Throwable error;
+  private volatile boolean closed;
+  private final LongAdder bytesReceived = new LongAdder();
+
+  private PooledBody(DirectBufferPool pool) {
+    this.pool = Objects.requireNonNull(pool, "pool");
+  }
+
+  /** Returns a handler that streams response bodies into buffers from a pool. */
+  public static HttpResponse.BodyHandler<PooledBody> handler(DirectBufferPool pool) {
+    Objects.requireNonNull(pool, "pool");
+    return info -> subscriber(pool);
+  }
+
+  /** Returns a subscriber that streams one body into buffers from a pool. */
+  public static HttpResponse.BodySubscriber<PooledBody> subscriber(DirectBufferPool pool) {
+    return new Subscriber(new PooledBody(pool));
+  }
+
+  /**
+   * Waits for the next buffer of the body, and returns it ready to read, or returns null at the end
+   * of the body. The buffer belongs to the caller until it is given back with {@link #release}.
+   *
+   * @throws IOException if the exchange failed before the end of the body
+   */
+  public ByteBuffer take() throws IOException, InterruptedException {
+    var buffer = ready.take();
+    if (buffer != END) {
+      return buffer;
+    }
+
+    // Leave the marker for any later calls.
+    ready.add(END);
+    var failure = error;
+    if (failure != null) {
+      throw failure instanceof IOException e ? e : new IOException(failure);
+    }
+    return null;
+  }
+
+  /** Gives a buffer back to the pool, which may let more of the body be requested. */
+  public void release(ByteBuffer buffer) {
+    pool.release(buffer);
+    if (stalled.compareAndSet(true, false)) {
+      request();
+    }
+  }
+
+  /** Returns the number of bytes received so far. */
+  public long bytesReceived() {
+    return bytesReceived.sum();
+  }
+
+  /** Cancels the rest of the body, if any, and gives all of its unread buffers back to the pool. */
+  @Override
+  public void close() {
+    closed = true;
+    var s = subscription;
+    if (s != null) {
+      s.cancel();
+    }
+    drain();
+  }
+
+  private void onSubscribe(Flow.Subscription subscription) {
+    this.subscription = subscription;
+    if (closed) {
+      subscription.cancel();
+    } else {
+      subscription.request(1);
+    }
+  }
+
+  private void onNext(List<ByteBuffer> chunks) {
+    ByteBuffer current = null;
+    for (var chunk : chunks) {
+      bytesReceived.add(chunk.remaining());
+      while (chunk.hasRemaining()) {
+        if (current == null) {
+          current = pool.acquire();
+        }
+
+        var length = Math.min(chunk.remaining(), current.remaining());
+        current.put(current.position(), chunk, chunk.position(), length);
+        current.position(current.position() + length);
+        chunk.position(chunk.position() + length);
+        if (!current.hasRemaining()) {
+          publish(current);
+          current = null;
+        }
+      }
+    }
+
+    // Hand over what arrived, even if it only partly fills a buffer, rather than hold it back until
+    // the next chunk; the server may not send one for a while.
+    if (current != null) {
+      publish(current);
+    }
+
+    // Ask for more only while there is a buffer to put it in; otherwise the next release will.
+    if (pool.available() > 0) {
+      request();
+    } else {
+      stalled.set(true);
+      if (pool.available() > 0 && stalled.compareAndSet(true, false)) {
+        request();
+      }
+    }
+  }
+
+  private void onError(Throwable throwable) {
+    error = throwable;
+    finish();
+  }
+
+  private void onComplete() {
+    finish();
+  }
+
+  private void finish() {
+    ready.add(END);
+  }
+
+  private void publish(ByteBuffer buffer) {
+    ready.add(buffer.flip());
+
+    // A close that raced with the add has already drained, so drain again.
+    if (closed) {
+      drain();
+    }
+  }
+
+  private void request() {
+    var s = subscription;
+    if (s != null && !closed) {
+      s.request(1);
+    }
+  }
+
+  private void drain() {
+    for (var buffer = ready.poll(); buffer != null; buffer = ready.poll()) {
+      if (buffer != END) {
+        pool.release(buffer);
+      }
+    }
+    // Keep the end marker, so that a consumer that takes after closing does not wait forever.
+    ready.add(END);
+  }
+
+  private record Subscriber(PooledBody body) implements HttpResponse.BodySubscriber<PooledBody> {
+    @Override
+    public CompletionStage<PooledBody> getBody() {
+      return CompletableFuture.completedStage(body);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      body.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+      body.onNext(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      body.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      body.onComplete();
+    }
+  }
+}
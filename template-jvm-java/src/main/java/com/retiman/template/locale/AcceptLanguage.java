@@ -0,0 +1,91 @@
+package com.retiman.template.locale;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/** Parses Accept-Language headers, as described in RFC 9110 section 12.5.4. */
+public final class AcceptLanguage {
+  private AcceptLanguage() {}
+
+  /**
+   * Returns the language ranges in a header from most to least preferred. Ranges with equal weights
+   * keep their order, and ranges with a weight of zero are not acceptable, so they are left out.
+   * Malformed weights are treated as zero.
+   */
+  public static List<String> parse(String header) {
+    var ranges = new ArrayList<Range>();
+    var start = 0;
+    while (start <= header.length()) {
+      var end = header.indexOf(',', start);
+      if (end < 0) {
+        end = header.length();
+      }
+
+      var range = parseRange(header, start, end, ranges.size());
+      if (range != null && range.weight > 0) {
+        ranges.add(range);
+      }
+      start = end + 1;
+    }
+
+    ranges.sort(Comparator.comparingInt(Range::weight).reversed().thenComparingInt(Range::order));
+
+    var result = new ArrayList<String>(ranges.size());
+    for (var range : ranges) {
+      result.add(range.tag);
+    }
+
+    return result;
+  }
+
+  private static Range parseRange(String header, int start, int end, int order) {
+    var semicolon = header.indexOf(';', start);
+    var tagEnd = semicolon >= 0 && semicolon < end ? semicolon : end;
+    var tag = header.substring(start, tagEnd).strip();
+    if (tag.isEmpty()) {
+      return null;
+    }
+
+    var weight = 1000;
+    if (tagEnd < end) {
+      weight = parseWeight(header.substring(tagEnd + 1, end).strip());
+    }
+
+    return new Range(tag, weight, order);
+  }
+
+  // Weights are "q=" followed by a number from 0 to 1 with at most three decimal places, which we
+  // keep as an integer number of thousandths.
+  private static int parseWeight(String parameter) {
+    if (parameter.length() < 3 || !parameter.regionMatches(true, 0, "q=", 0, 2)) {
+      return 0;
+    }
+
+    var value = parameter.substring(2);
+    if (value.length() > 5 || !(value.startsWith("0") || value.startsWith("1"))) {
+      return 0;
+    }
+
+    var weight = (value.charAt(0) - '0') * 1000;
+    if (value.length() > 1) {
+      if (value.charAt(1) != '.') {
+        return 0;
+      }
+
+      var scale = 100;
+      for (var i = 2; i < value.length(); i++) {
+        var c = value.charAt(i);
+        if (c < '0' || c > '9') {
+          return 0;
+        }
+        weight += (c - '0') * scale;
+        scale /= 10;
+      }
+    }
+
+    return Math.min(weight, 1000);
+  }
+
+  private record Range(String tag, int weight, int order) {}
+}
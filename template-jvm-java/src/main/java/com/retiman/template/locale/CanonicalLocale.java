@@ -0,0 +1,22 @@
+package com.retiman.template.locale;
+
+import com.ibm.icu.util.ULocale;
+import java.util.Locale;
+
+/**
+ * A canonical language tag along with the equivalent JDK and ICU locales.
+ *
+ * <p>Instances handed out by a {@link LocaleRegistry} are interned, so two tags that canonicalize
+ * to the same locale (e.g. "iw" and "he") yield the same instance and can be compared with {@code
+ * ==}.
+ */
+public record CanonicalLocale(String tag, Locale locale, ULocale ulocale) {
+  static CanonicalLocale of(String tag) {
+    // ICU applies the CLDR alias replacements that the JDK does not (e.g. "afr" -> "af", "sh" ->
+    // "sr-Latn").  Going back through the language tag gives a JDK locale with a lowercased
+    // variant, which is the only form that is equal to the result of Locale.forLanguageTag.
+    var ulocale = ULocale.createCanonical(ULocale.forLanguageTag(tag));
+    var canonicalTag = ulocale.toLanguageTag();
+    return new CanonicalLocale(canonicalTag, Locale.forLanguageTag(canonicalTag), ulocale);
+  }
+}
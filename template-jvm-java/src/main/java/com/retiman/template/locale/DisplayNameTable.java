@@ -0,0 +1,296 @@
+package com.retiman.template.locale;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A dense table of locale display names for a fixed matrix of target and display locales, backed by
+ * a memory-mapped file.
+ *
+ * <p>Each cell of the matrix is filled in from ICU the first time it is asked for, and is written
+ * to the file, so a process that reopens the same file starts warm. Names are stored as UTF-16 and
+ * appended straight from the mapped file into the caller's {@link StringBuilder}, so lookups of
+ * filled cells do not allocate. Once the file's string space runs out, names are served from ICU
+ * without being stored.
+ *
+ * <p>This class is safe for concurrent use. Cells are filled without locking; two threads filling
+ * the same cell at once will both compute the name, and one copy is wasted.
+ */
+public final class DisplayNameTable implements Closeable {
+  public enum Field {
+    NAME,
+    LANGUAGE,
+    SCRIPT,
+    REGION,
+    VARIANT,
+  }
+
+  private static final int MAGIC = 0x444e5431; // "DNT1"
+  private static final int HEADER_SIZE = 64;
+  private static final int FINGERPRINT_OFFSET = 8;
+  private static final int TARGETS_OFFSET = 16;
+  private static final int DISPLAYS_OFFSET = 20;
+  private static final int CAPACITY_OFFSET = 24;
+  private static final int TOP_OFFSET = 32;
+
+  // String offsets start here, so that a filled cell is never zero; empty names all point here.
+  private static final int FIRST_STRING = 8;
+
+  private static final int FIELDS = Field.values().length;
+
+  private static final VarHandle LONGS =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final List<CanonicalLocale> targets;
+  private final List<CanonicalLocale> displays;
+  private final LocaleIdMap<Integer> targetIndexes;
+  private final LocaleIdMap<Integer> displayIndexes;
+  private final LocaleIds ids;
+  private final int stringsOffset;
+  private final int capacity;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  private DisplayNameTable(
+      FileChannel channel,
+      MappedByteBuffer buffer,
+      List<CanonicalLocale> targets,
+      List<CanonicalLocale> displays,
+      int capacity) {
+    this.channel = channel;
+    this.buffer = buffer;
+    this.targets = List.copyOf(targets);
+    this.displays = List.copyOf(displays);
+    this.ids = LocaleIds.shared();
+    this.targetIndexes = index(ids, targets);
+    this.displayIndexes = index(ids, displays);
+    this.stringsOffset = HEADER_SIZE + targets.size() * displays.size() * FIELDS * Long.BYTES;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Opens or creates a table. An existing file is reused if it was created for the same targets and
+   * displays, in the same order; otherwise it is cleared.
+   *
+   * @param capacity the number of bytes to reserve for names, which are two bytes per character
+   */
+  public static DisplayNameTable open(
+      Path file, List<CanonicalLocale> targets, List<CanonicalLocale> displays, int capacity)
+      throws IOException {
+    if (capacity < FIRST_STRING) {
+      throw new IllegalArgumentException("Capacity is too small: " + capacity);
+    }
+
+    var targetList = List.copyOf(targets);
+    var displayList = List.copyOf(displays);
+    var cells = (long) targetList.size() * displayList.size() * FIELDS;
+    var size = HEADER_SIZE + cells * Long.BYTES + capacity;
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Table is too large: " + size + " bytes");
+    }
+
+    var channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      var fingerprint = fingerprint(targetList, displayList);
+      var reusable = channel.size() == size;
+      if (!reusable) {
+        channel.truncate(0);
+      }
+      var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      buffer.order(ByteOrder.nativeOrder());
+
+      if (!reusable
+          || buffer.getInt(0) != MAGIC
+          || buffer.getLong(FINGERPRINT_OFFSET) != fingerprint
+          || buffer.getInt(TARGETS_OFFSET) != targetList.size()
+          || buffer.getInt(DISPLAYS_OFFSET) != displayList.size()
+          || buffer.getInt(CAPACITY_OFFSET) != capacity) {
+        for (var i = 0L; i < HEADER_SIZE + cells * Long.BYTES; i += Long.BYTES) {
+          buffer.putLong((int) i, 0L);
+        }
+        buffer.putLong(FINGERPRINT_OFFSET, fingerprint);
+        buffer.putInt(TARGETS_OFFSET, targetList.size());
+        buffer.putInt(DISPLAYS_OFFSET, displayList.size());
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putLong(TOP_OFFSET, FIRST_STRING);
+
+        // Write the magic number last, so a partially initialized file is never reused.
+        buffer.putInt(0, MAGIC);
+      }
+
+      return new DisplayNameTable(channel, buffer, targetList, displayList, capacity);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  public List<CanonicalLocale> targets() {
+    return targets;
+  }
+
+  public List<CanonicalLocale> displays() {
+    return displays;
+  }
+
+  /** Returns the index of a target locale, or -1 if it is not part of the table. */
+  public int indexOfTarget(CanonicalLocale target) {
+    var index = targetIndexes.get(ids.of(target));
+    return index != null ? index : -1;
+  }
+
+  /** Returns the index of a display locale, or -1 if it is not part of the table. */
+  public int indexOfDisplay(CanonicalLocale display) {
+    var index = displayIndexes.get(ids.of(display));
+    return index != null ? index : -1;
+  }
+
+  /**
+   * Appends the display name of a target locale's field, in the display locale. Locales outside of
+   * the table are looked up in ICU every time.
+   *
+   * <p>Finding the locales' indexes allocates if they have variants or extensions; callers on a hot
+   * path should look the indexes up once and use {@link #append(StringBuilder, int, int, Field)}.
+   */
+  public StringBuilder append(
+      StringBuilder sb, CanonicalLocale target, CanonicalLocale display, Field field) {
+    var targetIndex = indexOfTarget(target);
+    var displayIndex = indexOfDisplay(display);
+    if (targetIndex < 0 || displayIndex < 0) {
+      misses.increment();
+      return sb.append(compute(target, display, field));
+    }
+
+    return append(sb, targetIndex, displayIndex, field);
+  }
+
+  public StringBuilder append(StringBuilder sb, int target, int display, Field field) {
+    var cell =
+        HEADER_SIZE
+            + ((target * displays.size() + display) * FIELDS + field.ordinal()) * Long.BYTES;
+    var packed = (long) LONGS.getAcquire(buffer, cell);
+    if (packed != 0) {
+      hits.increment();
+      return appendChars(sb, packed);
+    }
+
+    misses.increment();
+    var name = compute(targets.get(target), displays.get(display), field);
+    var stored = store(name);
+    if (stored != 0 && !LONGS.compareAndSet(buffer, cell, 0L, stored)) {
+      // Another thread filled the cell first; its copy is the same name.
+      return appendChars(sb, (long) LONGS.getAcquire(buffer, cell));
+    }
+
+    return sb.append(name);
+  }
+
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  public long missCount() {
+    return misses.sum();
+  }
+
+  public double hitRate() {
+    var hitCount = hitCount();
+    var total = hitCount + missCount();
+    return total == 0 ? 0 : (double) hitCount / total;
+  }
+
+  /** Returns the number of bytes of the file that are in use, i.e. the header, cells and names. */
+  public long residentBytes() {
+    return stringsOffset + (long) LONGS.getAcquire(buffer, TOP_OFFSET);
+  }
+
+  @Override
+  public void close() throws IOException {
+    buffer.force();
+    channel.close();
+  }
+
+  private StringBuilder appendChars(StringBuilder sb, long packed) {
+    var offset = stringsOffset + (int) (packed >>> 32);
+    var length = (int) packed;
+    for (var i = 0; i < length; i++) {
+      sb.append(buffer.getChar(offset + i * Character.BYTES));
+    }
+
+    return sb;
+  }
+
+  // Reserves space for a name and copies it in, returning the packed offset and length to store
+  // in a cell, or 0 if there is no space left.
+  private long store(String name) {
+    if (name.isEmpty()) {
+      return (long) FIRST_STRING << 32;
+    }
+
+    var bytes = name.length() * Character.BYTES;
+    long top;
+    do {
+      top = (long) LONGS.getAcquire(buffer, TOP_OFFSET);
+      if (top + bytes > capacity) {
+        return 0;
+      }
+    } while (!LONGS.compareAndSet(buffer, TOP_OFFSET, top, top + bytes));
+
+    var offset = stringsOffset + (int) top;
+    for (var i = 0; i < name.length(); i++) {
+      buffer.putChar(offset + i * Character.BYTES, name.charAt(i));
+    }
+
+    return top << 32 | name.length();
+  }
+
+  private static String compute(CanonicalLocale target, CanonicalLocale display, Field field) {
+    var locale = target.ulocale();
+    var in = display.ulocale();
+    return switch (field) {
+      case NAME -> locale.getDisplayName(in);
+      case LANGUAGE -> locale.getDisplayLanguage(in);
+      case SCRIPT -> locale.getDisplayScript(in);
+      case REGION -> locale.getDisplayCountry(in);
+      case VARIANT -> locale.getDisplayVariant(in);
+    };
+  }
+
+  private static LocaleIdMap<Integer> index(LocaleIds ids, List<CanonicalLocale> locales) {
+    var map = new LocaleIdMap<Integer>(locales.size());
+    for (var i = 0; i < locales.size(); i++) {
+      var id = ids.of(locales.get(i));
+      if (!map.containsKey(id)) {
+        map.put(id, i);
+      }
+    }
+
+    return map;
+  }
+
+  private static long fingerprint(List<CanonicalLocale> targets, List<CanonicalLocale> displays) {
+    var hash = 1125899906842597L;
+    for (var locale : targets) {
+      hash = 31 * hash + locale.tag().hashCode();
+    }
+    hash = 31 * hash + FIELDS;
+    for (var locale : displays) {
+      hash = 31 * hash + locale.tag().hashCode();
+    }
+
+    return hash;
+  }
+}
@@ -0,0 +1,353 @@
+package com.retiman.template.locale;
+
+import java.nio.ByteBuffer;
+import java.util.IllformedLocaleException;
+import java.util.Objects;
+
+/**
+ * A BCP-47 language tag parser that reads subtags in place, without creating intermediate strings.
+ *
+ * <p>Tags are validated the same way as {@link java.util.Locale.Builder#setLanguageTag(String)}:
+ * ill-formed tags throw an {@link IllformedLocaleException} with the same message and error index.
+ * Successful parses never allocate.
+ */
+public final class LanguageTagParser {
+  // The same table the JDK uses; these are matched against the whole tag, ignoring case.
+  private static final String[][] GRANDFATHERED = {
+    {"art-lojban", "jbo"},
+    {"cel-gaulish", "xtg-x-cel-gaulish"},
+    {"en-GB-oed", "en-GB-x-oed"},
+    {"i-ami", "ami"},
+    {"i-bnn", "bnn"},
+    {"i-default", "en-x-i-default"},
+    {"i-enochian", "und-x-i-enochian"},
+    {"i-hak", "hak"},
+    {"i-klingon", "tlh"},
+    {"i-lux", "lb"},
+    {"i-mingo", "see-x-i-mingo"},
+    {"i-navajo", "nv"},
+    {"i-pwn", "pwn"},
+    {"i-tao", "tao"},
+    {"i-tay", "tay"},
+    {"i-tsu", "tsu"},
+    {"no-bok", "nb"},
+    {"no-nyn", "nn"},
+    {"sgn-BE-FR", "sfb"},
+    {"sgn-BE-NL", "vgt"},
+    {"sgn-CH-DE", "sgg"},
+    {"zh-guoyu", "cmn"},
+    {"zh-hakka", "hak"},
+    {"zh-min", "nan-x-zh-min"},
+    {"zh-min-nan", "nan"},
+    {"zh-xiang", "hsn"},
+  };
+
+  private LanguageTagParser() {}
+
+  public static ParsedLanguageTag parse(CharSequence tag, ParsedLanguageTag result) {
+    result.reset(Objects.requireNonNull(tag, "tag"));
+    return parse(result);
+  }
+
+  public static ParsedLanguageTag parse(
+      byte[] tag, int offset, int length, ParsedLanguageTag result) {
+    Objects.checkFromIndexSize(offset, length, tag.length);
+    result.reset(tag, offset, length);
+    return parse(result);
+  }
+
+  /** Parses the bytes between the buffer's position and limit, without moving the position. */
+  public static ParsedLanguageTag parse(ByteBuffer tag, ParsedLanguageTag result) {
+    result.reset(Objects.requireNonNull(tag, "tag"));
+    return parse(result);
+  }
+
+  private static ParsedLanguageTag parse(ParsedLanguageTag tag) {
+    var preferred = grandfathered(tag);
+    if (preferred != null) {
+      tag.substitute(preferred);
+    }
+
+    var cursor = tag.cursor();
+    cursor.reset();
+    if (parseLanguage(tag, cursor)) {
+      parseScript(tag, cursor);
+      parseRegion(tag, cursor);
+      parseVariants(tag, cursor);
+      parseExtensions(tag, cursor);
+    }
+    parsePrivateUse(tag, cursor);
+
+    if (!cursor.done) {
+      if (cursor.start == cursor.end) {
+        throw new IllformedLocaleException("Empty subtag", cursor.start);
+      }
+
+      throw new IllformedLocaleException("Invalid subtag: " + cursor.subtag(), cursor.start);
+    }
+
+    return tag;
+  }
+
+  // language = 2*3ALPHA ["-" extlang] / 4ALPHA / 5*8ALPHA
+  // extlang  = 3ALPHA *2("-" 3ALPHA)
+  private static boolean parseLanguage(ParsedLanguageTag tag, Cursor cursor) {
+    if (!cursor.isAlpha(2, 8)) {
+      return false;
+    }
+
+    tag.language(cursor.start, cursor.end);
+    var simple = cursor.length() <= 3;
+    cursor.next();
+
+    if (simple) {
+      var start = cursor.start;
+      var end = start;
+      for (var i = 0; i < 3 && cursor.isAlpha(3, 3); i++) {
+        end = cursor.end;
+        cursor.next();
+      }
+      tag.extlang(start, end);
+    }
+
+    return true;
+  }
+
+  // script = 4ALPHA
+  private static void parseScript(ParsedLanguageTag tag, Cursor cursor) {
+    if (cursor.isAlpha(4, 4)) {
+      tag.script(cursor.start, cursor.end);
+      cursor.next();
+    }
+  }
+
+  // region = 2ALPHA / 3DIGIT
+  private static void parseRegion(ParsedLanguageTag tag, Cursor cursor) {
+    if (cursor.isAlpha(2, 2) || cursor.isDigit(3, 3)) {
+      tag.region(cursor.start, cursor.end);
+      cursor.next();
+    }
+  }
+
+  // variant = 5*8alphanum / (DIGIT 3alphanum)
+  private static void parseVariants(ParsedLanguageTag tag, Cursor cursor) {
+    var start = cursor.start;
+    var end = start;
+    var count = 0;
+    while (cursor.isVariant()) {
+      end = cursor.end;
+      count++;
+      cursor.next();
+    }
+    tag.variants(start, count > 0 ? end : start, count);
+  }
+
+  // extension = singleton 1*("-" (2*8alphanum))
+  private static void parseExtensions(ParsedLanguageTag tag, Cursor cursor) {
+    while (cursor.isExtensionSingleton()) {
+      var start = cursor.start;
+      var singleton = tag.read(start);
+      cursor.next();
+
+      var end = start;
+      while (cursor.isAlphanumeric(2, 8)) {
+        end = cursor.end;
+        cursor.next();
+      }
+
+      if (end == start) {
+        throw new IllformedLocaleException("Incomplete extension '" + singleton + "'", start);
+      }
+
+      // Like the JDK, a repeated singleton is well-formed, but only the first one is kept.
+      if (!tag.hasExtension(singleton)) {
+        tag.extension(start, end);
+      }
+    }
+  }
+
+  // privateuse = "x" 1*("-" (1*8alphanum))
+  private static void parsePrivateUse(ParsedLanguageTag tag, Cursor cursor) {
+    if (!cursor.isPrivateUseSingleton()) {
+      return;
+    }
+
+    var start = cursor.start;
+    var end = start;
+    var lvariant = -1;
+    var lvariantEnd = -1;
+    cursor.next();
+    while (cursor.isAlphanumeric(1, 8)) {
+      if (lvariant < 0 && cursor.isLegacyVariantPrefix()) {
+        lvariant = cursor.start;
+      } else if (lvariant >= 0) {
+        lvariantEnd = cursor.end;
+      }
+      end = cursor.end;
+      cursor.next();
+    }
+
+    if (end == start) {
+      throw new IllformedLocaleException("Incomplete privateuse", start);
+    }
+
+    if (lvariantEnd < 0) {
+      tag.privateUse(start, end);
+      return;
+    }
+
+    // Everything after "lvariant" is a variant; whatever came before it stays private use.
+    tag.legacyVariant(lvariant + "lvariant-".length(), lvariantEnd);
+    if (lvariant - 1 > start + 1) {
+      tag.privateUse(start, lvariant - 1);
+    }
+  }
+
+  private static String grandfathered(ParsedLanguageTag tag) {
+    for (var entry : GRANDFATHERED) {
+      if (regionMatches(tag, 0, tag.length(), entry[0])) {
+        return entry[1];
+      }
+    }
+
+    return null;
+  }
+
+  private static boolean regionMatches(ParsedLanguageTag tag, int start, int end, String other) {
+    if (end - start != other.length()) {
+      return false;
+    }
+
+    for (var i = start; i < end; i++) {
+      if (toLower(tag.read(i)) != toLower(other.charAt(i - start))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  // Character.toLowerCase would accept non-ASCII letters, which are not valid in a tag.
+  private static char toLower(char c) {
+    return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+  }
+
+  private static boolean isAlpha(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  // The cursor lives in the holder, and is reset rather than recreated, so that parsing does not
+  // rely on escape analysis to avoid allocating.
+  static final class Cursor {
+    private final ParsedLanguageTag tag;
+    private int start;
+    private int end;
+    private boolean done;
+
+    Cursor(ParsedLanguageTag tag) {
+      this.tag = tag;
+    }
+
+    private void reset() {
+      start = 0;
+      end = find(0);
+      done = false;
+    }
+
+    private void next() {
+      if (end >= tag.length()) {
+        start = end;
+        done = true;
+      } else {
+        start = end + 1;
+        end = find(start);
+      }
+    }
+
+    private int find(int from) {
+      var i = from;
+      while (i < tag.length() && tag.read(i) != '-') {
+        i++;
+      }
+
+      return i;
+    }
+
+    private int length() {
+      return end - start;
+    }
+
+    private String subtag() {
+      var sb = new StringBuilder(length());
+      for (var i = start; i < end; i++) {
+        sb.append(tag.read(i));
+      }
+
+      return sb.toString();
+    }
+
+    private boolean isAlpha(int minimum, int maximum) {
+      if (done || length() < minimum || length() > maximum) {
+        return false;
+      }
+
+      for (var i = start; i < end; i++) {
+        if (!LanguageTagParser.isAlpha(tag.read(i))) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    private boolean isDigit(int minimum, int maximum) {
+      if (done || length() < minimum || length() > maximum) {
+        return false;
+      }
+
+      for (var i = start; i < end; i++) {
+        if (!LanguageTagParser.isDigit(tag.read(i))) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    private boolean isAlphanumeric(int minimum, int maximum) {
+      if (done || length() < minimum || length() > maximum) {
+        return false;
+      }
+
+      for (var i = start; i < end; i++) {
+        var c = tag.read(i);
+        if (!LanguageTagParser.isAlpha(c) && !LanguageTagParser.isDigit(c)) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    private boolean isVariant() {
+      return isAlphanumeric(5, 8)
+          || (isAlphanumeric(4, 4) && LanguageTagParser.isDigit(tag.read(start)));
+    }
+
+    private boolean isExtensionSingleton() {
+      return isAlphanumeric(1, 1) && toLower(tag.read(start)) != 'x';
+    }
+
+    private boolean isPrivateUseSingleton() {
+      return isAlphanumeric(1, 1) && toLower(tag.read(start)) == 'x';
+    }
+
+    private boolean isLegacyVariantPrefix() {
+      return regionMatches(tag, start, end, "lvariant");
+    }
+  }
+}
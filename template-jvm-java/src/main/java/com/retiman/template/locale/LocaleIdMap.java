@@ -0,0 +1,163 @@
+package com.retiman.template.locale;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An open addressing map from {@link LocaleIds locale ids} to values.
+ *
+ * <p>Keys are stored inline in a {@code long[]}, so lookups neither box the key nor call {@code
+ * hashCode()} or {@code equals()}. Null values are not permitted; a null slot is an empty slot.
+ *
+ * <p>This map is not thread-safe. A map that is fully built before being safely published may be
+ * read concurrently.
+ */
+public final class LocaleIdMap<V> {
+  private static final int MINIMUM_CAPACITY = 16;
+
+  private long[] keys;
+  private Object[] values;
+  private int size;
+  private int mask;
+  private int shift;
+
+  public LocaleIdMap() {
+    this(MINIMUM_CAPACITY / 2);
+  }
+
+  public LocaleIdMap(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+    }
+
+    allocate(capacityFor(expectedSize));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean containsKey(long id) {
+    return values[indexOf(id)] != null;
+  }
+
+  public V get(long id) {
+    return getOrDefault(id, null);
+  }
+
+  @SuppressWarnings("unchecked")
+  public V getOrDefault(long id, V defaultValue) {
+    var value = values[indexOf(id)];
+    return value != null ? (V) value : defaultValue;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V put(long id, V value) {
+    Objects.requireNonNull(value, "value");
+
+    var index = indexOf(id);
+    var previous = values[index];
+    keys[index] = id;
+    values[index] = value;
+    // Keep the table at most half full; linear probing degrades quickly past that.
+    if (previous == null && ++size > (mask + 1) / 2) {
+      rehash(keys.length * 2);
+    }
+
+    return (V) previous;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V remove(long id) {
+    var index = indexOf(id);
+    var previous = values[index];
+    if (previous == null) {
+      return null;
+    }
+
+    // Shift later entries of the probe sequence back, rather than leaving a tombstone, so that
+    // lookups never have to skip over deleted slots.
+    var hole = index;
+    var next = (hole + 1) & mask;
+    while (values[next] != null) {
+      var home = slot(keys[next]);
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        keys[hole] = keys[next];
+        values[hole] = values[next];
+        hole = next;
+      }
+      next = (next + 1) & mask;
+    }
+
+    values[hole] = null;
+    size--;
+    return (V) previous;
+  }
+
+  public void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public void forEach(Visitor<? super V> visitor) {
+    for (var i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        visitor.visit(keys[i], (V) values[i]);
+      }
+    }
+  }
+
+  @FunctionalInterface
+  public interface Visitor<V> {
+    void visit(long id, V value);
+  }
+
+  // Returns the slot holding the id, or the empty slot where it would go.
+  private int indexOf(long id) {
+    var index = slot(id);
+    while (values[index] != null && keys[index] != id) {
+      index = (index + 1) & mask;
+    }
+
+    return index;
+  }
+
+  // Locale ids differ mostly in their high bits, so mix them down with a Fibonacci hash.
+  private int slot(long id) {
+    return (int) ((id * 0x9E3779B97F4A7C15L) >>> shift);
+  }
+
+  private void rehash(int capacity) {
+    var oldKeys = keys;
+    var oldValues = values;
+    allocate(capacity);
+    for (var i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        var index = indexOf(oldKeys[i]);
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+    shift = 64 - Integer.numberOfTrailingZeros(capacity);
+  }
+
+  private static int capacityFor(int expectedSize) {
+    var capacity = MINIMUM_CAPACITY;
+    while (capacity / 2 < expectedSize) {
+      capacity *= 2;
+    }
+
+    return capacity;
+  }
+}
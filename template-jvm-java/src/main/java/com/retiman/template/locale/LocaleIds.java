@@ -0,0 +1,240 @@
+package com.retiman.template.locale;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Packs a canonical locale into a single {@code long}, so that per-locale tables can be keyed by a
+ * primitive instead of a {@link java.util.Locale}.
+ *
+ * <p>The language (up to 3 letters), script and region are packed directly into the id. Anything
+ * that does not fit, i.e. variants, extensions and private use subtags, is interned into a side
+ * table and the id holds its index. Languages of 4-8 letters (see
+ * JdkLocaleTest#testInvalidLanguageCodes) are rare enough that the whole tag goes into the side
+ * table instead.
+ *
+ * <p>Ids are only comparable between locales packed by the same instance.
+ */
+public final class LocaleIds {
+  // From the most significant bit: 15 bits of language, 20 bits of script, 11 bits of region and
+  // 18 bits of side table index.  The 5 bit letter codes are 1-26, so 0 means absent.
+  private static final int LETTER_BITS = 5;
+  private static final int LANGUAGE_BITS = 3 * LETTER_BITS;
+  private static final int SCRIPT_BITS = 4 * LETTER_BITS;
+  private static final int REGION_BITS = 11;
+  private static final int EXTRA_BITS = 18;
+
+  private static final int EXTRA_SHIFT = 0;
+  private static final int REGION_SHIFT = EXTRA_SHIFT + EXTRA_BITS;
+  private static final int SCRIPT_SHIFT = REGION_SHIFT + REGION_BITS;
+  private static final int LANGUAGE_SHIFT = SCRIPT_SHIFT + SCRIPT_BITS;
+
+  // Numeric regions like "419" set the high bit of the region and keep the number in the rest.
+  private static final int NUMERIC_REGION = 1 << (REGION_BITS - 1);
+
+  // A language whose letters are all 31 cannot be a real language; it marks a tag that is stored
+  // whole in the side table.
+  private static final int LONG_LANGUAGE = (1 << LANGUAGE_BITS) - 1;
+
+  public static final int MAXIMUM_EXTRAS = (1 << EXTRA_BITS) - 1;
+
+  private static final LocaleIds SHARED = new LocaleIds(LocaleRegistry.shared());
+
+  private final LocaleRegistry registry;
+  private final ConcurrentHashMap<String, Integer> extraIndexes = new ConcurrentHashMap<>();
+  private final Object lock = new Object();
+
+  // Index 0 is reserved for "no suffix".  Writers hold the lock, and an index is only published
+  // through extraIndexes after its slot is written, so readers never see a missing entry.
+  private volatile AtomicReferenceArray<String> extras = new AtomicReferenceArray<>(16);
+
+  public LocaleIds(LocaleRegistry registry) {
+    this.registry = Objects.requireNonNull(registry, "registry");
+  }
+
+  public static LocaleIds shared() {
+    return SHARED;
+  }
+
+  public long of(String tag) {
+    return of(registry.resolve(tag));
+  }
+
+  public long of(CanonicalLocale locale) {
+    var ulocale = locale.ulocale();
+    var language = ulocale.getLanguage();
+    var script = ulocale.getScript();
+    var region = ulocale.getCountry();
+    var tag = locale.tag();
+
+    if (language.length() > 3) {
+      return ((long) LONG_LANGUAGE << LANGUAGE_SHIFT) | extra(tag);
+    }
+
+    // The canonical tag is "language[-script][-region][-rest]", where the root locale's language
+    // is "und".  Only the rest needs to go in the side table.
+    var core = language.isEmpty() ? 3 : language.length();
+    core += script.isEmpty() ? 0 : script.length() + 1;
+    core += region.isEmpty() ? 0 : region.length() + 1;
+
+    var id = pack(language, script, region);
+    return core < tag.length() ? id | extra(tag.substring(core + 1)) : id;
+  }
+
+  /** Packs the language, script and region alone; each may be empty. */
+  public static long pack(CharSequence language, CharSequence script, CharSequence region) {
+    if (language.length() > 3) {
+      throw new IllegalArgumentException("Language is too long to pack: " + language);
+    }
+    if (script.length() != 0 && script.length() != 4) {
+      throw new IllegalArgumentException("Invalid script: " + script);
+    }
+
+    return ((long) letters(language, 3) << LANGUAGE_SHIFT)
+        | ((long) letters(script, 4) << SCRIPT_SHIFT)
+        | ((long) region(region) << REGION_SHIFT);
+  }
+
+  public String toLanguageTag(long id) {
+    var extra = extra(id);
+    if (language(id) == LONG_LANGUAGE) {
+      return extras.get(extra);
+    }
+
+    var sb = new StringBuilder(16);
+    appendLetters(sb, language(id), 3, Character::toLowerCase);
+    if (sb.isEmpty()) {
+      sb.append("und");
+    }
+
+    var script = (int) ((id >>> SCRIPT_SHIFT) & ((1 << SCRIPT_BITS) - 1));
+    if (script != 0) {
+      sb.append('-');
+      sb.append(Character.toUpperCase(letter(script, 3)));
+      for (var i = 2; i >= 0; i--) {
+        sb.append(letter(script, i));
+      }
+    }
+
+    var region = (int) ((id >>> REGION_SHIFT) & ((1 << REGION_BITS) - 1));
+    if ((region & NUMERIC_REGION) != 0) {
+      var number = region & ~NUMERIC_REGION;
+      sb.append('-').append((char) ('0' + number / 100));
+      sb.append((char) ('0' + number / 10 % 10)).append((char) ('0' + number % 10));
+    } else if (region != 0) {
+      sb.append('-');
+      appendLetters(sb, region, 2, Character::toUpperCase);
+    }
+
+    if (extra != 0) {
+      sb.append('-').append(extras.get(extra));
+    }
+
+    return sb.toString();
+  }
+
+  public CanonicalLocale toLocale(long id) {
+    return registry.resolve(toLanguageTag(id));
+  }
+
+  // The side table is shared by every id this instance packs, so its size is that of the set of
+  // distinct variant and extension suffixes, not of the set of locales.
+  public int extraCount() {
+    return extraIndexes.size();
+  }
+
+  private int extra(String suffix) {
+    var index = extraIndexes.get(suffix);
+    if (index != null) {
+      return index;
+    }
+
+    synchronized (lock) {
+      index = extraIndexes.get(suffix);
+      if (index != null) {
+        return index;
+      }
+
+      var next = extraIndexes.size() + 1;
+      if (next > MAXIMUM_EXTRAS) {
+        throw new IllegalStateException("Too many distinct locale suffixes: " + next);
+      }
+
+      var current = extras;
+      if (next == current.length()) {
+        var grown = new AtomicReferenceArray<String>(current.length() * 2);
+        for (var i = 1; i < next; i++) {
+          grown.set(i, current.get(i));
+        }
+        current = grown;
+      }
+      current.set(next, suffix);
+      extras = current;
+      extraIndexes.put(suffix, next);
+      return next;
+    }
+  }
+
+  private static int language(long id) {
+    return (int) (id >>> LANGUAGE_SHIFT);
+  }
+
+  private static int extra(long id) {
+    return (int) ((id >>> EXTRA_SHIFT) & MAXIMUM_EXTRAS);
+  }
+
+  // Letters are left aligned, so "en" packs as "en" followed by an absent letter.
+  private static int letters(CharSequence s, int width) {
+    var packed = 0;
+    for (var i = 0; i < s.length(); i++) {
+      packed = (packed << LETTER_BITS) | letter(s.charAt(i));
+    }
+
+    return packed << ((width - s.length()) * LETTER_BITS);
+  }
+
+  private static int letter(char c) {
+    if (c >= 'a' && c <= 'z') {
+      return c - 'a' + 1;
+    } else if (c >= 'A' && c <= 'Z') {
+      return c - 'A' + 1;
+    }
+
+    throw new IllegalArgumentException("Invalid letter: " + c);
+  }
+
+  private static int region(CharSequence region) {
+    if (region.isEmpty()) {
+      return 0;
+    } else if (region.length() == 2) {
+      return letters(region, 2);
+    } else if (region.length() == 3) {
+      var number = 0;
+      for (var i = 0; i < 3; i++) {
+        var c = region.charAt(i);
+        if (c < '0' || c > '9') {
+          throw new IllegalArgumentException("Invalid region: " + region);
+        }
+        number = number * 10 + (c - '0');
+      }
+
+      return NUMERIC_REGION | number;
+    }
+
+    throw new IllegalArgumentException("Invalid region: " + region);
+  }
+
+  private static void appendLetters(
+      StringBuilder sb, int packed, int width, IntUnaryOperator toCase) {
+    for (var i = width - 1; i >= 0 && letter(packed, i) != 0; i--) {
+      sb.append((char) toCase.applyAsInt(letter(packed, i)));
+    }
+  }
+
+  private static char letter(int packed, int position) {
+    var letter = (packed >>> (position * LETTER_BITS)) & ((1 << LETTER_BITS) - 1);
+    return letter == 0 ? 0 : (char) ('a' + letter - 1);
+  }
+}
@@ -0,0 +1,239 @@
+package com.retiman.template.locale;
+
+import com.ibm.icu.util.ULocale;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IllformedLocaleException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Negotiates an Accept-Language header against a fixed set of supported locales.
+ *
+ * <p>The supported locales are compiled into an index up front, so that each language range in a
+ * header costs a few map lookups instead of a comparison against every supported locale. A range
+ * matches, in order of preference, a supported locale with the same canonical tag, the same
+ * language, script and region, or the same language and script. Scripts and regions are inferred
+ * with ICU's likely subtags, so "zh-CN" matches "zh-Hans" and "zh-TW" does not. Legacy codes are
+ * folded by the {@link LocaleRegistry}, so "iw" matches "he".
+ *
+ * <p>This class is safe for concurrent use, and never locks.
+ */
+public final class LocaleNegotiator {
+  public static final int DEFAULT_CACHE_SIZE = 1024;
+
+  // Sentinel for a cached language range that matches nothing; it is only compared by identity.
+  private static final CanonicalLocale NO_MATCH =
+      new CanonicalLocale("und", Locale.ROOT, ULocale.ROOT);
+
+  private final LocaleRegistry registry;
+  private final CanonicalLocale defaultLocale;
+  private final List<CanonicalLocale> supported;
+  private final Map<String, CanonicalLocale> byTag;
+  private final LocaleIdMap<CanonicalLocale> byLanguageScriptRegion;
+  private final LocaleIdMap<CanonicalLocale> byLanguageScript;
+  private final ConcurrentHashMap<String, CanonicalLocale> ranges;
+  private final HeaderCache headers;
+  private final int cacheSize;
+
+  public LocaleNegotiator(Collection<String> supportedTags, String defaultTag) {
+    this(supportedTags, defaultTag, LocaleRegistry.shared(), DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Compiles the supported locales, which are in order of preference: when two of them match a
+   * language range equally well, the first one wins.
+   */
+  public LocaleNegotiator(
+      Collection<String> supportedTags, String defaultTag, LocaleRegistry registry, int cacheSize) {
+    if (cacheSize <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive: " + cacheSize);
+    }
+
+    this.registry = Objects.requireNonNull(registry, "registry");
+    this.defaultLocale = registry.resolve(defaultTag);
+    this.cacheSize = cacheSize;
+    this.ranges = new ConcurrentHashMap<>();
+    this.headers = new HeaderCache(cacheSize);
+
+    var locales = new ArrayList<CanonicalLocale>(supportedTags.size());
+    var tags = new HashMap<String, CanonicalLocale>();
+    var languageScriptRegion = new LocaleIdMap<CanonicalLocale>(supportedTags.size());
+    var languageScript = new LocaleIdMap<CanonicalLocale>(supportedTags.size());
+    for (var tag : supportedTags) {
+      var locale = registry.resolve(tag);
+      if (tags.putIfAbsent(locale.tag(), locale) != null) {
+        continue;
+      }
+
+      locales.add(locale);
+      var maximized = ULocale.addLikelySubtags(locale.ulocale());
+      if (isPackable(maximized)) {
+        var language = maximized.getLanguage();
+        var script = maximized.getScript();
+        putIfAbsent(
+            languageScriptRegion, LocaleIds.pack(language, script, maximized.getCountry()), locale);
+        putIfAbsent(languageScript, LocaleIds.pack(language, script, ""), locale);
+      }
+    }
+
+    this.supported = List.copyOf(locales);
+    this.byTag = Map.copyOf(tags);
+    this.byLanguageScriptRegion = languageScriptRegion;
+    this.byLanguageScript = languageScript;
+  }
+
+  public List<CanonicalLocale> supported() {
+    return supported;
+  }
+
+  public CanonicalLocale defaultLocale() {
+    return defaultLocale;
+  }
+
+  /**
+   * Returns the best supported locale for an Accept-Language header, or the default locale if none
+   * of the header's language ranges are acceptable.
+   */
+  public CanonicalLocale negotiate(String acceptLanguage) {
+    if (acceptLanguage == null || acceptLanguage.isBlank()) {
+      return defaultLocale;
+    }
+
+    var cached = headers.get(acceptLanguage);
+    if (cached != null) {
+      return cached;
+    }
+
+    var result = negotiate(AcceptLanguage.parse(acceptLanguage));
+    headers.put(acceptLanguage, result);
+    return result;
+  }
+
+  /** Returns the best supported locale for language ranges that are already in priority order. */
+  public CanonicalLocale negotiate(List<String> ranges) {
+    for (var range : ranges) {
+      if (range.equals("*")) {
+        return defaultLocale;
+      }
+
+      var match = match(range);
+      if (match != NO_MATCH) {
+        return match;
+      }
+    }
+
+    return defaultLocale;
+  }
+
+  private CanonicalLocale match(String range) {
+    var cached = ranges.get(range);
+    if (cached != null) {
+      return cached;
+    }
+
+    var match = lookup(range);
+    if (ranges.size() >= cacheSize) {
+      return match;
+    }
+
+    var raced = ranges.putIfAbsent(range, match);
+    return raced != null ? raced : match;
+  }
+
+  private CanonicalLocale lookup(String range) {
+    // The registry is lenient, and would resolve garbage to the root locale, which in turn would
+    // maximize to "en-Latn-US".
+    try {
+      LanguageTagParser.parse(range, new ParsedLanguageTag());
+    } catch (IllformedLocaleException e) {
+      return NO_MATCH;
+    }
+
+    var locale = registry.resolve(range);
+
+    var exact = byTag.get(locale.tag());
+    if (exact != null) {
+      return exact;
+    }
+
+    var maximized = ULocale.addLikelySubtags(locale.ulocale());
+    if (!isPackable(maximized)) {
+      return NO_MATCH;
+    }
+
+    var language = maximized.getLanguage();
+    var script = maximized.getScript();
+    var match =
+        byLanguageScriptRegion.get(LocaleIds.pack(language, script, maximized.getCountry()));
+    if (match == null) {
+      match = byLanguageScript.get(LocaleIds.pack(language, script, ""));
+    }
+
+    return match != null ? match : NO_MATCH;
+  }
+
+  private static boolean isPackable(ULocale locale) {
+    var script = locale.getScript();
+    var region = locale.getCountry();
+    return locale.getLanguage().length() <= 3
+        && (script.isEmpty() || script.length() == 4)
+        && (region.length() == 2 || region.length() == 3 || region.isEmpty());
+  }
+
+  private static void putIfAbsent(
+      LocaleIdMap<CanonicalLocale> map, long id, CanonicalLocale locale) {
+    if (!map.containsKey(id)) {
+      map.put(id, locale);
+    }
+  }
+
+  // A two-way set associative cache of whole headers.  Each set keeps its most recently used entry
+  // first, which approximates LRU without a lock or a linked list.  Writes may race, but entries
+  // are immutable, so the worst case is a lost update and a recomputation.
+  private static final class HeaderCache {
+    private final AtomicReferenceArray<Entry> entries;
+    private final int sets;
+
+    private HeaderCache(int size) {
+      var capacity = Integer.highestOneBit(Math.max(2, size - 1)) << 1;
+      this.entries = new AtomicReferenceArray<>(capacity);
+      this.sets = capacity / 2;
+    }
+
+    private CanonicalLocale get(String header) {
+      var set = set(header);
+      var first = entries.get(set);
+      if (first != null && first.header.equals(header)) {
+        return first.locale;
+      }
+
+      var second = entries.get(set + 1);
+      if (second != null && second.header.equals(header)) {
+        entries.set(set, second);
+        entries.set(set + 1, first);
+        return second.locale;
+      }
+
+      return null;
+    }
+
+    private void put(String header, CanonicalLocale locale) {
+      var set = set(header);
+      entries.set(set + 1, entries.get(set));
+      entries.set(set, new Entry(header, locale));
+    }
+
+    private int set(String header) {
+      var hash = header.hashCode();
+      return ((hash ^ (hash >>> 16)) & (sets - 1)) * 2;
+    }
+
+    private record Entry(String header, CanonicalLocale locale) {}
+  }
+}
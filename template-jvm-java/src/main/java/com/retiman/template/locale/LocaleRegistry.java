@@ -0,0 +1,129 @@
+package com.retiman.template.locale;
+
+import com.ibm.icu.util.ULocale;
+import com.retiman.template.metrics.LatencyHistogram;
+import com.retiman.template.metrics.MetricsRegistry;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, lock-free cache of {@link CanonicalLocale} instances.
+ *
+ * <p>Each tag is canonicalized once; subsequent lookups are a single map read. Entries are never
+ * evicted, which is what keeps identity comparisons valid. Once the registry is full, unseen tags
+ * are still canonicalized, but the result is not retained and may not be identical to a later
+ * lookup of the same tag.
+ *
+ * <p>Hits and misses across all registries are counted in the {@link MetricsRegistry#shared()
+ * shared metrics registry}, along with the time each miss takes, and every miss is recorded as a
+ * {@code com.retiman.template.LocaleResolution} JFR event.
+ */
+public final class LocaleRegistry {
+  public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+  private static final LongAdder HITS = MetricsRegistry.shared().counter("locale_cache_hits_total");
+  private static final LongAdder MISSES =
+      MetricsRegistry.shared().counter("locale_cache_misses_total");
+  private static final LatencyHistogram RESOLVE_LATENCIES =
+      MetricsRegistry.shared().histogram("locale_resolve_seconds");
+
+  private static final LocaleRegistry SHARED = new LocaleRegistry(DEFAULT_MAXIMUM_SIZE);
+
+  // Both the tags callers ask for ("iw", "EN", "afr") and the canonical tags ("he", "en", "af")
+  // are keys here; the canonical map is what makes aliases of one locale share an instance.
+  private final ConcurrentHashMap<String, CanonicalLocale> byTag;
+  private final ConcurrentHashMap<String, CanonicalLocale> byCanonicalTag;
+  private final int maximumSize;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public LocaleRegistry(int maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+    }
+
+    this.maximumSize = maximumSize;
+    this.byTag = new ConcurrentHashMap<>();
+    this.byCanonicalTag = new ConcurrentHashMap<>();
+  }
+
+  public static LocaleRegistry shared() {
+    return SHARED;
+  }
+
+  public CanonicalLocale resolve(String tag) {
+    Objects.requireNonNull(tag, "tag");
+
+    // The hot path is a plain get, which never locks and never allocates.
+    var cached = byTag.get(tag);
+    if (cached != null) {
+      hits.increment();
+      HITS.increment();
+      return cached;
+    }
+
+    misses.increment();
+    MISSES.increment();
+    var event = new LocaleResolutionEvent();
+    event.begin();
+    var start = System.nanoTime();
+    var resolved = canonicalize(tag);
+    RESOLVE_LATENCIES.recordSince(start);
+    if (event.shouldCommit()) {
+      event.tag = tag;
+      event.canonicalTag = resolved.tag();
+      event.cached = byTag.get(tag) == resolved;
+      event.commit();
+    }
+    return resolved;
+  }
+
+  private CanonicalLocale canonicalize(String tag) {
+    var resolved = CanonicalLocale.of(tag);
+    if (byTag.mappingCount() >= maximumSize) {
+      var existing = byCanonicalTag.get(resolved.tag());
+      return existing != null ? existing : resolved;
+    }
+
+    var canonical = byCanonicalTag.putIfAbsent(resolved.tag(), resolved);
+    if (canonical == null) {
+      canonical = resolved;
+    }
+
+    intern(canonical.tag(), canonical);
+    return intern(tag, canonical);
+  }
+
+  // Converting a Locale or ULocale to a tag allocates; callers that already have the tag should
+  // use resolve(String) on hot paths.
+  public CanonicalLocale resolve(Locale locale) {
+    return resolve(locale.toLanguageTag());
+  }
+
+  public CanonicalLocale resolve(ULocale locale) {
+    return resolve(locale.toLanguageTag());
+  }
+
+  private CanonicalLocale intern(String tag, CanonicalLocale locale) {
+    var raced = byTag.putIfAbsent(tag, locale);
+    return raced != null ? raced : locale;
+  }
+
+  public int maximumSize() {
+    return maximumSize;
+  }
+
+  public int size() {
+    return byTag.size();
+  }
+
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  public long missCount() {
+    return misses.sum();
+  }
+}
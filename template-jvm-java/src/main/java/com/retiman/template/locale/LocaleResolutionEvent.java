@@ -0,0 +1,29 @@
+package com.retiman.template.locale;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Recorded when a LocaleRegistry canonicalizes a tag it has not seen, which is where ICU's data
+// gets loaded; hits are counted in the metrics registry instead.
+@Name("com.retiman.template.LocaleResolution")
+@Label("Locale Resolution")
+@Category({"Template", "Locale"})
+@Description("A language tag canonicalized on a LocaleRegistry cache miss")
+@SuppressFBWarnings(
+    value = "URF_UNREAD_FIELD",
+    justification = "JFR reads the fields when the event is committed.")
+final class LocaleResolutionEvent extends Event {
+  @Label("Tag")
+  String tag;
+
+  @Label("Canonical Tag")
+  String canonicalTag;
+
+  @Label("Cached")
+  @Description("Whether the result was kept, which it is not once the registry is full")
+  boolean cached;
+}
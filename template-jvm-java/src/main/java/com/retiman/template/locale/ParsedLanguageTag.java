@@ -0,0 +1,398 @@
+package com.retiman.template.locale;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.nio.ByteBuffer;
+
+/**
+ * A reusable holder for the subtags of a BCP-47 language tag, filled in by {@link
+ * LanguageTagParser}.
+ *
+ * <p>Subtags are kept as {@code [start, end)} offsets into the parsed input rather than as strings,
+ * so the input must not be modified while the holder is in use. All offsets are relative to the
+ * start of the tag. An absent subtag has {@code start == end}.
+ */
+public final class ParsedLanguageTag {
+  // There are 35 possible extension singletons (a-w, y-z, 0-9), and each may appear once.
+  private static final int MAXIMUM_EXTENSIONS = 35;
+
+  private CharSequence chars;
+  private byte[] bytes;
+  private ByteBuffer buffer;
+  private int offset;
+  private int length;
+
+  // Grandfathered tags like "i-klingon" are parsed as their preferred value ("tlh"), which is a
+  // constant string we substitute for the input.
+  private boolean grandfathered;
+
+  private int languageStart;
+  private int languageEnd;
+  private int extlangStart;
+  private int extlangEnd;
+  private int scriptStart;
+  private int scriptEnd;
+  private int regionStart;
+  private int regionEnd;
+  private int variantsStart;
+  private int variantsEnd;
+  private int variantCount;
+  private int extensionCount;
+  private final int[] extensionStarts = new int[MAXIMUM_EXTENSIONS];
+  private final int[] extensionEnds = new int[MAXIMUM_EXTENSIONS];
+  private int privateUseStart;
+  private int privateUseEnd;
+  private int legacyVariantStart;
+  private int legacyVariantEnd;
+  private final LanguageTagParser.Cursor cursor = new LanguageTagParser.Cursor(this);
+
+  public int length() {
+    return length;
+  }
+
+  public char charAt(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException(index);
+    }
+
+    return read(index);
+  }
+
+  public boolean isGrandfathered() {
+    return grandfathered;
+  }
+
+  public int languageStart() {
+    return languageStart;
+  }
+
+  public int languageEnd() {
+    return languageEnd;
+  }
+
+  public int extlangStart() {
+    return extlangStart;
+  }
+
+  public int extlangEnd() {
+    return extlangEnd;
+  }
+
+  public int scriptStart() {
+    return scriptStart;
+  }
+
+  public int scriptEnd() {
+    return scriptEnd;
+  }
+
+  public int regionStart() {
+    return regionStart;
+  }
+
+  public int regionEnd() {
+    return regionEnd;
+  }
+
+  // All variants are contiguous, so they are reported as one hyphen-separated range.
+  public int variantsStart() {
+    return variantsStart;
+  }
+
+  public int variantsEnd() {
+    return variantsEnd;
+  }
+
+  public int variantCount() {
+    return variantCount;
+  }
+
+  public int extensionCount() {
+    return extensionCount;
+  }
+
+  // Each extension range starts at its singleton, e.g. "u-ca-gregory".
+  public int extensionStart(int index) {
+    return extensionStarts[checkExtension(index)];
+  }
+
+  public int extensionEnd(int index) {
+    return extensionEnds[checkExtension(index)];
+  }
+
+  // The private use range starts at the "x" singleton, and excludes any "lvariant" subtags.
+  public int privateUseStart() {
+    return privateUseStart;
+  }
+
+  public int privateUseEnd() {
+    return privateUseEnd;
+  }
+
+  // The subtags following "x-lvariant", which the JDK turns back into a variant (see
+  // JdkLocaleTest#testInvalidShortVariantsAreConvertedToExtensions).
+  public int legacyVariantStart() {
+    return legacyVariantStart;
+  }
+
+  public int legacyVariantEnd() {
+    return legacyVariantEnd;
+  }
+
+  public boolean hasLanguage() {
+    return languageStart < languageEnd;
+  }
+
+  public boolean hasScript() {
+    return scriptStart < scriptEnd;
+  }
+
+  public boolean hasRegion() {
+    return regionStart < regionEnd;
+  }
+
+  public boolean hasVariant() {
+    return variantsStart < variantsEnd || legacyVariantStart < legacyVariantEnd;
+  }
+
+  public boolean hasPrivateUse() {
+    return privateUseStart < privateUseEnd;
+  }
+
+  /** Appends the language in lowercase, as {@link java.util.Locale#getLanguage()} would. */
+  public StringBuilder appendLanguage(StringBuilder sb) {
+    return appendLower(sb, languageStart, languageEnd);
+  }
+
+  /** Appends the script in title case, as {@link java.util.Locale#getScript()} would. */
+  public StringBuilder appendScript(StringBuilder sb) {
+    if (hasScript()) {
+      sb.append(Character.toUpperCase(read(scriptStart)));
+      appendLower(sb, scriptStart + 1, scriptEnd);
+    }
+
+    return sb;
+  }
+
+  /** Appends the region in uppercase, as {@link java.util.Locale#getCountry()} would. */
+  public StringBuilder appendRegion(StringBuilder sb) {
+    for (var i = regionStart; i < regionEnd; i++) {
+      sb.append(Character.toUpperCase(read(i)));
+    }
+
+    return sb;
+  }
+
+  /**
+   * Appends the variants, including those from "x-lvariant", separated by {@code separator}. With
+   * an underscore, this is the lowercased form of {@link java.util.Locale#getVariant()}.
+   */
+  public StringBuilder appendVariant(StringBuilder sb, char separator) {
+    var first = true;
+    for (var i = variantsStart; i < variantsEnd; i++) {
+      var c = read(i);
+      sb.append(c == '-' ? separator : Character.toLowerCase(c));
+      first = false;
+    }
+
+    for (var i = legacyVariantStart; i < legacyVariantEnd; i++) {
+      if (first) {
+        first = false;
+      } else if (i == legacyVariantStart) {
+        sb.append(separator);
+      }
+
+      var c = read(i);
+      sb.append(c == '-' ? separator : Character.toLowerCase(c));
+    }
+
+    return sb;
+  }
+
+  /**
+   * Appends the tag with canonical casing. Unlike {@link java.util.Locale#toLanguageTag()}, the
+   * subtags are otherwise left as they were, e.g. extensions are not reordered.
+   */
+  public StringBuilder appendTo(StringBuilder sb) {
+    var start = sb.length();
+    appendLower(sb, languageStart, languageEnd);
+    appendSubtag(sb, start, extlangStart, extlangEnd);
+    if (hasScript()) {
+      separate(sb, start);
+      appendScript(sb);
+    }
+    if (hasRegion()) {
+      separate(sb, start);
+      appendRegion(sb);
+    }
+    appendSubtag(sb, start, variantsStart, variantsEnd);
+    for (var i = 0; i < extensionCount; i++) {
+      appendSubtag(sb, start, extensionStarts[i], extensionEnds[i]);
+    }
+
+    // The "lvariant" subtags are folded back into the private use section, which is where the JDK
+    // and ICU put them when converting back into a language tag.
+    if (hasPrivateUse()) {
+      appendSubtag(sb, start, privateUseStart, privateUseEnd);
+    }
+    if (legacyVariantStart < legacyVariantEnd) {
+      separate(sb, start);
+      sb.append(hasPrivateUse() ? "lvariant-" : "x-lvariant-");
+      appendLower(sb, legacyVariantStart, legacyVariantEnd);
+    }
+
+    return sb;
+  }
+
+  @Override
+  public String toString() {
+    return appendTo(new StringBuilder(length)).toString();
+  }
+
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP2",
+      justification = "The input is deliberately referenced rather than copied.")
+  void reset(CharSequence chars) {
+    clear();
+    this.chars = chars;
+    this.length = chars.length();
+  }
+
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP2",
+      justification = "The input is deliberately referenced rather than copied.")
+  void reset(byte[] bytes, int offset, int length) {
+    clear();
+    this.bytes = bytes;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP2",
+      justification = "The input is deliberately referenced rather than copied.")
+  void reset(ByteBuffer buffer) {
+    clear();
+    this.buffer = buffer;
+    this.offset = buffer.position();
+    this.length = buffer.remaining();
+  }
+
+  void substitute(String preferred) {
+    reset(preferred);
+    grandfathered = true;
+  }
+
+  LanguageTagParser.Cursor cursor() {
+    return cursor;
+  }
+
+  // Bytes are read as ISO-8859-1; anything outside of ASCII is rejected by the parser anyway.
+  char read(int index) {
+    if (chars != null) {
+      return chars.charAt(index);
+    } else if (bytes != null) {
+      return (char) (bytes[offset + index] & 0xff);
+    } else {
+      return (char) (buffer.get(offset + index) & 0xff);
+    }
+  }
+
+  void language(int start, int end) {
+    languageStart = start;
+    languageEnd = end;
+  }
+
+  void extlang(int start, int end) {
+    extlangStart = start;
+    extlangEnd = end;
+  }
+
+  void script(int start, int end) {
+    scriptStart = start;
+    scriptEnd = end;
+  }
+
+  void region(int start, int end) {
+    regionStart = start;
+    regionEnd = end;
+  }
+
+  void variants(int start, int end, int count) {
+    variantsStart = start;
+    variantsEnd = end;
+    variantCount = count;
+  }
+
+  boolean hasExtension(char singleton) {
+    var lower = Character.toLowerCase(singleton);
+    for (var i = 0; i < extensionCount; i++) {
+      if (Character.toLowerCase(read(extensionStarts[i])) == lower) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  void extension(int start, int end) {
+    extensionStarts[extensionCount] = start;
+    extensionEnds[extensionCount] = end;
+    extensionCount++;
+  }
+
+  void privateUse(int start, int end) {
+    privateUseStart = start;
+    privateUseEnd = end;
+  }
+
+  void legacyVariant(int start, int end) {
+    legacyVariantStart = start;
+    legacyVariantEnd = end;
+  }
+
+  private void clear() {
+    chars = null;
+    bytes = null;
+    buffer = null;
+    offset = 0;
+    length = 0;
+    grandfathered = false;
+    languageStart = languageEnd = 0;
+    extlangStart = extlangEnd = 0;
+    scriptStart = scriptEnd = 0;
+    regionStart = regionEnd = 0;
+    variantsStart = variantsEnd = variantCount = 0;
+    extensionCount = 0;
+    privateUseStart = privateUseEnd = 0;
+    legacyVariantStart = legacyVariantEnd = 0;
+  }
+
+  private int checkExtension(int index) {
+    if (index < 0 || index >= extensionCount) {
+      throw new IndexOutOfBoundsException(index);
+    }
+
+    return index;
+  }
+
+  private StringBuilder appendLower(StringBuilder sb, int start, int end) {
+    for (var i = start; i < end; i++) {
+      sb.append(Character.toLowerCase(read(i)));
+    }
+
+    return sb;
+  }
+
+  private void appendSubtag(StringBuilder sb, int tagStart, int start, int end) {
+    if (start < end) {
+      separate(sb, tagStart);
+      appendLower(sb, start, end);
+    }
+  }
+
+  private static void separate(StringBuilder sb, int tagStart) {
+    if (sb.length() > tagStart) {
+      sb.append('-');
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.retiman.template.logging;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// The queue between a RingBufferAppender's callers and its writer thread, which applies the
+// overflow policy and parks the writer while there is nothing to write.
+final class EventQueue {
+  private static final int SPINS = 100;
+  private static final long BLOCKED_PARK_NANOS = 10_000;
+
+  private final RingBuffer<LogSlot> ring;
+  private final OverflowPolicy policy;
+  private final LongAdder dropped = new LongAdder();
+  private volatile Thread consumer;
+  private volatile boolean consumerParked;
+  private volatile boolean closed;
+
+  EventQueue(int capacity, OverflowPolicy policy) {
+    this.ring = new RingBuffer<>(capacity, LogSlot::new);
+    this.policy = policy;
+  }
+
+  void setConsumer(Thread consumer) {
+    this.consumer = consumer;
+  }
+
+  /** Claims a slot to fill in, and returns its sequence, or -1 if the event was dropped. */
+  long claim() {
+    var sequence = ring.tryClaim();
+    if (sequence >= 0) {
+      return sequence;
+    }
+
+    switch (policy) {
+      case DROP_NEWEST -> {
+        dropped.increment();
+        return -1;
+      }
+      case DROP_OLDEST -> {
+        for (var spins = 0; (sequence = ring.tryClaim()) < 0; ) {
+          // Take the oldest event as if this were the writer, and throw it away.
+          var oldest = ring.tryTake();
+          if (oldest >= 0) {
+            ring.release(oldest);
+            dropped.increment();
+            continue;
+          }
+          // The oldest slot is still being filled in by a caller, or written out by the writer.
+          if (spins++ < SPINS) {
+            Thread.onSpinWait();
+          } else {
+            LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+          }
+        }
+        return sequence;
+      }
+      default -> {
+        for (var spins = 0; (sequence = ring.tryClaim()) < 0; spins++) {
+          if (closed) {
+            dropped.increment();
+            return -1;
+          }
+          wakeConsumer();
+          if (spins < SPINS) {
+            Thread.onSpinWait();
+          } else {
+            LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+          }
+        }
+        return sequence;
+      }
+    }
+  }
+
+  LogSlot get(long sequence) {
+    return ring.get(sequence);
+  }
+
+  void publish(long sequence) {
+    ring.publish(sequence);
+    if (consumerParked) {
+      wakeConsumer();
+    }
+  }
+
+  long take() {
+    return ring.tryTake();
+  }
+
+  void release(long sequence) {
+    ring.release(sequence);
+  }
+
+  /** Parks the consumer until an event is published, the queue is closed, or a timeout. */
+  void awaitEvents(long nanos) {
+    // Publishers check the flag after publishing, so either the size below sees their event, or
+    // they see the flag and unpark this thread.
+    consumerParked = true;
+    if (ring.size() == 0 && !closed) {
+      LockSupport.parkNanos(this, nanos);
+    }
+    consumerParked = false;
+  }
+
+  /** Stops blocked publishers from waiting, and wakes the consumer to drain what is left. */
+  void close() {
+    closed = true;
+    wakeConsumer();
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  int depth() {
+    return ring.size();
+  }
+
+  int capacity() {
+    return ring.capacity();
+  }
+
+  long droppedCount() {
+    return dropped.sum();
+  }
+
+  private void wakeConsumer() {
+    var thread = consumer;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+}
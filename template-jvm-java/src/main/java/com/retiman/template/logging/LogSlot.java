@@ -0,0 +1,59 @@
+package com.retiman.template.logging;
+
+import com.retiman.template.time.Iso8601Codec;
+
+// One event in a RingBufferAppender's queue.  The caller that claims the slot formats the event
+// into its line, then encodes the line as UTF-8 bytes, which the writer copies out.  Both are
+// reused
+// from one event to the next; the bytes only grow, up to the maximum event size, and a line that
+// grew for an unusually long message is not kept.
+final class LogSlot {
+  private static final int INITIAL_SIZE = 256;
+  private static final int MAXIMUM_RETAINED_LINE = 64 * 1024;
+
+  StringBuilder line = new StringBuilder(INITIAL_SIZE);
+  byte[] bytes = new byte[INITIAL_SIZE];
+  int length;
+
+  /** Writes the timestamp, then the line and a newline, truncating the line to fit. */
+  void encode(long epochMilli, int maximumSize) {
+    // Three bytes a character is enough, plus the room that the loop below keeps free.
+    var needed = Math.min(maximumSize, Iso8601Codec.MAXIMUM_LENGTH + 3 * line.length() + 5);
+    if (bytes.length < needed) {
+      bytes = new byte[Math.max(needed, Math.min(maximumSize, bytes.length * 2))];
+    }
+
+    var n = Iso8601Codec.encodeEpochMilli(epochMilli, 0, bytes, 0);
+    // Leaves room for the longest character, and the newline.
+    var limit = Math.min(bytes.length, maximumSize) - 5;
+    for (var i = 0; i < line.length() && n <= limit; i++) {
+      var c = line.charAt(i);
+      if (c < 0x80) {
+        bytes[n++] = (byte) c;
+      } else if (c < 0x800) {
+        bytes[n++] = (byte) (0xc0 | (c >>> 6));
+        bytes[n++] = (byte) (0x80 | (c & 0x3f));
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < line.length()
+          && Character.isLowSurrogate(line.charAt(i + 1))) {
+        var codePoint = Character.toCodePoint(c, line.charAt(++i));
+        bytes[n++] = (byte) (0xf0 | (codePoint >>> 18));
+        bytes[n++] = (byte) (0x80 | ((codePoint >>> 12) & 0x3f));
+        bytes[n++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3f));
+        bytes[n++] = (byte) (0x80 | (codePoint & 0x3f));
+      } else if (Character.isSurrogate(c)) {
+        bytes[n++] = '?';
+      } else {
+        bytes[n++] = (byte) (0xe0 | (c >>> 12));
+        bytes[n++] = (byte) (0x80 | ((c >>> 6) & 0x3f));
+        bytes[n++] = (byte) (0x80 | (c & 0x3f));
+      }
+    }
+    bytes[n++] = '\n';
+    length = n;
+
+    if (line.capacity() > MAXIMUM_RETAINED_LINE) {
+      line = new StringBuilder(INITIAL_SIZE);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.retiman.template.logging;
+
+import java.util.Arrays;
+
+// Formats SLF4J style messages, where each "{}" is replaced by the next argument, straight into a
+// StringBuilder.  Strings, primitives' boxes and other CharSequences are appended without creating
+// a String; anything else goes through toString.
+final class Messages {
+  private static final String ANCHOR = "{}";
+
+  private Messages() {}
+
+  static StringBuilder format(StringBuilder sb, String pattern, Object[] args) {
+    if (pattern == null) {
+      return sb.append("null");
+    }
+
+    var count = args == null ? 0 : args.length;
+    var next = 0;
+    var start = 0;
+    while (next < count) {
+      var anchor = pattern.indexOf(ANCHOR, start);
+      if (anchor < 0) {
+        break;
+      }
+
+      // "\{}" is a literal "{}", and "\\{}" is a literal backslash followed by an argument.
+      var escaped = anchor > 0 && pattern.charAt(anchor - 1) == '\\';
+      var doubleEscaped = escaped && anchor > 1 && pattern.charAt(anchor - 2) == '\\';
+      if (escaped && !doubleEscaped) {
+        sb.append(pattern, start, anchor - 1).append(ANCHOR);
+      } else {
+        sb.append(pattern, start, doubleEscaped ? anchor - 1 : anchor);
+        append(sb, args[next++]);
+      }
+      start = anchor + ANCHOR.length();
+    }
+    return sb.append(pattern, start, pattern.length());
+  }
+
+  private static void append(StringBuilder sb, Object arg) {
+    if (arg instanceof CharSequence s) {
+      sb.append(s);
+    } else if (arg instanceof Integer i) {
+      sb.append(i.intValue());
+    } else if (arg instanceof Long l) {
+      sb.append(l.longValue());
+    } else if (arg instanceof Boolean b) {
+      sb.append(b.booleanValue());
+    } else if (arg instanceof Character c) {
+      sb.append(c.charValue());
+    } else if (arg instanceof Double d) {
+      sb.append(d.doubleValue());
+    } else if (arg instanceof Float f) {
+      sb.append(f.floatValue());
+    } else if (arg instanceof Short s) {
+      sb.append(s.shortValue());
+    } else if (arg instanceof Byte b) {
+      sb.append(b.byteValue());
+    } else if (arg instanceof Object[] array) {
+      sb.append(Arrays.deepToString(array));
+    } else if (arg != null && arg.getClass().isArray()) {
+      // A primitive array; wrapping it gets deepToString to pick the right overload.
+      var s = Arrays.deepToString(new Object[] {arg});
+      sb.append(s, 1, s.length() - 1);
+    } else {
+      try {
+        sb.append(arg);
+      } catch (RuntimeException e) {
+        // As SLF4J does, so one bad argument does not lose the whole event.
+        sb.append("[FAILED toString()]");
+      }
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package com.retiman.template.logging;
+
+/** What a {@link RingBufferAppender} does with an event when its queue is full. */
+public enum OverflowPolicy {
+  /** Waits for the writer to make room, so nothing is lost but callers slow down to disk speed. */
+  BLOCK,
+  /** Discards the oldest queued event to make room, keeping the most recent history. */
+  DROP_OLDEST,
+  /** Discards the new event, which is the cheapest for the caller. */
+  DROP_NEWEST,
+}
@@ -0,0 +1,109 @@
+package com.retiman.template.logging;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, lock-free, multi-producer multi-consumer queue of preallocated slots, after Dmitry
+ * Vyukov's design.
+ *
+ * <p>Nothing is copied in or out: a producer claims a slot with {@link #tryClaim()}, fills in the
+ * object in it, and {@link #publish publishes} it; a consumer {@link #tryTake() takes} a published
+ * slot, reads it, and {@link #release releases} it back to the producers. Each slot has a sequence
+ * number that says whose turn it is, so producers and consumers only contend on their own cursor,
+ * and a full or empty queue is detected without reading the other side's cursor.
+ */
+public final class RingBuffer<T> {
+  // The cursors live in one array, far enough apart that producers and consumers never share a
+  // cache line.
+  private static final int TAIL = 7;
+  private static final int HEAD = 23;
+
+  private final Object[] slots;
+  private final AtomicLongArray sequences;
+  private final AtomicLongArray cursors = new AtomicLongArray(HEAD + 8);
+  private final int mask;
+
+  public RingBuffer(int capacity, Supplier<? extends T> factory) {
+    // With one slot, a published sequence would look free to the next producer.
+    if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two above 1: " + capacity);
+    }
+
+    this.slots = new Object[capacity];
+    this.sequences = new AtomicLongArray(capacity);
+    this.mask = capacity - 1;
+    for (var i = 0; i < capacity; i++) {
+      slots[i] = factory.get();
+      sequences.set(i, i);
+    }
+  }
+
+  public int capacity() {
+    return slots.length;
+  }
+
+  /** Returns the number of claimed or published slots that have not been released yet. */
+  public int size() {
+    var size = cursors.get(TAIL) - cursors.get(HEAD);
+    return (int) Math.max(0, Math.min(size, slots.length));
+  }
+
+  /** Claims a slot to fill in, and returns its sequence, or -1 if the queue is full. */
+  public long tryClaim() {
+    var position = cursors.get(TAIL);
+    while (true) {
+      var difference = sequences.getAcquire(index(position)) - position;
+      if (difference == 0) {
+        if (cursors.compareAndSet(TAIL, position, position + 1)) {
+          return position;
+        }
+        position = cursors.get(TAIL);
+      } else if (difference < 0) {
+        // The slot still holds an item from a lap ago.
+        return -1;
+      } else {
+        position = cursors.get(TAIL);
+      }
+    }
+  }
+
+  /** Returns the slot with a sequence, as claimed or taken. */
+  @SuppressWarnings("unchecked")
+  public T get(long sequence) {
+    return (T) slots[index(sequence)];
+  }
+
+  /** Hands a filled slot to the consumers. */
+  public void publish(long sequence) {
+    sequences.setRelease(index(sequence), sequence + 1);
+  }
+
+  /** Takes the oldest published slot, and returns its sequence, or -1 if there is none. */
+  public long tryTake() {
+    var position = cursors.get(HEAD);
+    while (true) {
+      var difference = sequences.getAcquire(index(position)) - (position + 1);
+      if (difference == 0) {
+        if (cursors.compareAndSet(HEAD, position, position + 1)) {
+          return position;
+        }
+        position = cursors.get(HEAD);
+      } else if (difference < 0) {
+        // Empty, or the next slot has been claimed but not published yet.
+        return -1;
+      } else {
+        position = cursors.get(HEAD);
+      }
+    }
+  }
+
+  /** Hands a slot that has been read back to the producers. */
+  public void release(long sequence) {
+    sequences.setRelease(index(sequence), sequence + slots.length);
+  }
+
+  private int index(long sequence) {
+    return (int) sequence & mask;
+  }
+}
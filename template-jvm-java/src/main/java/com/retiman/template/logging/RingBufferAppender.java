@@ -0,0 +1,254 @@
+package com.retiman.template.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An asynchronous file appender that does not allocate per event.
+ *
+ * <p>The calling thread claims a slot of a lock-free {@link RingBuffer}, formats the event into the
+ * slot's preallocated {@link StringBuilder}, as "timestamp level [thread] logger - message", and
+ * encodes it into the slot's bytes. Nothing is kept per thread, so callers on virtual threads cost
+ * no more than those on a pool. A single writer thread copies the slots into a direct buffer and
+ * writes it to a {@link FileChannel} whenever the buffer fills or the queue runs dry, so a burst of
+ * events costs one write call per batch rather than one per event.
+ *
+ * <p>When the queue is full, the {@link OverflowPolicy} decides whether callers wait, or an event
+ * is dropped; {@link #queueDepth()} and {@link #droppedCount()} tell how close to that the appender
+ * is running. Configure it in logback.xml like any other appender:
+ *
+ * <pre>{@code
+ * <appender name="FILE" class="com.retiman.template.logging.RingBufferAppender">
+ *   <file>app.log</file>
+ *   <capacity>8192</capacity>
+ *   <overflowPolicy>DROP_OLDEST</overflowPolicy>
+ * </appender>
+ * }</pre>
+ */
+public final class RingBufferAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+  public static final int DEFAULT_CAPACITY = 8192;
+  public static final int DEFAULT_MAXIMUM_EVENT_SIZE = 16 * 1024;
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private static final int MINIMUM_EVENT_SIZE = 64;
+  private static final int IDLE_SPINS = 1000;
+  private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final LongAdder written = new LongAdder();
+  private String file;
+  private int capacity = DEFAULT_CAPACITY;
+  private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+  private int maximumEventSize = DEFAULT_MAXIMUM_EVENT_SIZE;
+  private int bufferSize = DEFAULT_BUFFER_SIZE;
+  private EventQueue queue;
+  private FileChannel channel;
+  private Thread writer;
+
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  /** Sets the number of events that can be queued, which must be a power of two above 1. */
+  public void setCapacity(int capacity) {
+    if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two above 1: " + capacity);
+    }
+    this.capacity = capacity;
+  }
+
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  /** Sets the number of bytes an event may take, past which its message is truncated. */
+  public void setMaximumEventSize(int maximumEventSize) {
+    if (maximumEventSize < MINIMUM_EVENT_SIZE) {
+      throw new IllegalArgumentException(
+          "Maximum event size must be at least " + MINIMUM_EVENT_SIZE + ": " + maximumEventSize);
+    }
+    this.maximumEventSize = maximumEventSize;
+  }
+
+  /** Sets the size of the buffer that events are batched into before each write. */
+  public void setBufferSize(int bufferSize) {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+    }
+    this.bufferSize = bufferSize;
+  }
+
+  public String getFile() {
+    return file;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /** Returns the number of events waiting to be written. */
+  public int queueDepth() {
+    var queue = this.queue;
+    return queue != null ? queue.depth() : 0;
+  }
+
+  /** Returns the number of events dropped because the queue was full, or the appender stopping. */
+  public long droppedCount() {
+    var queue = this.queue;
+    return queue != null ? queue.droppedCount() : 0;
+  }
+
+  /** Returns the number of events written to the file. */
+  public long writtenCount() {
+    return written.sum();
+  }
+
+  @Override
+  public void start() {
+    if (isStarted()) {
+      return;
+    }
+    if (file == null) {
+      addError("No file was set for the appender named [" + getName() + "]");
+      return;
+    }
+
+    try {
+      channel =
+          FileChannel.open(
+              Path.of(file),
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      addError("Failed to open " + file, e);
+      return;
+    }
+
+    queue = new EventQueue(capacity, overflowPolicy);
+    writer = Thread.ofPlatform().daemon().name("log-writer-" + getName()).unstarted(this::drain);
+    queue.setConsumer(writer);
+    writer.start();
+    super.start();
+  }
+
+  /** Stops taking events, and returns once the queued ones have been written. */
+  @Override
+  public void stop() {
+    if (!isStarted()) {
+      return;
+    }
+
+    super.stop();
+    queue.close();
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      channel.force(false);
+      channel.close();
+    } catch (IOException e) {
+      addError("Failed to close " + file, e);
+    }
+  }
+
+  @Override
+  protected void append(ILoggingEvent event) {
+    var sequence = queue.claim();
+    if (sequence < 0) {
+      return;
+    }
+
+    // The slot is published even if formatting fails, empty, so that the writer is not stuck on it.
+    var slot = queue.get(sequence);
+    slot.length = 0;
+    try {
+      format(event, slot.line);
+      slot.encode(event.getTimeStamp(), maximumEventSize);
+    } finally {
+      queue.publish(sequence);
+    }
+  }
+
+  private static void format(ILoggingEvent event, StringBuilder line) {
+    line.setLength(0);
+    line.append(' ')
+        .append(event.getLevel().levelStr)
+        .append(" [")
+        .append(event.getThreadName())
+        .append("] ")
+        .append(event.getLoggerName())
+        .append(" - ");
+    Messages.format(line, event.getMessage(), event.getArgumentArray());
+    var throwable = event.getThrowableProxy();
+    if (throwable != null) {
+      line.append(CoreConstants.LINE_SEPARATOR).append(ThrowableProxyUtil.asString(throwable));
+      while (!line.isEmpty() && Character.isWhitespace(line.charAt(line.length() - 1))) {
+        line.setLength(line.length() - 1);
+      }
+    }
+  }
+
+  // The writer thread's loop, which runs until the queue is closed and empty.
+  private void drain() {
+    var buffer = ByteBuffer.allocateDirect(bufferSize);
+    var idle = 0;
+    while (true) {
+      var sequence = queue.take();
+      if (sequence < 0) {
+        // Wait a moment for more events before writing, so that a burst goes out in one write.
+        if (buffer.position() > 0 && ++idle < IDLE_SPINS) {
+          Thread.onSpinWait();
+          continue;
+        }
+        idle = 0;
+        write(buffer.flip());
+        buffer.clear();
+        if (queue.isClosed() && queue.depth() == 0) {
+          return;
+        }
+        // A slot may be claimed but not published yet, in which case this returns at once.
+        queue.awaitEvents(IDLE_NANOS);
+        continue;
+      }
+
+      var slot = queue.get(sequence);
+      if (slot.length > buffer.remaining()) {
+        write(buffer.flip());
+        buffer.clear();
+      }
+      if (slot.length > buffer.capacity()) {
+        write(ByteBuffer.wrap(slot.bytes, 0, slot.length));
+      } else {
+        buffer.put(slot.bytes, 0, slot.length);
+      }
+      queue.release(sequence);
+      written.increment();
+    }
+  }
+
+  private void write(ByteBuffer bytes) {
+    try {
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+    } catch (IOException e) {
+      // The batch is lost, but the writer carries on, so that blocked callers are not stuck.
+      addError("Failed to write to " + file, e);
+    }
+  }
+}
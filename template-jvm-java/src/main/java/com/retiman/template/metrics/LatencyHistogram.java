@@ -0,0 +1,126 @@
+package com.retiman.template.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds, with log-linear buckets.
+ *
+ * <p>Each power of two is split into {@value #SUB_BUCKETS} linear buckets, so a percentile is
+ * accurate to within about 3% of its value, over the whole range of a {@code long}, in a fixed
+ * 15KB. Recording is an atomic increment of one bucket and never allocates.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /** Records a latency; negative values are recorded as zero. */
+  public void record(long nanos) {
+    var value = Math.max(0, nanos);
+    buckets.incrementAndGet(bucket(value));
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /** Records the time since a start time taken from {@link System#nanoTime()}. */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  public long count() {
+    return count.sum();
+  }
+
+  public long max() {
+    return max.get();
+  }
+
+  public double mean() {
+    var n = count();
+    return n == 0 ? 0 : (double) sum.sum() / n;
+  }
+
+  /**
+   * Returns the latency at a percentile, e.g. 99.0, as the upper bound of the bucket it falls in.
+   * Concurrent recording may skew the result by the values recorded while it is being computed.
+   */
+  public long percentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+    }
+
+    var total = count();
+    if (total == 0) {
+      return 0;
+    }
+
+    var rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    var seen = 0L;
+    for (var i = 0; i < BUCKETS; i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(upperBound(i), max());
+      }
+    }
+
+    return max();
+  }
+
+  public Duration percentileDuration(double percentile) {
+    return Duration.ofNanos(percentile(percentile));
+  }
+
+  /** Clears the histogram. Values recorded concurrently may or may not survive. */
+  public void reset() {
+    for (var i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    count.reset();
+    sum.reset();
+    max.reset();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms",
+        count(), mean() / 1e6, millis(percentile(50)), millis(percentile(99)), millis(max()));
+  }
+
+  // Values below SUB_BUCKETS get a bucket each; above that, the top SUB_BUCKET_BITS bits after the
+  // leading one pick a bucket within the value's power of two.
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+
+    var exponent = 63 - Long.numberOfLeadingZeros(value);
+    var sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  static long upperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+
+    var exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    var sub = bucket % SUB_BUCKETS;
+    var width = 1L << (exponent - SUB_BUCKET_BITS);
+    var lower = (1L << exponent) + sub * width;
+    return lower + (width - 1);
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+}
@@ -0,0 +1,116 @@
+package com.retiman.template.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Named counters and latency histograms, rendered together in the Prometheus text format.
+ *
+ * <p>Looking a metric up by name is a map read, so instrumented code looks its metrics up once,
+ * typically into static fields, and then only touches the {@link LongAdder} or {@link
+ * LatencyHistogram} itself, neither of which locks or allocates. Metrics are never removed.
+ */
+public final class MetricsRegistry {
+  private static final MetricsRegistry SHARED = new MetricsRegistry();
+  private static final Pattern NAME = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+  // Sorted, so that renderings are stable from one scrape to the next.
+  private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+  private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+  private final Map<String, Boolean> names = new ConcurrentHashMap<>();
+
+  /** Returns the registry that the template's own instrumentation records into. */
+  public static MetricsRegistry shared() {
+    return SHARED;
+  }
+
+  /** Returns the counter with a name, creating it if need be. */
+  public LongAdder counter(String name) {
+    var counter = counters.get(name);
+    return counter != null
+        ? counter
+        : counters.computeIfAbsent(claim(name, false), n -> new LongAdder());
+  }
+
+  /** Returns the histogram with a name, in nanoseconds, creating it if need be. */
+  public LatencyHistogram histogram(String name) {
+    var histogram = histograms.get(name);
+    return histogram != null
+        ? histogram
+        : histograms.computeIfAbsent(claim(name, true), n -> new LatencyHistogram());
+  }
+
+  /**
+   * Renders every metric: counters as they are, and histograms as summaries in seconds, with
+   * quantiles, a sum and a count.
+   */
+  public StringBuilder render(StringBuilder out) {
+    counters.forEach((name, counter) -> sample(out, name, "", counter.sum()));
+    histograms.forEach(
+        (name, histogram) -> {
+          for (var quantile : QUANTILES) {
+            out.append(name).append("{quantile=\"").append(quantile).append("\"} ");
+            seconds(out, histogram.percentile(quantile * 100)).append('\n');
+          }
+          out.append(name).append("_sum ");
+          seconds(out, Math.round(histogram.mean() * histogram.count())).append('\n');
+          sample(out, name, "_count", histogram.count());
+        });
+    return out;
+  }
+
+  public String render() {
+    return render(new StringBuilder(1024)).toString();
+  }
+
+  /** Returns a one line summary of every metric that has recorded anything, for logging. */
+  public String summary() {
+    var out = new StringBuilder(512);
+    counters.forEach(
+        (name, counter) -> {
+          var value = counter.sum();
+          if (value != 0) {
+            out.append(out.isEmpty() ? "" : ", ").append(name).append('=').append(value);
+          }
+        });
+    histograms.forEach(
+        (name, histogram) -> {
+          if (histogram.count() != 0) {
+            out.append(out.isEmpty() ? "" : ", ")
+                .append(name)
+                .append("={")
+                .append(histogram)
+                .append('}');
+          }
+        });
+    return out.toString();
+  }
+
+  // A name may be a counter or a histogram, but not both.
+  private String claim(String name, boolean histogram) {
+    Objects.requireNonNull(name, "name");
+    if (!NAME.matcher(name).matches()) {
+      throw new IllegalArgumentException("Invalid metric name: " + name);
+    }
+    var existing = names.putIfAbsent(name, histogram);
+    if (existing != null && existing != histogram) {
+      throw new IllegalArgumentException(
+          "Metric " + name + " is already a " + (histogram ? "counter" : "histogram"));
+    }
+    return name;
+  }
+
+  private static void sample(StringBuilder out, String name, String suffix, long value) {
+    out.append(name).append(suffix).append(' ').append(value).append('\n');
+  }
+
+  private static StringBuilder seconds(StringBuilder out, long nanos) {
+    return out.append(String.format(Locale.ROOT, "%.6f", nanos / 1e9));
+  }
+}
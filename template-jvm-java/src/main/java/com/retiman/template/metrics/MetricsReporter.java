@@ -0,0 +1,58 @@
+package com.retiman.template.metrics;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs a {@link MetricsRegistry#summary() summary} of a registry at a fixed interval, so that
+ * metrics end up wherever logback sends the {@code com.retiman.template.metrics} logger.
+ *
+ * <p>Closing the reporter logs one last summary, so that a short-lived process still reports.
+ */
+public final class MetricsReporter implements AutoCloseable {
+  private static final Logger LOGGER = LoggerFactory.getLogger("com.retiman.template.metrics");
+
+  private final MetricsRegistry registry;
+  private final ScheduledExecutorService scheduler;
+
+  private MetricsReporter(MetricsRegistry registry, Duration interval) {
+    this.registry = registry;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("metrics-reporter").factory());
+    var nanos = interval.toNanos();
+    scheduler.scheduleAtFixedRate(this::report, nanos, nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /** Starts logging a registry's metrics every interval. */
+  public static MetricsReporter start(MetricsRegistry registry, Duration interval) {
+    Objects.requireNonNull(registry, "registry");
+    if (interval.isNegative() || interval.isZero()) {
+      throw new IllegalArgumentException("Interval must be positive: " + interval);
+    }
+    return new MetricsReporter(registry, interval);
+  }
+
+  /** Logs the registry's metrics now, if there are any and INFO is enabled. */
+  public void report() {
+    if (LOGGER.isInfoEnabled()) {
+      var summary = registry.summary();
+      if (!summary.isEmpty()) {
+        LOGGER.info("Metrics: {}", summary);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (!scheduler.isShutdown()) {
+      scheduler.close();
+      report();
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package com.retiman.template.server;
+
+import java.io.IOException;
+
+/** Handles requests for one path of an {@link HttpService}, on the request's virtual thread. */
+@FunctionalInterface
+public interface Handler {
+  Response handle(Request request) throws IOException;
+}
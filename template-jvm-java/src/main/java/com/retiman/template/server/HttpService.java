@@ -0,0 +1,229 @@
+package com.retiman.template.server;
+
+import com.retiman.template.locale.CanonicalLocale;
+import com.retiman.template.locale.LocaleNegotiator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An embedded HTTP service on the JDK's {@link HttpServer}, which runs every request on its own
+ * virtual thread.
+ *
+ * <p>Each request goes through the same pipeline: it is parsed, which refuses methods other than
+ * GET and HEAD and drains the request body so that the connection can be kept alive; its locale is
+ * negotiated from the Accept-Language header; it is routed by exact path to a {@link Handler}; and
+ * the handler's response is written with a Content-Length, so that the connection can be reused for
+ * the next request. A built-in handler serves {@link ServiceMetrics} at {@code /metrics}.
+ *
+ * <p>The JDK server accepts connections on one thread and parks idle keep-alive connections on its
+ * selector, so connections cost no thread while they wait; a virtual thread only exists while a
+ * request is being handled. Load is bounded twice: the OS queues at most {@link
+ * ServiceConfig#backlog()} connections that have not been accepted yet, and at most {@link
+ * ServiceConfig#maxInFlight()} requests are handled at once, past which requests are refused with a
+ * 503 rather than queued.
+ *
+ * <p>The JDK server writes a response's headers and body separately, so unless the JVM runs with
+ * {@code -Dsun.net.httpserver.nodelay=true}, every response on a keep-alive connection waits out
+ * the client's delayed ACK, about 40ms. The JDK reads the property once, when the first {@link
+ * HttpServer} is created, so it belongs on the command line; {@link com.retiman.template.Main} sets
+ * it before it starts anything.
+ *
+ * <p>{@link #close()} drains the service: new requests are refused, and requests in flight get up
+ * to {@link ServiceConfig#drainTimeout()} to finish before the server stops.
+ */
+public final class HttpService implements AutoCloseable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(HttpService.class);
+
+  private final ServiceConfig config;
+  private final LocaleNegotiator negotiator;
+  private final Map<String, Handler> routes;
+  private final ServiceMetrics metrics = new ServiceMetrics();
+  private final Semaphore permits;
+  private final ExecutorService executor;
+  private final HttpServer server;
+  private volatile boolean draining;
+
+  private HttpService(ServiceConfig config, Map<String, Handler> routes) throws IOException {
+    this.config = config;
+    this.negotiator = new LocaleNegotiator(config.supportedLocales(), config.defaultLocale());
+    this.routes = Map.copyOf(routes);
+    this.permits = new Semaphore(config.maxInFlight());
+    this.executor =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-service-", 0).factory());
+    this.server = HttpServer.create(config.address(), config.backlog());
+    this.server.setExecutor(executor);
+    this.server.createContext("/", this::handle);
+  }
+
+  /** Starts a service that routes requests by exact path, and also serves {@code /metrics}. */
+  public static HttpService start(ServiceConfig config, Map<String, Handler> routes) {
+    Objects.requireNonNull(config, "config");
+    if (routes.containsKey("/metrics")) {
+      throw new IllegalArgumentException("The /metrics path is reserved");
+    }
+
+    try {
+      var service = new HttpService(config, routes);
+      service.server.start();
+      return service;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public ServiceConfig config() {
+    return config;
+  }
+
+  public ServiceMetrics metrics() {
+    return metrics;
+  }
+
+  /** Returns the address the service is listening on, with the port it was given. */
+  public InetSocketAddress address() {
+    return server.getAddress();
+  }
+
+  /** Returns a URI for a path on this service, by IP address. */
+  public URI uri(String path) {
+    var address = address();
+    var host = address.getAddress().isAnyLocalAddress() ? "127.0.0.1" : address.getHostString();
+    return URI.create("http://" + host + ":" + address.getPort() + path);
+  }
+
+  /**
+   * Stops accepting requests, waits for those in flight to finish, up to the drain timeout, and
+   * then stops the server.
+   */
+  @Override
+  public void close() {
+    if (draining) {
+      return;
+    }
+
+    draining = true;
+    var drained = false;
+    try {
+      var timeout = config.drainTimeout().toNanos();
+      drained = permits.tryAcquire(config.maxInFlight(), timeout, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!drained) {
+      LOGGER.warn("Stopping with {} requests still in flight", metrics.inFlight());
+    }
+
+    server.stop(0);
+    executor.close();
+  }
+
+  @Override
+  public String toString() {
+    return "HttpService[" + address() + (draining ? ", draining" : "") + "]";
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (draining || !permits.tryAcquire()) {
+        metrics.rejected();
+        exchange.getResponseHeaders().set("Connection", "close");
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        exchange.sendResponseHeaders(503, -1);
+        return;
+      }
+
+      var start = System.nanoTime();
+      var status = 500;
+      metrics.started();
+      try {
+        var request = parse(exchange);
+        var response = request == null ? Response.text(405, "") : route(request);
+        status = response.status();
+        write(exchange, request, response);
+      } finally {
+        metrics.finished(status, start);
+        permits.release();
+      }
+    }
+  }
+
+  // Returns null for a request that this service does not accept.
+  private Request parse(HttpExchange exchange) throws IOException {
+    // Read any body to the end, or the connection cannot be reused.
+    try (var body = exchange.getRequestBody()) {
+      body.transferTo(OutputStream.nullOutputStream());
+    }
+
+    var method = exchange.getRequestMethod();
+    if (!method.equals("GET") && !method.equals("HEAD")) {
+      return null;
+    }
+
+    var headers = exchange.getRequestHeaders();
+    var locale = negotiate(headers.getFirst("Accept-Language"));
+    return new Request(method, exchange.getRequestURI(), headers, locale);
+  }
+
+  private CanonicalLocale negotiate(String acceptLanguage) {
+    return negotiator.negotiate(acceptLanguage);
+  }
+
+  private Response route(Request request) {
+    var path = request.path();
+    if (path.equals("/metrics")) {
+      return Response.text(metrics.render());
+    }
+
+    var handler = routes.get(path);
+    if (handler == null) {
+      return Response.text(404, "Not found: " + path);
+    }
+
+    try {
+      return handler.handle(request);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.error("Failed to handle {}", request.uri(), e);
+      return Response.text(500, "Internal server error");
+    }
+  }
+
+  private void write(HttpExchange exchange, Request request, Response response) throws IOException {
+    var headers = exchange.getResponseHeaders();
+    if (response.status() == 405) {
+      headers.set("Allow", "GET, HEAD");
+    }
+    if (request != null) {
+      headers.set("Content-Language", request.locale().tag());
+      headers.set("Vary", "Accept-Language");
+    }
+    headers.set("Content-Type", response.contentType());
+
+    // A length of 0 would mean a chunked response; -1 means no body at all.
+    var head = request != null && request.method().equals("HEAD");
+    if (head || response.length() == 0) {
+      if (head) {
+        headers.set("Content-Length", Integer.toString(response.length()));
+      }
+      exchange.sendResponseHeaders(response.status(), -1);
+      return;
+    }
+
+    exchange.sendResponseHeaders(response.status(), response.length());
+    try (var out = exchange.getResponseBody()) {
+      response.writeTo(out);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.retiman.template.server;
+
+import com.retiman.template.locale.CanonicalLocale;
+import com.sun.net.httpserver.Headers;
+import java.net.URI;
+import java.util.List;
+
+/** A parsed request, as handed to a {@link Handler}. */
+public final class Request {
+  private final String method;
+  private final URI uri;
+  private final Headers headers;
+  private final CanonicalLocale locale;
+
+  Request(String method, URI uri, Headers headers, CanonicalLocale locale) {
+    this.method = method;
+    this.uri = uri;
+    this.headers = headers;
+    this.locale = locale;
+  }
+
+  /** Returns the request method, e.g. "GET". */
+  public String method() {
+    return method;
+  }
+
+  /** Returns the request URI, as sent by the client. */
+  public URI uri() {
+    return uri;
+  }
+
+  public String path() {
+    return uri.getPath();
+  }
+
+  /** Returns the first value of a header, or null if the request does not have it. */
+  public String header(String name) {
+    return headers.getFirst(name);
+  }
+
+  /** Returns all values of a header, which may be empty. */
+  public List<String> headers(String name) {
+    var values = headers.get(name);
+    return values == null ? List.of() : List.copyOf(values);
+  }
+
+  /** Returns the negotiated locale that the response should be in. */
+  public CanonicalLocale locale() {
+    return locale;
+  }
+
+  @Override
+  public String toString() {
+    return "Request[" + method + " " + uri + ", " + locale.tag() + "]";
+  }
+}
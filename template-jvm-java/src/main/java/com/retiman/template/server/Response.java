@@ -0,0 +1,58 @@
+package com.retiman.template.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/** A response with a body that is already in memory, so that it can be sent with its length. */
+public final class Response {
+  private static final String TEXT = "text/plain; charset=utf-8";
+
+  private final int status;
+  private final String contentType;
+  private final byte[] body;
+
+  private Response(int status, String contentType, byte[] body) {
+    if (status < 100 || status > 599) {
+      throw new IllegalArgumentException("Status must be between 100 and 599: " + status);
+    }
+
+    this.status = status;
+    this.contentType = Objects.requireNonNull(contentType, "contentType");
+    this.body = body;
+  }
+
+  public static Response of(int status, String contentType, byte[] body) {
+    return new Response(status, contentType, body.clone());
+  }
+
+  public static Response text(int status, String body) {
+    return new Response(status, TEXT, body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static Response text(String body) {
+    return text(200, body);
+  }
+
+  public int status() {
+    return status;
+  }
+
+  public String contentType() {
+    return contentType;
+  }
+
+  public int length() {
+    return body.length;
+  }
+
+  public void writeTo(OutputStream out) throws IOException {
+    out.write(body);
+  }
+
+  @Override
+  public String toString() {
+    return "Response[" + status + ", " + contentType + ", " + body.length + " bytes]";
+  }
+}
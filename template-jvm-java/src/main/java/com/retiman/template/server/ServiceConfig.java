@@ -0,0 +1,96 @@
+package com.retiman.template.server;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Settings for an {@link HttpService}.
+ *
+ * @param address the address to listen on; port 0 picks a free port
+ * @param backlog the number of connections the OS may queue before the service accepts them
+ * @param maxInFlight the number of requests handled at once; requests past it are refused
+ * @param drainTimeout how long shutdown waits for requests in flight to finish
+ * @param supportedLocales the locales responses may be in, in order of preference
+ * @param defaultLocale the locale of responses to requests that accept none of the supported ones
+ */
+@SuppressFBWarnings(
+    value = "EI_EXPOSE_REP",
+    justification = "The supported locales are copied into an unmodifiable list.")
+public record ServiceConfig(
+    InetSocketAddress address,
+    int backlog,
+    int maxInFlight,
+    Duration drainTimeout,
+    List<String> supportedLocales,
+    String defaultLocale) {
+  public static final int DEFAULT_PORT = 8080;
+  public static final int DEFAULT_BACKLOG = 1024;
+  public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+  public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(10);
+  public static final List<String> DEFAULT_SUPPORTED_LOCALES =
+      List.of("en-US", "en-GB", "de-DE", "fr-FR", "es-ES", "ja-JP", "zh-Hans", "zh-Hant");
+  public static final String DEFAULT_LOCALE = "en-US";
+
+  public ServiceConfig {
+    Objects.requireNonNull(address, "address");
+    if (backlog <= 0) {
+      throw new IllegalArgumentException("Backlog must be positive: " + backlog);
+    }
+    if (maxInFlight <= 0) {
+      throw new IllegalArgumentException("Max in flight must be positive: " + maxInFlight);
+    }
+    if (drainTimeout.isNegative()) {
+      throw new IllegalArgumentException("Drain timeout must not be negative: " + drainTimeout);
+    }
+    if (supportedLocales.isEmpty()) {
+      throw new IllegalArgumentException("Supported locales must not be empty");
+    }
+    supportedLocales = List.copyOf(supportedLocales);
+    Objects.requireNonNull(defaultLocale, "defaultLocale");
+  }
+
+  /** Returns the defaults, listening on all interfaces on a port. */
+  public static ServiceConfig ofPort(int port) {
+    return new ServiceConfig(
+        new InetSocketAddress(port),
+        DEFAULT_BACKLOG,
+        DEFAULT_MAX_IN_FLIGHT,
+        DEFAULT_DRAIN_TIMEOUT,
+        DEFAULT_SUPPORTED_LOCALES,
+        DEFAULT_LOCALE);
+  }
+
+  /** Returns the defaults, listening on a free port on the loopback interface. */
+  public static ServiceConfig loopback() {
+    return ofPort(0).withAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+  }
+
+  public ServiceConfig withAddress(InetSocketAddress address) {
+    return new ServiceConfig(
+        address, backlog, maxInFlight, drainTimeout, supportedLocales, defaultLocale);
+  }
+
+  public ServiceConfig withBacklog(int backlog) {
+    return new ServiceConfig(
+        address, backlog, maxInFlight, drainTimeout, supportedLocales, defaultLocale);
+  }
+
+  public ServiceConfig withMaxInFlight(int maxInFlight) {
+    return new ServiceConfig(
+        address, backlog, maxInFlight, drainTimeout, supportedLocales, defaultLocale);
+  }
+
+  public ServiceConfig withDrainTimeout(Duration drainTimeout) {
+    return new ServiceConfig(
+        address, backlog, maxInFlight, drainTimeout, supportedLocales, defaultLocale);
+  }
+
+  public ServiceConfig withLocales(List<String> supportedLocales, String defaultLocale) {
+    return new ServiceConfig(
+        address, backlog, maxInFlight, drainTimeout, supportedLocales, defaultLocale);
+  }
+}
@@ -0,0 +1,111 @@
+package com.retiman.template.server;
+
+import com.retiman.template.metrics.LatencyHistogram;
+import com.retiman.template.metrics.MetricsRegistry;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latencies for an {@link HttpService}, which it serves in the Prometheus text format
+ * at {@code /metrics}, followed by those in the {@link MetricsRegistry#shared() shared metrics
+ * registry}.
+ *
+ * <p>Latency is measured from when a request is dispatched to its virtual thread to when its
+ * response has been written, so it does not include time spent in the accept queue.
+ */
+public final class ServiceMetrics {
+  private final long startNanos = System.nanoTime();
+  private final LatencyHistogram latencies = new LatencyHistogram();
+  private final LongAdder[] statuses = new LongAdder[6];
+  private final LongAdder rejected = new LongAdder();
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  ServiceMetrics() {
+    for (var i = 0; i < statuses.length; i++) {
+      statuses[i] = new LongAdder();
+    }
+  }
+
+  /** Returns the number of requests handled, not counting those that were refused. */
+  public long requestCount() {
+    return latencies.count();
+  }
+
+  /** Returns the number of responses with a status in a class, e.g. 2 for 2xx. */
+  public long responseCount(int statusClass) {
+    if (statusClass < 1 || statusClass > 5) {
+      throw new IllegalArgumentException("Status class must be between 1 and 5: " + statusClass);
+    }
+    return statuses[statusClass].sum();
+  }
+
+  /** Returns the number of requests refused because too many were in flight, or on shutdown. */
+  public long rejectedCount() {
+    return rejected.sum();
+  }
+
+  public int inFlight() {
+    return inFlight.get();
+  }
+
+  public LatencyHistogram latencies() {
+    return latencies;
+  }
+
+  /** Returns the mean number of requests per second since the service started. */
+  public double throughput() {
+    var seconds = (System.nanoTime() - startNanos) / 1e9;
+    return seconds <= 0 ? 0 : requestCount() / seconds;
+  }
+
+  /** Renders the metrics, and the shared registry's, in the Prometheus text format. */
+  public String render() {
+    var out = new StringBuilder(2048);
+    counter(out, "http_requests_total", requestCount());
+    counter(out, "http_requests_rejected_total", rejectedCount());
+    for (var i = 1; i < statuses.length; i++) {
+      out.append("http_responses_total{class=\"")
+          .append(i)
+          .append("xx\"} ")
+          .append(statuses[i].sum())
+          .append('\n');
+    }
+    out.append("http_requests_in_flight ").append(inFlight()).append('\n');
+    out.append(String.format(Locale.ROOT, "http_requests_per_second %.3f%n", throughput()));
+    for (var quantile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+      out.append(
+          String.format(
+              Locale.ROOT,
+              "http_request_duration_seconds{quantile=\"%s\"} %.6f%n",
+              quantile,
+              latencies.percentile(quantile * 100) / 1e9));
+    }
+    out.append(
+        String.format(
+            Locale.ROOT,
+            "http_request_duration_seconds_sum %.6f%n",
+            latencies.mean() * latencies.count() / 1e9));
+    counter(out, "http_request_duration_seconds_count", latencies.count());
+    return MetricsRegistry.shared().render(out).toString();
+  }
+
+  void started() {
+    inFlight.incrementAndGet();
+  }
+
+  void finished(int status, long startNanos) {
+    inFlight.decrementAndGet();
+    statuses[Math.min(Math.max(status / 100, 1), 5)].increment();
+    latencies.recordSince(startNanos);
+  }
+
+  void rejected() {
+    rejected.increment();
+    statuses[5].increment();
+  }
+
+  private static void counter(StringBuilder out, String name, long value) {
+    out.append(name).append(' ').append(value).append('\n');
+  }
+}
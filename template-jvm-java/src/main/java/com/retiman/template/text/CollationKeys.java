@@ -0,0 +1,170 @@
+package com.retiman.template.text;
+
+import com.ibm.icu.text.Collator;
+import com.ibm.icu.text.RawCollationKey;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// The collation keys of a list of strings, packed end to end into one direct buffer, so that
+// millions of keys cost two objects rather than millions of byte arrays.  Keys compare as unsigned
+// bytes, which orders them the way the collator would order their strings.  The first eight bytes
+// of each key are also kept on the heap, and decide most comparisons without reading the arena.
+final class CollationKeys {
+  // Strings whose keys are computed by one task, into one array that is then copied into the arena.
+  static final int CHUNK_SIZE = 4096;
+
+  private final ByteBuffer arena;
+  private final int[] offsets;
+  private final long[] prefixes;
+
+  private CollationKeys(ByteBuffer arena, int[] offsets, long[] prefixes) {
+    this.arena = arena;
+    this.offsets = offsets;
+    this.prefixes = prefixes;
+  }
+
+  static CollationKeys of(Collator collator, List<String> values, ForkJoinPool pool) {
+    var chunks = new byte[(values.size() + CHUNK_SIZE - 1) / CHUNK_SIZE][];
+    var offsets = new int[values.size() + 1];
+    var task = new ComputeKeys(collator, values, chunks, offsets, 0, chunks.length);
+    if (chunks.length <= 1) {
+      task.compute();
+    } else {
+      pool.invoke(task);
+    }
+
+    // Each chunk's offsets start from zero; move them to where the chunk goes in the arena.
+    var total = 0L;
+    for (var chunk = 0; chunk < chunks.length; chunk++) {
+      var from = chunk * CHUNK_SIZE;
+      var to = Math.min(from + CHUNK_SIZE, values.size());
+      for (var i = from + 1; i <= to; i++) {
+        offsets[i] += (int) total;
+      }
+      total += chunks[chunk].length;
+      if (total > Integer.MAX_VALUE - 8) {
+        throw new IllegalArgumentException("Collation keys take more than 2GB: " + values.size());
+      }
+    }
+
+    var arena = ByteBuffer.allocateDirect((int) total);
+    for (var chunk : chunks) {
+      arena.put(chunk);
+    }
+
+    // Shorter keys are padded with zeros, so a prefix never orders two keys the wrong way round; at
+    // worst it ties, and the comparison goes on into the arena.
+    var prefixes = new long[values.size()];
+    for (var i = 0; i < prefixes.length; i++) {
+      var prefix = 0L;
+      for (var k = offsets[i]; k < offsets[i] + Long.BYTES; k++) {
+        prefix = (prefix << 8) | (k < offsets[i + 1] ? arena.get(k) & 0xff : 0);
+      }
+      prefixes[i] = prefix;
+    }
+    return new CollationKeys(arena, offsets, prefixes);
+  }
+
+  int size() {
+    return offsets.length - 1;
+  }
+
+  /** Returns the number of bytes in the arena. */
+  int byteSize() {
+    return arena.capacity();
+  }
+
+  int compare(int i, int j) {
+    if (prefixes[i] != prefixes[j]) {
+      return Long.compareUnsigned(prefixes[i], prefixes[j]);
+    }
+
+    var a = offsets[i];
+    var b = offsets[j];
+    var aLength = offsets[i + 1] - a;
+    var bLength = offsets[j + 1] - b;
+    var length = Math.min(aLength, bLength);
+
+    // Eight bytes at a time; the buffer is big endian, so the first differing byte decides.
+    var k = 0;
+    for (; k + Long.BYTES <= length; k += Long.BYTES) {
+      var x = arena.getLong(a + k);
+      var y = arena.getLong(b + k);
+      if (x != y) {
+        return Long.compareUnsigned(x, y);
+      }
+    }
+    for (; k < length; k++) {
+      var x = arena.get(a + k) & 0xff;
+      var y = arena.get(b + k) & 0xff;
+      if (x != y) {
+        return x - y;
+      }
+    }
+    return Integer.compare(aLength, bLength);
+  }
+
+  @SuppressFBWarnings(
+      value = "SE_BAD_FIELD",
+      justification =
+          "Tasks are never serialized; RecursiveAction is only Serializable by history.")
+  private static final class ComputeKeys extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Collator collator;
+    private final List<String> values;
+    private final byte[][] chunks;
+    private final int[] offsets;
+    private final int from;
+    private final int to;
+
+    private ComputeKeys(
+        Collator collator, List<String> values, byte[][] chunks, int[] offsets, int from, int to) {
+      this.collator = collator;
+      this.values = values;
+      this.chunks = chunks;
+      this.offsets = offsets;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 1) {
+        var middle = (from + to) >>> 1;
+        invokeAll(
+            new ComputeKeys(collator, values, chunks, offsets, from, middle),
+            new ComputeKeys(collator, values, chunks, offsets, middle, to));
+        return;
+      }
+
+      for (var chunk = from; chunk < to; chunk++) {
+        computeChunk(chunk);
+      }
+    }
+
+    // One key object is reused for the whole chunk, and its bytes are appended to the chunk's
+    // array, which grows as it needs to.
+    private void computeChunk(int chunk) {
+      var key = new RawCollationKey();
+      var bytes = new byte[CHUNK_SIZE * 32];
+      var length = 0;
+      var start = chunk * CHUNK_SIZE;
+      var end = Math.min(start + CHUNK_SIZE, values.size());
+      for (var i = start; i < end; i++) {
+        collator.getRawCollationKey(values.get(i), key);
+        if (length + key.size > bytes.length) {
+          bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + key.size));
+        }
+        System.arraycopy(key.bytes, 0, bytes, length, key.size);
+        length += key.size;
+        offsets[i + 1] = length;
+      }
+      chunks[chunk] = Arrays.copyOf(bytes, length);
+    }
+  }
+}
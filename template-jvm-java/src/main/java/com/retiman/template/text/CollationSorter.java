@@ -0,0 +1,180 @@
+package com.retiman.template.text;
+
+import com.ibm.icu.text.Collator;
+import com.retiman.template.locale.CanonicalLocale;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Sorts strings in the collation order of a locale.
+ *
+ * <p>Comparing two strings with a {@link Collator} walks both strings through the collation tables
+ * every time, and a sort makes n log n comparisons. Instead, each string's collation key is
+ * computed once, the keys are packed into one direct buffer, and the sort compares key bytes. Large
+ * inputs compute their keys and merge sort in parallel on a pool. The order is the same as a stable
+ * sort with {@link Collator#compare(String, String)}: strings that collate equal keep their order.
+ *
+ * <p>Collators are frozen, so one instance per locale is shared by every thread.
+ */
+public final class CollationSorter {
+  // Below this many strings, the sort does not fork.
+  private static final int PARALLEL_THRESHOLD = 1 << 13;
+  // Below this many strings, a merge sort's leaf is an insertion sort.
+  private static final int INSERTION_THRESHOLD = 32;
+
+  private static final CollationSorter SHARED = new CollationSorter(ForkJoinPool.commonPool());
+
+  private final ForkJoinPool pool;
+  private final ConcurrentHashMap<String, Collator> collators = new ConcurrentHashMap<>();
+
+  public CollationSorter(ForkJoinPool pool) {
+    this.pool = Objects.requireNonNull(pool, "pool");
+  }
+
+  public static CollationSorter shared() {
+    return SHARED;
+  }
+
+  /** Returns the frozen collator for a locale, which is safe to share across threads. */
+  public Collator collator(CanonicalLocale locale) {
+    var collator = collators.get(locale.tag());
+    if (collator != null) {
+      return collator;
+    }
+    return collators.computeIfAbsent(
+        locale.tag(), tag -> Collator.getInstance(locale.ulocale()).freeze());
+  }
+
+  /** Returns a sorted copy of a list of strings. */
+  public List<String> sort(List<String> values, CanonicalLocale locale) {
+    return reorder(values, order(values, locale));
+  }
+
+  /** Returns a copy of a list of items, sorted by the collation order of a string for each item. */
+  public <T> List<T> sort(List<T> items, Function<? super T, String> key, CanonicalLocale locale) {
+    var values = new ArrayList<String>(items.size());
+    for (var item : items) {
+      values.add(Objects.requireNonNull(key.apply(item), "key"));
+    }
+
+    return reorder(items, order(values, locale));
+  }
+
+  /**
+   * Returns the indexes of a list of strings in collation order: the first element is the index of
+   * the string that sorts first.
+   */
+  public int[] order(List<String> values, CanonicalLocale locale) {
+    for (var value : values) {
+      Objects.requireNonNull(value, "value");
+    }
+
+    var keys = CollationKeys.of(collator(locale), values, pool);
+    var order = new int[values.size()];
+    for (var i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    var scratch = new int[order.length];
+    if (order.length <= PARALLEL_THRESHOLD) {
+      sort(keys, order, scratch, 0, order.length);
+    } else {
+      pool.invoke(new MergeSort(keys, order, scratch, 0, order.length));
+    }
+    return order;
+  }
+
+  private static <T> List<T> reorder(List<T> items, int[] order) {
+    var sorted = new ArrayList<T>(order.length);
+    for (var i : order) {
+      sorted.add(items.get(i));
+    }
+    return sorted;
+  }
+
+  // A stable merge sort of order[from, to), using the same range of scratch.
+  private static void sort(CollationKeys keys, int[] order, int[] scratch, int from, int to) {
+    if (to - from <= INSERTION_THRESHOLD) {
+      insertionSort(keys, order, from, to);
+      return;
+    }
+
+    var middle = (from + to) >>> 1;
+    sort(keys, order, scratch, from, middle);
+    sort(keys, order, scratch, middle, to);
+    merge(keys, order, scratch, from, middle, to);
+  }
+
+  private static void insertionSort(CollationKeys keys, int[] order, int from, int to) {
+    for (var i = from + 1; i < to; i++) {
+      var index = order[i];
+      var j = i - 1;
+      while (j >= from && keys.compare(order[j], index) > 0) {
+        order[j + 1] = order[j];
+        j--;
+      }
+      order[j + 1] = index;
+    }
+  }
+
+  private static void merge(
+      CollationKeys keys, int[] order, int[] scratch, int from, int middle, int to) {
+    // Already in order, which is common for input that was mostly sorted.
+    if (keys.compare(order[middle - 1], order[middle]) <= 0) {
+      return;
+    }
+
+    System.arraycopy(order, from, scratch, from, to - from);
+    var i = from;
+    var j = middle;
+    for (var k = from; k < to; k++) {
+      // Ties go to the left half, which is what keeps the sort stable.
+      if (j >= to || (i < middle && keys.compare(scratch[i], scratch[j]) <= 0)) {
+        order[k] = scratch[i++];
+      } else {
+        order[k] = scratch[j++];
+      }
+    }
+  }
+
+  @SuppressFBWarnings(
+      value = "SE_BAD_FIELD",
+      justification =
+          "Tasks are never serialized; RecursiveAction is only Serializable by history.")
+  private static final class MergeSort extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final CollationKeys keys;
+    private final int[] order;
+    private final int[] scratch;
+    private final int from;
+    private final int to;
+
+    private MergeSort(CollationKeys keys, int[] order, int[] scratch, int from, int to) {
+      this.keys = keys;
+      this.order = order;
+      this.scratch = scratch;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= PARALLEL_THRESHOLD) {
+        sort(keys, order, scratch, from, to);
+        return;
+      }
+
+      var middle = (from + to) >>> 1;
+      invokeAll(
+          new MergeSort(keys, order, scratch, from, middle),
+          new MergeSort(keys, order, scratch, middle, to));
+      merge(keys, order, scratch, from, middle, to);
+    }
+  }
+}
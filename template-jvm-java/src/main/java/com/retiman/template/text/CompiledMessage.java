@@ -0,0 +1,531 @@
+package com.retiman.template.text;
+
+import com.ibm.icu.text.DecimalFormat;
+import com.ibm.icu.text.DecimalFormatSymbols;
+import com.ibm.icu.text.MessageFormat;
+import com.ibm.icu.text.MessagePattern;
+import com.ibm.icu.text.NumberFormat;
+import com.ibm.icu.util.ULocale;
+import com.retiman.template.locale.CanonicalLocale;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An ICU {@link MessageFormat} pattern compiled for a locale into an immutable tree of text,
+ * arguments and sub-messages, so that rendering a message neither parses the pattern nor creates
+ * formatters.
+ *
+ * <p>Output is the same as {@code new MessageFormat(pattern, locale).format(arguments)}. Arguments
+ * may be untyped, numbers (with no style, "integer", "percent", "currency", a {@code DecimalFormat}
+ * pattern or a "::" skeleton), plurals, ordinals or selects; dates, times, spelled out numbers and
+ * choices are not supported. Plural categories of integer counts come from a {@code PluralTable}
+ * for the locale rather than from evaluating the plural rules.
+ *
+ * <p>Messages are immutable and safe to share across threads.
+ */
+public final class CompiledMessage {
+  private static final Object MISSING = new Object();
+
+  // The formatter for untyped numeric arguments and "#", per locale tag.
+  private static final ConcurrentHashMap<String, CompiledNumberFormatter> STOCK_FORMATTERS =
+      new ConcurrentHashMap<>();
+
+  private final CanonicalLocale locale;
+  private final String pattern;
+  private final Node[] nodes;
+  private final boolean namedArguments;
+
+  private CompiledMessage(
+      CanonicalLocale locale, String pattern, Node[] nodes, boolean namedArguments) {
+    this.locale = locale;
+    this.pattern = pattern;
+    this.nodes = nodes;
+    this.namedArguments = namedArguments;
+  }
+
+  /**
+   * Compiles a pattern for a locale.
+   *
+   * @throws IllegalArgumentException if the pattern is not valid, or uses an argument type that is
+   *     not supported
+   */
+  public static CompiledMessage compile(String pattern, CanonicalLocale locale) {
+    Objects.requireNonNull(pattern, "pattern");
+    Objects.requireNonNull(locale, "locale");
+
+    var parsed = new MessagePattern(pattern);
+    var nodes = new Compiler(parsed, locale).message(0);
+    return new CompiledMessage(locale, pattern, nodes, parsed.hasNamedArguments());
+  }
+
+  public CanonicalLocale locale() {
+    return locale;
+  }
+
+  public String pattern() {
+    return pattern;
+  }
+
+  /**
+   * Formats a message with numbered arguments.
+   *
+   * @throws IllegalArgumentException if the pattern has named arguments
+   */
+  public String format(Object... arguments) {
+    return format(arguments, new StringBuilder()).toString();
+  }
+
+  /**
+   * Formats a message with numbered arguments into a builder.
+   *
+   * @throws IllegalArgumentException if the pattern has named arguments
+   */
+  public StringBuilder format(Object[] arguments, StringBuilder out) {
+    if (namedArguments) {
+      throw new IllegalArgumentException("Message has named arguments: " + pattern);
+    }
+    append(nodes, arguments != null ? arguments : new Object[0], null, null, out);
+    return out;
+  }
+
+  /** Formats a message with named arguments; numbered arguments are named "0", "1" and so on. */
+  public String format(Map<String, ?> arguments) {
+    return format(arguments, new StringBuilder()).toString();
+  }
+
+  public StringBuilder format(Map<String, ?> arguments, StringBuilder out) {
+    append(nodes, null, arguments != null ? arguments : Map.of(), null, out);
+    return out;
+  }
+
+  /** Formats a message once for each set of numbered arguments. */
+  public List<String> formatAll(List<Object[]> argumentSets) {
+    var messages = new ArrayList<String>(argumentSets.size());
+    var out = new StringBuilder();
+    for (var arguments : argumentSets) {
+      out.setLength(0);
+      messages.add(format(arguments, out).toString());
+    }
+    return messages;
+  }
+
+  /** Formats a message once for each set of named arguments. */
+  public List<String> formatAllNamed(List<? extends Map<String, ?>> argumentSets) {
+    var messages = new ArrayList<String>(argumentSets.size());
+    var out = new StringBuilder();
+    for (var arguments : argumentSets) {
+      out.setLength(0);
+      messages.add(format(arguments, out).toString());
+    }
+    return messages;
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledMessage[" + locale.tag() + ", " + pattern + "]";
+  }
+
+  // Exactly one of array and map is set; operand is the number "#" stands for, if any.
+  private static void append(
+      Node[] nodes, Object[] array, Map<String, ?> map, Number operand, StringBuilder out) {
+    for (var node : nodes) {
+      node.append(array, map, operand, out);
+    }
+  }
+
+  private static CompiledNumberFormatter stockFormatter(CanonicalLocale locale) {
+    var formatter = STOCK_FORMATTERS.get(locale.tag());
+    if (formatter != null) {
+      return formatter;
+    }
+    return STOCK_FORMATTERS.computeIfAbsent(
+        locale.tag(),
+        tag ->
+            CompiledNumberFormatter.of(
+                locale, decimal(NumberFormat.getInstance(locale.ulocale()))));
+  }
+
+  private static DecimalFormat decimal(NumberFormat format) {
+    if (format instanceof DecimalFormat decimal) {
+      return decimal;
+    }
+    throw new IllegalArgumentException("Unsupported number format: " + format.getClass().getName());
+  }
+
+  // Compiles the parts of a parsed pattern into nodes, as MessageFormat walks them when it formats.
+  private static final class Compiler {
+    private final MessagePattern parsed;
+    private final String text;
+    private final CanonicalLocale locale;
+    private final CompiledNumberFormatter stock;
+
+    private Compiler(MessagePattern parsed, CanonicalLocale locale) {
+      this.parsed = parsed;
+      this.text = parsed.getPatternString();
+      this.locale = locale;
+      this.stock = stockFormatter(locale);
+    }
+
+    // Compiles the message or sub-message starting at a MSG_START part.
+    private Node[] message(int start) {
+      var nodes = new ArrayList<Node>();
+      var literal = new StringBuilder();
+      var previous = parsed.getPart(start).getLimit();
+      for (var i = start + 1; ; i++) {
+        var part = parsed.getPart(i);
+        var type = part.getType();
+        literal.append(text, previous, part.getIndex());
+        if (type == MessagePattern.Part.Type.MSG_LIMIT) {
+          break;
+        }
+
+        previous = part.getLimit();
+        if (type == MessagePattern.Part.Type.REPLACE_NUMBER) {
+          flush(literal, nodes);
+          nodes.add(new Pound(stock));
+        } else if (type == MessagePattern.Part.Type.ARG_START) {
+          flush(literal, nodes);
+          nodes.add(argument(i));
+          i = parsed.getLimitPartIndex(i);
+          previous = parsed.getPart(i).getLimit();
+        }
+      }
+      flush(literal, nodes);
+      return nodes.toArray(Node[]::new);
+    }
+
+    private static void flush(StringBuilder literal, List<Node> nodes) {
+      if (!literal.isEmpty()) {
+        nodes.add(new Text(literal.toString()));
+        literal.setLength(0);
+      }
+    }
+
+    private Node argument(int start) {
+      var name = parsed.getPart(start + 1);
+      var number = name.getType() == MessagePattern.Part.Type.ARG_NUMBER ? name.getValue() : -1;
+      var argumentName = parsed.getSubstring(name);
+      return switch (parsed.getPart(start).getArgType()) {
+        case NONE -> new Untyped(number, argumentName, stock, locale.ulocale());
+        case SIMPLE -> new Formatted(number, argumentName, numberFormatter(start));
+        case PLURAL -> plural(start, number, argumentName, PluralTable.cardinal(locale));
+        case SELECTORDINAL -> plural(start, number, argumentName, PluralTable.ordinal(locale));
+        case SELECT -> select(start, number, argumentName);
+        case CHOICE -> throw new IllegalArgumentException("Unsupported argument type: choice");
+      };
+    }
+
+    // The formatter MessageFormat would make for a "{n, number, style}" argument.
+    private CompiledNumberFormatter numberFormatter(int start) {
+      var type = parsed.getSubstring(parsed.getPart(start + 2));
+      if (!keyword(type).equals("number")) {
+        throw new IllegalArgumentException("Unsupported argument type: " + type);
+      }
+
+      var stylePart = parsed.getPart(start + 3);
+      var style =
+          stylePart.getType() == MessagePattern.Part.Type.ARG_STYLE
+              ? parsed.getSubstring(stylePart)
+              : "";
+      var ulocale = locale.ulocale();
+      return switch (keyword(style)) {
+        case "" -> stock;
+        case "integer" -> CompiledNumberFormatter.of(
+            locale, decimal(NumberFormat.getIntegerInstance(ulocale)));
+        case "percent" -> CompiledNumberFormatter.of(
+            locale, decimal(NumberFormat.getPercentInstance(ulocale)));
+        case "currency" -> CompiledNumberFormatter.of(
+            locale, decimal(NumberFormat.getCurrencyInstance(ulocale)));
+        default -> {
+          var trimmed = style.strip();
+          yield trimmed.startsWith("::")
+              ? NumberFormatterCache.shared().formatter(locale, trimmed.substring(2))
+              : CompiledNumberFormatter.of(
+                  locale, new DecimalFormat(style, new DecimalFormatSymbols(ulocale)));
+        }
+      };
+    }
+
+    private static String keyword(String s) {
+      return s.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private Node plural(int start, int number, String name, PluralTable table) {
+      var i = start + 2;
+      var offset = 0.0;
+      if (parsed.getPartType(i).hasNumericValue()) {
+        offset = parsed.getNumericValue(parsed.getPart(i++));
+      }
+
+      var explicitValues = new ArrayList<Double>();
+      var explicitMessages = new ArrayList<Node[]>();
+      var keywords = new HashMap<String, Node[]>();
+      Node[] other = null;
+      var otherStart = 0;
+      while (parsed.getPartType(i) != MessagePattern.Part.Type.ARG_LIMIT) {
+        var selector = parsed.getPart(i++);
+        if (parsed.getPartType(i).hasNumericValue()) {
+          explicitValues.add(parsed.getNumericValue(parsed.getPart(i++)));
+          explicitMessages.add(message(i));
+        } else if (parsed.partSubstringMatches(selector, "other")) {
+          if (other == null) {
+            other = message(i);
+            otherStart = i;
+          }
+        } else {
+          keywords.putIfAbsent(parsed.getSubstring(selector), message(i));
+        }
+        i = parsed.getLimitPartIndex(i) + 1;
+      }
+
+      var values = new double[explicitValues.size()];
+      for (var v = 0; v < values.length; v++) {
+        values[v] = explicitValues.get(v);
+      }
+      return new Plural(
+          number,
+          name,
+          offset,
+          table,
+          stock,
+          selectionFormatter(otherStart, name),
+          values,
+          explicitMessages.toArray(Node[][]::new),
+          Map.copyOf(keywords),
+          other);
+    }
+
+    // MessageFormat picks the plural category of a number as it would be formatted by the first
+    // argument of the same name in the "other" sub-message, if there is one before any "#".
+    private CompiledNumberFormatter selectionFormatter(int otherStart, String name) {
+      for (var i = otherStart + 1; ; i++) {
+        var part = parsed.getPart(i);
+        switch (part.getType()) {
+          case MSG_LIMIT, REPLACE_NUMBER -> {
+            return stock;
+          }
+          case ARG_START -> {
+            var type = part.getArgType();
+            var simple = type == MessagePattern.ArgType.SIMPLE;
+            if ((simple || type == MessagePattern.ArgType.NONE)
+                && parsed.partSubstringMatches(parsed.getPart(i + 1), name)) {
+              return simple ? numberFormatter(i) : stock;
+            }
+            i = parsed.getLimitPartIndex(i);
+          }
+          default -> {}
+        }
+      }
+    }
+
+    private Node select(int start, int number, String name) {
+      var keywords = new HashMap<String, Node[]>();
+      Node[] other = null;
+      var i = start + 2;
+      while (parsed.getPartType(i) != MessagePattern.Part.Type.ARG_LIMIT) {
+        var selector = parsed.getPart(i++);
+        if (parsed.partSubstringMatches(selector, "other")) {
+          if (other == null) {
+            other = message(i);
+          }
+        } else {
+          keywords.putIfAbsent(parsed.getSubstring(selector), message(i));
+        }
+        i = parsed.getLimitPartIndex(i) + 1;
+      }
+      return new Select(number, name, Map.copyOf(keywords), other);
+    }
+  }
+
+  private abstract static class Node {
+    abstract void append(Object[] array, Map<String, ?> map, Number operand, StringBuilder out);
+  }
+
+  private static final class Text extends Node {
+    private final String text;
+
+    private Text(String text) {
+      this.text = text;
+    }
+
+    @Override
+    void append(Object[] array, Map<String, ?> map, Number operand, StringBuilder out) {
+      out.append(text);
+    }
+  }
+
+  // "#" in a plural sub-message, which is always formatted with the stock formatter.
+  private static final class Pound extends Node {
+    private final CompiledNumberFormatter stock;
+
+    private Pound(CompiledNumberFormatter stock) {
+      this.stock = stock;
+    }
+
+    @Override
+    void append(Object[] array, Map<String, ?> map, Number operand, StringBuilder out) {
+      stock.format(operand, out);
+    }
+  }
+
+  // An argument, which is written as "{name}" when it is missing and "null" when it is null.
+  private abstract static class Argument extends Node {
+    final int number;
+    final String name;
+
+    Argument(int number, String name) {
+      this.number = number;
+      this.name = name;
+    }
+
+    @Override
+    final void append(Object[] array, Map<String, ?> map, Number operand, StringBuilder out) {
+      Object value;
+      if (array != null) {
+        value = number < array.length ? array[number] : MISSING;
+      } else {
+        @SuppressWarnings("unchecked")
+        var values = (Map<String, Object>) map;
+        value = values.getOrDefault(name, MISSING);
+      }
+
+      if (value == MISSING) {
+        out.append('{').append(name).append('}');
+      } else if (value == null) {
+        out.append("null");
+      } else {
+        appendValue(value, array, map, out);
+      }
+    }
+
+    abstract void appendValue(Object value, Object[] array, Map<String, ?> map, StringBuilder out);
+
+    static Number number(Object value) {
+      if (value instanceof Number number) {
+        return number;
+      }
+      throw new IllegalArgumentException("'" + value + "' is not a Number");
+    }
+  }
+
+  private static final class Untyped extends Argument {
+    private final CompiledNumberFormatter stock;
+    private final ULocale locale;
+
+    private Untyped(int number, String name, CompiledNumberFormatter stock, ULocale locale) {
+      super(number, name);
+      this.stock = stock;
+      this.locale = locale;
+    }
+
+    @Override
+    void appendValue(Object value, Object[] array, Map<String, ?> map, StringBuilder out) {
+      if (value instanceof Number number) {
+        stock.format(number, out);
+      } else if (value instanceof String string) {
+        out.append(string);
+      } else {
+        // Dates and anything else MessageFormat has a stock format for, which are rare enough that
+        // a throwaway MessageFormat is fine.
+        out.append(new MessageFormat("{0}", locale).format(new Object[] {value}));
+      }
+    }
+  }
+
+  private static final class Formatted extends Argument {
+    private final CompiledNumberFormatter formatter;
+
+    private Formatted(int number, String name, CompiledNumberFormatter formatter) {
+      super(number, name);
+      this.formatter = formatter;
+    }
+
+    @Override
+    void appendValue(Object value, Object[] array, Map<String, ?> map, StringBuilder out) {
+      formatter.format(number(value), out);
+    }
+  }
+
+  private static final class Plural extends Argument {
+    private final double offset;
+    private final PluralTable table;
+    private final CompiledNumberFormatter stock;
+    private final CompiledNumberFormatter selection;
+    private final double[] explicitValues;
+    private final Node[][] explicitMessages;
+    private final Map<String, Node[]> keywords;
+    private final Node[] other;
+
+    private Plural(
+        int number,
+        String name,
+        double offset,
+        PluralTable table,
+        CompiledNumberFormatter stock,
+        CompiledNumberFormatter selection,
+        double[] explicitValues,
+        Node[][] explicitMessages,
+        Map<String, Node[]> keywords,
+        Node[] other) {
+      super(number, name);
+      this.offset = offset;
+      this.table = table;
+      this.stock = stock;
+      this.selection = selection;
+      this.explicitValues = explicitValues;
+      this.explicitMessages = explicitMessages;
+      this.keywords = keywords;
+      this.other = other;
+    }
+
+    @Override
+    void appendValue(Object value, Object[] array, Map<String, ?> map, StringBuilder out) {
+      var number = number(value);
+      var n = number.doubleValue();
+      // Without an offset, "#" is the argument itself, so that a long is not rounded to a double.
+      var operand = offset == 0 ? number : (Number) (n - offset);
+
+      // Explicit values match the argument before the offset, and win over keywords.
+      for (var i = 0; i < explicitValues.length; i++) {
+        if (n == explicitValues[i]) {
+          CompiledMessage.append(explicitMessages[i], array, map, operand, out);
+          return;
+        }
+      }
+
+      var message = keywords.isEmpty() ? other : keywords.getOrDefault(category(n - offset), other);
+      CompiledMessage.append(message, array, map, operand, out);
+    }
+
+    private String category(double n) {
+      // MessageFormat selects on the number itself for skeletons, but as a DecimalFormat would
+      // show it otherwise.  The stock format shows small integers as they are, so the table has
+      // their categories.
+      if (selection.skeleton() != null || (selection == stock && table.contains(n))) {
+        return table.select(n);
+      }
+      return table.select(selection.icu().format(n));
+    }
+  }
+
+  private static final class Select extends Argument {
+    private final Map<String, Node[]> keywords;
+    private final Node[] other;
+
+    private Select(int number, String name, Map<String, Node[]> keywords, Node[] other) {
+      super(number, name);
+      this.keywords = keywords;
+      this.other = other;
+    }
+
+    @Override
+    void appendValue(Object value, Object[] array, Map<String, ?> map, StringBuilder out) {
+      CompiledMessage.append(keywords.getOrDefault(value.toString(), other), array, map, null, out);
+    }
+  }
+}
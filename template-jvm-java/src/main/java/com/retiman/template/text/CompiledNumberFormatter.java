@@ -0,0 +1,495 @@
+package com.retiman.template.text;
+
+import com.ibm.icu.number.LocalizedNumberFormatter;
+import com.ibm.icu.number.NumberFormatter;
+import com.ibm.icu.text.DecimalFormat;
+import com.ibm.icu.text.DecimalFormatSymbols;
+import com.retiman.template.locale.CanonicalLocale;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * An ICU number formatter for a locale and a <a
+ * href="https://unicode-org.github.io/icu/userguide/format_parse/numbers/skeletons.html">number
+ * skeleton</a>, e.g. ".00" or "group-off", which formats into a caller's {@link StringBuilder} or
+ * {@link Appendable}.
+ *
+ * <p>Plain numbers in locales with ASCII digits take a fast path, which writes digits, separators
+ * and the minus sign straight into the sink without going through ICU. The fast path covers {@code
+ * long}s, fixed-scale decimals given as an unscaled {@code long} and a scale, and {@link
+ * BigDecimal}s small enough to be one; skeletons may only set the fraction digits and the grouping.
+ * When a formatter is compiled, its fast path is checked against ICU on a set of probe values, and
+ * is turned off on any difference. Everything else, including every {@code double}, goes through
+ * ICU.
+ *
+ * <p>Formatters are immutable and safe to share across threads.
+ */
+public final class CompiledNumberFormatter {
+  private static final Pattern FRACTION = Pattern.compile("\\.(0*)(#*)");
+
+  private static final long[] POWERS_OF_TEN = new long[19];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (var i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  // Values the fast path must format exactly as ICU does before it is used.
+  private static final long[] PROBE_LONGS = {
+    0,
+    1,
+    -1,
+    9,
+    10,
+    -99,
+    999,
+    1_000,
+    -1_000,
+    9_999,
+    10_000,
+    12_345,
+    99_999,
+    100_000,
+    123_456,
+    1_234_567,
+    -12_345_678,
+    123_456_789_012L,
+    Long.MAX_VALUE,
+    Long.MIN_VALUE
+  };
+  private static final double[] PROBE_DOUBLES = {0, 3, -1_234, 1e15, -0x1p53};
+  private static final long[][] PROBE_SCALED = {
+    {1, 1},
+    {5, 1},
+    {15, 1},
+    {25, 1},
+    {-25, 1},
+    {-1, 3},
+    {5, 3},
+    {15, 3},
+    {12_345, 2},
+    {-123_456_789, 2},
+    {1_000_000, 6},
+    {1_234_567, 7},
+    {99_995, 4},
+    {-999_999_995, 9},
+    {5, 18},
+    {Long.MAX_VALUE, 18},
+    {Long.MIN_VALUE + 1, 5}
+  };
+
+  private static final double MAXIMUM_EXACT_DOUBLE = 0x1p53;
+
+  private final CanonicalLocale locale;
+  private final String skeleton;
+  private final LocalizedNumberFormatter icu;
+  private final FastPath fast;
+
+  private CompiledNumberFormatter(
+      CanonicalLocale locale, String skeleton, LocalizedNumberFormatter icu, FastPath candidate) {
+    this.locale = locale;
+    this.skeleton = skeleton;
+    this.icu = icu;
+    this.fast = candidate != null && candidate.matches(icu) ? candidate : null;
+  }
+
+  /**
+   * Compiles a skeleton for a locale.
+   *
+   * @throws IllegalArgumentException if the skeleton is not valid
+   */
+  public static CompiledNumberFormatter compile(CanonicalLocale locale, String skeleton) {
+    Objects.requireNonNull(locale, "locale");
+    Objects.requireNonNull(skeleton, "skeleton");
+    var icu = NumberFormatter.forSkeleton(skeleton).locale(locale.ulocale());
+    return new CompiledNumberFormatter(
+        locale, skeleton, icu, FastPath.forSkeleton(locale, skeleton, icu));
+  }
+
+  // Compiles the formatter equivalent to a DecimalFormat, such as the ones MessageFormat makes for
+  // number arguments. The format is copied, so the caller may go on to change it.
+  static CompiledNumberFormatter of(CanonicalLocale locale, DecimalFormat format) {
+    var icu = format.toNumberFormatter();
+    return new CompiledNumberFormatter(locale, null, icu, FastPath.forDecimalFormat(format, icu));
+  }
+
+  public CanonicalLocale locale() {
+    return locale;
+  }
+
+  /** Returns the skeleton, or null for a formatter made from a {@code DecimalFormat}. */
+  public String skeleton() {
+    return skeleton;
+  }
+
+  /** Returns the ICU formatter that values off the fast path are formatted with. */
+  public LocalizedNumberFormatter icu() {
+    return icu;
+  }
+
+  /** Returns whether plain numbers bypass ICU. */
+  public boolean hasFastPath() {
+    return fast != null;
+  }
+
+  public StringBuilder format(long value, StringBuilder out) {
+    if (fast != null) {
+      fast.appendScaled(value, 0, out);
+    } else {
+      icu.format(value).appendTo(out);
+    }
+    return out;
+  }
+
+  public void format(long value, Appendable out) throws IOException {
+    if (out instanceof StringBuilder builder) {
+      format(value, builder);
+    } else {
+      out.append(format(value, new StringBuilder(32)));
+    }
+  }
+
+  /**
+   * Formats the decimal {@code unscaled * 10^-scale}, e.g. 12345 and 2 for 123.45, as {@link
+   * #format(BigDecimal, StringBuilder)} would.
+   */
+  public StringBuilder formatScaled(long unscaled, int scale, StringBuilder out) {
+    if (fast != null && fast.covers(unscaled, scale)) {
+      fast.appendScaled(unscaled, scale, out);
+    } else {
+      icu.format(BigDecimal.valueOf(unscaled, scale)).appendTo(out);
+    }
+    return out;
+  }
+
+  public void formatScaled(long unscaled, int scale, Appendable out) throws IOException {
+    if (out instanceof StringBuilder builder) {
+      formatScaled(unscaled, scale, builder);
+    } else {
+      out.append(formatScaled(unscaled, scale, new StringBuilder(32)));
+    }
+  }
+
+  public StringBuilder format(BigDecimal value, StringBuilder out) {
+    var unscaled = value.unscaledValue();
+    if (fast != null && unscaled.bitLength() < Long.SIZE) {
+      return formatScaled(unscaled.longValue(), value.scale(), out);
+    }
+    icu.format(value).appendTo(out);
+    return out;
+  }
+
+  public void format(BigDecimal value, Appendable out) throws IOException {
+    if (out instanceof StringBuilder builder) {
+      format(value, builder);
+    } else {
+      out.append(format(value, new StringBuilder(32)));
+    }
+  }
+
+  public StringBuilder format(double value, StringBuilder out) {
+    // Integral doubles have an exact decimal form, which is what ICU formats.
+    if (fast != null
+        && value == (long) value
+        && Math.abs(value) <= MAXIMUM_EXACT_DOUBLE
+        && (value != 0 || Double.doubleToRawLongBits(value) == 0)) {
+      fast.appendScaled((long) value, 0, out);
+    } else {
+      icu.format(value).appendTo(out);
+    }
+    return out;
+  }
+
+  public void format(double value, Appendable out) throws IOException {
+    if (out instanceof StringBuilder builder) {
+      format(value, builder);
+    } else {
+      out.append(format(value, new StringBuilder(32)));
+    }
+  }
+
+  /** Formats any number ICU can, taking the fast path for the types that have one. */
+  public StringBuilder format(Number value, StringBuilder out) {
+    if (value instanceof Long
+        || value instanceof Integer
+        || value instanceof Short
+        || value instanceof Byte) {
+      return format(value.longValue(), out);
+    } else if (value instanceof Double) {
+      return format(value.doubleValue(), out);
+    } else if (value instanceof BigDecimal decimal) {
+      return format(decimal, out);
+    }
+    icu.format(value).appendTo(out);
+    return out;
+  }
+
+  public void format(Number value, Appendable out) throws IOException {
+    if (out instanceof StringBuilder builder) {
+      format(value, builder);
+    } else {
+      out.append(format(value, new StringBuilder(32)));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledNumberFormatter[" + locale.tag() + ", " + skeleton + "]";
+  }
+
+  // Formats plain decimals the way ICU does for one locale and skeleton: an optional minus sign,
+  // grouped integer digits, then between the minimum and maximum number of fraction digits, rounded
+  // half even.
+  private static final class FastPath {
+    private final String minus;
+    private final String groupingSeparator;
+    private final String decimalSeparator;
+    private final int minimumFraction;
+    private final int maximumFraction;
+    // Zero when the integer digits are never grouped.
+    private final int primaryGrouping;
+    private final int secondaryGrouping;
+    // Integer digits are only grouped when there are at least this many more than the primary size.
+    private final int minimumGrouping;
+
+    private FastPath(
+        String minus,
+        String groupingSeparator,
+        String decimalSeparator,
+        int minimumFraction,
+        int maximumFraction,
+        int primaryGrouping,
+        int secondaryGrouping,
+        int minimumGrouping) {
+      this.minus = minus;
+      this.groupingSeparator = groupingSeparator;
+      this.decimalSeparator = decimalSeparator;
+      this.minimumFraction = minimumFraction;
+      this.maximumFraction = maximumFraction;
+      this.primaryGrouping = primaryGrouping;
+      this.secondaryGrouping = secondaryGrouping;
+      this.minimumGrouping = minimumGrouping;
+    }
+
+    // Returns a candidate for the skeleton, or null if it has an option the fast path cannot do.
+    private static FastPath forSkeleton(
+        CanonicalLocale locale, String skeleton, LocalizedNumberFormatter icu) {
+      // ICU's default is up to six fraction digits.
+      var minimumFraction = 0;
+      var maximumFraction = 6;
+      for (var token : skeleton.trim().split("\\s+")) {
+        switch (token) {
+          case "",
+              "group-auto",
+              "group-off",
+              ",_",
+              "group-min2",
+              ",?",
+              "group-on-aligned",
+              ",!" -> {
+            // Grouping is read off the output below.
+          }
+          case "precision-integer" -> maximumFraction = 0;
+          default -> {
+            var fraction = FRACTION.matcher(token);
+            if (!fraction.matches()) {
+              return null;
+            }
+            minimumFraction = fraction.group(1).length();
+            maximumFraction = minimumFraction + fraction.group(2).length();
+            if (maximumFraction >= POWERS_OF_TEN.length) {
+              return null;
+            }
+          }
+        }
+      }
+
+      return of(
+          DecimalFormatSymbols.getInstance(locale.ulocale()),
+          icu,
+          minimumFraction,
+          maximumFraction);
+    }
+
+    // Returns a candidate for a plain decimal pattern like "#,##0.###", or null if the format has
+    // an option the fast path cannot do.
+    private static FastPath forDecimalFormat(DecimalFormat format, LocalizedNumberFormatter icu) {
+      if (format.areSignificantDigitsUsed()
+          || format.isDecimalSeparatorAlwaysShown()
+          || format.isScientificNotation()
+          || format.getMultiplier() != 1
+          || format.getRoundingIncrement() != null
+          || format.getRoundingMode() != com.ibm.icu.math.BigDecimal.ROUND_HALF_EVEN
+          || format.getMinimumIntegerDigits() != 1
+          || format.getMaximumFractionDigits() >= POWERS_OF_TEN.length
+          || !format.getPositivePrefix().isEmpty()
+          || !format.getPositiveSuffix().isEmpty()
+          || !format.getNegativeSuffix().isEmpty()) {
+        return null;
+      }
+      return of(
+          format.getDecimalFormatSymbols(),
+          icu,
+          format.getMinimumFractionDigits(),
+          format.getMaximumFractionDigits());
+    }
+
+    // The grouping sizes are read off ICU's own output, since they vary by locale (e.g. "12,34,567"
+    // in en-IN, or no separator in "1234" in es).
+    private static FastPath of(
+        DecimalFormatSymbols symbols,
+        LocalizedNumberFormatter icu,
+        int minimumFraction,
+        int maximumFraction) {
+      if (symbols.getZeroDigit() != '0') {
+        return null;
+      }
+
+      var separator = symbols.getGroupingSeparatorString();
+      var decimal = symbols.getDecimalSeparatorString();
+      var integer = icu.format(Long.MAX_VALUE).toString();
+      if (integer.contains(decimal)) {
+        integer = integer.substring(0, integer.indexOf(decimal));
+      }
+      var grouped = integer.split(Pattern.quote(separator), -1);
+      var primary = 0;
+      var secondary = 0;
+      var minimum = 1;
+      if (grouped.length > 1) {
+        primary = grouped[grouped.length - 1].length();
+        secondary = grouped.length > 2 ? grouped[grouped.length - 2].length() : primary;
+        while (minimum < 4
+            && primary + minimum <= POWERS_OF_TEN.length
+            && !icu.format(POWERS_OF_TEN[primary + minimum - 1]).toString().contains(separator)) {
+          minimum++;
+        }
+      }
+      return new FastPath(
+          symbols.getMinusSignString(),
+          separator,
+          decimal,
+          minimumFraction,
+          maximumFraction,
+          primary,
+          secondary,
+          minimum);
+    }
+
+    private boolean matches(LocalizedNumberFormatter icu) {
+      var out = new StringBuilder();
+      for (var value : PROBE_LONGS) {
+        out.setLength(0);
+        appendScaled(value, 0, out);
+        if (!out.toString().equals(icu.format(value).toString())) {
+          return false;
+        }
+      }
+      for (var probe : PROBE_SCALED) {
+        out.setLength(0);
+        appendScaled(probe[0], (int) probe[1], out);
+        if (!out.toString()
+            .equals(icu.format(BigDecimal.valueOf(probe[0], (int) probe[1])).toString())) {
+          return false;
+        }
+      }
+      for (var value : PROBE_DOUBLES) {
+        out.setLength(0);
+        appendScaled((long) value, 0, out);
+        if (!out.toString().equals(icu.format(value).toString())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean covers(long unscaled, int scale) {
+      return scale >= 0
+          && scale < POWERS_OF_TEN.length
+          && (scale == 0 || unscaled != Long.MIN_VALUE);
+    }
+
+    private void appendScaled(long unscaled, int scale, StringBuilder out) {
+      if (unscaled < 0) {
+        out.append(minus);
+      }
+      if (scale == 0) {
+        // Integers are never rounded; negating Long.MIN_VALUE leaves the right unsigned value.
+        appendInteger(unscaled < 0 ? -unscaled : unscaled, out);
+        appendFraction(0, 0, out);
+        return;
+      }
+
+      var value = Math.abs(unscaled);
+      var fraction = scale;
+      if (fraction > maximumFraction) {
+        var divisor = POWERS_OF_TEN[fraction - maximumFraction];
+        var quotient = value / divisor;
+        var remainder = value % divisor;
+        var half = divisor / 2;
+        if (remainder > half || (remainder == half && (quotient & 1) == 1)) {
+          quotient++;
+        }
+        value = quotient;
+        fraction = maximumFraction;
+      }
+      while (fraction > minimumFraction && value % 10 == 0) {
+        value /= 10;
+        fraction--;
+      }
+
+      appendInteger(value / POWERS_OF_TEN[fraction], out);
+      appendFraction(value % POWERS_OF_TEN[fraction], fraction, out);
+    }
+
+    // Appends an unsigned integer with grouping separators.
+    private void appendInteger(long value, StringBuilder out) {
+      var digits = new char[20];
+      var count = 0;
+      if (value < 0) {
+        // Only Long.MIN_VALUE, negated; after one unsigned division the rest fits in a long.
+        digits[count++] = (char) ('0' + Long.remainderUnsigned(value, 10));
+        value = Long.divideUnsigned(value, 10);
+      }
+      do {
+        digits[count++] = (char) ('0' + value % 10);
+        value /= 10;
+      } while (value != 0);
+
+      var grouped = primaryGrouping > 0 && count >= primaryGrouping + minimumGrouping;
+      for (var i = count - 1; i >= 0; i--) {
+        out.append(digits[i]);
+        if (grouped && isGroupBoundary(i)) {
+          out.append(groupingSeparator);
+        }
+      }
+    }
+
+    // Returns whether a separator follows the digit with this many digits to its right.
+    private boolean isGroupBoundary(int right) {
+      return right == primaryGrouping
+          || (right > primaryGrouping && (right - primaryGrouping) % secondaryGrouping == 0);
+    }
+
+    // Appends the given number of fraction digits, and zeros up to the minimum.
+    private void appendFraction(long value, int digits, StringBuilder out) {
+      if (digits == 0 && minimumFraction == 0) {
+        return;
+      }
+
+      out.append(decimalSeparator);
+      var fraction = new char[POWERS_OF_TEN.length];
+      for (var i = digits - 1; i >= 0; i--) {
+        fraction[i] = (char) ('0' + value % 10);
+        value /= 10;
+      }
+      out.append(fraction, 0, digits);
+      for (var i = digits; i < minimumFraction; i++) {
+        out.append('0');
+      }
+    }
+  }
+}
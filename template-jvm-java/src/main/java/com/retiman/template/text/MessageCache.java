@@ -0,0 +1,79 @@
+package com.retiman.template.text;
+
+import com.retiman.template.collect.BoundedCache;
+import com.retiman.template.locale.CanonicalLocale;
+import java.util.MissingResourceException;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of {@link CompiledMessage}s keyed by message id and locale, so that each pattern
+ * from a {@link MessageSource} is parsed and compiled once rather than on every call.
+ *
+ * <p>Messages are held in a {@link BoundedCache}, which evicts the least recently used once it is
+ * full.
+ */
+public final class MessageCache {
+  public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+  private final MessageSource source;
+  private final BoundedCache<Key, CompiledMessage> messages;
+  // Made once, so that a hit does not capture the source in a new lambda.
+  private final Function<Key, CompiledMessage> compiler;
+
+  public MessageCache(MessageSource source) {
+    this(source, DEFAULT_MAXIMUM_SIZE);
+  }
+
+  public MessageCache(MessageSource source, int maximumSize) {
+    this.source = Objects.requireNonNull(source, "source");
+    this.messages = new BoundedCache<>("message", maximumSize);
+    this.compiler = this::compile;
+  }
+
+  /**
+   * Returns the message compiled for the locale.
+   *
+   * @throws MissingResourceException if the source has no such message
+   * @throws IllegalArgumentException if the message's pattern is not valid
+   */
+  public CompiledMessage message(String id, CanonicalLocale locale) {
+    Objects.requireNonNull(id, "id");
+    Objects.requireNonNull(locale, "locale");
+    return messages.get(new Key(id, locale), compiler);
+  }
+
+  private CompiledMessage compile(Key key) {
+    var pattern = source.pattern(key.id(), key.locale());
+    if (pattern == null) {
+      throw new MissingResourceException(
+          "No message " + key.id() + " for " + key.locale().tag(),
+          MessageSource.class.getName(),
+          key.id());
+    }
+    return CompiledMessage.compile(pattern, key.locale());
+  }
+
+  /** Formats a message with numbered arguments. */
+  public String format(String id, CanonicalLocale locale, Object... arguments) {
+    return message(id, locale).format(arguments);
+  }
+
+  public int maximumSize() {
+    return messages.maximumSize();
+  }
+
+  public int size() {
+    return messages.size();
+  }
+
+  public long hitCount() {
+    return messages.hitCount();
+  }
+
+  public long missCount() {
+    return messages.missCount();
+  }
+
+  private record Key(String id, CanonicalLocale locale) {}
+}
@@ -0,0 +1,10 @@
+package com.retiman.template.text;
+
+import com.retiman.template.locale.CanonicalLocale;
+
+/** Looks up the ICU {@code MessageFormat} pattern of a message in a locale. */
+@FunctionalInterface
+public interface MessageSource {
+  /** Returns the pattern, or null if there is no such message. */
+  String pattern(String id, CanonicalLocale locale);
+}
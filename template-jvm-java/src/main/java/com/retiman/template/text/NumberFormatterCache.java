@@ -0,0 +1,66 @@
+package com.retiman.template.text;
+
+import com.retiman.template.collect.BoundedCache;
+import com.retiman.template.locale.CanonicalLocale;
+import com.retiman.template.metrics.MetricsRegistry;
+import java.util.Objects;
+
+/**
+ * A bounded cache of {@link CompiledNumberFormatter}s keyed by locale and skeleton, so that number
+ * formatters on rendering paths are compiled once rather than on every call.
+ *
+ * <p>Formatters are held in a {@link BoundedCache}, which evicts the least recently used once it is
+ * full. Hits and misses across all caches are counted in the {@link MetricsRegistry#shared() shared
+ * metrics registry}, along with the time each compilation takes.
+ */
+public final class NumberFormatterCache {
+  public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+  private static final NumberFormatterCache SHARED = new NumberFormatterCache(DEFAULT_MAXIMUM_SIZE);
+
+  private final BoundedCache<Key, CompiledNumberFormatter> formatters;
+
+  public NumberFormatterCache(int maximumSize) {
+    this.formatters = new BoundedCache<>("number_formatter", maximumSize);
+  }
+
+  public static NumberFormatterCache shared() {
+    return SHARED;
+  }
+
+  /** Returns the locale's default number format, as the empty skeleton. */
+  public CompiledNumberFormatter formatter(CanonicalLocale locale) {
+    return formatter(locale, "");
+  }
+
+  /**
+   * Returns the equivalent of {@link CompiledNumberFormatter#compile(CanonicalLocale, String)}.
+   *
+   * @throws IllegalArgumentException if the skeleton is not valid
+   */
+  public CompiledNumberFormatter formatter(CanonicalLocale locale, String skeleton) {
+    Objects.requireNonNull(locale, "locale");
+    Objects.requireNonNull(skeleton, "skeleton");
+    return formatters.get(
+        new Key(locale, skeleton),
+        key -> CompiledNumberFormatter.compile(key.locale(), key.skeleton()));
+  }
+
+  public int maximumSize() {
+    return formatters.maximumSize();
+  }
+
+  public int size() {
+    return formatters.size();
+  }
+
+  public long hitCount() {
+    return formatters.hitCount();
+  }
+
+  public long missCount() {
+    return formatters.missCount();
+  }
+
+  private record Key(CanonicalLocale locale, String skeleton) {}
+}
@@ -0,0 +1,70 @@
+package com.retiman.template.text;
+
+import com.ibm.icu.number.FormattedNumber;
+import com.ibm.icu.text.PluralRules;
+import com.retiman.template.locale.CanonicalLocale;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The plural categories of a locale, with the categories of small non-negative integers looked up
+// in a table rather than evaluated from the rules.  Integer counts are nearly every plural operand
+// a message sees, and evaluating the rules means building an operand object and walking a list of
+// conditions.
+final class PluralTable {
+  private static final int SIZE = 1024;
+
+  private static final ConcurrentHashMap<String, PluralTable> CARDINALS = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<String, PluralTable> ORDINALS = new ConcurrentHashMap<>();
+
+  private final PluralRules rules;
+  private final String[] categories;
+
+  private PluralTable(PluralRules rules) {
+    this.rules = rules;
+    this.categories = new String[SIZE];
+    for (var i = 0; i < SIZE; i++) {
+      // Keywords are interned, so that a selected category compares with ==.
+      categories[i] = rules.select(i).intern();
+    }
+  }
+
+  static PluralTable cardinal(CanonicalLocale locale) {
+    return of(CARDINALS, locale, PluralRules.PluralType.CARDINAL);
+  }
+
+  static PluralTable ordinal(CanonicalLocale locale) {
+    return of(ORDINALS, locale, PluralRules.PluralType.ORDINAL);
+  }
+
+  private static PluralTable of(
+      ConcurrentHashMap<String, PluralTable> tables,
+      CanonicalLocale locale,
+      PluralRules.PluralType type) {
+    var table = tables.get(locale.tag());
+    if (table != null) {
+      return table;
+    }
+    return tables.computeIfAbsent(
+        locale.tag(), tag -> new PluralTable(PluralRules.forLocale(locale.ulocale(), type)));
+  }
+
+  /**
+   * Returns the category of a number with only the fraction digits it needs, e.g. "one" for 1 and
+   * "other" for 1.5 in English.
+   */
+  String select(double n) {
+    if (contains(n)) {
+      return categories[(int) n];
+    }
+    return rules.select(n);
+  }
+
+  /** Returns whether the number's category is in the table, rather than evaluated. */
+  boolean contains(double n) {
+    return n >= 0 && n < SIZE && n == (int) n;
+  }
+
+  /** Returns the category of a number as it was formatted, e.g. "other" for "1.00" in English. */
+  String select(FormattedNumber number) {
+    return rules.select(number);
+  }
+}
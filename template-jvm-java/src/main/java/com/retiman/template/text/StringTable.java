@@ -0,0 +1,383 @@
+package com.retiman.template.text;
+
+import com.ibm.icu.util.ULocale;
+import com.retiman.template.locale.CanonicalLocale;
+import com.retiman.template.locale.LocaleRegistry;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Localized strings for many locales, read from a memory-mapped file written by {@link
+ * StringTableCompiler}.
+ *
+ * <p>Opening a table reads only its header and locale list; strings stay in the file until they are
+ * asked for, and are returned as {@link CharSequence} views that decode their UTF-8 bytes on
+ * demand. A lookup is a perfect hash of the key and a single read of the cell for the key and
+ * locale, which the compiler has already filled in from the locale's fallback chain.
+ *
+ * <p>Locales that have no strings of their own fall back as {@link
+ * java.util.ResourceBundle.Control#getCandidateLocales} would, e.g. "de-CH-1996" to "de-CH" to "de"
+ * to the root strings, and "zh-TW" to "zh-Hant" before "zh", after the same canonicalization as
+ * {@link LocaleRegistry} (so "iw" finds the strings for "he").
+ *
+ * <p>This class is safe for concurrent use.
+ */
+public final class StringTable implements Closeable {
+  static final int MAGIC = 0x53544231; // "STB1"
+  static final int HEADER_SIZE = 48;
+
+  // Header fields: the magic number, then counts and the offsets of each section.
+  static final int LOCALES_OFFSET = 4;
+  static final int KEYS_OFFSET = 8;
+  static final int TAGS_OFFSET = 12;
+  static final int CHAINS_OFFSET = 16;
+  static final int DISPLACEMENTS_OFFSET = 20;
+  static final int SLOTS_OFFSET = 24;
+  static final int CELLS_OFFSET = 28;
+  static final int STRINGS_OFFSET = 32;
+  static final int SIZE_OFFSET = 36;
+
+  // Locales outside of the table that are remembered along with the table locale they fall back to.
+  private static final int MAXIMUM_FALLBACKS = 4096;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final List<CanonicalLocale> locales;
+  private final int[][] chains;
+  private final int keys;
+  private final int displacements;
+  private final int slots;
+  private final int cells;
+  private final int strings;
+  private final ConcurrentHashMap<String, Integer> indexes = new ConcurrentHashMap<>();
+
+  private StringTable(
+      FileChannel channel, ByteBuffer buffer, List<CanonicalLocale> locales, int[][] chains) {
+    this.channel = channel;
+    this.buffer = buffer;
+    this.locales = List.copyOf(locales);
+    this.chains = chains;
+    this.keys = buffer.getInt(KEYS_OFFSET);
+    this.displacements = buffer.getInt(DISPLACEMENTS_OFFSET);
+    this.slots = buffer.getInt(SLOTS_OFFSET);
+    this.cells = buffer.getInt(CELLS_OFFSET);
+    this.strings = buffer.getInt(STRINGS_OFFSET);
+    for (var i = 0; i < locales.size(); i++) {
+      indexes.put(locales.get(i).tag(), i);
+    }
+  }
+
+  /**
+   * Opens a table written by {@link StringTableCompiler}.
+   *
+   * @throws IOException if the file cannot be read, or is not a string table
+   */
+  public static StringTable open(Path file) throws IOException {
+    var channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      var size = channel.size();
+      if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+        throw new IOException("Not a string table: " + file);
+      }
+
+      var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if (buffer.getInt(0) != MAGIC || buffer.getInt(SIZE_OFFSET) != size) {
+        throw new IOException("Not a string table: " + file);
+      }
+
+      var count = buffer.getInt(LOCALES_OFFSET);
+      var strings = buffer.getInt(STRINGS_OFFSET);
+      var registry = LocaleRegistry.shared();
+      var locales = new ArrayList<CanonicalLocale>(count);
+      var chains = new int[count][];
+      var tags = buffer.getInt(TAGS_OFFSET);
+      var chainStarts = buffer.getInt(CHAINS_OFFSET);
+      var chainLinks = chainStarts + (count + 1) * Integer.BYTES;
+      for (var i = 0; i < count; i++) {
+        var tag = string(buffer, strings + buffer.getInt(tags + i * Integer.BYTES)).toString();
+        locales.add(registry.resolve(tag));
+
+        var start = buffer.getInt(chainStarts + i * Integer.BYTES);
+        var end = buffer.getInt(chainStarts + (i + 1) * Integer.BYTES);
+        chains[i] = new int[end - start];
+        for (var j = start; j < end; j++) {
+          chains[i][j - start] = buffer.getInt(chainLinks + j * Integer.BYTES);
+        }
+      }
+
+      return new StringTable(channel, buffer, locales, chains);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** Returns the locales that have strings of their own, in the order of their indexes. */
+  public List<CanonicalLocale> locales() {
+    return locales;
+  }
+
+  /** Returns the number of distinct keys across all locales. */
+  public int keyCount() {
+    return keys;
+  }
+
+  /**
+   * Returns the index of the table locale whose strings a locale gets: the locale itself, or the
+   * first of its fallbacks that is in the table. Returns -1 if there is none, i.e. the table has no
+   * root strings.
+   */
+  public int indexOf(CanonicalLocale locale) {
+    var index = indexes.get(locale.tag());
+    if (index != null) {
+      return index;
+    }
+
+    index = -1;
+    for (var tag : fallbacks(locale)) {
+      var found = indexes.get(tag);
+      if (found != null && found >= 0) {
+        index = found;
+        break;
+      }
+    }
+
+    if (indexes.size() < locales.size() + MAXIMUM_FALLBACKS) {
+      var raced = indexes.putIfAbsent(locale.tag(), index);
+      return raced != null ? raced : index;
+    }
+    return index;
+  }
+
+  /**
+   * Returns the fallback chain of a table locale, from the locale itself to the root, as the
+   * compiler resolved it. Only locales in the table are part of the chain.
+   */
+  public List<CanonicalLocale> fallbacks(int locale) {
+    var chain = new ArrayList<CanonicalLocale>(chains[locale].length);
+    for (var index : chains[locale]) {
+      chain.add(locales.get(index));
+    }
+    return chain;
+  }
+
+  /** Returns the string for a key in a locale, or null if neither it nor its fallbacks have one. */
+  public CharSequence get(String key, CanonicalLocale locale) {
+    var index = indexOf(locale);
+    return index < 0 ? null : get(key, index);
+  }
+
+  /**
+   * Returns the string for a key in the table locale at an index, or null if neither it nor its
+   * fallbacks have one. Callers on a hot path should look the index up once.
+   */
+  public CharSequence get(String key, int locale) {
+    Objects.checkIndex(locale, locales.size());
+    var slot = slot(key);
+    if (slot < 0) {
+      return null;
+    }
+
+    var offset = buffer.getInt(cells + (locale * keys + slot) * Integer.BYTES);
+    return offset == 0 ? null : string(buffer, strings + offset);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  @Override
+  public String toString() {
+    return "StringTable[" + locales.size() + " locales, " + keys + " keys]";
+  }
+
+  // Returns the slot of a key in the perfect hash, or -1 if the key is not in the table.
+  private int slot(String key) {
+    if (keys == 0) {
+      return -1;
+    }
+
+    var displacement = buffer.getInt(displacements + slot(hash(key, 0), keys) * Integer.BYTES);
+    var slot = displacement < 0 ? -displacement - 1 : slot(hash(key, displacement), keys);
+    var offset = buffer.getInt(slots + slot * Integer.BYTES);
+    return string(buffer, strings + offset).contentEquals(key) ? slot : -1;
+  }
+
+  // Returns the canonical tags of a locale's fallbacks, in the order of
+  // ResourceBundle.Control.getCandidateLocales: e.g. "zh-Hant", "zh-TW", "zh" and "und" for
+  // "zh-TW", whose script is implied.  A locale without a script gets its likely one, as the JDK
+  // does for Chinese, so that e.g. "sr-ME" also finds "sr-Latn".  Each "nb" candidate is followed
+  // by its "no" one, and keywords (extensions) are dropped, as ResourceBundle does.
+  static List<String> fallbacks(CanonicalLocale locale) {
+    var base = new ULocale(locale.ulocale().getBaseName());
+    var script = base.getScript();
+    if (script.isEmpty() && !base.getLanguage().isEmpty()) {
+      script = ULocale.addLikelySubtags(base).getScript();
+    }
+
+    var candidates = new ArrayList<ULocale>();
+    candidates(candidates, base.getLanguage(), script, base.getCountry(), base.getVariant());
+    candidates.add(ULocale.ROOT);
+
+    var registry = LocaleRegistry.shared();
+    var tags = new LinkedHashSet<String>();
+    for (var candidate : candidates) {
+      tags.add(registry.resolve(candidate).tag());
+      if (candidate.getLanguage().equals("nb")) {
+        var norwegian = new ULocale.Builder().setLocale(candidate).setLanguage("no").build();
+        tags.add(registry.resolve(norwegian).tag());
+      }
+    }
+    tags.remove(locale.tag());
+    return List.copyOf(tags);
+  }
+
+  // Adds the candidates for a language short of the root: with the script, each shorter list of
+  // variants, then the region, then the script alone; then the same without the script.
+  private static void candidates(
+      List<ULocale> candidates, String language, String script, String region, String variant) {
+    if (language.isEmpty()) {
+      return;
+    }
+
+    for (var s : script.isEmpty() ? List.of("") : List.of(script, "")) {
+      for (var v = variant; !v.isEmpty(); v = v.substring(0, Math.max(v.lastIndexOf('_'), 0))) {
+        candidates.add(
+            new ULocale.Builder()
+                .setLanguage(language)
+                .setScript(s)
+                .setRegion(region)
+                .setVariant(v)
+                .build());
+      }
+      if (!region.isEmpty()) {
+        candidates.add(
+            new ULocale.Builder().setLanguage(language).setScript(s).setRegion(region).build());
+      }
+      candidates.add(new ULocale.Builder().setLanguage(language).setScript(s).build());
+    }
+  }
+
+  // Hashes the chars of a key, so that a lookup hashes the String it is given without encoding it.
+  // The seed picks one of a family of hash functions, for the displacements of the perfect hash.
+  static int hash(CharSequence key, int seed) {
+    var h = seed * 0x9e3779b9 ^ 0x811c9dc5;
+    for (var i = 0; i < key.length(); i++) {
+      h = (h ^ key.charAt(i)) * 0x01000193;
+    }
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    return h ^ h >>> 16;
+  }
+
+  // Maps a hash onto [0, n) by multiplying rather than dividing.
+  static int slot(int hash, int n) {
+    return (int) (((hash & 0xffffffffL) * n) >>> 32);
+  }
+
+  // Strings are the length of their UTF-8 bytes and of their chars, as varints, then the bytes.
+  private static MappedString string(ByteBuffer buffer, int offset) {
+    var byteLength = 0;
+    var shift = 0;
+    byte b;
+    do {
+      b = buffer.get(offset++);
+      byteLength |= (b & 0x7f) << shift;
+      shift += 7;
+    } while (b < 0);
+
+    var charLength = 0;
+    shift = 0;
+    do {
+      b = buffer.get(offset++);
+      charLength |= (b & 0x7f) << shift;
+      shift += 7;
+    } while (b < 0);
+
+    return new MappedString(buffer, offset, byteLength, charLength);
+  }
+
+  // A string in the file, decoded only when a non-ASCII char is asked for or it is copied out.
+  private static final class MappedString implements CharSequence {
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int byteLength;
+    private final int charLength;
+    private String decoded;
+
+    private MappedString(ByteBuffer buffer, int offset, int byteLength, int charLength) {
+      this.buffer = buffer;
+      this.offset = offset;
+      this.byteLength = byteLength;
+      this.charLength = charLength;
+    }
+
+    @Override
+    public int length() {
+      return charLength;
+    }
+
+    @Override
+    public char charAt(int index) {
+      Objects.checkIndex(index, charLength);
+      // Only ASCII encodes to one byte per char.
+      if (byteLength == charLength) {
+        return (char) buffer.get(offset + index);
+      }
+
+      // Strings are immutable, so a racing thread at worst decodes again.
+      var string = decoded;
+      if (string == null) {
+        string = toString();
+        decoded = string;
+      }
+      return string.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      Objects.checkFromToIndex(start, end, charLength);
+      if (byteLength == charLength) {
+        return new MappedString(buffer, offset + start, end - start, end - start);
+      }
+      return toString().substring(start, end);
+    }
+
+    // Compares without decoding the bytes when both sides are ASCII.
+    boolean contentEquals(String s) {
+      if (s.length() != charLength) {
+        return false;
+      }
+      if (byteLength != charLength) {
+        return toString().equals(s);
+      }
+
+      for (var i = 0; i < charLength; i++) {
+        if (buffer.get(offset + i) != s.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      var bytes = new byte[byteLength];
+      buffer.get(offset, bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,355 @@
+package com.retiman.template.text;
+
+import com.retiman.template.locale.CanonicalLocale;
+import com.retiman.template.locale.LocaleRegistry;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Compiles a family of {@code .properties} files, one per locale, into a single {@link StringTable}
+ * file; the {@code compileStrings} task runs it over {@code src/main/strings}.
+ *
+ * <p>Files are named as for {@link java.util.ResourceBundle}: {@code messages.properties} holds the
+ * root strings, and e.g. {@code messages_de_CH.properties} or {@code messages_zh_Hant.properties}
+ * hold a locale's. They are read as UTF-8, as {@link java.util.PropertyResourceBundle} reads them.
+ *
+ * <p>Each distinct string is stored once, however many locales have it, and each locale's strings
+ * are resolved through its fallback chain here rather than at runtime. Files are read one at a
+ * time, but every distinct string is held in memory until the table is written, along with an
+ * offset for each key of each locale.
+ */
+public final class StringTableCompiler {
+  private static final String SUFFIX = ".properties";
+  private static final int MAXIMUM_DISPLACEMENT = 1 << 24;
+
+  private StringTableCompiler() {}
+
+  /** Takes the output file, the directory of {@code .properties} files, and their base name. */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 3) {
+      throw new IllegalArgumentException(
+          "Usage: StringTableCompiler <output> <directory> <base name>");
+    }
+
+    var output = Path.of(args[0]);
+    compile(Path.of(args[1]), args[2], output);
+    System.out.printf("Wrote %s (%,d bytes)%n", output, Files.size(output));
+  }
+
+  /**
+   * Compiles the {@code .properties} files of a base name in a directory into a string table.
+   *
+   * @throws IllegalArgumentException if two files are for the same canonical locale, a file name is
+   *     not a locale, or the table would be larger than 2GB
+   */
+  public static void compile(Path directory, String baseName, Path output) throws IOException {
+    var sources = sources(directory, baseName);
+    var locales = new ArrayList<>(sources.keySet());
+
+    // The first pass only collects keys, which the perfect hash has to know up front.
+    var keySet = new HashSet<String>();
+    for (var file : sources.values()) {
+      keySet.addAll(load(file).keySet());
+    }
+    var keys = keySet.toArray(String[]::new);
+    Arrays.sort(keys);
+    var slotKeys = new int[keys.length];
+    var displacements = perfectHash(keys, slotKeys);
+
+    var pool = new Pool();
+    var tags = new int[locales.size()];
+    for (var i = 0; i < tags.length; i++) {
+      tags[i] = pool.add(locales.get(i).tag());
+    }
+    var slots = new int[keys.length];
+    for (var slot = 0; slot < slots.length; slot++) {
+      slots[slot] = pool.add(keys[slotKeys[slot]]);
+    }
+
+    // The second pass stores each locale's own strings by slot, 0 where it has none.
+    var own = new int[locales.size()][];
+    var slotOf = new HashMap<String, Integer>(keys.length * 2);
+    for (var slot = 0; slot < keys.length; slot++) {
+      slotOf.put(keys[slotKeys[slot]], slot);
+    }
+    for (var i = 0; i < locales.size(); i++) {
+      own[i] = new int[keys.length];
+      for (var entry : load(sources.get(locales.get(i))).entrySet()) {
+        own[i][slotOf.get(entry.getKey())] = pool.add(entry.getValue());
+      }
+    }
+
+    var chains = chains(locales);
+    var chainLength = Arrays.stream(chains).mapToLong(chain -> chain.length).sum();
+    var tagsOffset = (long) StringTable.HEADER_SIZE;
+    var chainsOffset = tagsOffset + (long) locales.size() * Integer.BYTES;
+    var displacementsOffset = chainsOffset + (locales.size() + 1L + chainLength) * Integer.BYTES;
+    var slotsOffset = displacementsOffset + (long) keys.length * Integer.BYTES;
+    var cellsOffset = slotsOffset + (long) keys.length * Integer.BYTES;
+    var stringsOffset = cellsOffset + (long) locales.size() * keys.length * Integer.BYTES;
+    var size = stringsOffset + pool.size();
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("String table is too large: " + size + " bytes");
+    }
+
+    // Written aside and moved into place, so a reader never maps a partly written table.
+    var temporary = output.resolveSibling(output.getFileName() + ".tmp");
+    try {
+      try (var out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        out.writeInt(StringTable.MAGIC);
+        out.writeInt(locales.size());
+        out.writeInt(keys.length);
+        out.writeInt((int) tagsOffset);
+        out.writeInt((int) chainsOffset);
+        out.writeInt((int) displacementsOffset);
+        out.writeInt((int) slotsOffset);
+        out.writeInt((int) cellsOffset);
+        out.writeInt((int) stringsOffset);
+        out.writeInt((int) size);
+        out.write(new byte[StringTable.HEADER_SIZE - out.size()]);
+
+        writeInts(out, tags);
+        var start = 0;
+        for (var chain : chains) {
+          out.writeInt(start);
+          start += chain.length;
+        }
+        out.writeInt(start);
+        for (var chain : chains) {
+          writeInts(out, chain);
+        }
+        writeInts(out, displacements);
+        writeInts(out, slots);
+
+        // A locale's cell for a key is its own string, or the first of its fallbacks'.
+        for (var chain : chains) {
+          for (var slot = 0; slot < keys.length; slot++) {
+            var offset = 0;
+            for (var j = 0; j < chain.length && offset == 0; j++) {
+              offset = own[chain[j]][slot];
+            }
+            out.writeInt(offset);
+          }
+        }
+        pool.writeTo(out);
+      }
+      Files.move(
+          temporary, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  // The files of a base name by canonical locale, in order of their tags.
+  private static TreeMap<CanonicalLocale, Path> sources(Path directory, String baseName)
+      throws IOException {
+    var registry = LocaleRegistry.shared();
+    var sources = new TreeMap<CanonicalLocale, Path>(Comparator.comparing(CanonicalLocale::tag));
+    try (var files = Files.list(directory)) {
+      for (var file : (Iterable<Path>) files.sorted()::iterator) {
+        var name = file.toFile().getName();
+        if (!name.startsWith(baseName) || !name.endsWith(SUFFIX)) {
+          continue;
+        }
+
+        var suffix = name.substring(baseName.length(), name.length() - SUFFIX.length());
+        if (!suffix.isEmpty() && !suffix.startsWith("_")) {
+          continue;
+        }
+
+        var tag = suffix.isEmpty() ? "und" : suffix.substring(1).replace('_', '-');
+        var locale = registry.resolve(tag);
+        if (!suffix.isEmpty() && locale.tag().equals("und")) {
+          throw new IllegalArgumentException("Not a locale: " + file);
+        }
+
+        var previous = sources.put(locale, file);
+        if (previous != null) {
+          throw new IllegalArgumentException(
+              "Both " + previous + " and " + file + " are for " + locale.tag());
+        }
+      }
+    }
+    return sources;
+  }
+
+  private static HashMap<String, String> load(Path file) throws IOException {
+    var properties = new Properties();
+    try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+
+    var strings = new HashMap<String, String>(properties.size() * 2);
+    for (var name : properties.stringPropertyNames()) {
+      strings.put(name, properties.getProperty(name));
+    }
+    return strings;
+  }
+
+  // Each locale's chain is the locale and then those of its fallbacks that are in the table.
+  private static int[][] chains(List<CanonicalLocale> locales) {
+    var indexes = new HashMap<String, Integer>();
+    for (var i = 0; i < locales.size(); i++) {
+      indexes.put(locales.get(i).tag(), i);
+    }
+
+    var chains = new int[locales.size()][];
+    for (var i = 0; i < chains.length; i++) {
+      var chain = new ArrayList<Integer>();
+      chain.add(i);
+      for (var tag : StringTable.fallbacks(locales.get(i))) {
+        var index = indexes.get(tag);
+        if (index != null && !chain.contains(index)) {
+          chain.add(index);
+        }
+      }
+      chains[i] = chain.stream().mapToInt(Integer::intValue).toArray();
+    }
+    return chains;
+  }
+
+  // Builds a minimal perfect hash of the keys by hash and displace: keys are split into buckets by
+  // one hash, and each bucket, largest first, is given the first seed that sends its keys to free
+  // slots.  Buckets of one key are sent straight to a free slot, stored as -slot - 1.  Fills in the
+  // key at each slot, and returns the displacement of each bucket.
+  static int[] perfectHash(String[] keys, int[] slotKeys) {
+    var n = keys.length;
+    var displacements = new int[n];
+    if (n == 0) {
+      return displacements;
+    }
+
+    var buckets = new ArrayList<List<Integer>>(n);
+    for (var i = 0; i < n; i++) {
+      buckets.add(new ArrayList<>(2));
+    }
+    for (var i = 0; i < n; i++) {
+      buckets.get(StringTable.slot(StringTable.hash(keys[i], 0), n)).add(i);
+    }
+    var order = new ArrayList<Integer>(n);
+    for (var i = 0; i < n; i++) {
+      order.add(i);
+    }
+    order.sort((a, b) -> Integer.compare(buckets.get(b).size(), buckets.get(a).size()));
+
+    Arrays.fill(slotKeys, -1);
+    var placed = new int[n];
+    var free = 0;
+    for (int bucket : order) {
+      var members = buckets.get(bucket);
+      if (members.isEmpty()) {
+        break;
+      }
+
+      if (members.size() == 1) {
+        while (slotKeys[free] >= 0) {
+          free++;
+        }
+        slotKeys[free] = members.get(0);
+        displacements[bucket] = -free - 1;
+        continue;
+      }
+
+      for (var seed = 1; ; seed++) {
+        if (seed == MAXIMUM_DISPLACEMENT) {
+          throw new IllegalStateException("No perfect hash for " + n + " keys");
+        }
+        if (place(keys, members, seed, slotKeys, placed)) {
+          displacements[bucket] = seed;
+          break;
+        }
+      }
+    }
+    return displacements;
+  }
+
+  // Places a bucket's keys with a seed if they all land on distinct free slots.
+  private static boolean place(
+      String[] keys, List<Integer> members, int seed, int[] slotKeys, int[] placed) {
+    for (var i = 0; i < members.size(); i++) {
+      var slot = StringTable.slot(StringTable.hash(keys[members.get(i)], seed), slotKeys.length);
+      if (slotKeys[slot] >= 0) {
+        return false;
+      }
+      for (var j = 0; j < i; j++) {
+        if (placed[j] == slot) {
+          return false;
+        }
+      }
+      placed[i] = slot;
+    }
+
+    for (var i = 0; i < members.size(); i++) {
+      slotKeys[placed[i]] = members.get(i);
+    }
+    return true;
+  }
+
+  private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+    for (var value : values) {
+      out.writeInt(value);
+    }
+  }
+
+  // Distinct strings, each stored once as the varint lengths of its UTF-8 bytes and chars, then the
+  // bytes.  Offset 0 holds a padding byte, so that 0 can mean "no string".
+  private static final class Pool {
+    private final HashMap<String, Integer> offsets = new HashMap<>();
+    private byte[] bytes = new byte[1 << 16];
+    private int size = 1;
+
+    int add(String s) {
+      var offset = offsets.get(s);
+      if (offset != null) {
+        return offset;
+      }
+
+      var utf8 = s.getBytes(StandardCharsets.UTF_8);
+      if ((long) size + utf8.length + 10 > bytes.length) {
+        var capacity = Math.max((long) bytes.length * 2, (long) size + utf8.length + 10);
+        if (capacity > Integer.MAX_VALUE - 8) {
+          throw new IllegalArgumentException("String table is too large: " + capacity + " bytes");
+        }
+        bytes = Arrays.copyOf(bytes, (int) capacity);
+      }
+
+      offset = size;
+      writeVarint(utf8.length);
+      writeVarint(s.length());
+      System.arraycopy(utf8, 0, bytes, size, utf8.length);
+      size += utf8.length;
+      offsets.put(s, offset);
+      return offset;
+    }
+
+    int size() {
+      return size;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+      out.write(bytes, 0, size);
+    }
+
+    private void writeVarint(int value) {
+      while ((value & ~0x7f) != 0) {
+        bytes[size++] = (byte) (value & 0x7f | 0x80);
+        value >>>= 7;
+      }
+      bytes[size++] = (byte) value;
+    }
+  }
+}
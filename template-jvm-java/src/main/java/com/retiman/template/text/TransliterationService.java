@@ -0,0 +1,405 @@
+package com.retiman.template.text;
+
+import com.ibm.icu.text.ReplaceableString;
+import com.ibm.icu.text.Transliterator;
+import com.retiman.template.metrics.LatencyHistogram;
+import com.retiman.template.metrics.MetricsRegistry;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Transliterates text with ICU {@link Transliterator}s, e.g. "Any-Latin" or "Han-Latin", one string
+ * at a time, in batches, or a whole file at once.
+ *
+ * <p>Creating a transliterator compiles its rules, which can take most of a second, and an instance
+ * keeps state while it works, so it cannot be shared between threads. Each transform id is compiled
+ * once, and its instances, each with a reusable buffer, are kept in a bounded pool that every call
+ * borrows one from and gives it back to, whatever thread it runs on. Batches and files are split
+ * into chunks that are transliterated in parallel on a pool.
+ *
+ * <p>Transforms that provably leave ASCII alone, because their filters admit no ASCII or because
+ * they are Any-Latin, pass ASCII strings and lines through without copying them into the
+ * transliterator at all.
+ */
+public final class TransliterationService {
+  // Below this many strings, a batch does not fork.
+  private static final int PARALLEL_THRESHOLD = 256;
+  // The bytes of a file that one task transliterates, give or take the rest of a line.
+  static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+  private static final LatencyHistogram COMPILE_LATENCIES =
+      MetricsRegistry.shared().histogram("transliterator_compile_seconds");
+
+  private static final TransliterationService SHARED =
+      new TransliterationService(ForkJoinPool.commonPool());
+
+  private final ForkJoinPool pool;
+  private final int chunkSize;
+  private final int workers;
+  private final ConcurrentHashMap<String, Transform> transforms = new ConcurrentHashMap<>();
+
+  public TransliterationService(ForkJoinPool pool) {
+    this(pool, DEFAULT_CHUNK_SIZE);
+  }
+
+  TransliterationService(ForkJoinPool pool, int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+    }
+
+    this.pool = Objects.requireNonNull(pool, "pool");
+    this.chunkSize = chunkSize;
+    // Enough instances for every worker of the pool and every core at once.
+    this.workers = Math.max(pool.getParallelism(), Runtime.getRuntime().availableProcessors());
+  }
+
+  public static TransliterationService shared() {
+    return SHARED;
+  }
+
+  /**
+   * Returns whether a transform leaves ASCII text unchanged, so that ASCII text bypasses it.
+   *
+   * @throws IllegalArgumentException if there is no such transform
+   */
+  public boolean passesAscii(String id) {
+    return transform(id).passesAscii;
+  }
+
+  /**
+   * Transliterates a string, as {@link Transliterator#transliterate(String)} would.
+   *
+   * @throws IllegalArgumentException if there is no such transform
+   */
+  public String transliterate(String id, String text) {
+    return transform(id).apply(text);
+  }
+
+  /**
+   * Returns the transliterations of a list of strings, in the same order.
+   *
+   * @throws IllegalArgumentException if there is no such transform
+   */
+  public List<String> transliterate(String id, List<String> texts) {
+    for (var text : texts) {
+      Objects.requireNonNull(text, "text");
+    }
+
+    var transform = transform(id);
+    var results = new String[texts.size()];
+    var task = new TransliterateAll(transform, texts, results, 0, results.length);
+    if (results.length <= PARALLEL_THRESHOLD) {
+      task.compute();
+    } else {
+      pool.invoke(task);
+    }
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Transliterates a UTF-8 file line by line into another, and returns the number of bytes written.
+   * Each line is transliterated on its own, so context does not carry from one line to the next.
+   * The input is memory-mapped and split into chunks at line breaks, which are transliterated in
+   * parallel and written in order. Malformed UTF-8 is replaced with U+FFFD.
+   *
+   * @throws IllegalArgumentException if there is no such transform
+   */
+  public long transliterate(String id, Path input, Path output) throws IOException {
+    var transform = transform(id);
+    try (var in = FileChannel.open(input, StandardOpenOption.READ);
+        var out =
+            FileChannel.open(
+                output,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+      // Keep a few chunks in flight per worker, so that no worker waits on the writer, without
+      // holding the whole file's output in memory.
+      var window = pool.getParallelism() * 2;
+      var pending = new ArrayDeque<ForkJoinTask<byte[]>>();
+      var size = in.size();
+      var written = 0L;
+      var start = 0L;
+      while (start < size || !pending.isEmpty()) {
+        while (start < size && pending.size() < window) {
+          var end = lineBreakAfter(in, Math.min(start + chunkSize, size) - 1, size);
+          var chunk = in.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+          pending.add(pool.submit(() -> transform.applyLines(chunk)));
+          start = end;
+        }
+
+        var bytes = ByteBuffer.wrap(pending.remove().join());
+        while (bytes.hasRemaining()) {
+          written += out.write(bytes);
+        }
+      }
+      return written;
+    }
+  }
+
+  // Returns the offset just after the first line break at or after an offset, or the end of the
+  // file.  A line break is always a chunk boundary that is safe: the byte never occurs inside a
+  // multi-byte UTF-8 sequence, and each line is transliterated on its own.
+  private static long lineBreakAfter(FileChannel in, long offset, long size) throws IOException {
+    var buffer = ByteBuffer.allocate(4096);
+    var position = offset;
+    while (position < size) {
+      buffer.clear();
+      var read = in.read(buffer, position);
+      if (read < 0) {
+        break;
+      }
+      for (var i = 0; i < read; i++) {
+        if (buffer.get(i) == '\n') {
+          return position + i + 1;
+        }
+      }
+      position += read;
+    }
+    return size;
+  }
+
+  private Transform transform(String id) {
+    Objects.requireNonNull(id, "id");
+    var transform = transforms.get(id);
+    if (transform != null) {
+      return transform;
+    }
+    return transforms.computeIfAbsent(id, k -> new Transform(k, workers));
+  }
+
+  // A compiled transform, and a pool of instances of it that calls borrow and give back.
+  private static final class Transform {
+    // Any-X transforms only runs of other scripts, and text that is all Latin and Common characters
+    // has none, so Any-Latin leaves ASCII alone by construction.
+    private static final Set<String> PASSES_ASCII = Set.of("Any-Latin");
+    // A worker whose buffer grew past this many chars is dropped rather than kept in the pool.
+    private static final int MAXIMUM_RETAINED_CHARS = 1 << 16;
+
+    private final String id;
+    private final boolean passesAscii;
+    private final ArrayBlockingQueue<Worker> idle;
+
+    private Transform(String id, int capacity) {
+      var start = System.nanoTime();
+      var prototype = Transliterator.getInstance(id);
+      COMPILE_LATENCIES.recordSince(start);
+
+      this.id = id;
+      this.passesAscii = passesAscii(prototype);
+      this.idle = new ArrayBlockingQueue<>(capacity);
+      idle.add(new Worker(prototype));
+    }
+
+    String apply(String text) {
+      if (passesAscii && isAscii(text)) {
+        return text;
+      }
+
+      var worker = borrow();
+      try {
+        return worker.apply(text);
+      } finally {
+        release(worker);
+      }
+    }
+
+    void applyAll(List<String> texts, String[] results, int from, int to) {
+      var worker = borrow();
+      try {
+        for (var i = from; i < to; i++) {
+          var text = texts.get(i);
+          results[i] = passesAscii && isAscii(text) ? text : worker.apply(text);
+        }
+      } finally {
+        release(worker);
+      }
+    }
+
+    // Transliterates each line of a chunk of UTF-8.
+    byte[] applyLines(ByteBuffer chunk) {
+      var bytes = new byte[chunk.remaining()];
+      chunk.get(bytes);
+
+      var worker = borrow();
+      try {
+        var out = new Output(bytes.length + bytes.length / 4);
+        var start = 0;
+        while (start < bytes.length) {
+          var end = start;
+          var ascii = true;
+          while (end < bytes.length && bytes[end] != '\n') {
+            ascii &= bytes[end] >= 0;
+            end++;
+          }
+
+          if (passesAscii && ascii) {
+            out.write(bytes, start, end - start);
+          } else {
+            var line = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+            out.write(worker.apply(line).getBytes(StandardCharsets.UTF_8));
+          }
+          if (end < bytes.length) {
+            out.write('\n');
+          }
+          start = end + 1;
+        }
+        return out.toByteArray();
+      } finally {
+        release(worker);
+      }
+    }
+
+    // Later instances reuse the rules ICU compiled for the first, so they are cheap to create when
+    // more callers are transliterating at once than the pool holds.
+    private Worker borrow() {
+      var worker = idle.poll();
+      return worker != null ? worker : new Worker(Transliterator.getInstance(id));
+    }
+
+    // Keeps a worker for a later call, unless the pool is full or the worker's buffer grew large.
+    private boolean release(Worker worker) {
+      return worker.buffer.capacity() <= MAXIMUM_RETAINED_CHARS && idle.offer(worker);
+    }
+
+    private static boolean isAscii(String text) {
+      for (var i = 0; i < text.length(); i++) {
+        if (text.charAt(i) >= 0x80) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // ICU only transliterates runs of the characters a filter admits, so a filter without ASCII
+    // leaves ASCII text alone, and so does a compound whose every step does.  Source sets cannot
+    // tell: Han-Latin's has no ASCII, yet it puts a space after "!" before a letter.
+    private static boolean passesAscii(Transliterator transliterator) {
+      var filter = transliterator.getFilter();
+      if (filter != null) {
+        var admitsAscii = false;
+        for (var c = 0; c < 0x80 && !admitsAscii; c++) {
+          admitsAscii = filter.contains(c);
+        }
+        if (!admitsAscii) {
+          return true;
+        }
+      }
+
+      var elements = transliterator.getElements();
+      if (elements.length > 1) {
+        for (var element : elements) {
+          if (!passesAscii(element)) {
+            return false;
+          }
+        }
+        return true;
+      }
+      return PASSES_ASCII.contains(transliterator.getID());
+    }
+  }
+
+  // An instance of a transform, and the buffer it transliterates in; one caller uses it at a time.
+  private static final class Worker {
+    private final Transliterator transliterator;
+    private final StringBuffer buffer = new StringBuffer();
+    private final ReplaceableString text = new ReplaceableString(buffer);
+
+    private Worker(Transliterator transliterator) {
+      this.transliterator = transliterator;
+    }
+
+    String apply(String s) {
+      buffer.setLength(0);
+      buffer.append(s);
+      transliterator.transliterate(text);
+      return buffer.toString();
+    }
+  }
+
+  // A growable byte array, without ByteArrayOutputStream's locking.
+  private static final class Output {
+    private byte[] bytes;
+    private int size;
+
+    private Output(int capacity) {
+      this.bytes = new byte[Math.max(capacity, 16)];
+    }
+
+    void write(int b) {
+      ensure(1);
+      bytes[size++] = (byte) b;
+    }
+
+    void write(byte[] b) {
+      write(b, 0, b.length);
+    }
+
+    void write(byte[] b, int offset, int length) {
+      ensure(length);
+      System.arraycopy(b, offset, bytes, size, length);
+      size += length;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(bytes, size);
+    }
+
+    private void ensure(int length) {
+      if (size + length > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+      }
+    }
+  }
+
+  @SuppressFBWarnings(
+      value = "SE_BAD_FIELD",
+      justification =
+          "Tasks are never serialized; RecursiveAction is only Serializable by history.")
+  private static final class TransliterateAll extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Transform transform;
+    private final List<String> texts;
+    private final String[] results;
+    private final int from;
+    private final int to;
+
+    private TransliterateAll(
+        Transform transform, List<String> texts, String[] results, int from, int to) {
+      this.transform = transform;
+      this.texts = texts;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= PARALLEL_THRESHOLD) {
+        transform.applyAll(texts, results, from, to);
+        return;
+      }
+
+      var middle = (from + to) >>> 1;
+      invokeAll(
+          new TransliterateAll(transform, texts, results, from, middle),
+          new TransliterateAll(transform, texts, results, middle, to));
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.retiman.template.time;
+
+/**
+ * Conversions between epoch days and proleptic Gregorian dates, on primitives.
+ *
+ * <p>These are the algorithms from Howard Hinnant's "chrono-Compatible Low-Level Date Algorithms",
+ * which do the same job as {@link java.time.LocalDate#ofEpochDay(long)} and {@link
+ * java.time.LocalDate#toEpochDay()} without creating a LocalDate. A date is packed into a long as
+ * {@code year << 16 | month << 8 | day}, so the year keeps its sign.
+ */
+final class CivilDate {
+  // 1970-01-01 is day 719468 counting from 0000-03-01, which is where each 400 year era starts.
+  private static final long EPOCH_OFFSET = 719_468;
+  private static final int DAYS_PER_ERA = 146_097;
+
+  private CivilDate() {}
+
+  static long toEpochDay(long year, int month, int day) {
+    // Count from March, so that the leap day is the last day of the year.
+    var y = month <= 2 ? year - 1 : year;
+    var era = Math.floorDiv(y, 400);
+    var yearOfEra = y - era * 400;
+    var dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    var dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * DAYS_PER_ERA + dayOfEra - EPOCH_OFFSET;
+  }
+
+  static long fromEpochDay(long epochDay) {
+    var z = epochDay + EPOCH_OFFSET;
+    var era = Math.floorDiv(z, DAYS_PER_ERA);
+    var dayOfEra = z - era * DAYS_PER_ERA;
+    var yearOfEra =
+        (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / (DAYS_PER_ERA - 1)) / 365;
+    var dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    var shiftedMonth = (5 * dayOfYear + 2) / 153;
+    var day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+    var month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+    var year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+    return pack(year, month, day);
+  }
+
+  static long pack(long year, int month, int day) {
+    return year << 16 | month << 8 | day;
+  }
+
+  static long year(long packed) {
+    return packed >> 16;
+  }
+
+  static int month(long packed) {
+    return (int) (packed >>> 8) & 0xff;
+  }
+
+  static int day(long packed) {
+    return (int) packed & 0xff;
+  }
+
+  static int lengthOfMonth(long year, int month) {
+    return switch (month) {
+      case 2 -> isLeapYear(year) ? 29 : 28;
+      case 4, 6, 9, 11 -> 30;
+      default -> 31;
+    };
+  }
+
+  static boolean isLeapYear(long year) {
+    return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+  }
+}
@@ -0,0 +1,144 @@
+package com.retiman.template.time;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A clock that is only as precise as its resolution, in exchange for being nearly free to read.
+ *
+ * <p>A single daemon thread reads the source clock once per tick and stores the time in a volatile
+ * {@code long}; {@link #millis()} is a plain read of that field, so code that only needs the time
+ * to the millisecond or so can call it per log line or per event. {@link #instant()} still creates
+ * an Instant, so hot paths should prefer {@link #millis()}.
+ *
+ * <p>A clock made with {@link #manual(Clock)} has no thread, and only moves when {@link #tick()} is
+ * called, which makes code that depends on it deterministic in tests.
+ *
+ * <p>Clocks returned by {@link #withZone(ZoneId)} share the original's time and ticker, so closing
+ * any one of them stops all of them.
+ */
+public final class CoarseClock extends Clock implements AutoCloseable {
+  private final Ticker ticker;
+  private final ZoneId zone;
+
+  private CoarseClock(Ticker ticker, ZoneId zone) {
+    this.ticker = ticker;
+    this.zone = zone;
+  }
+
+  /** Starts a clock that follows the system clock in UTC. */
+  public static CoarseClock start(Duration resolution) {
+    return start(Clock.systemUTC(), resolution);
+  }
+
+  /** Starts a clock with its own ticker thread, which reads the source once per resolution. */
+  public static CoarseClock start(Clock source, Duration resolution) {
+    Objects.requireNonNull(source, "source");
+    if (resolution.isNegative() || resolution.isZero()) {
+      throw new IllegalArgumentException("Resolution must be positive: " + resolution);
+    }
+
+    var ticker = new Ticker(source, resolution.toNanos());
+    ticker.thread = Thread.ofPlatform().daemon().name("coarse-clock-ticker").unstarted(ticker::run);
+    ticker.thread.start();
+    return new CoarseClock(ticker, source.getZone());
+  }
+
+  /** Returns a clock that only reads the source when {@link #tick()} is called. */
+  public static CoarseClock manual(Clock source) {
+    Objects.requireNonNull(source, "source");
+    return new CoarseClock(new Ticker(source, 0), source.getZone());
+  }
+
+  /** Returns the time of the last tick, in milliseconds since the epoch. */
+  @Override
+  public long millis() {
+    return ticker.millis;
+  }
+
+  /** Returns the time of the last tick, in whole seconds since the epoch. */
+  public long epochSecond() {
+    return Math.floorDiv(ticker.millis, 1000);
+  }
+
+  @Override
+  public Instant instant() {
+    return Instant.ofEpochMilli(ticker.millis);
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  @Override
+  public CoarseClock withZone(ZoneId zone) {
+    return zone.equals(this.zone) ? this : new CoarseClock(ticker, zone);
+  }
+
+  /** Reads the source clock now, rather than waiting for the next tick. */
+  public void tick() {
+    ticker.tick();
+  }
+
+  public Duration resolution() {
+    return Duration.ofNanos(ticker.resolutionNanos);
+  }
+
+  public boolean isManual() {
+    return ticker.thread == null;
+  }
+
+  /** Stops the ticker thread, if there is one, and waits for it to exit. */
+  @Override
+  public void close() {
+    var thread = ticker.thread;
+    if (thread == null) {
+      return;
+    }
+
+    ticker.closed = true;
+    LockSupport.unpark(thread);
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public String toString() {
+    var mode = isManual() ? "manual" : resolution().toString();
+    return "CoarseClock[" + mode + ", " + (zone.equals(ZoneOffset.UTC) ? "Z" : zone) + "]";
+  }
+
+  private static final class Ticker {
+    private final Clock source;
+    private final long resolutionNanos;
+    private volatile long millis;
+    private volatile boolean closed;
+    private Thread thread;
+
+    private Ticker(Clock source, long resolutionNanos) {
+      this.source = source;
+      this.resolutionNanos = resolutionNanos;
+      this.millis = source.millis();
+    }
+
+    private void tick() {
+      millis = source.millis();
+    }
+
+    private void run() {
+      while (!closed) {
+        tick();
+        LockSupport.parkNanos(this, resolutionNanos);
+      }
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package com.retiman.template.time;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * A reusable, mutable holder for the fields of a local date and time, filled in and read by {@link
+ * FixedWidthFormatter}.
+ *
+ * <p>Unlike a {@link TemporalAccessor}, one instance can be reused across any number of formats and
+ * parses, so neither has to allocate. The fields are not validated until they are formatted. Fields
+ * that a pattern does not mention default to midnight on 0000-01-01.
+ */
+public final class DateTimeFields {
+  private int year;
+  private int month = 1;
+  private int day = 1;
+  private int hour;
+  private int minute;
+  private int second;
+  private int nano;
+
+  public int year() {
+    return year;
+  }
+
+  public int month() {
+    return month;
+  }
+
+  public int day() {
+    return day;
+  }
+
+  public int hour() {
+    return hour;
+  }
+
+  public int minute() {
+    return minute;
+  }
+
+  public int second() {
+    return second;
+  }
+
+  public int nano() {
+    return nano;
+  }
+
+  public DateTimeFields setDate(int year, int month, int day) {
+    this.year = year;
+    this.month = month;
+    this.day = day;
+    return this;
+  }
+
+  public DateTimeFields setTime(int hour, int minute, int second, int nano) {
+    this.hour = hour;
+    this.minute = minute;
+    this.second = second;
+    this.nano = nano;
+    return this;
+  }
+
+  /**
+   * Copies whichever date and time fields the temporal supports, e.g. only the time of a LocalTime.
+   */
+  public DateTimeFields set(TemporalAccessor temporal) {
+    clear();
+    if (temporal.isSupported(ChronoField.EPOCH_DAY)) {
+      setDate(
+          temporal.get(ChronoField.YEAR),
+          temporal.get(ChronoField.MONTH_OF_YEAR),
+          temporal.get(ChronoField.DAY_OF_MONTH));
+    }
+    if (temporal.isSupported(ChronoField.NANO_OF_DAY)) {
+      setTime(
+          temporal.get(ChronoField.HOUR_OF_DAY),
+          temporal.get(ChronoField.MINUTE_OF_HOUR),
+          temporal.get(ChronoField.SECOND_OF_MINUTE),
+          temporal.get(ChronoField.NANO_OF_SECOND));
+    }
+
+    return this;
+  }
+
+  public DateTimeFields clear() {
+    return setDate(0, 1, 1).setTime(0, 0, 0, 0);
+  }
+
+  public LocalDate toLocalDate() {
+    return LocalDate.of(year, month, day);
+  }
+
+  public LocalTime toLocalTime() {
+    return LocalTime.of(hour, minute, second, nano);
+  }
+
+  public LocalDateTime toLocalDateTime() {
+    return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%04d-%02d-%02dT%02d:%02d:%02d.%09d", year, month, day, hour, minute, second, nano);
+  }
+}
@@ -0,0 +1,102 @@
+package com.retiman.template.time;
+
+import com.retiman.template.collect.BoundedCache;
+import com.retiman.template.metrics.MetricsRegistry;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * A bounded cache of formatters keyed by pattern, so that patterns on request paths are compiled
+ * once rather than on every call to {@link DateTimeFormatter#ofPattern(String)}.
+ *
+ * <p>Formatters and fixed width formatters are each held in a {@link BoundedCache} of the maximum
+ * size, which evicts the least recently used once it is full.
+ *
+ * <p>Hits and misses across all caches are counted in the {@link MetricsRegistry#shared() shared
+ * metrics registry}, along with the time each compilation takes, and every miss is recorded as a
+ * {@code com.retiman.template.FormatterCacheMiss} JFR event.
+ */
+public final class DateTimeFormatterCache {
+  public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+  private static final DateTimeFormatterCache SHARED =
+      new DateTimeFormatterCache(DEFAULT_MAXIMUM_SIZE);
+
+  private final BoundedCache<Key, DateTimeFormatter> formatters;
+  private final BoundedCache<String, FixedWidthFormatter> fixedWidthFormatters;
+
+  public DateTimeFormatterCache(int maximumSize) {
+    this.formatters = new BoundedCache<>("formatter", maximumSize);
+    this.fixedWidthFormatters = new BoundedCache<>("formatter", maximumSize);
+  }
+
+  public static DateTimeFormatterCache shared() {
+    return SHARED;
+  }
+
+  /** Returns the equivalent of {@link DateTimeFormatter#ofPattern(String)}. */
+  public DateTimeFormatter formatter(String pattern) {
+    return formatter(pattern, Locale.getDefault(Locale.Category.FORMAT));
+  }
+
+  /** Returns the equivalent of {@link DateTimeFormatter#ofPattern(String, Locale)}. */
+  public DateTimeFormatter formatter(String pattern, Locale locale) {
+    Objects.requireNonNull(pattern, "pattern");
+    Objects.requireNonNull(locale, "locale");
+    return formatters.get(new Key(pattern, locale), DateTimeFormatterCache::compile);
+  }
+
+  /**
+   * Returns a compiled formatter for a fixed width numeric pattern.
+   *
+   * @throws IllegalArgumentException if the pattern is not fixed width; see {@link
+   *     FixedWidthFormatter#compile(String)}
+   */
+  public FixedWidthFormatter fixedWidthFormatter(String pattern) {
+    return fixedWidthFormatters.get(pattern, DateTimeFormatterCache::compileFixedWidth);
+  }
+
+  private static DateTimeFormatter compile(Key key) {
+    var event = new FormatterCacheMissEvent();
+    event.begin();
+    var formatter = DateTimeFormatter.ofPattern(key.pattern(), key.locale());
+    if (event.shouldCommit()) {
+      event.pattern = key.pattern();
+      event.locale = key.locale().toLanguageTag();
+      event.commit();
+    }
+    return formatter;
+  }
+
+  private static FixedWidthFormatter compileFixedWidth(String pattern) {
+    var event = new FormatterCacheMissEvent();
+    event.begin();
+    var formatter = FixedWidthFormatter.compile(pattern);
+    if (event.shouldCommit()) {
+      event.pattern = pattern;
+      event.fixedWidth = true;
+      event.commit();
+    }
+    return formatter;
+  }
+
+  /** Returns the maximum size of each of the caches, of formatters and fixed width formatters. */
+  public int maximumSize() {
+    return formatters.maximumSize();
+  }
+
+  public int size() {
+    return formatters.size() + fixedWidthFormatters.size();
+  }
+
+  public long hitCount() {
+    return formatters.hitCount() + fixedWidthFormatters.hitCount();
+  }
+
+  public long missCount() {
+    return formatters.missCount() + fixedWidthFormatters.missCount();
+  }
+
+  private record Key(String pattern, Locale locale) {}
+}
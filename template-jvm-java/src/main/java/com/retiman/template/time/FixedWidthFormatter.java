@@ -0,0 +1,397 @@
+package com.retiman.template.time;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A formatter for {@link java.time.format.DateTimeFormatter} patterns made only of fixed width
+ * numeric fields and literals, e.g. "yyyy-MM-dd" or "HH:mm:ss.SSS".
+ *
+ * <p>The pattern is compiled once into a list of fields, so formatting writes digits straight into
+ * a {@code char[]} or {@code byte[]} and parsing reads them straight back into a {@link
+ * DateTimeFields}, without allocating. The supported fields are "yyyy", "uuuu", "MM", "dd", "HH",
+ * "mm", "ss" and one to nine "S"; quoted literals work as they do in java.time.
+ *
+ * <p>Output is identical to the equivalent {@code DateTimeFormatter} for years 1-9999 (0-9999 with
+ * "uuuu"). Parsing is stricter: every field must have exactly its width, and impossible dates like
+ * February 30th are rejected rather than adjusted.
+ */
+public final class FixedWidthFormatter {
+  private static final byte LITERAL = 0;
+  private static final byte YEAR_OF_ERA = 1;
+  private static final byte YEAR = 2;
+  private static final byte MONTH = 3;
+  private static final byte DAY = 4;
+  private static final byte HOUR = 5;
+  private static final byte MINUTE = 6;
+  private static final byte SECOND = 7;
+  private static final byte FRACTION = 8;
+
+  private static final int[] POWERS_OF_TEN = {
+    1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000
+  };
+
+  private final String pattern;
+  private final byte[] kinds;
+  private final byte[] widths;
+  private final char[] literals;
+  private final int width;
+
+  private FixedWidthFormatter(String pattern, byte[] kinds, byte[] widths, char[] literals) {
+    this.pattern = pattern;
+    this.kinds = kinds;
+    this.widths = widths;
+    this.literals = literals;
+
+    var sum = 0;
+    for (var w : widths) {
+      sum += w;
+    }
+    this.width = sum;
+  }
+
+  /**
+   * Compiles a pattern.
+   *
+   * @throws IllegalArgumentException if the pattern has a field that is not fixed width and
+   *     numeric, such as "MMM", "yy" or "a", or an optional section
+   */
+  public static FixedWidthFormatter compile(String pattern) {
+    Objects.requireNonNull(pattern, "pattern");
+
+    var kinds = new byte[pattern.length()];
+    var widths = new byte[pattern.length()];
+    var literals = new char[pattern.length()];
+    var count = 0;
+    var i = 0;
+    while (i < pattern.length()) {
+      var c = pattern.charAt(i);
+      if (c == '\'') {
+        // A quoted literal, where two quotes in a row stand for one.
+        var end = i + 1;
+        if (end < pattern.length() && pattern.charAt(end) == '\'') {
+          literals[count] = '\'';
+          widths[count++] = 1;
+          i = end + 1;
+          continue;
+        }
+
+        while (true) {
+          if (end >= pattern.length()) {
+            throw new IllegalArgumentException("Unterminated quote in pattern: " + pattern);
+          }
+
+          var q = pattern.charAt(end);
+          if (q == '\'') {
+            if (end + 1 < pattern.length() && pattern.charAt(end + 1) == '\'') {
+              literals[count] = '\'';
+              widths[count++] = 1;
+              end += 2;
+              continue;
+            }
+            break;
+          }
+
+          literals[count] = q;
+          widths[count++] = 1;
+          end++;
+        }
+
+        i = end + 1;
+      } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+        var end = i;
+        while (end < pattern.length() && pattern.charAt(end) == c) {
+          end++;
+        }
+
+        var kind = kind(pattern, c, end - i);
+        kinds[count] = kind;
+        widths[count++] = (byte) (end - i);
+        i = end;
+      } else if (c == '[' || c == ']' || c == '{' || c == '}' || c == '#') {
+        throw new IllegalArgumentException("Not a fixed width pattern: " + pattern);
+      } else {
+        literals[count] = c;
+        widths[count++] = 1;
+        i++;
+      }
+    }
+
+    return new FixedWidthFormatter(
+        pattern,
+        Arrays.copyOf(kinds, count),
+        Arrays.copyOf(widths, count),
+        Arrays.copyOf(literals, count));
+  }
+
+  /** Returns whether a pattern can be compiled, without throwing. */
+  public static boolean isFixedWidth(String pattern) {
+    try {
+      compile(pattern);
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  public String pattern() {
+    return pattern;
+  }
+
+  /** Returns the number of characters every formatted value has. */
+  public int width() {
+    return width;
+  }
+
+  public String format(TemporalAccessor temporal) {
+    return format(new DateTimeFields().set(temporal));
+  }
+
+  public String format(DateTimeFields fields) {
+    var chars = new char[width];
+    format(fields, chars, 0);
+    return new String(chars);
+  }
+
+  /** Writes {@link #width()} characters at an offset, and returns the offset following them. */
+  public int format(DateTimeFields fields, char[] dst, int offset) {
+    Objects.checkFromIndexSize(offset, width, dst.length);
+    for (var i = 0; i < kinds.length; i++) {
+      if (kinds[i] == LITERAL) {
+        dst[offset++] = literals[i];
+        continue;
+      }
+
+      var value = value(kinds[i], widths[i], fields);
+      for (var j = offset + widths[i] - 1; j >= offset; j--) {
+        dst[j] = (char) ('0' + value % 10);
+        value /= 10;
+      }
+      offset += widths[i];
+    }
+
+    return offset;
+  }
+
+  /**
+   * Writes {@link #width()} bytes of ASCII at an offset, and returns the offset following them.
+   * Literals outside of ASCII are truncated to their low byte, so are best avoided.
+   */
+  public int format(DateTimeFields fields, byte[] dst, int offset) {
+    Objects.checkFromIndexSize(offset, width, dst.length);
+    for (var i = 0; i < kinds.length; i++) {
+      if (kinds[i] == LITERAL) {
+        dst[offset++] = (byte) literals[i];
+        continue;
+      }
+
+      var value = value(kinds[i], widths[i], fields);
+      for (var j = offset + widths[i] - 1; j >= offset; j--) {
+        dst[j] = (byte) ('0' + value % 10);
+        value /= 10;
+      }
+      offset += widths[i];
+    }
+
+    return offset;
+  }
+
+  /** Parses text that must be exactly {@link #width()} characters long. */
+  public DateTimeFields parse(CharSequence text, DateTimeFields fields) {
+    if (text.length() != width) {
+      throw new DateTimeParseException(
+          "Text '" + text + "' does not match pattern " + pattern,
+          text,
+          Math.min(text.length(), width));
+    }
+
+    return parse(text, 0, fields);
+  }
+
+  /** Parses {@link #width()} characters at an offset; anything after them is ignored. */
+  public DateTimeFields parse(CharSequence text, int offset, DateTimeFields fields) {
+    Objects.checkFromIndexSize(offset, width, text.length());
+    fields.clear();
+    var position = offset;
+    for (var i = 0; i < kinds.length; i++) {
+      if (kinds[i] == LITERAL) {
+        if (text.charAt(position) != literals[i]) {
+          throw error(text, offset, position);
+        }
+        position++;
+        continue;
+      }
+
+      var value = 0;
+      for (var j = 0; j < widths[i]; j++, position++) {
+        var digit = text.charAt(position) - '0';
+        if (digit < 0 || digit > 9) {
+          throw error(text, offset, position);
+        }
+        value = value * 10 + digit;
+      }
+      assign(kinds[i], widths[i], value, fields);
+    }
+
+    if (!isValid(fields)) {
+      throw invalid(text.subSequence(offset, offset + width).toString());
+    }
+
+    return fields;
+  }
+
+  /** Parses {@link #width()} bytes of ASCII at an offset; anything after them is ignored. */
+  public DateTimeFields parse(byte[] bytes, int offset, DateTimeFields fields) {
+    Objects.checkFromIndexSize(offset, width, bytes.length);
+    fields.clear();
+    var position = offset;
+    for (var i = 0; i < kinds.length; i++) {
+      if (kinds[i] == LITERAL) {
+        if ((char) (bytes[position] & 0xff) != literals[i]) {
+          throw error(bytes, offset, position);
+        }
+        position++;
+        continue;
+      }
+
+      var value = 0;
+      for (var j = 0; j < widths[i]; j++, position++) {
+        var digit = bytes[position] - '0';
+        if (digit < 0 || digit > 9) {
+          throw error(bytes, offset, position);
+        }
+        value = value * 10 + digit;
+      }
+      assign(kinds[i], widths[i], value, fields);
+    }
+
+    if (!isValid(fields)) {
+      throw invalid(ascii(bytes, offset, width));
+    }
+
+    return fields;
+  }
+
+  @Override
+  public String toString() {
+    return pattern;
+  }
+
+  private static byte kind(String pattern, char letter, int count) {
+    var kind =
+        switch (letter) {
+          case 'y' -> count == 4 ? YEAR_OF_ERA : -1;
+          case 'u' -> count == 4 ? YEAR : -1;
+          case 'M' -> count == 2 ? MONTH : -1;
+          case 'd' -> count == 2 ? DAY : -1;
+          case 'H' -> count == 2 ? HOUR : -1;
+          case 'm' -> count == 2 ? MINUTE : -1;
+          case 's' -> count == 2 ? SECOND : -1;
+          case 'S' -> count <= 9 ? FRACTION : -1;
+          default -> -1;
+        };
+    if (kind < 0) {
+      throw new IllegalArgumentException(
+          "Not a fixed width numeric field: "
+              + String.valueOf(letter).repeat(count)
+              + " in "
+              + pattern);
+    }
+
+    return (byte) kind;
+  }
+
+  private int value(byte kind, int width, DateTimeFields fields) {
+    return switch (kind) {
+      case YEAR_OF_ERA -> check("YearOfEra", fields.year(), 1, 9999);
+      case YEAR -> check("Year", fields.year(), 0, 9999);
+      case MONTH -> check("MonthOfYear", fields.month(), 1, 12);
+      case DAY -> check(
+          "DayOfMonth", fields.day(), 1, CivilDate.lengthOfMonth(fields.year(), fields.month()));
+      case HOUR -> check("HourOfDay", fields.hour(), 0, 23);
+      case MINUTE -> check("MinuteOfHour", fields.minute(), 0, 59);
+      case SECOND -> check("SecondOfMinute", fields.second(), 0, 59);
+        // Fractions are truncated, as java.time does.
+      case FRACTION -> check("NanoOfSecond", fields.nano(), 0, 999_999_999)
+          / POWERS_OF_TEN[9 - width];
+      default -> throw new IllegalStateException("Unknown field: " + kind);
+    };
+  }
+
+  private static void assign(byte kind, int width, int value, DateTimeFields fields) {
+    switch (kind) {
+      case YEAR_OF_ERA, YEAR -> fields.setDate(value, fields.month(), fields.day());
+      case MONTH -> fields.setDate(fields.year(), value, fields.day());
+      case DAY -> fields.setDate(fields.year(), fields.month(), value);
+      case HOUR -> fields.setTime(value, fields.minute(), fields.second(), fields.nano());
+      case MINUTE -> fields.setTime(fields.hour(), value, fields.second(), fields.nano());
+      case SECOND -> fields.setTime(fields.hour(), fields.minute(), value, fields.nano());
+      case FRACTION -> fields.setTime(
+          fields.hour(), fields.minute(), fields.second(), value * POWERS_OF_TEN[9 - width]);
+      default -> throw new IllegalStateException("Unknown field: " + kind);
+    }
+  }
+
+  private boolean isValid(DateTimeFields fields) {
+    // The fields a pattern does not mention keep their defaults, which are always valid; the year
+    // defaults to 0, so without a year February has 29 days.
+    var valid =
+        fields.month() >= 1
+            && fields.month() <= 12
+            && fields.day() >= 1
+            && fields.day() <= CivilDate.lengthOfMonth(fields.year(), fields.month())
+            && fields.hour() <= 23
+            && fields.minute() <= 59
+            && fields.second() <= 59;
+    for (var i = 0; valid && i < kinds.length; i++) {
+      valid = kinds[i] != YEAR_OF_ERA || fields.year() >= 1;
+    }
+
+    return valid;
+  }
+
+  private static DateTimeParseException invalid(String text) {
+    return new DateTimeParseException(
+        "Text '" + text + "' could not be parsed: invalid date or time", text, 0);
+  }
+
+  private DateTimeParseException error(CharSequence text, int offset, int position) {
+    var string = text.subSequence(offset, offset + width).toString();
+    return new DateTimeParseException(
+        "Text '" + string + "' could not be parsed at index " + (position - offset),
+        string,
+        position - offset);
+  }
+
+  private DateTimeParseException error(byte[] bytes, int offset, int position) {
+    var string = ascii(bytes, offset, width);
+    return new DateTimeParseException(
+        "Text '" + string + "' could not be parsed at index " + (position - offset),
+        string,
+        position - offset);
+  }
+
+  private static String ascii(byte[] bytes, int offset, int length) {
+    return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+  }
+
+  private static int check(String field, int value, int minimum, int maximum) {
+    if (value < minimum || value > maximum) {
+      throw new DateTimeException(
+          "Invalid value for "
+              + field
+              + " (valid values "
+              + minimum
+              + " - "
+              + maximum
+              + "): "
+              + value);
+    }
+
+    return value;
+  }
+}
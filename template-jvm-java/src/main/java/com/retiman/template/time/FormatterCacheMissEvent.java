@@ -0,0 +1,28 @@
+package com.retiman.template.time;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Recorded when a DateTimeFormatterCache compiles a pattern, so that patterns built per request,
+// which miss every time, stand out.
+@Name("com.retiman.template.FormatterCacheMiss")
+@Label("Formatter Cache Miss")
+@Category({"Template", "Time"})
+@Description("A date and time pattern compiled on a DateTimeFormatterCache miss")
+@SuppressFBWarnings(
+    value = "URF_UNREAD_FIELD",
+    justification = "JFR reads the fields when the event is committed.")
+final class FormatterCacheMissEvent extends Event {
+  @Label("Pattern")
+  String pattern;
+
+  @Label("Locale")
+  String locale;
+
+  @Label("Fixed Width")
+  boolean fixedWidth;
+}
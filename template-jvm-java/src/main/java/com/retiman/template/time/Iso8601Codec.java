@@ -0,0 +1,353 @@
+package com.retiman.template.time;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * Encodes and decodes RFC 3339 timestamps as ASCII bytes, without going through String or java.time
+ * objects.
+ *
+ * <p>Output is byte for byte what {@link java.time.format.DateTimeFormatter#ISO_OFFSET_DATE_TIME}
+ * produces, e.g. "2025-04-01T14:00:00Z" or "2025-04-01T16:00:00.25+02:00": seconds are always
+ * written, the fraction is only as long as it needs to be, and a zero offset is written as "Z".
+ * Decoding accepts the same format, including the optional seconds and lowercase "t" and "z" that
+ * java.time accepts, and fills in a reusable {@link Timestamp}.
+ *
+ * <p>Years outside of 0000-9999 are written with a sign, as java.time does, and the supported range
+ * is that of {@link java.time.OffsetDateTime}.
+ */
+public final class Iso8601Codec {
+  /** The longest possible encoding, e.g. "+999999999-12-31T23:59:59.999999999+18:00". */
+  public static final int MAXIMUM_LENGTH = 44;
+
+  private static final int SECONDS_PER_DAY = 86_400;
+  private static final int MAXIMUM_OFFSET = 18 * 3600;
+  private static final long MAXIMUM_YEAR = 999_999_999;
+
+  // Direct buffers have no array to write into, so they go through a scratch array instead.
+  private static final ThreadLocal<byte[]> SCRATCH =
+      ThreadLocal.withInitial(() -> new byte[MAXIMUM_LENGTH]);
+
+  private Iso8601Codec() {}
+
+  /**
+   * Writes a timestamp at an offset, and returns the offset following it.
+   *
+   * @throws DateTimeException if the nano or offset is out of range, or the local date is outside
+   *     the range of an OffsetDateTime
+   * @throws IndexOutOfBoundsException if the timestamp does not fit; nothing is written
+   */
+  public static int encode(long epochSecond, int nano, int offsetSeconds, byte[] dst, int offset) {
+    if (nano < 0 || nano > 999_999_999) {
+      throw new DateTimeException("Invalid nano: " + nano);
+    }
+    if (offsetSeconds < -MAXIMUM_OFFSET || offsetSeconds > MAXIMUM_OFFSET) {
+      throw new DateTimeException("Invalid offset: " + offsetSeconds + " seconds");
+    }
+
+    var local = epochSecond + offsetSeconds;
+    var date = CivilDate.fromEpochDay(Math.floorDiv(local, SECONDS_PER_DAY));
+    var secondOfDay = (int) Math.floorMod(local, SECONDS_PER_DAY);
+    var year = CivilDate.year(date);
+    if (year < -MAXIMUM_YEAR || year > MAXIMUM_YEAR) {
+      throw new DateTimeException("Year is out of range: " + year);
+    }
+
+    // Work out the length first, so that a timestamp that does not fit writes nothing.
+    var yearLength = year >= 0 && year <= 9999 ? 4 : 1 + Math.max(4, digits(Math.abs(year)));
+    var fraction = nano;
+    var fractionLength = 0;
+    if (fraction != 0) {
+      fractionLength = 9;
+      while (fraction % 10 == 0) {
+        fraction /= 10;
+        fractionLength--;
+      }
+    }
+    var offsetLength = offsetSeconds == 0 ? 1 : offsetSeconds % 60 == 0 ? 6 : 9;
+    var length = yearLength + 15 + (fractionLength > 0 ? fractionLength + 1 : 0) + offsetLength;
+    Objects.checkFromIndexSize(offset, length, dst.length);
+
+    var position = offset;
+    if (year > 9999) {
+      dst[position++] = '+';
+    } else if (year < 0) {
+      dst[position++] = '-';
+    }
+    position =
+        writeDigits(
+            dst, position, Math.abs(year), yearLength - (year >= 0 && year <= 9999 ? 0 : 1));
+    dst[position++] = '-';
+    position = writeDigits(dst, position, CivilDate.month(date), 2);
+    dst[position++] = '-';
+    position = writeDigits(dst, position, CivilDate.day(date), 2);
+    dst[position++] = 'T';
+    position = writeDigits(dst, position, secondOfDay / 3600, 2);
+    dst[position++] = ':';
+    position = writeDigits(dst, position, secondOfDay / 60 % 60, 2);
+    dst[position++] = ':';
+    position = writeDigits(dst, position, secondOfDay % 60, 2);
+    if (fractionLength > 0) {
+      dst[position++] = '.';
+      position = writeDigits(dst, position, fraction, fractionLength);
+    }
+
+    if (offsetSeconds == 0) {
+      dst[position++] = 'Z';
+    } else {
+      var absolute = Math.abs(offsetSeconds);
+      dst[position++] = (byte) (offsetSeconds < 0 ? '-' : '+');
+      position = writeDigits(dst, position, absolute / 3600, 2);
+      dst[position++] = ':';
+      position = writeDigits(dst, position, absolute / 60 % 60, 2);
+      if (absolute % 60 != 0) {
+        dst[position++] = ':';
+        position = writeDigits(dst, position, absolute % 60, 2);
+      }
+    }
+
+    return position;
+  }
+
+  public static int encode(Timestamp timestamp, byte[] dst, int offset) {
+    return encode(
+        timestamp.epochSecond(), timestamp.nano(), timestamp.offsetSeconds(), dst, offset);
+  }
+
+  public static int encodeEpochMilli(long epochMilli, int offsetSeconds, byte[] dst, int offset) {
+    return encode(
+        Math.floorDiv(epochMilli, 1000),
+        (int) Math.floorMod(epochMilli, 1000) * 1_000_000,
+        offsetSeconds,
+        dst,
+        offset);
+  }
+
+  /**
+   * Writes a timestamp at the buffer's position, and advances it.
+   *
+   * @throws java.nio.BufferOverflowException if the timestamp does not fit; nothing is written
+   */
+  public static ByteBuffer encode(long epochSecond, int nano, int offsetSeconds, ByteBuffer dst) {
+    if (dst.hasArray()) {
+      var start = dst.arrayOffset() + dst.position();
+      var limit = Math.min(dst.remaining(), MAXIMUM_LENGTH);
+      var length = encodeInto(epochSecond, nano, offsetSeconds, dst.array(), start, limit);
+      return dst.position(dst.position() + length);
+    }
+
+    var scratch = SCRATCH.get();
+    var length = encode(epochSecond, nano, offsetSeconds, scratch, 0);
+    return dst.put(scratch, 0, length);
+  }
+
+  public static ByteBuffer encode(Timestamp timestamp, ByteBuffer dst) {
+    return encode(timestamp.epochSecond(), timestamp.nano(), timestamp.offsetSeconds(), dst);
+  }
+
+  public static ByteBuffer encodeEpochMilli(long epochMilli, int offsetSeconds, ByteBuffer dst) {
+    return encode(
+        Math.floorDiv(epochMilli, 1000),
+        (int) Math.floorMod(epochMilli, 1000) * 1_000_000,
+        offsetSeconds,
+        dst);
+  }
+
+  /**
+   * Decodes a timestamp that starts at an offset, and returns the offset following it. Decoding
+   * stops at the end of the UTC offset, so the timestamp may be followed by anything that does not
+   * start with a colon and a digit.
+   *
+   * @param length the number of bytes available, which may be more than the timestamp needs
+   * @throws DateTimeParseException if the bytes are not a valid timestamp
+   */
+  public static int decode(byte[] src, int offset, int length, Timestamp into) {
+    Objects.checkFromIndexSize(offset, length, src.length);
+    var end = offset + length;
+    var position = offset;
+
+    var sign = position < end ? src[position] : 0;
+    if (sign == '+' || sign == '-') {
+      position++;
+    }
+    var yearStart = position;
+    while (position < end && isDigit(src[position]) && position - yearStart < 9) {
+      position++;
+    }
+    var yearLength = position - yearStart;
+    // As when writing, a plus sign is only for years of more than four digits.
+    var valid = sign == '+' ? yearLength > 4 : sign == '-' ? yearLength >= 4 : yearLength == 4;
+    if (!valid) {
+      throw error(src, offset, length, position);
+    }
+    var year = (long) readDigits(src, yearStart, yearLength);
+    if (sign == '-') {
+      year = -year;
+    }
+
+    position = expect(src, offset, length, position, '-');
+    var month = readField(src, offset, length, position, 1, 12);
+    position = expect(src, offset, length, position + 2, '-');
+    var day = readField(src, offset, length, position, 1, CivilDate.lengthOfMonth(year, month));
+    position = expectEither(src, offset, length, position + 2, 'T', 't');
+    var hour = readField(src, offset, length, position, 0, 23);
+    position = expect(src, offset, length, position + 2, ':');
+    var minute = readField(src, offset, length, position, 0, 59);
+    position += 2;
+
+    var second = 0;
+    var nano = 0;
+    if (position < end && src[position] == ':') {
+      second = readField(src, offset, length, position + 1, 0, 59);
+      position += 3;
+
+      if (position < end && src[position] == '.') {
+        var fractionStart = ++position;
+        while (position < end && isDigit(src[position]) && position - fractionStart < 9) {
+          position++;
+        }
+        // Like java.time, a decimal point without any digits is a zero fraction.
+        var fractionLength = position - fractionStart;
+        nano = readDigits(src, fractionStart, fractionLength);
+        for (var i = fractionLength; i < 9; i++) {
+          nano *= 10;
+        }
+      }
+    }
+
+    var offsetSeconds = 0;
+    if (position < end && (src[position] == 'Z' || src[position] == 'z')) {
+      position++;
+    } else if (position < end && (src[position] == '+' || src[position] == '-')) {
+      var negative = src[position] == '-';
+      var offsetHours = readField(src, offset, length, position + 1, 0, 18);
+      position = expect(src, offset, length, position + 3, ':');
+      var offsetMinutes = readField(src, offset, length, position, 0, 59);
+      position += 2;
+      offsetSeconds = offsetHours * 3600 + offsetMinutes * 60;
+      if (position + 2 < end && src[position] == ':' && isDigit(src[position + 1])) {
+        offsetSeconds += readField(src, offset, length, position + 1, 0, 59);
+        position += 3;
+      }
+      if (offsetSeconds > MAXIMUM_OFFSET) {
+        throw error(src, offset, length, position);
+      }
+      offsetSeconds = negative ? -offsetSeconds : offsetSeconds;
+    } else {
+      throw error(src, offset, length, position);
+    }
+
+    var epochDay = CivilDate.toEpochDay(year, month, day);
+    var local = epochDay * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+    into.set(local - offsetSeconds, nano, offsetSeconds);
+    return position;
+  }
+
+  /** Decodes a timestamp that starts at the buffer's position, and advances past it. */
+  public static Timestamp decode(ByteBuffer src, Timestamp into) {
+    var length = src.remaining();
+    if (src.hasArray()) {
+      var start = src.arrayOffset() + src.position();
+      var end = decode(src.array(), start, length, into);
+      src.position(src.position() + end - start);
+      return into;
+    }
+
+    var scratch = SCRATCH.get();
+    length = Math.min(length, MAXIMUM_LENGTH);
+    src.get(src.position(), scratch, 0, length);
+    var end = decode(scratch, 0, length, into);
+    src.position(src.position() + end);
+    return into;
+  }
+
+  // Encodes into a bounded window of an array, failing like ByteBuffer.put would if it is too
+  // small.
+  private static int encodeInto(
+      long epochSecond, int nano, int offsetSeconds, byte[] dst, int offset, int limit) {
+    if (limit < MAXIMUM_LENGTH) {
+      var scratch = SCRATCH.get();
+      var length = encode(epochSecond, nano, offsetSeconds, scratch, 0);
+      if (length > limit) {
+        throw new java.nio.BufferOverflowException();
+      }
+      System.arraycopy(scratch, 0, dst, offset, length);
+      return length;
+    }
+
+    return encode(epochSecond, nano, offsetSeconds, dst, offset) - offset;
+  }
+
+  private static int readField(
+      byte[] src, int offset, int length, int position, int minimum, int maximum) {
+    for (var i = position; i < position + 2; i++) {
+      if (i >= offset + length || !isDigit(src[i])) {
+        throw error(src, offset, length, i);
+      }
+    }
+
+    var value = readDigits(src, position, 2);
+    if (value < minimum || value > maximum) {
+      throw error(src, offset, length, position);
+    }
+
+    return value;
+  }
+
+  private static int expect(byte[] src, int offset, int length, int position, char c) {
+    return expectEither(src, offset, length, position, c, c);
+  }
+
+  private static int expectEither(
+      byte[] src, int offset, int length, int position, char c, char alternative) {
+    if (position >= offset + length || (src[position] != c && src[position] != alternative)) {
+      throw error(src, offset, length, position);
+    }
+
+    return position + 1;
+  }
+
+  private static int readDigits(byte[] src, int position, int count) {
+    var value = 0;
+    for (var i = position; i < position + count; i++) {
+      value = value * 10 + (src[i] - '0');
+    }
+
+    return value;
+  }
+
+  private static int writeDigits(byte[] dst, int position, long value, int count) {
+    for (var i = position + count - 1; i >= position; i--) {
+      dst[i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+
+    return position + count;
+  }
+
+  private static int digits(long value) {
+    var count = 1;
+    while (value >= 10) {
+      value /= 10;
+      count++;
+    }
+
+    return count;
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  private static DateTimeParseException error(byte[] src, int offset, int length, int position) {
+    var text =
+        new String(src, offset, Math.min(length, MAXIMUM_LENGTH), StandardCharsets.ISO_8859_1);
+    return new DateTimeParseException(
+        "Text '" + text + "' could not be parsed at index " + (position - offset),
+        text,
+        position - offset);
+  }
+}
@@ -0,0 +1,68 @@
+package com.retiman.template.time;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * A reusable, mutable holder for an instant and the UTC offset it was written with, filled in by
+ * {@link Iso8601Codec}.
+ *
+ * <p>This is the primitive equivalent of an {@link OffsetDateTime}: one instance can be reused for
+ * any number of decodes, so none of them allocate.
+ */
+public final class Timestamp {
+  private long epochSecond;
+  private int nano;
+  private int offsetSeconds;
+
+  public long epochSecond() {
+    return epochSecond;
+  }
+
+  public int nano() {
+    return nano;
+  }
+
+  public int offsetSeconds() {
+    return offsetSeconds;
+  }
+
+  /** Returns the instant in milliseconds, truncating any sub-millisecond part. */
+  public long epochMilli() {
+    return Math.addExact(Math.multiplyExact(epochSecond, 1000), nano / 1_000_000);
+  }
+
+  public Timestamp set(long epochSecond, int nano, int offsetSeconds) {
+    this.epochSecond = epochSecond;
+    this.nano = nano;
+    this.offsetSeconds = offsetSeconds;
+    return this;
+  }
+
+  public Timestamp setEpochMilli(long epochMilli, int offsetSeconds) {
+    return set(
+        Math.floorDiv(epochMilli, 1000),
+        (int) Math.floorMod(epochMilli, 1000) * 1_000_000,
+        offsetSeconds);
+  }
+
+  public Instant toInstant() {
+    return Instant.ofEpochSecond(epochSecond, nano);
+  }
+
+  public OffsetDateTime toOffsetDateTime() {
+    return OffsetDateTime.ofInstant(toInstant(), ZoneOffset.ofTotalSeconds(offsetSeconds));
+  }
+
+  @Override
+  public String toString() {
+    return "Timestamp[epochSecond="
+        + epochSecond
+        + ", nano="
+        + nano
+        + ", offsetSeconds="
+        + offsetSeconds
+        + "]";
+  }
+}
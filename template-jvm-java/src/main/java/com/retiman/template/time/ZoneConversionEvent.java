@@ -0,0 +1,29 @@
+package com.retiman.template.time;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Recorded for the conversions a ZoneTransitionTable cannot do from its arrays, and for bulk
+// conversions.  A single conversion inside the window takes less time than the event would.
+@Name("com.retiman.template.ZoneConversion")
+@Label("Zone Conversion")
+@Category({"Template", "Time"})
+@Description("Instants converted to local time by a ZoneTransitionTable")
+@SuppressFBWarnings(
+    value = "URF_UNREAD_FIELD",
+    justification = "JFR reads the fields when the event is committed.")
+final class ZoneConversionEvent extends Event {
+  @Label("Zone")
+  String zone;
+
+  @Label("Count")
+  int count;
+
+  @Label("Fallback")
+  @Description("Whether the conversion was outside of the table's window, and went to ZoneRules")
+  boolean fallback;
+}
@@ -0,0 +1,303 @@
+package com.retiman.template.time;
+
+import com.retiman.template.metrics.LatencyHistogram;
+import com.retiman.template.metrics.MetricsRegistry;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Converts between epoch millis and local date and time fields in one zone, using the zone's offset
+ * transitions precomputed into sorted arrays.
+ *
+ * <p>Within the table's window of years, a conversion is a binary search over a {@code long[]} and
+ * some arithmetic, and does not allocate. Outside of the window, conversions fall back to the
+ * zone's {@link ZoneRules}, which is slower and does allocate. Zones with a fixed offset have no
+ * window.
+ *
+ * <p>Local times in a gap or an overlap are resolved the way {@link
+ * java.time.ZonedDateTime#of(LocalDateTime, ZoneId)} resolves them: a time in a gap is moved later
+ * by the length of the gap, and a time in an overlap takes the earlier of its two offsets.
+ *
+ * <p>Tables are immutable, and safe for concurrent use. Conversions that fall back to the rules,
+ * and bulk conversions, are counted in the {@link MetricsRegistry#shared() shared metrics registry}
+ * and recorded as {@code com.retiman.template.ZoneConversion} JFR events.
+ */
+public final class ZoneTransitionTable {
+  public static final int DEFAULT_START_YEAR = 1970;
+  public static final int DEFAULT_END_YEAR = 2100;
+
+  // Columns shorter than this are converted on the calling thread.
+  private static final int BULK_THRESHOLD = 1 << 13;
+
+  private static final long MILLIS_PER_DAY = 86_400_000L;
+  private static final long MAXIMUM_OFFSET_MILLIS = 18 * 3_600_000L;
+
+  private static final LongAdder FALLBACKS =
+      MetricsRegistry.shared().counter("zone_conversions_fallback_total");
+  private static final LongAdder BULK_CONVERSIONS =
+      MetricsRegistry.shared().counter("zone_conversions_bulk_total");
+  private static final LatencyHistogram BULK_LATENCIES =
+      MetricsRegistry.shared().histogram("zone_bulk_conversion_seconds");
+
+  private final ZoneId zone;
+  private final ZoneRules rules;
+  private final long windowStart;
+  private final long windowEnd;
+
+  // The offset in effect before transition i is offsets[i], and after it offsets[i + 1].
+  private final long[] transitions;
+  private final int[] offsets;
+
+  // Each transition's gap or overlap in local time, as [localStarts[i], localEnds[i]).
+  private final long[] localStarts;
+  private final long[] localEnds;
+
+  public ZoneTransitionTable(ZoneId zone) {
+    this(zone, DEFAULT_START_YEAR, DEFAULT_END_YEAR);
+  }
+
+  /** Precomputes the transitions from the start of startYear to the end of endYear, in UTC. */
+  public ZoneTransitionTable(ZoneId zone, int startYear, int endYear) {
+    if (startYear > endYear) {
+      throw new IllegalArgumentException("Start year is after end year: " + startYear);
+    }
+
+    this.zone = Objects.requireNonNull(zone, "zone");
+    this.rules = zone.getRules();
+
+    if (rules.isFixedOffset()) {
+      this.windowStart = Long.MIN_VALUE;
+      this.windowEnd = Long.MAX_VALUE;
+      this.transitions = new long[0];
+      this.offsets = new int[] {rules.getOffset(Instant.EPOCH).getTotalSeconds()};
+      this.localStarts = new long[0];
+      this.localEnds = new long[0];
+      return;
+    }
+
+    this.windowStart = CivilDate.toEpochDay(startYear, 1, 1) * MILLIS_PER_DAY;
+    this.windowEnd = CivilDate.toEpochDay(endYear + 1L, 1, 1) * MILLIS_PER_DAY;
+
+    var transitionList = new long[16];
+    var offsetList = new int[17];
+    var start = Instant.ofEpochMilli(windowStart);
+    offsetList[0] = rules.getOffset(start).getTotalSeconds();
+    var count = 0;
+    for (var transition = rules.nextTransition(start);
+        transition != null && transition.toEpochSecond() * 1000 < windowEnd;
+        transition = rules.nextTransition(transition.getInstant())) {
+      if (count == transitionList.length) {
+        transitionList = Arrays.copyOf(transitionList, count * 2);
+        offsetList = Arrays.copyOf(offsetList, count * 2 + 1);
+      }
+      transitionList[count] = transition.toEpochSecond() * 1000;
+      offsetList[count + 1] = transition.getOffsetAfter().getTotalSeconds();
+      count++;
+    }
+
+    this.transitions = Arrays.copyOf(transitionList, count);
+    this.offsets = Arrays.copyOf(offsetList, count + 1);
+    this.localStarts = new long[count];
+    this.localEnds = new long[count];
+    for (var i = 0; i < count; i++) {
+      var before = transitions[i] + offsets[i] * 1000L;
+      var after = transitions[i] + offsets[i + 1] * 1000L;
+      localStarts[i] = Math.min(before, after);
+      localEnds[i] = Math.max(before, after);
+    }
+  }
+
+  public ZoneId zone() {
+    return zone;
+  }
+
+  /** Returns the number of transitions in the window. */
+  public int transitionCount() {
+    return transitions.length;
+  }
+
+  /** Returns the zone's offset at an instant, in seconds. */
+  public int offsetSeconds(long epochMilli) {
+    if (epochMilli < windowStart || epochMilli >= windowEnd) {
+      return fallbackOffsetSeconds(epochMilli);
+    }
+
+    var index = Arrays.binarySearch(transitions, epochMilli);
+    return offsets[index >= 0 ? index + 1 : -index - 1];
+  }
+
+  /** Returns the local date and time at an instant, as millis since the local epoch. */
+  public long toLocalMilli(long epochMilli) {
+    return epochMilli + offsetSeconds(epochMilli) * 1000L;
+  }
+
+  /** Returns the instant of a local date and time, given as millis since the local epoch. */
+  public long toEpochMilli(long localMilli) {
+    if (localMilli < windowStart + MAXIMUM_OFFSET_MILLIS
+        || localMilli >= windowEnd - MAXIMUM_OFFSET_MILLIS) {
+      return fallbackToEpochMilli(localMilli);
+    }
+
+    // Find the last transition whose gap or overlap starts at or before the local time.  Inside a
+    // gap or an overlap, the offset before the transition is the one java.time would pick.
+    var index = Arrays.binarySearch(localStarts, localMilli);
+    var transition = index >= 0 ? index : -index - 2;
+    int offset;
+    if (transition < 0) {
+      offset = offsets[0];
+    } else if (localMilli < localEnds[transition]) {
+      offset = offsets[transition];
+    } else {
+      offset = offsets[transition + 1];
+    }
+
+    return localMilli - offset * 1000L;
+  }
+
+  /** Fills in the local date and time at an instant. */
+  public DateTimeFields toLocal(long epochMilli, DateTimeFields into) {
+    var local = toLocalMilli(epochMilli);
+    var date = CivilDate.fromEpochDay(Math.floorDiv(local, MILLIS_PER_DAY));
+    var millisOfDay = (int) Math.floorMod(local, MILLIS_PER_DAY);
+    return into.setDate((int) CivilDate.year(date), CivilDate.month(date), CivilDate.day(date))
+        .setTime(
+            millisOfDay / 3_600_000,
+            millisOfDay / 60_000 % 60,
+            millisOfDay / 1000 % 60,
+            millisOfDay % 1000 * 1_000_000);
+  }
+
+  /** Returns the instant of a local date and time, truncated to millis. */
+  public long toEpochMilli(DateTimeFields local) {
+    var days = CivilDate.toEpochDay(local.year(), local.month(), local.day());
+    var millisOfDay =
+        local.hour() * 3_600_000L
+            + local.minute() * 60_000L
+            + local.second() * 1000L
+            + local.nano() / 1_000_000;
+    return toEpochMilli(days * MILLIS_PER_DAY + millisOfDay);
+  }
+
+  /**
+   * Returns the local date at an instant, packed as the decimal number yyyyMMdd, e.g. 20250401.
+   * Packed dates sort in date order for years 0-9999.
+   */
+  public int toPackedDate(long epochMilli) {
+    var date = CivilDate.fromEpochDay(Math.floorDiv(toLocalMilli(epochMilli), MILLIS_PER_DAY));
+    return (int) CivilDate.year(date) * 10_000 + CivilDate.month(date) * 100 + CivilDate.day(date);
+  }
+
+  /** Converts a column of instants into packed local dates, using the common pool. */
+  public void toPackedDates(long[] epochMillis, int[] dates) {
+    toPackedDates(epochMillis, dates, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Converts a column of instants into packed local dates, as {@link #toPackedDate(long)} does,
+   * splitting the column across a pool.
+   */
+  public void toPackedDates(long[] epochMillis, int[] dates, ForkJoinPool pool) {
+    if (epochMillis.length != dates.length) {
+      throw new IllegalArgumentException(
+          "Column lengths differ: " + epochMillis.length + " and " + dates.length);
+    }
+
+    var event = new ZoneConversionEvent();
+    event.begin();
+    var start = System.nanoTime();
+    if (epochMillis.length <= BULK_THRESHOLD) {
+      toPackedDates(epochMillis, dates, 0, epochMillis.length);
+    } else {
+      pool.invoke(new PackDates(this, epochMillis, dates, 0, epochMillis.length));
+    }
+    BULK_LATENCIES.recordSince(start);
+    BULK_CONVERSIONS.add(epochMillis.length);
+    commit(event, epochMillis.length, false);
+  }
+
+  @Override
+  public String toString() {
+    return "ZoneTransitionTable[" + zone + ", " + transitions.length + " transitions]";
+  }
+
+  private void toPackedDates(long[] epochMillis, int[] dates, int from, int to) {
+    for (var i = from; i < to; i++) {
+      dates[i] = toPackedDate(epochMillis[i]);
+    }
+  }
+
+  private int fallbackOffsetSeconds(long epochMilli) {
+    var event = new ZoneConversionEvent();
+    event.begin();
+    FALLBACKS.increment();
+    var offset = rules.getOffset(Instant.ofEpochMilli(epochMilli)).getTotalSeconds();
+    commit(event, 1, true);
+    return offset;
+  }
+
+  private long fallbackToEpochMilli(long localMilli) {
+    var event = new ZoneConversionEvent();
+    event.begin();
+    FALLBACKS.increment();
+    var seconds = Math.floorDiv(localMilli, 1000);
+    var nanos = (int) Math.floorMod(localMilli, 1000) * 1_000_000;
+    var local = LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    var epochMilli = local.atZone(zone).toInstant().toEpochMilli();
+    commit(event, 1, true);
+    return epochMilli;
+  }
+
+  private void commit(ZoneConversionEvent event, int count, boolean fallback) {
+    if (event.shouldCommit()) {
+      event.zone = zone.getId();
+      event.count = count;
+      event.fallback = fallback;
+      event.commit();
+    }
+  }
+
+  @SuppressFBWarnings(
+      value = "SE_BAD_FIELD",
+      justification =
+          "Tasks are never serialized; RecursiveAction is only Serializable by history.")
+  private static final class PackDates extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final ZoneTransitionTable table;
+    private final long[] epochMillis;
+    private final int[] dates;
+    private final int from;
+    private final int to;
+
+    private PackDates(
+        ZoneTransitionTable table, long[] epochMillis, int[] dates, int from, int to) {
+      this.table = table;
+      this.epochMillis = epochMillis;
+      this.dates = dates;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= BULK_THRESHOLD) {
+        table.toPackedDates(epochMillis, dates, from, to);
+        return;
+      }
+
+      var middle = (from + to) >>> 1;
+      invokeAll(
+          new PackDates(table, epochMillis, dates, from, middle),
+          new PackDates(table, epochMillis, dates, middle, to));
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package com.retiman.template;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class StartupTest {
+  private static final int RUNS = 3;
+
+  @TempDir private Path temp;
+
+  @Test
+  public void testAppCds() throws Exception {
+    var classpath = classpath();
+    var archive = temp.resolve("template-jvm.jsa");
+    var displayNames = "-Dtemplate.display-names=" + temp.resolve("display-names.bin");
+    train(classpath, archive, displayNames);
+
+    // Fails unless Main starts and answers with the archive, in the mode that "run" uses.
+    timeToFirstRequest(java(classpath, List.of("-XX:SharedArchiveFile=" + archive, displayNames)));
+  }
+
+  @Test
+  @Tag("measurement")
+  public void testTimeToFirstRequest() throws Exception {
+    var classpath = classpath();
+    var archive = temp.resolve("template-jvm.jsa");
+    var displayNames = "-Dtemplate.display-names=" + temp.resolve("display-names.bin");
+    train(classpath, archive, displayNames);
+
+    var eager = "-Dtemplate.stage=PRODUCTION";
+    var cds = "-XX:SharedArchiveFile=" + archive;
+    var variants = new LinkedHashMap<String, List<String>>();
+    variants.put("eager Guice", List.of(eager, displayNames));
+    variants.put("lazy Guice", List.of(displayNames));
+    variants.put("eager Guice and AppCDS", List.of(eager, cds, displayNames));
+    variants.put("lazy Guice and AppCDS", List.of(cds, displayNames));
+
+    // Interleave the variants, so that a noisy moment on the machine is spread across them.
+    var millis = new LinkedHashMap<String, long[]>();
+    variants.keySet().forEach(name -> millis.put(name, new long[RUNS]));
+    for (var run = 0; run < RUNS; run++) {
+      for (var variant : variants.entrySet()) {
+        millis.get(variant.getKey())[run] = timeToFirstRequest(java(classpath, variant.getValue()));
+      }
+    }
+
+    // A report rather than a check, since the medians of a few runs are too noisy to compare.
+    millis.forEach(
+        (name, times) -> {
+          Arrays.sort(times);
+          System.out.printf("Time to first request with %s: %,d ms%n", name, times[RUNS / 2]);
+        });
+  }
+
+  // Runs Main in training mode, as the cdsArchive task does.  AppCDS only archives classes loaded
+  // from jars, so the classpath is a jar of the class directories rather than the test's own.
+  private static void train(String classpath, Path archive, String displayNames)
+      throws IOException, InterruptedException {
+    var training =
+        new ProcessBuilder(
+                java(
+                    classpath,
+                    List.of("-XX:ArchiveClassesAtExit=" + archive, "-Xlog:cds=off", displayNames),
+                    Main.TRAIN))
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+    assertThat(training.waitFor(2, TimeUnit.MINUTES)).isTrue();
+    assertThat(training.exitValue()).isEqualTo(0);
+    assertThat(archive).exists();
+  }
+
+  // Starts Main on a free port, and returns the time until the first response has been read.
+  private static long timeToFirstRequest(List<String> command)
+      throws IOException, InterruptedException {
+    var start = System.nanoTime();
+    var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    try (var client = HttpClient.newHttpClient();
+        var out =
+            new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = out.readLine()) != null) {
+        if (line.startsWith("Listening on ")) {
+          var uri = URI.create(line.substring("Listening on ".length()));
+          var response =
+              client.send(
+                  HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+          var elapsed = System.nanoTime() - start;
+          assertThat(response.body()).isEqualTo("Hello World!");
+          return TimeUnit.NANOSECONDS.toMillis(elapsed);
+        }
+      }
+      throw new IllegalStateException("Main exited without listening");
+    } finally {
+      process.destroy();
+      process.waitFor(30, TimeUnit.SECONDS);
+    }
+  }
+
+  private static List<String> java(String classpath, List<String> options, String... args) {
+    var command = new ArrayList<String>();
+    command.add(ProcessHandle.current().info().command().orElse("java"));
+    command.add("-cp");
+    command.add(classpath);
+    command.addAll(options);
+    command.add(Main.class.getName());
+    command.addAll(args.length > 0 ? List.of(args) : List.of("0"));
+    return command;
+  }
+
+  private String classpath() throws IOException {
+    var jar = temp.resolve("template-jvm.jar");
+    var entries = new ArrayList<String>();
+    entries.add(jar.toString());
+    var names = new HashSet<String>();
+    try (var out = new JarOutputStream(Files.newOutputStream(jar))) {
+      for (var entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+        var path = Path.of(entry);
+        if (!Files.isDirectory(path)) {
+          entries.add(entry);
+          continue;
+        }
+        try (var files = Files.walk(path)) {
+          for (var file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+            // The first directory on the classpath wins, as it would for the class loader.
+            var name = path.relativize(file).toString().replace(File.separatorChar, '/');
+            if (!names.add(name)) {
+              continue;
+            }
+            out.putNextEntry(new JarEntry(name));
+            Files.copy(file, out);
+            out.closeEntry();
+          }
+        }
+      }
+    }
+    return String.join(File.pathSeparator, entries);
+  }
+}
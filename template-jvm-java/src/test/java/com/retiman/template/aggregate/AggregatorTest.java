@@ -0,0 +1,151 @@
+package com.retiman.template.aggregate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class AggregatorTest {
+  private static final long[] VALUES =
+      new Random(11).longs(2_000_000, -1_000_000_000, 1_000_000_000).toArray();
+
+  @Test
+  public void testParallelMatchesSequential(@TempDir Path directory) throws Exception {
+    var file = directory.resolve("values.bin");
+    var bytes = ByteBuffer.allocate(VALUES.length * 8).order(ByteOrder.nativeOrder());
+    bytes.asLongBuffer().put(VALUES);
+    Files.write(file, bytes.array());
+
+    var chunks = new ArrayList<LongBuffer>();
+    for (var i = 0; i < VALUES.length; i += 300_000) {
+      chunks.add(LongBuffer.wrap(VALUES, i, Math.min(300_000, VALUES.length - i)));
+    }
+
+    var sources =
+        List.<Supplier<Spliterator.OfLong>>of(
+            () -> LongSpliterators.of(VALUES),
+            () -> LongSpliterators.of(chunks),
+            () -> {
+              try {
+                return LongSpliterators.map(file, ByteOrder.nativeOrder());
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+
+    try (var pool = new ForkJoinPool(4)) {
+      var aggregator = new Aggregator(pool);
+      for (var source : sources) {
+        check(aggregator, source, Sum::new);
+        check(aggregator, source, MinMax::new);
+        check(aggregator, source, () -> new Histogram(-500_000_000, 0, 500_000_000));
+        check(aggregator, source, () -> new TopK(10));
+      }
+    }
+  }
+
+  @Test
+  public void testAggregateWhile() {
+    var size = 1 << 20;
+    try (var pool = new ForkJoinPool(4)) {
+      var aggregator = new Aggregator(pool);
+      for (var stop : new int[] {0, 1, 1023, 1024, 4097, size / 2, size - 1, size}) {
+        // Every value passes except the one at the stop index.
+        var values = LongStream.range(0, size).toArray();
+        if (stop < size) {
+          values[stop] = -1;
+        }
+
+        var tested = new LongAdder();
+        var sum =
+            aggregator.aggregateWhile(
+                LongSpliterators.of(values),
+                value -> {
+                  tested.increment();
+                  return value >= 0;
+                },
+                Sum::new);
+        var expected = LongStream.of(values).takeWhile(value -> value >= 0).sum();
+
+        assertThat(sum.sum()).as("stop at %d", stop).isEqualTo(expected);
+        assertThat(sum.count()).as("stop at %d", stop).isEqualTo(stop);
+        if (stop < size / 2) {
+          // Pieces past the stop are cut short, or never started.
+          assertThat(tested.sum()).as("stop at %d", stop).isLessThan(size / 2);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRequiresSubsized() {
+    var unsized = LongStream.iterate(0, i -> i + 1).limit(100).spliterator();
+    var thrown =
+        catchThrowable(() -> new Aggregator().aggregateWhile(unsized, value -> true, Sum::new));
+
+    assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testPoolSizes() {
+    // Sum all of a column, and sum up to a value three quarters of the way in, on pools of 1 to N
+    // workers.  An ordered parallel takeWhile on the same pool is what the latter should match.
+    var size = 16_000_000;
+    var values = LongStream.range(0, size).toArray();
+    values[size / 4 * 3] = -1;
+    var expected = LongStream.of(values).sum();
+
+    var cores = Runtime.getRuntime().availableProcessors();
+    var counts = new ArrayList<Integer>();
+    for (var workers = 1; workers < cores; workers *= 2) {
+      counts.add(workers);
+    }
+    counts.add(cores);
+
+    for (var workers : counts) {
+      try (var pool = new ForkJoinPool(workers)) {
+        var aggregator = new Aggregator(pool);
+        var all = aggregator.aggregate(LongSpliterators.of(values), Sum::new).sum();
+        var prefix =
+            aggregator
+                .aggregateWhile(LongSpliterators.of(values), value -> value >= 0, Sum::new)
+                .sum();
+        var stream =
+            pool.submit(() -> LongStream.of(values).parallel().takeWhile(value -> value >= 0).sum())
+                .join();
+
+        assertThat(all).as("%d workers", workers).isEqualTo(expected);
+        assertThat(prefix).as("%d workers", workers).isEqualTo(stream);
+      }
+    }
+  }
+
+  private static <C extends LongCombiner<C>> void check(
+      Aggregator aggregator, Supplier<Spliterator.OfLong> source, Supplier<C> factory) {
+    var sequential = factory.get();
+    source.get().forEachRemaining(sequential);
+    var parallel = aggregator.aggregate(source.get(), factory);
+    var prefix = aggregator.aggregateWhile(source.get(), value -> value < 999_000_000, factory);
+    var expected = factory.get();
+    LongStream.of(VALUES).takeWhile(value -> value < 999_000_000).forEach(expected);
+
+    assertThat(parallel).hasToString(sequential.toString());
+    assertThat(prefix).hasToString(expected.toString());
+  }
+}
@@ -0,0 +1,71 @@
+package com.retiman.template.aggregate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+public final class CombinersTest {
+  private static final long[] VALUES = new Random(7).longs(10_000, -1_000_000, 1_000_000).toArray();
+
+  @Test
+  public void testSum() {
+    var sum = feed(Sum::new, VALUES);
+
+    assertThat(sum.sum()).isEqualTo(LongStream.of(VALUES).sum());
+    assertThat(sum.count()).isEqualTo(VALUES.length);
+    assertThat(sum.mean()).isEqualTo(LongStream.of(VALUES).average().orElseThrow());
+    assertThat(new Sum().mean()).isZero();
+  }
+
+  @Test
+  public void testMinMax() {
+    var minMax = feed(MinMax::new, VALUES);
+
+    assertThat(minMax.min()).isEqualTo(LongStream.of(VALUES).min().orElseThrow());
+    assertThat(minMax.max()).isEqualTo(LongStream.of(VALUES).max().orElseThrow());
+    assertThat(new MinMax().min()).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testHistogram() {
+    var histogram = feed(() -> new Histogram(-10, 0, 10), -11, -10, -1, 0, 9, 10, 11);
+
+    assertThat(histogram.counts()).containsExactly(1, 2, 2, 2);
+    assertThat(catchThrowable(() -> new Histogram(1, 1)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(catchThrowable(() -> new Histogram(1).combine(new Histogram(2))))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testTopK() {
+    var top = feed(() -> new TopK(5), VALUES);
+    var expected =
+        LongStream.of(VALUES).map(value -> -value).sorted().limit(5).map(value -> -value).toArray();
+
+    assertThat(top.values()).containsExactly(expected);
+    assertThat(feed(() -> new TopK(5), 3, 1, 2).values()).containsExactly(3, 2, 1);
+  }
+
+  // Feeds the values in one combiner and in three combined ones, and checks that they agree.
+  private static <C extends LongCombiner<C>> C feed(Supplier<C> factory, long... values) {
+    var whole = factory.get();
+    LongStream.of(values).forEach(whole);
+
+    var parts = factory.get();
+    var middle = factory.get();
+    var last = factory.get();
+    for (var i = 0; i < values.length; i++) {
+      (i < values.length / 3 ? parts : i < values.length * 2 / 3 ? middle : last).accept(values[i]);
+    }
+    middle.combine(last);
+    parts.combine(middle);
+
+    assertThat(parts).hasToString(whole.toString());
+    return whole;
+  }
+}
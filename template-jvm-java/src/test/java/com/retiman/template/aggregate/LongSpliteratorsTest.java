@@ -0,0 +1,94 @@
+package com.retiman.template.aggregate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class LongSpliteratorsTest {
+  @Test
+  public void testArraySplitsEvenly() {
+    var array = LongStream.range(0, 100_000).toArray();
+    var pieces = split(LongSpliterators.of(array), 16);
+
+    assertThat(pieces).hasSize(16);
+    for (var piece : pieces) {
+      assertThat(piece.estimateSize()).isBetween(6_249L, 6_251L);
+    }
+    assertThat(pieces.stream().flatMapToLong(p -> LongSpliterators.stream(p, false)).toArray())
+        .isEqualTo(array);
+  }
+
+  @Test
+  public void testChunksSplitEvenly() {
+    // One big chunk, an empty one, and many small ones; the pieces are still even.
+    var chunks = new ArrayList<LongBuffer>();
+    chunks.add(LongBuffer.wrap(LongStream.range(0, 50_000).toArray()));
+    chunks.add(LongBuffer.allocate(0));
+    for (var i = 0; i < 50; i++) {
+      chunks.add(LongBuffer.wrap(LongStream.range(50_000 + i * 1000, 51_000 + i * 1000).toArray()));
+    }
+    var pieces = split(LongSpliterators.of(chunks), 8);
+
+    assertThat(pieces).hasSize(8);
+    for (var piece : pieces) {
+      assertThat(piece.estimateSize()).isEqualTo(12_500);
+    }
+    assertThat(pieces.stream().flatMapToLong(p -> LongSpliterators.stream(p, false)).toArray())
+        .isEqualTo(LongStream.range(0, 100_000).toArray());
+
+    // Advancing one at a time crosses chunks, including the empty one.
+    var one = LongSpliterators.of(chunks);
+    var values = new long[100_000];
+    var count = new int[1];
+    while (one.tryAdvance((long value) -> values[count[0]++] = value)) {
+      assertThat(one.estimateSize()).isEqualTo(100_000 - count[0]);
+    }
+    assertThat(values).isEqualTo(LongStream.range(0, 100_000).toArray());
+  }
+
+  @Test
+  public void testMap(@TempDir Path directory) throws Exception {
+    var file = directory.resolve("column.bin");
+    var buffer = ByteBuffer.allocate(8 * 10_000).order(ByteOrder.LITTLE_ENDIAN);
+    LongStream.range(0, 10_000).forEach(i -> buffer.putLong(i * i));
+    Files.write(file, buffer.array());
+
+    var spliterator = LongSpliterators.map(file, ByteOrder.LITTLE_ENDIAN);
+    assertThat(spliterator.hasCharacteristics(Spliterator.SUBSIZED)).isTrue();
+    assertThat(LongSpliterators.stream(spliterator, true).toArray())
+        .isEqualTo(LongStream.range(0, 10_000).map(i -> i * i).toArray());
+
+    var odd = directory.resolve("odd.bin");
+    Files.write(odd, new byte[12]);
+    assertThat(catchThrowable(() -> LongSpliterators.map(odd, ByteOrder.LITTLE_ENDIAN)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  // Splits a spliterator into pieces, breadth first, as a fork-join pool would.
+  private static List<Spliterator.OfLong> split(Spliterator.OfLong source, int pieces) {
+    var result = new ArrayList<Spliterator.OfLong>(List.of(source));
+    while (result.size() < pieces) {
+      var next = new ArrayList<Spliterator.OfLong>();
+      for (var piece : result) {
+        var prefix = piece.trySplit();
+        if (prefix != null) {
+          next.add(prefix);
+        }
+        next.add(piece);
+      }
+      result = next;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,249 @@
+package com.retiman.template.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.retiman.template.codec.testing.Point;
+import com.retiman.template.codec.testing.Sample;
+import com.retiman.template.codec.testing.SampleCodec;
+import com.retiman.template.codec.testing.Shape;
+import com.retiman.template.codec.testing.ShapeCodec;
+import com.retiman.template.codec.testing.Trade;
+import com.retiman.template.codec.testing.TradeCodec;
+import com.retiman.template.codec.testing.Unit;
+import com.retiman.template.lang.testing.JavaPermittedClass;
+import com.retiman.template.lang.testing.JavaRecord;
+import com.retiman.template.lang.testing.JavaRecordCodec;
+import com.retiman.template.lang.testing.JavaSealedClass;
+import com.retiman.template.lang.testing.JavaSealedClassCodec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public final class BinaryCodecTest {
+  @Test
+  public void testRecord() {
+    var record = new JavaRecord(1, -2);
+    var bytes = JavaRecordCodec.INSTANCE.toByteArray(record);
+
+    // Two zigzag varints.
+    assertThat(bytes).containsExactly(2, 3);
+    assertThat(JavaRecordCodec.INSTANCE.fromByteArray(bytes)).isEqualTo(record);
+  }
+
+  @Test
+  public void testSealedInterface() {
+    var shape =
+        new Shape.Group(
+            "drawing",
+            List.of(
+                new Shape.Circle(new Point(0, 0), 1.5),
+                new Shape.Polygon(List.of(new Point(0, 0), new Point(3, 0), new Point(0, 4))),
+                new Shape.Group("empty", List.of())));
+    var bytes = ShapeCodec.INSTANCE.toByteArray(shape);
+
+    assertThat(bytes.length).isEqualTo(ShapeCodec.INSTANCE.size(shape));
+    assertThat(ShapeCodec.INSTANCE.fromByteArray(bytes)).isEqualTo(shape);
+    // The tag is the index of the subtype in the permits clause.
+    assertThat(bytes[0]).isEqualTo((byte) 2);
+  }
+
+  @Test
+  public void testSealedClass() {
+    // The permitted subclass is tag 0, and the sealed class's own instances the next tag.
+    var permitted = new JavaPermittedClass();
+    assertThat(JavaSealedClassCodec.INSTANCE.toByteArray(permitted)).containsExactly(0);
+    assertThat(JavaSealedClassCodec.INSTANCE.fromByteArray(new byte[] {0}))
+        .isExactlyInstanceOf(JavaPermittedClass.class);
+
+    var sealed = new JavaSealedClass();
+    assertThat(JavaSealedClassCodec.INSTANCE.size(sealed)).isEqualTo(1);
+    assertThat(JavaSealedClassCodec.INSTANCE.toByteArray(sealed)).containsExactly(1);
+    assertThat(JavaSealedClassCodec.INSTANCE.fromByteArray(new byte[] {1}))
+        .isExactlyInstanceOf(JavaSealedClass.class);
+    assertThat(catchThrowable(() -> JavaSealedClassCodec.INSTANCE.fromByteArray(new byte[] {2})))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("JavaSealedClass");
+  }
+
+  @Test
+  public void testNulls() {
+    var sample =
+        new Sample(
+            false, (byte) 0, (short) 0, '\0', 0, 0, 0, 0, null, null, null, null, null, null, null,
+            null, null, null, null);
+    var bytes = SampleCodec.INSTANCE.toByteArray(sample);
+
+    assertThat(bytes.length).isEqualTo(SampleCodec.INSTANCE.size(sample));
+    assertThat(SampleCodec.INSTANCE.fromByteArray(bytes)).isEqualTo(sample);
+  }
+
+  @Test
+  public void testFuzz() {
+    var random = new Random(42);
+    var heap = ByteBuffer.allocate(1 << 16);
+    var direct = ByteBuffer.allocateDirect(1 << 16);
+    for (var n = 0; n < 10_000; n++) {
+      var sample = sample(random);
+      var size = SampleCodec.INSTANCE.size(sample);
+      for (var buffer : List.of(heap, direct)) {
+        buffer.clear();
+        SampleCodec.INSTANCE.encode(sample, buffer);
+        assertThat(buffer.position()).isEqualTo(size);
+
+        var decoded = SampleCodec.INSTANCE.decode(buffer.flip());
+        assertThat(buffer.hasRemaining()).isFalse();
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(sample);
+      }
+    }
+  }
+
+  @Test
+  public void testMalformedInput() {
+    assertThat(catchThrowable(() -> ShapeCodec.INSTANCE.fromByteArray(new byte[] {7})))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Shape");
+
+    var bytes = ShapeCodec.INSTANCE.toByteArray(new Shape.Circle(new Point(1, 2), 3));
+    assertThat(catchThrowable(() -> ShapeCodec.INSTANCE.fromByteArray(Arrays.copyOf(bytes, 5))))
+        .isInstanceOf(BufferUnderflowException.class);
+    assertThat(
+            catchThrowable(
+                () -> ShapeCodec.INSTANCE.fromByteArray(Arrays.copyOf(bytes, bytes.length + 1))))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    // A list that claims a billion elements fails on the bytes, not on allocating the list.
+    var list = ByteBuffer.allocate(16);
+    list.put((byte) 1);
+    Wire.writeUnsigned(list, 1_000_000_000);
+    assertThat(catchThrowable(() -> ShapeCodec.INSTANCE.decode(list.flip())))
+        .isInstanceOf(BufferUnderflowException.class);
+  }
+
+  @Test
+  public void testAgainstJavaSerialization() throws Exception {
+    var random = new Random(7);
+    var count = 100_000;
+    var trades = new ArrayList<Trade>(count);
+    for (var i = 0; i < count; i++) {
+      trades.add(
+          new Trade(
+              i,
+              "SYM" + random.nextInt(100),
+              random.nextInt(1000),
+              random.nextLong(1_000_000_000L),
+              random.nextBoolean() ? Trade.Side.BUY : Trade.Side.SELL,
+              1_700_000_000_000L + i));
+    }
+
+    var codecNanos = 0L;
+    var javaNanos = 0L;
+    var codecBytes = 0L;
+    var javaBytes = 0L;
+    var buffer = ByteBuffer.allocate(1024);
+    for (var run = 0; run < 2; run++) {
+      var t0 = System.nanoTime();
+      codecBytes = 0;
+      for (var trade : trades) {
+        buffer.clear();
+        TradeCodec.INSTANCE.encode(trade, buffer);
+        codecBytes += buffer.position();
+        assertThat(TradeCodec.INSTANCE.decode(buffer.flip())).isEqualTo(trade);
+      }
+      codecNanos = System.nanoTime() - t0;
+
+      // One stream per message, as a message queue or a cache would use it.
+      var t1 = System.nanoTime();
+      javaBytes = 0;
+      for (var trade : trades) {
+        var bytes = serialize(trade);
+        javaBytes += bytes.length;
+        assertThat(deserialize(bytes)).isEqualTo(trade);
+      }
+      javaNanos = System.nanoTime() - t1;
+    }
+
+    assertThat(codecBytes).isLessThan(javaBytes / 5);
+    assertThat(codecNanos).isLessThan(javaNanos);
+  }
+
+  private static Sample sample(Random random) {
+    return new Sample(
+        random.nextBoolean(),
+        (byte) random.nextInt(),
+        (short) random.nextInt(),
+        (char) random.nextInt(Character.MAX_VALUE + 1),
+        random.nextInt(),
+        random.nextLong() >> random.nextInt(64),
+        random.nextFloat(),
+        random.nextGaussian() * 1e6,
+        random.nextBoolean() ? null : random.nextInt(),
+        random.nextBoolean() ? null : random.nextLong(),
+        random.nextBoolean() ? null : random.nextBoolean(),
+        random.nextInt(8) == 0 ? null : text(random),
+        random.nextInt(8) == 0 ? null : bytes(random),
+        random.nextInt(4) == 0 ? null : Unit.values()[random.nextInt(Unit.values().length)],
+        random.nextInt(4) == 0 ? null : point(random),
+        random.nextInt(4) == 0 ? null : List.of(text(random), text(random)),
+        random.nextInt(4) == 0 ? null : random.longs(random.nextInt(5)).boxed().toList(),
+        random.nextInt(4) == 0 ? null : List.of(point(random)),
+        shape(random, 2));
+  }
+
+  private static Shape shape(Random random, int depth) {
+    return switch (random.nextInt(depth > 0 ? 3 : 2)) {
+      case 0 -> new Shape.Circle(point(random), random.nextDouble());
+      case 1 -> new Shape.Polygon(List.of(point(random), point(random), point(random)));
+      default -> new Shape.Group(
+          text(random), List.of(shape(random, depth - 1), shape(random, depth - 1)));
+    };
+  }
+
+  private static Point point(Random random) {
+    return new Point(random.nextInt(2000) - 1000, random.nextInt());
+  }
+
+  // Mixes ASCII, two and three byte characters, and surrogate pairs.
+  private static String text(Random random) {
+    var text = new StringBuilder();
+    var length = random.nextInt(20);
+    for (var i = 0; i < length; i++) {
+      switch (random.nextInt(4)) {
+        case 0 -> text.append((char) ('a' + random.nextInt(26)));
+        case 1 -> text.append((char) (0x80 + random.nextInt(0x780)));
+        case 2 -> text.append((char) (0x3040 + random.nextInt(0x60)));
+        default -> text.appendCodePoint(0x1f600 + random.nextInt(0x50));
+      }
+    }
+    return text.toString();
+  }
+
+  private static byte[] bytes(Random random) {
+    var bytes = new byte[random.nextInt(16)];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  private static byte[] serialize(Object value) throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    try (var out = new ObjectOutputStream(bytes)) {
+      out.writeObject(value);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+    try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return in.readObject();
+    }
+  }
+}
@@ -0,0 +1,6 @@
+package com.retiman.template.codec.testing;
+
+import com.retiman.template.codec.BinaryCodec;
+
+@BinaryCodec
+public record Point(int x, int y) {}
@@ -0,0 +1,31 @@
+package com.retiman.template.codec.testing;
+
+import com.retiman.template.codec.BinaryCodec;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.List;
+
+// One component of every kind that the codec supports.
+@BinaryCodec
+@SuppressFBWarnings(
+    value = {"EI_EXPOSE_REP", "EI_EXPOSE_REP2"},
+    justification = "A test fixture; its array and lists are compared, never mutated.")
+public record Sample(
+    boolean flag,
+    byte b,
+    short s,
+    char c,
+    int i,
+    long l,
+    float f,
+    double d,
+    Integer boxedInt,
+    Long boxedLong,
+    Boolean boxedFlag,
+    String text,
+    byte[] bytes,
+    Unit unit,
+    Point point,
+    List<String> tags,
+    List<Long> ids,
+    List<Point> path,
+    Shape shape) {}
@@ -0,0 +1,22 @@
+package com.retiman.template.codec.testing;
+
+import com.retiman.template.codec.BinaryCodec;
+import java.util.List;
+
+// The permitted subtypes get codecs of their own, named Shape_CircleCodec and so on.
+@BinaryCodec
+public sealed interface Shape {
+  record Circle(Point center, double radius) implements Shape {}
+
+  record Polygon(List<Point> points) implements Shape {
+    public Polygon {
+      points = List.copyOf(points);
+    }
+  }
+
+  record Group(String name, List<Shape> shapes) implements Shape {
+    public Group {
+      shapes = List.copyOf(shapes);
+    }
+  }
+}
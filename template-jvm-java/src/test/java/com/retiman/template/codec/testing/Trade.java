@@ -0,0 +1,17 @@
+package com.retiman.template.codec.testing;
+
+import com.retiman.template.codec.BinaryCodec;
+import java.io.Serializable;
+
+// A typical small message, for comparing against Java serialization.
+@BinaryCodec
+public record Trade(
+    long id, String symbol, int quantity, long priceMicros, Side side, long timestamp)
+    implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  public enum Side {
+    BUY,
+    SELL
+  }
+}
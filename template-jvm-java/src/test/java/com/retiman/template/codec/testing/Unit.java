@@ -0,0 +1,7 @@
+package com.retiman.template.codec.testing;
+
+public enum Unit {
+  GRAM,
+  KILOGRAM,
+  POUND
+}
@@ -0,0 +1,58 @@
+package com.retiman.template.collect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public final class IntArrayListTest {
+  @Test
+  public void testAddAndGet() {
+    var list = new IntArrayList();
+    for (var i = 0; i < 1000; i++) {
+      list.add(i * 3);
+    }
+
+    assertThat(list.size()).isEqualTo(1000);
+    assertThat(list.get(999)).isEqualTo(2997);
+    assertThat(list.set(0, -1)).isZero();
+    assertThat(list.indexOf(-1)).isZero();
+    assertThat(list.contains(4)).isFalse();
+    assertThat(catchThrowable(() -> list.get(1000))).isInstanceOf(IndexOutOfBoundsException.class);
+
+    list.clear();
+    assertThat(list.isEmpty()).isTrue();
+    assertThat(list).isEqualTo(new IntArrayList());
+  }
+
+  @Test
+  public void testOperations() {
+    // The same pipeline as StreamsTest, without boxing.
+    var xs = IntArrayList.of(1, 2, 3, 4);
+    var result =
+        xs.filter(x -> x > 1).map(x -> x + 1).takeWhile(x -> x < 5).reduce(0, Integer::sum);
+
+    assertThat(result).isEqualTo(7);
+    assertThat(xs.map(x -> x * 2)).isEqualTo(IntArrayList.of(2, 4, 6, 8));
+    assertThat(xs.takeWhile(x -> true)).isEqualTo(xs);
+    assertThat(xs.takeWhile(x -> false).isEmpty()).isTrue();
+    assertThat(IntArrayList.of(Integer.MAX_VALUE, Integer.MAX_VALUE).sum())
+        .isEqualTo(2L * Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void testStreams() {
+    var list = IntArrayList.from(IntStream.range(0, 100_000).parallel().map(x -> x * 7));
+
+    assertThat(list.stream().toArray())
+        .isEqualTo(IntStream.range(0, 100_000).map(x -> x * 7).toArray());
+    assertThat(list.stream().parallel().asLongStream().sum()).isEqualTo(list.sum());
+
+    var sorted = IntArrayList.of(3, 1, 2);
+    sorted.sort();
+    assertThat(sorted.toArray()).containsExactly(1, 2, 3);
+    assertThat(sorted).hasToString("[1, 2, 3]");
+    assertThat(sorted.hashCode()).isEqualTo(IntArrayList.of(1, 2, 3).hashCode());
+  }
+}
@@ -0,0 +1,85 @@
+package com.retiman.template.collect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+public final class IntIntMapTest {
+  @Test
+  public void testPutAndGet() {
+    var map = new IntIntMap();
+    assertThat(map.put(0, 5)).isZero();
+    assertThat(map.put(1, 6)).isZero();
+    assertThat(map.put(1, 7)).isEqualTo(6);
+
+    assertThat(map.size()).isEqualTo(2);
+    assertThat(map.getOrDefault(0, -1)).isEqualTo(5);
+    assertThat(map.getOrDefault(1, -1)).isEqualTo(7);
+    assertThat(map.getOrDefault(2, -1)).isEqualTo(-1);
+    assertThat(map.containsKey(2)).isFalse();
+    assertThat(map).hasToString("{0=5, 1=7}");
+  }
+
+  @Test
+  public void testAddTo() {
+    // Counting by key, which is what aggregations do.
+    var map = new IntIntMap();
+    for (var i = 0; i < 10_000; i++) {
+      map.addTo(i % 100, 1);
+    }
+
+    assertThat(map.size()).isEqualTo(100);
+    assertThat(map.values().allMatch(count -> count == 100)).isTrue();
+    assertThat(map.keys().sum()).isEqualTo(4950);
+  }
+
+  @Test
+  public void testCollidingKeys() {
+    // Keys that are equal in their low bits must still spread out, and removal must keep every
+    // remaining key reachable.
+    var map = new IntIntMap();
+    for (var i = 1; i <= 1000; i++) {
+      map.put(i << 16, i);
+    }
+    for (var i = 1; i <= 1000; i += 2) {
+      assertThat(map.remove(i << 16)).isTrue();
+    }
+
+    assertThat(map.size()).isEqualTo(500);
+    for (var i = 1; i <= 1000; i++) {
+      assertThat(map.getOrDefault(i << 16, -1)).isEqualTo(i % 2 == 0 ? i : -1);
+    }
+  }
+
+  @Test
+  public void testAgainstHashMap() {
+    var random = new Random(42);
+    var map = new IntIntMap();
+    var expected = new HashMap<Integer, Integer>();
+    for (var i = 0; i < 200_000; i++) {
+      var key = random.nextInt(2000) - 1000;
+      switch (random.nextInt(3)) {
+        case 0 -> assertThat(map.put(key, i)).isEqualTo(orZero(expected.put(key, i)));
+        case 1 -> assertThat(map.addTo(key, 3)).isEqualTo(expected.merge(key, 3, Integer::sum));
+        default -> assertThat(map.remove(key)).isEqualTo(expected.remove(key) != null);
+      }
+    }
+
+    assertThat(map.size()).isEqualTo(expected.size());
+    var entries = new HashMap<Integer, Integer>();
+    map.forEach(entries::put);
+    assertThat(entries).isEqualTo(expected);
+    assertThat(map.keys().boxed().collect(Collectors.toSet())).isEqualTo(expected.keySet());
+
+    map.clear();
+    assertThat(map.isEmpty()).isTrue();
+    assertThat(map.containsKey(0)).isFalse();
+  }
+
+  private static int orZero(Integer value) {
+    return value == null ? 0 : value;
+  }
+}
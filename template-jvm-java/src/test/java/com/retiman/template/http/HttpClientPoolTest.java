@@ -0,0 +1,137 @@
+package com.retiman.template.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.retiman.template.http.testing.LocalHttpServer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.Test;
+
+public final class HttpClientPoolTest {
+  private static final HttpProfile PROFILE =
+      HttpProfile.of("test").withVersion(HttpClient.Version.HTTP_1_1);
+
+  @Test
+  public void testSend() throws Exception {
+    try (var server =
+            LocalHttpServer.start("hello".getBytes(StandardCharsets.UTF_8), Duration.ZERO);
+        var pool = new HttpClientPool()) {
+      var request = HttpRequest.newBuilder(server.uri("/greeting")).build();
+      var response = pool.sendAndWait(PROFILE, request, HttpResponse.BodyHandlers.ofString());
+      var host = HttpClientPool.hostKey(request.uri());
+
+      assertThat(response.statusCode()).isEqualTo(200);
+      assertThat(response.body()).isEqualTo("hello");
+      assertThat(pool.latencies(host).count()).isEqualTo(1);
+      assertThat(pool.inFlight(host)).isZero();
+    }
+  }
+
+  @Test
+  public void testLimitsRequestsPerHost() throws Exception {
+    try (var server = LocalHttpServer.start(new byte[0], Duration.ofMillis(20));
+        var pool = new HttpClientPool()) {
+      var profile = PROFILE.withMaxInFlightPerHost(4);
+      var request = HttpRequest.newBuilder(server.uri("/")).build();
+      var futures = new ArrayList<CompletableFuture<HttpResponse<Void>>>();
+      for (var i = 0; i < 100; i++) {
+        futures.add(pool.sendAsync(profile, request, HttpResponse.BodyHandlers.discarding()));
+      }
+      for (var future : futures) {
+        assertThat(future.get().statusCode()).isEqualTo(200);
+      }
+
+      assertThat(server.requestCount()).isEqualTo(100);
+      assertThat(server.maxInFlight()).isBetween(1, 4);
+      assertThat(pool.latencies(HttpClientPool.hostKey(request.uri())).count()).isEqualTo(100);
+    }
+  }
+
+  @Test
+  public void testTimesOutWaitingForPermits() throws Exception {
+    try (var server = LocalHttpServer.start(new byte[0], Duration.ofMillis(500));
+        var pool = new HttpClientPool()) {
+      var profile = PROFILE.withMaxInFlightPerHost(1).withRequestTimeout(Duration.ofMillis(50));
+      var slow = HttpRequest.newBuilder(server.uri("/")).timeout(Duration.ofSeconds(10)).build();
+      var fast = HttpRequest.newBuilder(server.uri("/")).build();
+
+      var first = pool.sendAsync(profile, slow, HttpResponse.BodyHandlers.discarding());
+      while (pool.inFlight(HttpClientPool.hostKey(slow.uri())) == 0) {
+        Thread.sleep(1);
+      }
+      var second = pool.sendAsync(profile, fast, HttpResponse.BodyHandlers.discarding());
+
+      var thrown = catchThrowable(second::get);
+
+      assertThat(thrown)
+          .isInstanceOfSatisfying(
+              ExecutionException.class,
+              e -> assertThat(e.getCause()).isInstanceOf(HttpTimeoutException.class));
+      assertThat(first.get().statusCode()).isEqualTo(200);
+      assertThat(pool.rejectedCount(HttpClientPool.hostKey(slow.uri()))).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void testTimesOutUnresponsiveHosts() throws Exception {
+    try (var server = LocalHttpServer.unresponsive();
+        var pool = new HttpClientPool()) {
+      var profile = PROFILE.withMaxInFlightPerHost(1).withRequestTimeout(Duration.ofMillis(100));
+      var request = HttpRequest.newBuilder(server.uri("/")).build();
+      var host = HttpClientPool.hostKey(request.uri());
+
+      // Without a timeout on the request itself, the first hang would keep the only permit.
+      for (var i = 0; i < 3; i++) {
+        assertThat(
+                catchThrowable(
+                    () ->
+                        pool.sendAndWait(profile, request, HttpResponse.BodyHandlers.discarding())))
+            .isInstanceOf(HttpTimeoutException.class)
+            .hasMessageNotContaining("waiting for a connection");
+        assertThat(pool.inFlight(host)).isZero();
+      }
+      assertThat(pool.rejectedCount(host)).isZero();
+    }
+  }
+
+  @Test
+  public void testProfiles() {
+    var profile = HttpProfile.of("search").withMaxInFlightPerHost(8);
+
+    assertThat(profile.version()).isEqualTo(HttpClient.Version.HTTP_2);
+    assertThat(profile.maxInFlightPerHost()).isEqualTo(8);
+    assertThat(
+            catchThrowable(
+                () ->
+                    new HttpProfile(
+                        "x", HttpClient.Version.HTTP_2, Duration.ZERO, Duration.ZERO, 1)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(
+            catchThrowable(
+                () ->
+                    new HttpProfile(
+                        "x",
+                        HttpClient.Version.HTTP_2,
+                        Duration.ofSeconds(1),
+                        Duration.ofSeconds(1),
+                        0)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testHostKeys() {
+    assertThat(HttpClientPool.hostKey(URI.create("https://example.com/a")))
+        .isEqualTo("example.com:443");
+    assertThat(HttpClientPool.hostKey(URI.create("http://example.com:8080/a")))
+        .isEqualTo("example.com:8080");
+  }
+}
@@ -0,0 +1,157 @@
+package com.retiman.template.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.retiman.template.http.testing.LocalHttpServer;
+import com.retiman.template.testing.Allocations;
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+public final class PooledBodyTest {
+  @Test
+  public void testDirectBufferPool() {
+    var pool = new DirectBufferPool(16, 2);
+    var a = pool.acquire();
+    var b = pool.acquire();
+    var c = pool.acquire();
+
+    assertThat(a.isDirect()).isTrue();
+    assertThat(pool.available()).isZero();
+    assertThat(pool.overflowCount()).isEqualTo(1);
+
+    pool.release(a.put((byte) 1));
+    pool.release(b);
+    pool.release(c);
+    assertThat(pool.available()).isEqualTo(2);
+    assertThat(pool.dropCount()).isEqualTo(1);
+    assertThat(pool.acquire().position()).isZero();
+  }
+
+  @Test
+  public void testTake() throws Exception {
+    var text = "The quick brown fox jumps over the lazy dog";
+    try (var server = LocalHttpServer.start(text.getBytes(StandardCharsets.UTF_8), Duration.ZERO);
+        var client = HttpClient.newHttpClient()) {
+      var pool = new DirectBufferPool(8, 4);
+      var request = HttpRequest.newBuilder(server.uri("/")).build();
+      var response = client.send(request, PooledBody.handler(pool));
+
+      var builder = new StringBuilder();
+      try (var body = response.body()) {
+        for (var buffer = body.take(); buffer != null; buffer = body.take()) {
+          assertThat(buffer.isDirect()).isTrue();
+          builder.append(StandardCharsets.UTF_8.decode(buffer));
+          body.release(buffer);
+        }
+        assertThat(body.take()).isNull();
+        assertThat(body.bytesReceived()).isEqualTo(text.length());
+      }
+
+      assertThat(builder.toString()).isEqualTo(text);
+      assertThat(pool.available()).isEqualTo(4);
+    }
+  }
+
+  @Test
+  public void testLineSplitter() throws Exception {
+    // Tiny buffers make most lines span more than one of them.
+    var text = "one\ntwo\r\n\nthree is a longer line\r\n\r\nfour";
+    try (var server = LocalHttpServer.start(text.getBytes(StandardCharsets.UTF_8), Duration.ZERO);
+        var client = HttpClient.newHttpClient()) {
+      var pool = new DirectBufferPool(3, 2);
+      var request = HttpRequest.newBuilder(server.uri("/")).build();
+
+      var lines = new ArrayList<String>();
+      try (var body = client.send(request, PooledBody.handler(pool)).body()) {
+        var splitter = new LineSplitter(body);
+        for (var line = splitter.nextLine(); line != null; line = splitter.nextLine()) {
+          lines.add(StandardCharsets.UTF_8.decode(line).toString());
+        }
+        assertThat(splitter.nextLine()).isNull();
+      }
+
+      assertThat(lines).containsExactly("one", "two", "", "three is a longer line", "", "four");
+    }
+  }
+
+  @Test
+  public void testBackpressure() throws Exception {
+    // Stream 64MB through two 16KB buffers, and hold on to one of them for a while; the client
+    // should stop reading rather than fill the heap.
+    var chunk = new byte[64 * 1024];
+    try (var server = LocalHttpServer.streaming(chunk, 1024);
+        var client = HttpClient.newHttpClient()) {
+      var pool = new DirectBufferPool(16 * 1024, 2);
+      var request = HttpRequest.newBuilder(server.uri("/")).build();
+
+      try (var body = client.send(request, PooledBody.handler(pool)).body()) {
+        var held = body.take();
+        Thread.sleep(500);
+        var received = body.bytesReceived();
+        var total = (long) held.remaining();
+        body.release(held);
+
+        for (var buffer = body.take(); buffer != null; buffer = body.take()) {
+          total += buffer.remaining();
+          body.release(buffer);
+        }
+
+        assertThat(received).isLessThan(8L << 20);
+        assertThat(total).isEqualTo(64L << 20);
+      }
+    }
+  }
+
+  @Test
+  public void testStreamingHasFlatHeap() throws Exception {
+    // Stream 1GB of lines, which could not fit in the test's heap, and watch the heap as it goes.
+    var line = new byte[64];
+    Arrays.fill(line, (byte) 'x');
+    line[line.length - 1] = '\n';
+    var chunk = new byte[64 * 1024];
+    for (var i = 0; i < chunk.length; i += line.length) {
+      System.arraycopy(line, 0, chunk, i, line.length);
+    }
+    var repeat = 16 * 1024;
+
+    var memory = ManagementFactory.getMemoryMXBean();
+    try (var server = LocalHttpServer.streaming(chunk, repeat);
+        var client = HttpClient.newHttpClient()) {
+      var pool = new DirectBufferPool(16 * 1024, 16);
+      var request = HttpRequest.newBuilder(server.uri("/")).build();
+
+      System.gc();
+      var baseline = memory.getHeapMemoryUsage().getUsed();
+      var peak = new long[] {baseline};
+      var lines = new long[1];
+      var bytes = new long[1];
+      var allocated =
+          Allocations.measure(
+              () -> {
+                try (var body = client.send(request, PooledBody.handler(pool)).body()) {
+                  var splitter = new LineSplitter(body);
+                  for (var next = splitter.nextLine(); next != null; next = splitter.nextLine()) {
+                    lines[0]++;
+                    bytes[0] += next.remaining() + 1;
+                    if ((lines[0] & 0xffff) == 0) {
+                      peak[0] = Math.max(peak[0], memory.getHeapMemoryUsage().getUsed());
+                    }
+                  }
+                }
+              });
+
+      assertThat(bytes[0]).isEqualTo((long) chunk.length * repeat);
+      assertThat(lines[0]).isEqualTo(bytes[0] / line.length);
+      assertThat(peak[0] - baseline).isLessThan(256L << 20);
+
+      // The consumer reads every byte in place, and only allocates a little per buffer.
+      assertThat(allocated).isLessThan(bytes[0] / 100);
+    }
+  }
+}
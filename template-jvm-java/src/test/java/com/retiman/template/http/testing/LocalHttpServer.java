@@ -0,0 +1,111 @@
+package com.retiman.template.http.testing;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// A stand-in for a remote service, on the loopback interface, so that HTTP tests can run offline.
+// It answers every request with a fixed body after a fixed delay, and keeps track of how many
+// requests it was handling at once.  A streaming server repeats its body, for bodies too large to
+// hold in memory, and an unresponsive one never answers.
+public final class LocalHttpServer implements AutoCloseable {
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final byte[] body;
+  private final Duration delay;
+  private final long repeat;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final LongAccumulator maxInFlight = new LongAccumulator(Math::max, 0);
+  private final LongAdder requests = new LongAdder();
+  private final CountDownLatch closed = new CountDownLatch(1);
+
+  private LocalHttpServer(byte[] body, Duration delay, long repeat) throws IOException {
+    this.body = body.clone();
+    this.delay = delay;
+    this.repeat = repeat;
+    this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.server.setExecutor(executor);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  public static LocalHttpServer start(byte[] body, Duration delay) {
+    return start(body, delay, 1);
+  }
+
+  // Never answers; requests wait until the server is closed.
+  public static LocalHttpServer unresponsive() {
+    return start(new byte[0], Duration.ofDays(1), 1);
+  }
+
+  // Answers every request with the body repeated, in a chunked response.
+  public static LocalHttpServer streaming(byte[] body, long repeat) {
+    return start(body, Duration.ZERO, repeat);
+  }
+
+  private static LocalHttpServer start(byte[] body, Duration delay, long repeat) {
+    try {
+      return new LocalHttpServer(body, delay, repeat);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public URI uri(String path) {
+    return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+  }
+
+  public int maxInFlight() {
+    return maxInFlight.intValue();
+  }
+
+  public long requestCount() {
+    return requests.sum();
+  }
+
+  @Override
+  public void close() {
+    closed.countDown();
+    server.stop(0);
+    executor.close();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    maxInFlight.accumulate(inFlight.incrementAndGet());
+    try (exchange) {
+      exchange.getRequestBody().readAllBytes();
+      if (!delay.isZero() && closed.await(delay.toNanos(), TimeUnit.NANOSECONDS)) {
+        return;
+      }
+      if (repeat == 1) {
+        // A length of 0 would mean a chunked response; -1 means no body at all.
+        exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+        exchange.getResponseBody().write(body);
+      } else {
+        exchange.sendResponseHeaders(200, 0);
+        var out = exchange.getResponseBody();
+        for (var i = 0L; i < repeat; i++) {
+          out.write(body);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      inFlight.decrementAndGet();
+      requests.increment();
+    }
+  }
+}
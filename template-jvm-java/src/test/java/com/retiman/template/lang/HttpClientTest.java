@@ -1,23 +1,58 @@
 package com.retiman.template.lang;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.retiman.template.http.HttpClientPool;
+import com.retiman.template.http.HttpProfile;
+import com.retiman.template.http.testing.LocalHttpServer;
 import java.io.IOException;
-import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import org.junit.jupiter.api.Disabled;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import org.junit.jupiter.api.Test;
 
 public final class HttpClientTest {
-  @Disabled
   @Test
   public void testHttpClient() {
-    // Java 11 introduced a new stable HttpClient.
-    try (var client = HttpClient.newHttpClient()) {
-      var request = HttpRequest.newBuilder().uri(URI.create("https://google.com")).build();
-      client.send(request, HttpResponse.BodyHandlers.ofString());
+    // Java 11 introduced a new stable HttpClient.  A local server stands in for a real site, so
+    // that this runs offline.
+    try (var server = LocalHttpServer.start("ok".getBytes(StandardCharsets.UTF_8), Duration.ZERO);
+        var client = HttpClient.newHttpClient()) {
+      var request = HttpRequest.newBuilder().uri(server.uri("/")).build();
+      var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+      assertThat(response.body()).isEqualTo("ok");
     } catch (IOException | InterruptedException e) {
       throw new RuntimeException(e);
     }
   }
+
+  @Test
+  public void testLoad() throws InterruptedException, ExecutionException {
+    // Fan out requests from virtual threads, as a service would, and check what comes back.
+    var count = 5_000;
+    var profile =
+        HttpProfile.of("load").withVersion(HttpClient.Version.HTTP_1_1).withMaxInFlightPerHost(32);
+    try (var server = LocalHttpServer.start("ok".getBytes(StandardCharsets.UTF_8), Duration.ZERO);
+        var pool = new HttpClientPool()) {
+      var request = HttpRequest.newBuilder().uri(server.uri("/")).build();
+      var futures = new ArrayList<CompletableFuture<HttpResponse<Void>>>(count);
+
+      for (var i = 0; i < count; i++) {
+        futures.add(pool.sendAsync(profile, request, HttpResponse.BodyHandlers.discarding()));
+      }
+      for (var future : futures) {
+        assertThat(future.get().statusCode()).isEqualTo(200);
+      }
+
+      var latencies = pool.latencies(HttpClientPool.hostKey(request.uri()));
+      assertThat(latencies.count()).isEqualTo(count);
+      assertThat(server.maxInFlight()).isLessThanOrEqualTo(32);
+    }
+  }
 }
@@ -2,7 +2,10 @@ package com.retiman.template.lang;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.retiman.template.collect.IntArrayList;
+import com.retiman.template.testing.Allocations;
 import java.util.List;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 
 public final class StreamsTest {
@@ -20,4 +23,55 @@ public final class StreamsTest {
 
     assertThat(result).isEqualTo(7);
   }
+
+  @Test
+  public void testPrimitiveStreams() {
+    // The same pipeline over a million elements, boxed and not.  Every x + 1 and every partial sum
+    // past 127 is a new Integer in the boxed version.
+    var count = 1_000_000;
+    var boxed = IntStream.range(0, count).boxed().toList();
+    var primitive = IntArrayList.from(IntStream.range(0, count));
+
+    var boxedBytes = 0L;
+    var streamBytes = 0L;
+    var listBytes = 0L;
+    var results = new int[3];
+    for (var run = 0; run < 2; run++) {
+      boxedBytes =
+          Allocations.measure(
+              () ->
+                  results[0] =
+                      boxed.stream()
+                          .filter(x -> x % 3 != 0)
+                          .map(x -> x + 1)
+                          .takeWhile(x -> x < count)
+                          .reduce(0, Integer::sum));
+      streamBytes =
+          Allocations.measure(
+              () ->
+                  results[1] =
+                      primitive.stream()
+                          .filter(x -> x % 3 != 0)
+                          .map(x -> x + 1)
+                          .takeWhile(x -> x < count)
+                          .reduce(0, Integer::sum));
+      listBytes =
+          Allocations.measure(
+              () ->
+                  results[2] =
+                      primitive
+                          .filter(x -> x % 3 != 0)
+                          .map(x -> x + 1)
+                          .takeWhile(x -> x < count)
+                          .reduce(0, Integer::sum));
+    }
+
+    assertThat(results[1]).isEqualTo(results[0]);
+    assertThat(results[2]).isEqualTo(results[0]);
+
+    // The primitive stream allocates its stages and nothing per element; the eager list allocates
+    // a few arrays of ints, where the boxed stream allocates an Integer or two per element.
+    assertThat(streamBytes).isLessThan(4096);
+    assertThat(listBytes).isLessThan(boxedBytes / 2);
+  }
 }
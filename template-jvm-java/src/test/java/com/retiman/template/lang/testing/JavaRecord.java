@@ -1,4 +1,7 @@
 package com.retiman.template.lang.testing;
 
+import com.retiman.template.codec.BinaryCodec;
+
 // Java 16 introduced records.
+@BinaryCodec
 public record JavaRecord(int a, int b) {}
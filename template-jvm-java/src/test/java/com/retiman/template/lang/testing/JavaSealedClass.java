@@ -1,4 +1,7 @@
 package com.retiman.template.lang.testing;
 
+import com.retiman.template.codec.BinaryCodec;
+
 // Java 17 introduced sealed classes.
+@BinaryCodec
 public sealed class JavaSealedClass permits JavaPermittedClass {}
@@ -0,0 +1,165 @@
+package com.retiman.template.locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.retiman.template.locale.DisplayNameTable.Field;
+import com.retiman.template.testing.Allocations;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class DisplayNameTableTest {
+  private static final int CAPACITY = 1 << 16;
+
+  private static final List<CanonicalLocale> TARGETS =
+      List.of(
+          LocaleRegistry.shared().resolve("zh-Hans-CN-wadegile"),
+          LocaleRegistry.shared().resolve("en-US"),
+          LocaleRegistry.shared().resolve("fr-FR"),
+          LocaleRegistry.shared().resolve("sr-Latn-RS"),
+          LocaleRegistry.shared().resolve("he"));
+
+  private static final List<CanonicalLocale> DISPLAYS =
+      List.of(
+          LocaleRegistry.shared().resolve("en"),
+          LocaleRegistry.shared().resolve("fr"),
+          LocaleRegistry.shared().resolve("ja"));
+
+  @TempDir private Path directory;
+
+  @Test
+  public void testAgreesWithIcu() throws IOException {
+    try (var table =
+        DisplayNameTable.open(directory.resolve("names"), TARGETS, DISPLAYS, CAPACITY)) {
+      for (var target : TARGETS) {
+        for (var display : DISPLAYS) {
+          var in = display.ulocale();
+          var locale = target.ulocale();
+
+          assertThat(name(table, target, display, Field.NAME)).isEqualTo(locale.getDisplayName(in));
+          assertThat(name(table, target, display, Field.LANGUAGE))
+              .isEqualTo(locale.getDisplayLanguage(in));
+          assertThat(name(table, target, display, Field.SCRIPT))
+              .isEqualTo(locale.getDisplayScript(in));
+          assertThat(name(table, target, display, Field.REGION))
+              .isEqualTo(locale.getDisplayCountry(in));
+          assertThat(name(table, target, display, Field.VARIANT))
+              .isEqualTo(locale.getDisplayVariant(in));
+        }
+      }
+
+      // See IcuLocaleTest#testStringRepresentations.
+      assertThat(name(table, TARGETS.get(0), DISPLAYS.get(0), Field.VARIANT))
+          .isEqualTo("Wade-Giles Romanization");
+    }
+  }
+
+  @Test
+  public void testWarmRestart() throws IOException {
+    var file = directory.resolve("names");
+    try (var table = DisplayNameTable.open(file, TARGETS, DISPLAYS, CAPACITY)) {
+      var name = name(table, TARGETS.get(0), DISPLAYS.get(1), Field.NAME);
+
+      assertThat(name(table, TARGETS.get(0), DISPLAYS.get(1), Field.NAME)).isEqualTo(name);
+      assertThat(table.missCount()).isEqualTo(1);
+      assertThat(table.hitCount()).isEqualTo(1);
+    }
+
+    try (var table = DisplayNameTable.open(file, TARGETS, DISPLAYS, CAPACITY)) {
+      name(table, TARGETS.get(0), DISPLAYS.get(1), Field.NAME);
+
+      assertThat(table.missCount()).isZero();
+      assertThat(table.hitRate()).isEqualTo(1.0);
+      assertThat(table.residentBytes()).isGreaterThan(0);
+    }
+
+    // A different matrix cannot reuse the names, since the cells would be in the wrong places.
+    try (var table = DisplayNameTable.open(file, TARGETS, DISPLAYS.subList(1, 3), CAPACITY)) {
+      name(table, TARGETS.get(0), DISPLAYS.get(1), Field.NAME);
+
+      assertThat(table.missCount()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void testFallsBackToIcuWhenFull() throws IOException {
+    try (var table = DisplayNameTable.open(directory.resolve("names"), TARGETS, DISPLAYS, 16)) {
+      for (var i = 0; i < 2; i++) {
+        assertThat(name(table, TARGETS.get(1), DISPLAYS.get(0), Field.NAME))
+            .isEqualTo("English (United States)");
+      }
+
+      assertThat(table.missCount()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void testLocalesOutsideTheTable() throws IOException {
+    try (var table =
+        DisplayNameTable.open(directory.resolve("names"), TARGETS, DISPLAYS, CAPACITY)) {
+      var german = LocaleRegistry.shared().resolve("de");
+
+      assertThat(table.indexOfTarget(german)).isEqualTo(-1);
+      assertThat(name(table, german, DISPLAYS.get(0), Field.LANGUAGE)).isEqualTo("German");
+      assertThat(name(table, TARGETS.get(1), german, Field.LANGUAGE)).isEqualTo("Englisch");
+    }
+  }
+
+  @Test
+  public void testConcurrentFills() throws IOException, InterruptedException, ExecutionException {
+    try (var table =
+            DisplayNameTable.open(directory.resolve("names"), TARGETS, DISPLAYS, CAPACITY);
+        var executor = Executors.newFixedThreadPool(4)) {
+      List<Callable<String>> tasks =
+          IntStream.range(0, 64)
+              .<Callable<String>>mapToObj(
+                  i ->
+                      () ->
+                          name(table, TARGETS.get(i % TARGETS.size()), DISPLAYS.get(1), Field.NAME))
+              .toList();
+
+      var futures = executor.invokeAll(tasks);
+      for (var i = 0; i < futures.size(); i++) {
+        var target = TARGETS.get(i % TARGETS.size());
+        assertThat(futures.get(i).get())
+            .isEqualTo(target.ulocale().getDisplayName(DISPLAYS.get(1).ulocale()));
+      }
+    }
+  }
+
+  @Test
+  public void testLookupsDoNotAllocate() throws IOException {
+    try (var table =
+        DisplayNameTable.open(directory.resolve("names"), TARGETS, DISPLAYS, CAPACITY)) {
+      var sb = new StringBuilder(256);
+      var fields = Field.values();
+      for (var i = 0; i < 10_000; i++) {
+        sb.setLength(0);
+        table.append(sb, i % TARGETS.size(), i % DISPLAYS.size(), fields[i % fields.length]);
+      }
+
+      var allocated =
+          Allocations.measure(
+              () -> {
+                for (var i = 0; i < 100_000; i++) {
+                  sb.setLength(0);
+                  table.append(
+                      sb, i % TARGETS.size(), i % DISPLAYS.size(), fields[i % fields.length]);
+                }
+              });
+
+      assertThat(allocated).isLessThan(4096);
+    }
+  }
+
+  private static String name(
+      DisplayNameTable table, CanonicalLocale target, CanonicalLocale display, Field field) {
+    return table.append(new StringBuilder(), target, display, field).toString();
+  }
+}
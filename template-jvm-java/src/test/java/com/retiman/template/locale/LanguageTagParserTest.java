@@ -0,0 +1,193 @@
+package com.retiman.template.locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.ibm.icu.util.ULocale;
+import com.retiman.template.testing.Allocations;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.IllformedLocaleException;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public final class LanguageTagParserTest {
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "",
+        "en",
+        "EN",
+        "abcd",
+        "abcdefgh",
+        "abcdefghi",
+        "zh-Han",
+        "zh-yue-HK",
+        "zh-abc-def-ghi-jkl",
+        "zh-Hans-CN",
+        "zh-hans-cn-wadegile",
+        "zh-Hans-CN-wadegile-t-en-u-latn-x-apex",
+        "EN-latn-us",
+        "fr-250",
+        "fr-25",
+        "en-1234",
+        "en-123a",
+        "de-DE-1901-1996",
+        "en-US-variant",
+        "en-US-thisvariantistoolong",
+        "en-US-abc",
+        "en-US-x-lvariant-1",
+        "en-US-x-lvariant-ab-cd",
+        "en-US-x-LVARIANT-ab",
+        "en-US-variant1-x-lvariant-abc",
+        "en-x-lvariant",
+        "en-x-a-lvariant-bb",
+        "en-US-x-lvariant-toolongvariant",
+        "x-lvariant-ab",
+        "x-abc",
+        "en-x",
+        "en-x-1",
+        "en-x-a-b-c",
+        "en-x-thisextensionistoolong",
+        "en-a",
+        "en-a-b",
+        "en-a-bb",
+        "en-a-bb-thisistoolong",
+        "en-u-ca-gregory-u-nu-latn",
+        "en-US-u-ca-x",
+        "en--US",
+        "en-US-",
+        "-en",
+        "123",
+        "en_US",
+        "en-ÜS",
+        "i-klingon",
+        "I-KLINGON",
+        "en-GB-oed",
+        "zh-min-nan",
+      })
+  public void testAgreesWithJdkAndIcu(String tag) {
+    var jdk = catchThrowable(() -> new Locale.Builder().setLanguageTag(tag).build());
+    var icu = catchThrowable(() -> new ULocale.Builder().setLanguageTag(tag).build());
+    var parsed = new ParsedLanguageTag();
+    var thrown = catchThrowable(() -> LanguageTagParser.parse(tag, parsed));
+
+    if (jdk instanceof IllformedLocaleException expected) {
+      assertThat(icu).isInstanceOf(com.ibm.icu.util.IllformedLocaleException.class);
+      assertThat(thrown)
+          .hasMessage(expected.getMessage())
+          .isInstanceOfSatisfying(
+              IllformedLocaleException.class,
+              e -> assertThat(e.getErrorIndex()).isEqualTo(expected.getErrorIndex()));
+      return;
+    }
+
+    assertThat(icu).isNull();
+    assertThat(thrown).isNull();
+
+    var locale = new Locale.Builder().setLanguageTag(tag).build();
+    if (parsed.extlangStart() == parsed.extlangEnd()) {
+      // The JDK promotes the first extlang to the language ("zh-yue" is "yue"), so only compare
+      // languages when there is none.
+      assertThat(parsed.appendLanguage(new StringBuilder()).toString())
+          .isEqualTo(locale.getLanguage());
+    }
+    assertThat(parsed.appendScript(new StringBuilder()).toString()).isEqualTo(locale.getScript());
+    assertThat(parsed.appendRegion(new StringBuilder()).toString()).isEqualTo(locale.getCountry());
+    assertThat(parsed.appendVariant(new StringBuilder(), '_').toString())
+        .isEqualTo(locale.getVariant().toLowerCase(Locale.US));
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "en",
+        "fr-FR",
+        "fr-250",
+        "zh-Hans-CN",
+        "ZH-HANS-CN-WADEGILE",
+        "zh-Hans-CN-wadegile-t-en-u-latn-x-apex",
+        "de-DE-1901-1996",
+        "en-US-x-lvariant-1",
+        "en-x-a-lvariant-bb",
+        "en-a-bb-x-lvariant",
+        "sr-Latn-RS-u-ca-gregory-nu-latn",
+        "i-klingon",
+      })
+  public void testCanonicalTagAgreesWithIcu(String tag) {
+    var parsed = LanguageTagParser.parse(tag, new ParsedLanguageTag());
+
+    assertThat(parsed.toString()).isEqualTo(ULocale.forLanguageTag(tag).toLanguageTag());
+  }
+
+  @Test
+  public void testSubtags() {
+    var tag = "zh-Hans-CN-wadegile-t-en-u-latn-x-apex";
+    var parsed = LanguageTagParser.parse(tag, new ParsedLanguageTag());
+
+    assertThat(tag.substring(parsed.languageStart(), parsed.languageEnd())).isEqualTo("zh");
+    assertThat(tag.substring(parsed.scriptStart(), parsed.scriptEnd())).isEqualTo("Hans");
+    assertThat(tag.substring(parsed.regionStart(), parsed.regionEnd())).isEqualTo("CN");
+    assertThat(tag.substring(parsed.variantsStart(), parsed.variantsEnd())).isEqualTo("wadegile");
+    assertThat(parsed.variantCount()).isEqualTo(1);
+    assertThat(parsed.extensionCount()).isEqualTo(2);
+    assertThat(tag.substring(parsed.extensionStart(0), parsed.extensionEnd(0))).isEqualTo("t-en");
+    assertThat(tag.substring(parsed.extensionStart(1), parsed.extensionEnd(1))).isEqualTo("u-latn");
+    assertThat(tag.substring(parsed.privateUseStart(), parsed.privateUseEnd())).isEqualTo("x-apex");
+  }
+
+  @Test
+  public void testShortVariantsAreConvertedFromExtensions() {
+    // See JdkLocaleTest#testInvalidShortVariantsAreConvertedToExtensions.
+    var parsed = LanguageTagParser.parse("en-US-x-lvariant-1", new ParsedLanguageTag());
+
+    assertThat(parsed.hasPrivateUse()).isFalse();
+    assertThat(parsed.appendVariant(new StringBuilder(), '_').toString()).isEqualTo("1");
+  }
+
+  @Test
+  public void testByteWindows() {
+    var bytes = "??zh-Hans-CN??".getBytes(StandardCharsets.US_ASCII);
+    var parsed = LanguageTagParser.parse(bytes, 2, 10, new ParsedLanguageTag());
+
+    assertThat(parsed.toString()).isEqualTo("zh-Hans-CN");
+
+    var buffer = ByteBuffer.wrap(bytes).position(2).limit(12);
+    LanguageTagParser.parse(buffer, parsed);
+
+    assertThat(parsed.toString()).isEqualTo("zh-Hans-CN");
+    assertThat(buffer.position()).isEqualTo(2);
+
+    var thrown = catchThrowable(() -> LanguageTagParser.parse(bytes, 0, 12, parsed));
+
+    assertThat(thrown).isExactlyInstanceOf(IllformedLocaleException.class);
+  }
+
+  @Test
+  public void testRepeatedParsesDoNotAllocate() {
+    var tags = new CharSequence[] {"en-US", "zh-Hans-CN-wadegile-t-en-u-latn-x-apex", "i-klingon"};
+    var bytes = "en-US-x-lvariant-1".getBytes(StandardCharsets.US_ASCII);
+    var parsed = new ParsedLanguageTag();
+    var languages = new int[1];
+    for (var i = 0; i < 100_000; i++) {
+      LanguageTagParser.parse(tags[i % tags.length], parsed);
+      LanguageTagParser.parse(bytes, 0, bytes.length, parsed);
+    }
+
+    var allocated =
+        Allocations.measure(
+            () -> {
+              for (var i = 0; i < 100_000; i++) {
+                languages[0] +=
+                    LanguageTagParser.parse(tags[i % tags.length], parsed).languageEnd();
+                languages[0] +=
+                    LanguageTagParser.parse(bytes, 0, bytes.length, parsed).languageEnd();
+              }
+            });
+
+    assertThat(languages[0]).isPositive();
+    assertThat(allocated).isLessThan(4096);
+  }
+}
@@ -0,0 +1,99 @@
+package com.retiman.template.locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.retiman.template.testing.Allocations;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public final class LocaleIdMapTest {
+  @Test
+  public void testOperations() {
+    var map = new LocaleIdMap<String>();
+    var en = LocaleIds.pack("en", "", "US");
+    var fr = LocaleIds.pack("fr", "", "FR");
+
+    assertThat(map.put(en, "Hello")).isNull();
+    assertThat(map.put(fr, "Bonjour")).isNull();
+    assertThat(map.put(en, "Howdy")).isEqualTo("Hello");
+    assertThat(map.get(en)).isEqualTo("Howdy");
+    assertThat(map.get(LocaleIds.pack("de", "", "DE"))).isNull();
+    assertThat(map.getOrDefault(0L, "Hi")).isEqualTo("Hi");
+    assertThat(map.size()).isEqualTo(2);
+
+    assertThat(map.remove(en)).isEqualTo("Howdy");
+    assertThat(map.containsKey(en)).isFalse();
+    assertThat(map.get(fr)).isEqualTo("Bonjour");
+    assertThat(map.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void testAgreesWithHashMap() {
+    var random = new Random(42);
+    var map = new LocaleIdMap<Long>();
+    var expected = new HashMap<Long, Long>();
+
+    // A small key space forces plenty of collisions, overwrites and removals.
+    for (var i = 0; i < 100_000; i++) {
+      var key = (long) random.nextInt(2048) << 40;
+      if (random.nextInt(3) == 0) {
+        assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+      } else {
+        assertThat(map.put(key, (long) i)).isEqualTo(expected.put(key, (long) i));
+      }
+    }
+
+    assertThat(map.size()).isEqualTo(expected.size());
+    expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+    map.forEach((key, value) -> assertThat(expected.get(key)).isEqualTo(value));
+  }
+
+  @Test
+  public void testFootprint() {
+    // A million distinct language and region pairs.
+    var count = 1_000_000;
+    var locales = new Locale[count];
+    var ids = new long[count];
+    for (var i = 0; i < count; i++) {
+      var language = letters(i / 26 / 26 / 26 % 26, i / 26 / 26 % 26, i / 26 % 26);
+      var region = letters(i % 26, i / 26 / 26 / 26 / 26 % 26);
+      locales[i] = Locale.of(language, region);
+      ids[i] = LocaleIds.pack(language, "", region);
+    }
+
+    var value = "value";
+    var hashMapBytes =
+        Allocations.measure(
+            () -> {
+              var hashMap = HashMap.<Locale, String>newHashMap(count);
+              for (var locale : locales) {
+                hashMap.put(locale, value);
+              }
+              assertThat(hashMap.size()).isEqualTo(count);
+            });
+    var idMapBytes =
+        Allocations.measure(
+            () -> {
+              var idMap = new LocaleIdMap<String>(count);
+              for (var id : ids) {
+                idMap.put(id, value);
+              }
+              assertThat(idMap.size()).isEqualTo(count);
+            });
+
+    // Neither figure includes the keys themselves; the Locale keys are a further (shared) object
+    // graph per entry, whereas the ids live inline in the table.
+    assertThat(idMapBytes).isLessThan(hashMapBytes);
+  }
+
+  private static String letters(int... letters) {
+    var sb = new StringBuilder();
+    for (var letter : letters) {
+      sb.append((char) ('a' + letter));
+    }
+
+    return sb.toString();
+  }
+}
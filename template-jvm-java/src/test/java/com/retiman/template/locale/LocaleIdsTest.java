@@ -0,0 +1,69 @@
+package com.retiman.template.locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public final class LocaleIdsTest {
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "und",
+        "en",
+        "afr",
+        "fr-FR",
+        "es-419",
+        "zh-Hans-CN",
+        "en-Hant",
+        "en-US-variant",
+        "en-US-x-lvariant-1",
+        "zh-Hans-CN-wadegile-t-en-u-latn-x-apex",
+        "abcd",
+        "abcdefgh-US",
+      })
+  public void testRoundTrip(String tag) {
+    var ids = new LocaleIds(new LocaleRegistry(LocaleRegistry.DEFAULT_MAXIMUM_SIZE));
+    var canonical = LocaleRegistry.shared().resolve(tag);
+    var id = ids.of(tag);
+
+    assertThat(ids.toLanguageTag(id)).isEqualTo(canonical.tag());
+    assertThat(ids.toLocale(id).locale()).isEqualTo(canonical.locale());
+  }
+
+  @Test
+  public void testEquivalentTagsHaveTheSameId() {
+    var ids = new LocaleIds(new LocaleRegistry(LocaleRegistry.DEFAULT_MAXIMUM_SIZE));
+
+    // See JdkLocaleTest and IcuLocaleTest for the normalizations applied here.
+    assertThat(ids.of("iw")).isEqualTo(ids.of("he"));
+    assertThat(ids.of("afr")).isEqualTo(ids.of("af"));
+    assertThat(ids.of("EN")).isEqualTo(ids.of("en"));
+    assertThat(ids.of("fr-fr")).isEqualTo(ids.of("fr-FR"));
+    assertThat(ids.of("fr-FR")).isNotEqualTo(ids.of("fr-CA"));
+    assertThat(ids.of("en-US")).isEqualTo(LocaleIds.pack("en", "", "US"));
+  }
+
+  @Test
+  public void testSuffixesShareTheSideTable() {
+    var ids = new LocaleIds(new LocaleRegistry(LocaleRegistry.DEFAULT_MAXIMUM_SIZE));
+
+    ids.of("en-US-x-lvariant-1");
+    ids.of("fr-FR-x-lvariant-1");
+    ids.of("en-US");
+
+    assertThat(ids.extraCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testUnpackableSubtags() {
+    assertThat(catchThrowable(() -> LocaleIds.pack("abcd", "", "")))
+        .isExactlyInstanceOf(IllegalArgumentException.class);
+    assertThat(catchThrowable(() -> LocaleIds.pack("zh", "Han", "")))
+        .isExactlyInstanceOf(IllegalArgumentException.class);
+    assertThat(catchThrowable(() -> LocaleIds.pack("fr", "", "25")))
+        .isExactlyInstanceOf(IllegalArgumentException.class);
+  }
+}
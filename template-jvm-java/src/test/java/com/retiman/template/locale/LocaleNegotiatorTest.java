@@ -0,0 +1,140 @@
+package com.retiman.template.locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+public final class LocaleNegotiatorTest {
+  private static final List<String> SUPPORTED =
+      List.of("en-US", "en-GB", "fr", "de", "es-419", "es-ES", "zh-Hans", "zh-Hant", "he", "ja");
+
+  @Test
+  public void testExactAndLikelyMatches() {
+    var negotiator = new LocaleNegotiator(SUPPORTED, "en-US");
+
+    assertThat(negotiator.negotiate("en-GB").tag()).isEqualTo("en-GB");
+    assertThat(negotiator.negotiate("en-gb").tag()).isEqualTo("en-GB");
+    assertThat(negotiator.negotiate("fr-CA").tag()).isEqualTo("fr");
+    assertThat(negotiator.negotiate("es-ES").tag()).isEqualTo("es-ES");
+    assertThat(negotiator.negotiate("es-MX").tag()).isEqualTo("es-419");
+  }
+
+  @Test
+  public void testScriptInference() {
+    var negotiator = new LocaleNegotiator(SUPPORTED, "en-US");
+
+    assertThat(negotiator.negotiate("zh-CN").tag()).isEqualTo("zh-Hans");
+    assertThat(negotiator.negotiate("zh").tag()).isEqualTo("zh-Hans");
+    assertThat(negotiator.negotiate("zh-TW").tag()).isEqualTo("zh-Hant");
+    assertThat(negotiator.negotiate("zh-HK").tag()).isEqualTo("zh-Hant");
+  }
+
+  @Test
+  public void testLegacyCodes() {
+    var negotiator = new LocaleNegotiator(SUPPORTED, "en-US");
+
+    // See JdkLocaleTest#testEquivalentLegacyCodes and IcuLocaleTest#testNonEquivalentLegacyCodes.
+    assertThat(negotiator.negotiate("iw").tag()).isEqualTo("he");
+    assertThat(negotiator.negotiate("iw-IL").tag()).isEqualTo("he");
+  }
+
+  @Test
+  public void testWeights() {
+    var negotiator = new LocaleNegotiator(SUPPORTED, "en-US");
+
+    assertThat(negotiator.negotiate("de;q=0.5, fr").tag()).isEqualTo("fr");
+    assertThat(negotiator.negotiate("ko, de;q=0.5, ja;q=0.8").tag()).isEqualTo("ja");
+    assertThat(negotiator.negotiate("fr;q=0, de").tag()).isEqualTo("de");
+    assertThat(negotiator.negotiate("ko, *;q=0.1").tag()).isEqualTo("en-US");
+  }
+
+  @Test
+  public void testFallsBackToTheDefault() {
+    var negotiator = new LocaleNegotiator(SUPPORTED, "en-US");
+
+    assertThat(negotiator.negotiate("ko-KR, th")).isSameAs(negotiator.defaultLocale());
+    assertThat(negotiator.negotiate("!!!, en_US")).isSameAs(negotiator.defaultLocale());
+    assertThat(negotiator.negotiate("")).isSameAs(negotiator.defaultLocale());
+    assertThat(negotiator.negotiate((String) null)).isSameAs(negotiator.defaultLocale());
+  }
+
+  @Test
+  public void testResultsAreInterned() {
+    var negotiator = new LocaleNegotiator(SUPPORTED, "en-US");
+
+    assertThat(negotiator.negotiate("fr-FR")).isSameAs(negotiator.negotiate("fr-CA, de"));
+    assertThat(negotiator.negotiate("fr-FR")).isSameAs(LocaleRegistry.shared().resolve("fr"));
+  }
+
+  @Test
+  public void testParseAcceptLanguage() {
+    assertThat(AcceptLanguage.parse("en-US,en;q=0.9")).containsExactly("en-US", "en");
+    assertThat(AcceptLanguage.parse(" fr ; q=0.5 , de , ja;q=0.8 "))
+        .containsExactly("de", "ja", "fr");
+    assertThat(AcceptLanguage.parse("fr;q=0, de;q=1.000, es;q=2, it;q=abc")).containsExactly("de");
+    assertThat(AcceptLanguage.parse(",,en,")).containsExactly("en");
+  }
+
+  @Test
+  public void testReplayCorpus() throws InterruptedException, ExecutionException {
+    var corpus = corpus();
+    var negotiator = new LocaleNegotiator(SUPPORTED, "en-US");
+    var expected = new ArrayList<CanonicalLocale>();
+    for (var header : corpus) {
+      expected.add(new LocaleNegotiator(SUPPORTED, "en-US").negotiate(header));
+    }
+
+    // Copy the headers so that each query has to hash a fresh string, as it would for a header
+    // read off the wire.
+    var queries = new ArrayList<String>();
+    for (var i = 0; i < 100; i++) {
+      for (var header : corpus) {
+        queries.add(new String(header.toCharArray()));
+      }
+    }
+
+    var threads = Runtime.getRuntime().availableProcessors();
+    var rounds = 200;
+    var tasks = new ArrayList<Callable<Void>>();
+    for (var t = 0; t < threads; t++) {
+      tasks.add(
+          () -> {
+            for (var round = 0; round < rounds; round++) {
+              for (var i = 0; i < queries.size(); i++) {
+                var actual = negotiator.negotiate(queries.get(i));
+                if (actual != expected.get(i % corpus.size())) {
+                  throw new AssertionError("Mismatch for " + queries.get(i));
+                }
+              }
+            }
+            return null;
+          });
+    }
+
+    try (var executor = Executors.newFixedThreadPool(threads)) {
+      for (var future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    }
+  }
+
+  private static List<String> corpus() {
+    try (InputStream in =
+        Objects.requireNonNull(
+            LocaleNegotiatorTest.class.getResourceAsStream("/accept-language.txt"))) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.retiman.template.locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ibm.icu.util.ULocale;
+import com.retiman.template.testing.Allocations;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+
+public final class LocaleRegistryTest {
+  @Test
+  public void testLegacyCodesAreInterned() {
+    var registry = new LocaleRegistry(LocaleRegistry.DEFAULT_MAXIMUM_SIZE);
+
+    // Unlike ULocale (see IcuLocaleTest#testNonEquivalentLegacyCodes), the registry folds "iw" into
+    // "he", and hands back the very same instance.
+    assertThat(registry.resolve("iw")).isSameAs(registry.resolve("he"));
+    assertThat(registry.resolve("iw").tag()).isEqualTo("he");
+
+    // Unlike Locale (see JdkLocaleTest#testLanguageCodes), "afr" is folded into "af".
+    assertThat(registry.resolve("afr")).isSameAs(registry.resolve("af"));
+    assertThat(registry.resolve("EN")).isSameAs(registry.resolve("en"));
+    assertThat(registry.resolve("fr-fr")).isSameAs(registry.resolve("fr-FR"));
+  }
+
+  @Test
+  public void testLocaleAndULocaleAreEquivalent() {
+    var registry = new LocaleRegistry(LocaleRegistry.DEFAULT_MAXIMUM_SIZE);
+    var tag = "zh-Hans-CN-wadegile-t-en-u-latn-x-apex";
+
+    // This is the conversion IcuLocaleTest#testStringRepresentations has to do by hand.
+    var resolved = registry.resolve(tag);
+    assertThat(resolved.locale()).isEqualTo(Locale.forLanguageTag(tag));
+    assertThat(resolved.ulocale()).isEqualTo(ULocale.forLanguageTag(tag));
+
+    assertThat(registry.resolve(Locale.forLanguageTag(tag))).isSameAs(resolved);
+    assertThat(registry.resolve(ULocale.forLanguageTag(tag))).isSameAs(resolved);
+  }
+
+  @Test
+  public void testHitAndMissCounts() {
+    var registry = new LocaleRegistry(LocaleRegistry.DEFAULT_MAXIMUM_SIZE);
+
+    registry.resolve("en-US");
+    registry.resolve("en-US");
+    registry.resolve("en-US");
+
+    assertThat(registry.missCount()).isEqualTo(1);
+    assertThat(registry.hitCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testSizeIsBounded() {
+    var registry = new LocaleRegistry(8);
+
+    for (var i = 100; i < 200; i++) {
+      var tag = "en-x-n" + i;
+      assertThat(registry.resolve(tag).tag()).isEqualTo(tag);
+    }
+
+    assertThat(registry.size()).isLessThanOrEqualTo(8);
+  }
+
+  @Test
+  public void testRepeatedLookupsDoNotAllocate() {
+    var registry = new LocaleRegistry(LocaleRegistry.DEFAULT_MAXIMUM_SIZE);
+    var tags = new String[] {"en-US", "iw", "afr", "zh-Hans-CN", "fr-250"};
+    for (var tag : tags) {
+      registry.resolve(tag);
+    }
+
+    var allocated =
+        Allocations.measure(
+            () -> {
+              for (var i = 0; i < 100_000; i++) {
+                registry.resolve(tags[i % tags.length]);
+              }
+            });
+
+    // Allow for a little noise from the measurement itself; 100k lookups that allocated anything
+    // at all would be well past this.
+    assertThat(allocated).isLessThan(4096);
+  }
+}
@@ -0,0 +1,93 @@
+package com.retiman.template.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public final class EventQueueTest {
+  @Test
+  public void testDropNewest() {
+    var queue = new EventQueue(4, OverflowPolicy.DROP_NEWEST);
+    for (var i = 0; i < 10; i++) {
+      offer(queue, "event " + i);
+    }
+
+    assertThat(queue.droppedCount()).isEqualTo(6);
+    assertThat(drain(queue)).containsExactly("event 0", "event 1", "event 2", "event 3");
+  }
+
+  @Test
+  public void testDropOldest() {
+    var queue = new EventQueue(4, OverflowPolicy.DROP_OLDEST);
+    for (var i = 0; i < 10; i++) {
+      offer(queue, "event " + i);
+    }
+
+    assertThat(queue.droppedCount()).isEqualTo(6);
+    assertThat(drain(queue)).containsExactly("event 6", "event 7", "event 8", "event 9");
+  }
+
+  @Test
+  public void testBlock() throws InterruptedException {
+    var queue = new EventQueue(2, OverflowPolicy.BLOCK);
+    offer(queue, "event 0");
+    offer(queue, "event 1");
+
+    var producer = Thread.ofPlatform().start(() -> offer(queue, "event 2"));
+    producer.join(100);
+    assertThat(producer.isAlive()).isTrue();
+    assertThat(queue.depth()).isEqualTo(2);
+
+    // Taking one event makes room for the blocked one, and nothing is dropped.
+    var events = new ArrayList<String>();
+    var sequence = queue.take();
+    events.add(text(queue.get(sequence)));
+    queue.release(sequence);
+    producer.join();
+    events.addAll(drain(queue));
+    assertThat(events).containsExactly("event 0", "event 1", "event 2");
+    assertThat(queue.droppedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testCloseReleasesBlockedProducers() throws InterruptedException {
+    var queue = new EventQueue(2, OverflowPolicy.BLOCK);
+    offer(queue, "event 0");
+    offer(queue, "event 1");
+    var producer = Thread.ofPlatform().start(() -> offer(queue, "event 2"));
+
+    queue.close();
+    producer.join();
+    assertThat(queue.droppedCount()).isEqualTo(1);
+    assertThat(drain(queue)).containsExactly("event 0", "event 1");
+  }
+
+  private static void offer(EventQueue queue, String message) {
+    var sequence = queue.claim();
+    if (sequence >= 0) {
+      var slot = queue.get(sequence);
+      slot.line.setLength(0);
+      slot.line.append(message);
+      slot.encode(0, 1024);
+      queue.publish(sequence);
+    }
+  }
+
+  private static List<String> drain(EventQueue queue) {
+    var events = new ArrayList<String>();
+    for (var sequence = queue.take(); sequence >= 0; sequence = queue.take()) {
+      events.add(text(queue.get(sequence)));
+      queue.release(sequence);
+    }
+    return events;
+  }
+
+  // The slot's line, without the timestamp in front, or the newline behind.
+  private static String text(LogSlot slot) {
+    var line = new String(slot.bytes, 0, slot.length - 1, StandardCharsets.UTF_8);
+    return line.substring("1970-01-01T00:00:00Z".length());
+  }
+}
@@ -0,0 +1,52 @@
+package com.retiman.template.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.helpers.MessageFormatter;
+
+public final class MessagesTest {
+  @Test
+  public void testFormat() {
+    assertThat(format("no arguments", (Object[]) null)).isEqualTo("no arguments");
+    assertThat(format("{} + {} = {}", 1, 2L, 3.0)).isEqualTo("1 + 2 = 3.0");
+    assertThat(format("too few {} {}", "a")).isEqualTo("too few a {}");
+    assertThat(format("too many {}", "a", "b")).isEqualTo("too many a");
+    assertThat(format("null {}", (Object) null)).isEqualTo("null null");
+    assertThat(format("arrays {} {}", new int[] {1, 2}, new Object[] {"a", new long[] {3}}))
+        .isEqualTo("arrays [1, 2] [a, [3]]");
+  }
+
+  @Test
+  public void testEscapes() {
+    assertThat(format("escaped \\{} {}", "a")).isEqualTo("escaped {} a");
+    assertThat(format("not escaped \\\\{}", "a")).isEqualTo("not escaped \\a");
+  }
+
+  @Test
+  public void testFailingToString() {
+    var bad =
+        new Object() {
+          @Override
+          public String toString() {
+            throw new IllegalStateException();
+          }
+        };
+    assertThat(format("bad {}", bad)).isEqualTo("bad [FAILED toString()]");
+  }
+
+  @Test
+  public void testMatchesSlf4j() {
+    String[] patterns = {"{}", "a{}b{}c", "\\{}{}", "\\\\{}{}", "{}{}{}", "{ }", "{", "}{"};
+    Object[] args = {"x", 42, null};
+    for (var pattern : patterns) {
+      assertThat(format(pattern, args))
+          .as(pattern)
+          .isEqualTo(MessageFormatter.arrayFormat(pattern, args).getMessage());
+    }
+  }
+
+  private static String format(String pattern, Object... args) {
+    return Messages.format(new StringBuilder(), pattern, args).toString();
+  }
+}
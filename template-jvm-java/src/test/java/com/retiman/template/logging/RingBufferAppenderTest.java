@@ -0,0 +1,154 @@
+package com.retiman.template.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import com.retiman.template.testing.Allocations;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class RingBufferAppenderTest {
+  @TempDir private Path temp;
+
+  @Test
+  public void testWritesEvents() throws Exception {
+    var file = temp.resolve("app.log");
+    var context = new LoggerContext();
+    var appender = appender(context, file, OverflowPolicy.BLOCK);
+    appender.start();
+    var logger = context.getLogger("test");
+    logger.addAppender(appender);
+
+    var thread = Thread.currentThread().getName();
+    logger.info("Hello {}", "World");
+    logger.debug("Not written");
+    logger.warn("Failed", new IllegalStateException("boom"));
+    logger.error("Unicode {} 😀", "日本語");
+    appender.stop();
+
+    var lines = Files.readAllLines(file);
+    assertThat(lines.get(0))
+        .matches("\\d{4}-\\d\\d-\\d\\dT\\S+Z INFO \\[" + thread + "\\] test - Hello World");
+    assertThat(lines.get(1)).endsWith(" WARN [" + thread + "] test - Failed");
+    assertThat(lines.get(2)).isEqualTo("java.lang.IllegalStateException: boom");
+    assertThat(lines.getLast()).endsWith(" ERROR [" + thread + "] test - Unicode 日本語 😀");
+    assertThat(appender.writtenCount()).isEqualTo(3);
+    assertThat(appender.droppedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testManyThreads() throws Exception {
+    var file = temp.resolve("app.log");
+    var context = new LoggerContext();
+    var appender = appender(context, file, OverflowPolicy.BLOCK);
+    appender.setCapacity(64);
+    appender.start();
+    var logger = context.getLogger("test");
+    logger.addAppender(appender);
+
+    var threads = new ArrayList<Thread>();
+    for (var t = 0; t < 4; t++) {
+      threads.add(
+          Thread.ofPlatform()
+              .start(
+                  () -> {
+                    for (var i = 0; i < 10_000; i++) {
+                      logger.info("Event {}", i);
+                    }
+                  }));
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+    appender.stop();
+
+    // Blocking loses nothing, even through a queue much smaller than the burst.
+    try (var lines = Files.lines(file)) {
+      assertThat(lines.count()).isEqualTo(40_000);
+    }
+    assertThat(appender.writtenCount()).isEqualTo(40_000);
+    assertThat(appender.droppedCount()).isEqualTo(0);
+    assertThat(appender.queueDepth()).isEqualTo(0);
+  }
+
+  @Test
+  public void testTruncatesLongEvents() throws Exception {
+    var file = temp.resolve("app.log");
+    var context = new LoggerContext();
+    var appender = appender(context, file, OverflowPolicy.BLOCK);
+    appender.setMaximumEventSize(128);
+    appender.start();
+    var logger = context.getLogger("test");
+    logger.addAppender(appender);
+
+    logger.info("x".repeat(1000));
+    logger.info("short");
+    appender.stop();
+
+    var lines = Files.readAllLines(file);
+    assertThat(lines).hasSize(2);
+    assertThat(lines.get(0).length()).isLessThan(128);
+    assertThat(lines.get(1)).endsWith("short");
+  }
+
+  @Test
+  public void testConfiguration() {
+    var appender = new RingBufferAppender();
+    assertThat(catchThrowable(() -> appender.setCapacity(1000)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("power of two");
+    assertThat(catchThrowable(() -> appender.setMaximumEventSize(10)))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    // Without a file, the appender reports an error and does not start.
+    appender.setContext(new LoggerContext());
+    appender.start();
+    assertThat(appender.isStarted()).isFalse();
+    assertThat(appender.queueDepth()).isEqualTo(0);
+  }
+
+  @Test
+  public void testAllocation() throws Exception {
+    var file = temp.resolve("app.log");
+    var context = new LoggerContext();
+    var appender = appender(context, file, OverflowPolicy.DROP_NEWEST);
+    appender.start();
+    var logger = context.getLogger("test");
+    logger.addAppender(appender);
+    logger.setAdditive(false);
+
+    Object user = "alice";
+    Object count = 42;
+    var calls = 500_000;
+    var allocated = 0L;
+    for (var run = 0; run < 2; run++) {
+      allocated =
+          Allocations.measure(
+              () -> {
+                for (var i = 0; i < calls; i++) {
+                  logger.info("User {} has {} items", user, count);
+                }
+              });
+    }
+    appender.stop();
+
+    // Logback's own LoggingEvent is most of what is left.
+    assertThat(allocated / calls).isLessThan(256);
+  }
+
+  private static RingBufferAppender appender(
+      LoggerContext context, Path file, OverflowPolicy policy) {
+    var appender = new RingBufferAppender();
+    appender.setContext(context);
+    appender.setName("test");
+    appender.setFile(file.toString());
+    appender.setOverflowPolicy(policy);
+    context.getLogger("test").setLevel(Level.INFO);
+    return appender;
+  }
+}
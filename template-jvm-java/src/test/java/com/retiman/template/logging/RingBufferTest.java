@@ -0,0 +1,103 @@
+package com.retiman.template.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public final class RingBufferTest {
+  @Test
+  public void testFullAndEmpty() {
+    var ring = new RingBuffer<>(4, AtomicLong::new);
+    assertThat(ring.tryTake()).isEqualTo(-1);
+
+    for (var i = 0; i < 4; i++) {
+      var sequence = ring.tryClaim();
+      ring.get(sequence).set(i);
+      ring.publish(sequence);
+    }
+    assertThat(ring.size()).isEqualTo(4);
+    assertThat(ring.tryClaim()).isEqualTo(-1);
+
+    // Slots come back in order, and are the same objects the next time around.
+    var first = ring.tryTake();
+    var slot = ring.get(first);
+    assertThat(slot.get()).isEqualTo(0);
+    ring.release(first);
+    var again = ring.tryClaim();
+    assertThat(ring.get(again)).isSameAs(slot);
+    assertThat(catchThrowable(() -> new RingBuffer<>(6, AtomicLong::new)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("power of two");
+    assertThat(catchThrowable(() -> new RingBuffer<>(1, AtomicLong::new)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testClaimedButUnpublished() {
+    var ring = new RingBuffer<>(4, AtomicLong::new);
+    var a = ring.tryClaim();
+    var b = ring.tryClaim();
+    ring.publish(b);
+
+    // The consumer waits for slots in order, so b is not visible until a is published.
+    assertThat(ring.tryTake()).isEqualTo(-1);
+    ring.publish(a);
+    assertThat(ring.tryTake()).isEqualTo(a);
+    assertThat(ring.tryTake()).isEqualTo(b);
+  }
+
+  @Test
+  public void testManyProducers() throws InterruptedException {
+    var producers = 4;
+    var perProducer = 200_000;
+    var ring = new RingBuffer<>(1024, AtomicLong::new);
+    var start = new CountDownLatch(1);
+    var threads = new ArrayList<Thread>();
+    for (var p = 0; p < producers; p++) {
+      var producer = p;
+      threads.add(
+          Thread.ofPlatform()
+              .start(
+                  () -> {
+                    try {
+                      start.await();
+                    } catch (InterruptedException e) {
+                      throw new IllegalStateException(e);
+                    }
+                    for (var i = 0; i < perProducer; i++) {
+                      long sequence;
+                      while ((sequence = ring.tryClaim()) < 0) {
+                        Thread.onSpinWait();
+                      }
+                      ring.get(sequence).set((long) producer << 32 | i);
+                      ring.publish(sequence);
+                    }
+                  }));
+    }
+
+    // Each producer's values arrive in the order it published them, and none are lost.
+    var next = new int[producers];
+    start.countDown();
+    for (var received = 0; received < producers * perProducer; ) {
+      var sequence = ring.tryTake();
+      if (sequence < 0) {
+        Thread.onSpinWait();
+        continue;
+      }
+      var value = ring.get(sequence).get();
+      ring.release(sequence);
+      var producer = (int) (value >>> 32);
+      assertThat((int) value).isEqualTo(next[producer]++);
+      received++;
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+    assertThat(next).containsOnly(perProducer);
+    assertThat(ring.size()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,161 @@
+package com.retiman.template.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.retiman.template.http.HttpClientPool;
+import com.retiman.template.http.HttpProfile;
+import com.retiman.template.http.testing.LocalHttpServer;
+import com.retiman.template.locale.LocaleRegistry;
+import com.retiman.template.time.DateTimeFormatterCache;
+import com.retiman.template.time.ZoneTransitionTable;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class JfrEventsTest {
+  private static final List<String> EVENTS =
+      List.of(
+          "com.retiman.template.LocaleResolution",
+          "com.retiman.template.FormatterCacheMiss",
+          "com.retiman.template.ZoneConversion",
+          "com.retiman.template.HttpExchange");
+
+  // A year past the table's window, so that conversions fall back to the zone's rules.
+  private static final long YEAR_2200 = 7_258_118_400_000L;
+
+  @TempDir private Path temp;
+
+  @Test
+  public void testEvents() throws Exception {
+    var file = temp.resolve("events.jfr");
+    try (var recording = recording();
+        var server = LocalHttpServer.start("ok".getBytes(StandardCharsets.UTF_8), Duration.ZERO);
+        var pool = new HttpClientPool()) {
+      recording.start();
+      new LocaleRegistry(16).resolve("iw-IL");
+      new DateTimeFormatterCache(16).formatter("yyyy-MM-dd", Locale.ROOT);
+      var table = new ZoneTransitionTable(ZoneId.of("America/New_York"));
+      table.offsetSeconds(YEAR_2200);
+      table.toPackedDates(new long[] {0, 1}, new int[2]);
+      var request = HttpRequest.newBuilder(server.uri("/")).build();
+      pool.sendAndWait(HttpProfile.of("jfr"), request, HttpResponse.BodyHandlers.discarding());
+      recording.stop();
+      recording.dump(file);
+    }
+
+    var events =
+        RecordingFile.readAllEvents(file).stream()
+            .collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+    assertThat(events).containsKeys(EVENTS.toArray(String[]::new));
+
+    var resolution = events.get("com.retiman.template.LocaleResolution").getFirst();
+    assertThat(resolution.getString("tag")).isEqualTo("iw-IL");
+    assertThat(resolution.getString("canonicalTag")).isEqualTo("he-IL");
+    assertThat(resolution.getBoolean("cached")).isTrue();
+
+    var miss = events.get("com.retiman.template.FormatterCacheMiss").getFirst();
+    assertThat(miss.getString("pattern")).isEqualTo("yyyy-MM-dd");
+
+    var conversions = events.get("com.retiman.template.ZoneConversion");
+    assertThat(conversions)
+        .extracting(e -> e.getBoolean("fallback"), e -> e.getInt("count"))
+        .containsExactlyInAnyOrder(tuple(true, 1), tuple(false, 2));
+
+    var exchange = events.get("com.retiman.template.HttpExchange").getFirst();
+    assertThat(exchange.getString("profile")).isEqualTo("jfr");
+    assertThat(exchange.getString("method")).isEqualTo("GET");
+    assertThat(exchange.getInt("status")).isEqualTo(200);
+  }
+
+  @Test
+  public void testOverhead() {
+    // Runs without a recording go both before and after those with one, so that the code warming up
+    // as the test goes does not count against the recording.
+    var misses = new Misses();
+    var before = misses.fastest();
+    long[] enabled;
+    try (var recording = recording()) {
+      // In memory, so that the test measures recording events rather than the disk.
+      recording.setToDisk(false);
+      recording.start();
+      enabled = misses.fastest();
+    }
+    var after = misses.fastest();
+    var disabled = new long[before.length];
+    Arrays.setAll(disabled, i -> Math.min(before[i], after[i]));
+
+    for (var i = 0; i < Misses.NAMES.length; i++) {
+      var overhead = (double) (enabled[i] - disabled[i]) / Misses.OPERATIONS;
+      // The budget for recording an event is 2us, which is an order of magnitude more than an event
+      // takes once the code has warmed up again, but less than a fresh locale resolution.
+      assertThat(overhead).as(Misses.NAMES[i]).isLessThan(2000);
+    }
+  }
+
+  private static Recording recording() {
+    var recording = new Recording();
+    for (var event : EVENTS) {
+      recording.enable(event).withThreshold(Duration.ZERO).withoutStackTrace();
+    }
+    return recording;
+  }
+
+  // Operations that record an event every time: the cache holds one formatter, so that two patterns
+  // in turn evict each other, and the instants are past the table's window.  Locale resolutions are
+  // left out, since the time
+  // ICU takes for them varies by more than an event costs.
+  private static final class Misses {
+    static final String[] NAMES = {"Formatter cache miss", "Zone conversion"};
+    static final int OPERATIONS = 20_000;
+    static final int WARMUPS = 10;
+    static final int RUNS = 10;
+
+    private final DateTimeFormatterCache formatters = new DateTimeFormatterCache(1);
+    private final ZoneTransitionTable table = new ZoneTransitionTable(ZoneId.of("Europe/Paris"));
+    private final String[] patterns = {"HH:mm", "dd MMM yyyy"};
+
+    // The fastest of a few runs of each, after a few to warm up, since the machine is only ever
+    // slower than the code.  Starting or stopping a recording deoptimizes the code that records
+    // events, so each call warms up again.
+    long[] fastest() {
+      var fastest = new long[NAMES.length];
+      for (var kind = 0; kind < NAMES.length; kind++) {
+        for (var run = 0; run < WARMUPS; run++) {
+          time(kind);
+        }
+        fastest[kind] = Long.MAX_VALUE;
+        for (var run = 0; run < RUNS; run++) {
+          fastest[kind] = Math.min(fastest[kind], time(kind));
+        }
+      }
+      return fastest;
+    }
+
+    private long time(int kind) {
+      var start = System.nanoTime();
+      var sink = 0L;
+      for (var i = 0; i < OPERATIONS; i++) {
+        sink +=
+            switch (kind) {
+              case 0 -> formatters.formatter(patterns[i & 1], Locale.ROOT).hashCode();
+              default -> table.offsetSeconds(YEAR_2200 + i);
+            };
+      }
+      var elapsed = System.nanoTime() - start;
+      assertThat(sink).isNotZero();
+      return elapsed;
+    }
+  }
+}
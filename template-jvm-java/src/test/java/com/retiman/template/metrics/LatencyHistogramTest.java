@@ -0,0 +1,98 @@
+package com.retiman.template.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public final class LatencyHistogramTest {
+  @Test
+  public void testBuckets() {
+    var values = new Random(42).longs(1_000_000, 0, Long.MAX_VALUE).toArray();
+    for (var i = 0; i < values.length; i++) {
+      var value = values[i] >>> (i % 63);
+      var bucket = LatencyHistogram.bucket(value);
+
+      assertThat(LatencyHistogram.upperBound(bucket)).isGreaterThanOrEqualTo(value);
+      assertThat(LatencyHistogram.upperBound(bucket) - value).isLessThanOrEqualTo(value / 32);
+      if (bucket > 0) {
+        assertThat(LatencyHistogram.upperBound(bucket - 1)).isLessThan(value);
+      }
+    }
+
+    assertThat(LatencyHistogram.upperBound(LatencyHistogram.bucket(Long.MAX_VALUE)))
+        .isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testPercentiles() {
+    var random = new Random(43);
+    var histogram = new LatencyHistogram();
+    var values = new long[100_000];
+    for (var i = 0; i < values.length; i++) {
+      // Roughly log-normal, like real latencies.
+      values[i] = (long) Math.exp(13 + random.nextGaussian());
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+
+    for (var percentile : new double[] {1, 50, 90, 99, 99.9, 100}) {
+      var index = (int) Math.ceil(percentile / 100 * values.length) - 1;
+      var expected = values[index];
+
+      assertThat(histogram.percentile(percentile))
+          .as("p%s", percentile)
+          .isBetween(expected, expected + expected / 32);
+    }
+
+    assertThat(histogram.count()).isEqualTo(values.length);
+    assertThat(histogram.max()).isEqualTo(values[values.length - 1]);
+    assertThat(histogram.mean())
+        .isCloseTo(Arrays.stream(values).average().orElseThrow(), offset(1e-6));
+  }
+
+  @Test
+  public void testEmptyAndReset() {
+    var histogram = new LatencyHistogram();
+
+    assertThat(histogram.percentile(99)).isZero();
+
+    histogram.record(-5);
+    histogram.record(1_000);
+    histogram.reset();
+
+    assertThat(histogram.count()).isZero();
+    assertThat(histogram.max()).isZero();
+    assertThat(histogram.percentile(50)).isZero();
+  }
+
+  @Test
+  public void testConcurrentRecording() throws InterruptedException, ExecutionException {
+    var histogram = new LatencyHistogram();
+    try (var executor = Executors.newFixedThreadPool(4)) {
+      var tasks =
+          IntStream.range(0, 8)
+              .<Callable<Void>>mapToObj(
+                  t ->
+                      () -> {
+                        for (var i = 0; i < 100_000; i++) {
+                          histogram.record(i);
+                        }
+                        return null;
+                      })
+              .toList();
+      for (var future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    }
+
+    assertThat(histogram.count()).isEqualTo(800_000);
+    assertThat(histogram.max()).isEqualTo(99_999);
+  }
+}
@@ -0,0 +1,99 @@
+package com.retiman.template.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.retiman.template.testing.Allocations;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+public final class MetricsRegistryTest {
+  @Test
+  public void testRender() {
+    var registry = new MetricsRegistry();
+    registry.counter("b_total").add(3);
+    registry.counter("a_total").increment();
+    var histogram = registry.histogram("c_seconds");
+    histogram.record(1_000_000);
+    histogram.record(3_000_000);
+
+    // The same name gets the same metric.
+    assertThat(registry.counter("a_total")).isSameAs(registry.counter("a_total"));
+    assertThat(registry.render())
+        .startsWith("a_total 1\nb_total 3\n")
+        // Percentiles are the upper bounds of their buckets, which are about 3% wide.
+        .contains("c_seconds{quantile=\"0.5\"} 0.001016\n")
+        .contains("c_seconds{quantile=\"0.999\"} 0.003000\n")
+        .contains("c_seconds_sum 0.004000\n")
+        .endsWith("c_seconds_count 2\n");
+    assertThat(registry.summary())
+        .startsWith("a_total=1, b_total=3, c_seconds={count=2 mean=2.000ms");
+  }
+
+  @Test
+  public void testNames() {
+    var registry = new MetricsRegistry();
+    registry.counter("requests_total");
+
+    assertThat(catchThrowable(() -> registry.histogram("requests_total")))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("already a counter");
+    assertThat(catchThrowable(() -> registry.counter("requests-total")))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Invalid metric name");
+    assertThat(registry.summary()).isEmpty();
+  }
+
+  @Test
+  public void testReporter() {
+    var registry = new MetricsRegistry();
+    registry.counter("events_total").add(42);
+    var logger = (Logger) LoggerFactory.getLogger("com.retiman.template.metrics");
+    var appender = new ListAppender<ILoggingEvent>();
+    appender.start();
+    logger.addAppender(appender);
+    try {
+      // Closing reports once more, whatever the interval.
+      MetricsReporter.start(registry, Duration.ofHours(1)).close();
+    } finally {
+      logger.detachAppender(appender);
+    }
+
+    assertThat(appender.list)
+        .singleElement()
+        .satisfies(e -> assertThat(e.getFormattedMessage()).isEqualTo("Metrics: events_total=42"));
+    assertThat(catchThrowable(() -> MetricsReporter.start(registry, Duration.ZERO)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testOverhead() {
+    var registry = new MetricsRegistry();
+    var counter = registry.counter("operations_total");
+    var histogram = registry.histogram("operation_seconds");
+    var count = 10_000_000;
+    // The fastest of a few runs, since the machine is only ever slower than the code.
+    var nanos = Long.MAX_VALUE;
+    var allocated = 0L;
+    for (var run = 0; run < 3; run++) {
+      var start = System.nanoTime();
+      allocated =
+          Allocations.measure(
+              () -> {
+                for (var i = 0; i < count; i++) {
+                  counter.increment();
+                  histogram.record(i & 0xfffff);
+                }
+              });
+      nanos = Math.min(nanos, System.nanoTime() - start);
+    }
+
+    // The budget for instrumenting an operation is 100ns, and no allocation.
+    assertThat(nanos / count).isLessThan(100);
+    assertThat(allocated / count).isEqualTo(0);
+  }
+}
@@ -0,0 +1,192 @@
+package com.retiman.template.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.retiman.template.server.testing.LoadGenerator;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+public final class HttpServiceTest {
+  private static final Map<String, Handler> ROUTES =
+      Map.of(
+          "/",
+          request -> Response.text("Hello World!"),
+          "/locale",
+          request -> Response.text(request.locale().tag()),
+          "/fail",
+          request -> {
+            throw new IOException("Failed on purpose");
+          });
+
+  @Test
+  public void testPipeline() throws Exception {
+    try (var service = HttpService.start(ServiceConfig.loopback(), ROUTES);
+        var client = HttpClient.newHttpClient()) {
+      var request =
+          HttpRequest.newBuilder(service.uri("/locale"))
+              .header("Accept-Language", "fr-CH, de;q=0.5")
+              .build();
+      var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+      assertThat(response.statusCode()).isEqualTo(200);
+      assertThat(response.body()).isEqualTo("fr-FR");
+      assertThat(response.headers().firstValue("Content-Language")).hasValue("fr-FR");
+      assertThat(response.headers().firstValue("Vary")).hasValue("Accept-Language");
+
+      var fallback = HttpRequest.newBuilder(service.uri("/locale")).build();
+      assertThat(client.send(fallback, HttpResponse.BodyHandlers.ofString()).body())
+          .isEqualTo("en-US");
+    }
+  }
+
+  @Test
+  public void testErrors() throws Exception {
+    try (var service = HttpService.start(ServiceConfig.loopback(), ROUTES);
+        var client = HttpClient.newHttpClient()) {
+      var missing = HttpRequest.newBuilder(service.uri("/missing")).build();
+      var post =
+          HttpRequest.newBuilder(service.uri("/"))
+              .POST(HttpRequest.BodyPublishers.ofString("body"))
+              .build();
+      var fail = HttpRequest.newBuilder(service.uri("/fail")).build();
+
+      assertThat(client.send(missing, HttpResponse.BodyHandlers.discarding()).statusCode())
+          .isEqualTo(404);
+      var response = client.send(post, HttpResponse.BodyHandlers.discarding());
+      assertThat(response.statusCode()).isEqualTo(405);
+      assertThat(response.headers().firstValue("Allow")).hasValue("GET, HEAD");
+      assertThat(client.send(fail, HttpResponse.BodyHandlers.discarding()).statusCode())
+          .isEqualTo(500);
+      awaitRequests(service, 3);
+      assertThat(service.metrics().responseCount(4)).isEqualTo(2);
+      assertThat(service.metrics().responseCount(5)).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void testHead() throws Exception {
+    try (var service = HttpService.start(ServiceConfig.loopback(), ROUTES);
+        var client = HttpClient.newHttpClient()) {
+      var request = HttpRequest.newBuilder(service.uri("/")).HEAD().build();
+      var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+      assertThat(response.statusCode()).isEqualTo(200);
+      assertThat(response.body()).isEmpty();
+      assertThat(response.headers().firstValue("Content-Length")).hasValue("12");
+    }
+  }
+
+  @Test
+  public void testMetrics() throws Exception {
+    try (var service = HttpService.start(ServiceConfig.loopback(), ROUTES);
+        var client = HttpClient.newHttpClient()) {
+      for (var i = 0; i < 10; i++) {
+        var request = HttpRequest.newBuilder(service.uri("/")).build();
+        client.send(request, HttpResponse.BodyHandlers.discarding());
+      }
+      awaitRequests(service, 10);
+      var request = HttpRequest.newBuilder(service.uri("/metrics")).build();
+      var body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+
+      // The request for the metrics is in flight while they are rendered.
+      assertThat(body)
+          .contains("http_requests_total 10\n")
+          .contains("http_responses_total{class=\"2xx\"} 10\n")
+          .contains("http_requests_in_flight 1\n")
+          .contains("http_request_duration_seconds{quantile=\"0.99\"} ");
+      awaitRequests(service, 11);
+    }
+  }
+
+  @Test
+  public void testRefusesRequestsOverTheLimit() throws Exception {
+    var entered = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    Handler blocking =
+        request -> {
+          entered.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return Response.text("done");
+        };
+
+    try (var service =
+            HttpService.start(ServiceConfig.loopback().withMaxInFlight(1), Map.of("/", blocking));
+        var client = HttpClient.newHttpClient()) {
+      var request = HttpRequest.newBuilder(service.uri("/")).build();
+      var first = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+      entered.await();
+
+      var second = client.send(request, HttpResponse.BodyHandlers.discarding());
+      release.countDown();
+
+      assertThat(second.statusCode()).isEqualTo(503);
+      assertThat(first.get().statusCode()).isEqualTo(200);
+      assertThat(service.metrics().rejectedCount()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void testDrainsOnClose() throws Exception {
+    var entered = new CountDownLatch(1);
+    Handler slow =
+        request -> {
+          entered.countDown();
+          try {
+            Thread.sleep(200);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return Response.text("done");
+        };
+
+    try (var client = HttpClient.newHttpClient()) {
+      var service =
+          HttpService.start(
+              ServiceConfig.loopback().withDrainTimeout(Duration.ofSeconds(5)), Map.of("/", slow));
+      var request = HttpRequest.newBuilder(service.uri("/")).build();
+      var inFlight = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+      entered.await();
+
+      service.close();
+      assertThat(inFlight.get().body()).isEqualTo("done");
+
+      var closed =
+          catchThrowable(() -> client.send(request, HttpResponse.BodyHandlers.discarding()));
+      assertThat(closed).isInstanceOf(IOException.class);
+    }
+  }
+
+  @Test
+  public void testLoad() throws Exception {
+    // A baseline for one box: the load generator shares the machine with the service.
+    try (var service = HttpService.start(ServiceConfig.loopback(), ROUTES)) {
+      var uri = service.uri("/");
+      LoadGenerator.run(uri, "de-AT", 16, 5_000);
+      var result = LoadGenerator.run(uri, "de-AT", 16, 20_000);
+
+      assertThat(result.errors()).isZero();
+      assertThat(result.requests()).isEqualTo(20_000);
+      awaitRequests(service, 25_000);
+    }
+  }
+
+  // The service counts a request once its response has been written, which can be just after the
+  // client has read it.
+  private static void awaitRequests(HttpService service, long count) throws InterruptedException {
+    for (var i = 0; i < 500 && service.metrics().requestCount() < count; i++) {
+      Thread.sleep(10);
+    }
+    assertThat(service.metrics().requestCount()).isEqualTo(count);
+  }
+}
@@ -0,0 +1,82 @@
+package com.retiman.template.server.testing;
+
+import com.retiman.template.metrics.LatencyHistogram;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// A closed-loop load generator: each of a fixed number of virtual threads sends a request, waits
+// for the response, and sends the next, so there are never more requests in flight than threads.
+// Each thread holds its own keep-alive connection, which is what a pool of callers would do.
+public final class LoadGenerator {
+  private LoadGenerator() {}
+
+  public record Result(
+      long requests, long errors, double seconds, long p50Nanos, long p99Nanos, long maxNanos) {
+    public double requestsPerSecond() {
+      return requests / seconds;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%,d requests, %,d errors: %,.0f requests/sec, p50 %.3fms p99 %.3fms max %.3fms",
+          requests, errors, requestsPerSecond(), p50Nanos / 1e6, p99Nanos / 1e6, maxNanos / 1e6);
+    }
+  }
+
+  public static Result run(URI uri, String acceptLanguage, int concurrency, long requests)
+      throws InterruptedException {
+    var latencies = new LatencyHistogram();
+    var errors = new LongAdder();
+    var remaining = new AtomicLong(requests);
+    var request =
+        HttpRequest.newBuilder(uri)
+            .header("Accept-Language", acceptLanguage)
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    var start = System.nanoTime();
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (var i = 0; i < concurrency; i++) {
+        executor.execute(
+            () -> {
+              try (var client = HttpClient.newHttpClient()) {
+                while (remaining.getAndDecrement() > 0) {
+                  var sent = System.nanoTime();
+                  try {
+                    var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                      errors.increment();
+                    }
+                  } catch (IOException e) {
+                    errors.increment();
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                  }
+                  latencies.recordSince(sent);
+                }
+              }
+            });
+      }
+    }
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+    var seconds = (System.nanoTime() - start) / 1e9;
+
+    return new Result(
+        latencies.count(),
+        errors.sum(),
+        seconds,
+        latencies.percentile(50),
+        latencies.percentile(99),
+        latencies.max());
+  }
+}
@@ -0,0 +1,27 @@
+package com.retiman.template.testing;
+
+import java.lang.management.ManagementFactory;
+
+// Measures what code allocates on the heap, for tests of code that should allocate little or
+// nothing.  The measurement itself may allocate a little, so tests that expect no allocation at all
+// allow for a few kilobytes over many iterations.
+public final class Allocations {
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  /** Code to measure, which may throw a checked exception. */
+  @FunctionalInterface
+  public interface Action<E extends Exception> {
+    void run() throws E;
+  }
+
+  private Allocations() {}
+
+  /** Returns the number of bytes the current thread allocates while running an action. */
+  public static <E extends Exception> long measure(Action<E> action) throws E {
+    var threadId = Thread.currentThread().threadId();
+    var before = THREADS.getThreadAllocatedBytes(threadId);
+    action.run();
+    return THREADS.getThreadAllocatedBytes(threadId) - before;
+  }
+}
@@ -0,0 +1,149 @@
+package com.retiman.template.text;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.retiman.template.locale.LocaleRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public final class CollationSorterTest {
+  // Strings that differ by case, accents, punctuation and script, split on spaces.
+  private static final String[] LATIN =
+      ("cote côte coté côté Cote résumé resume Résumé Ångström angstrom Zoë zoe Øre oe straße"
+              + " strasse Müller Mueller muller ñandú nandu Łódź lodz Ærø æble İstanbul istanbul"
+              + " a-b ab A1 a10 a2")
+          .split(" ");
+  private static final String[] CJK =
+      ("北京 東京 东京 上海 大阪 広島 とうきょう トウキョウ ひらがな カタカナ 서울 부산 中文 日本語 漢字 汉字 ｶﾀｶﾅ 一 二 三 〇").split(" ");
+  private static final String[] OTHER =
+      ("Αθήνα αθηνα Ωμέγα Москва москва Ёлка Елка Київ עברית العربية हिन्दी ไทย 😀 123 ١٢٣ Ⅻ ﬁ fi")
+          .split(" ");
+
+  private final LocaleRegistry locales = LocaleRegistry.shared();
+
+  @Test
+  public void testMatchesCollator() {
+    var sorter = CollationSorter.shared();
+    var random = new Random(42);
+    for (var tag :
+        List.of("en", "fr-CA", "de", "sv", "da", "tr", "es", "zh", "zh-TW", "ja", "ko")) {
+      var locale = locales.resolve(tag);
+      var collator = sorter.collator(locale);
+      for (var size : new int[] {0, 1, 5, 100, 20_000}) {
+        var values = names(random, size);
+        var expected = new ArrayList<>(values);
+        expected.sort(collator::compare);
+
+        assertThat(sorter.sort(values, locale)).as(tag).isEqualTo(expected);
+      }
+    }
+  }
+
+  @Test
+  public void testStable() {
+    var sorter = CollationSorter.shared();
+    var locale = locales.resolve("en");
+    // U+0000 is ignorable, so these strings differ but collate equal.
+    var values = new ArrayList<String>();
+    for (var i = 0; i < 50_000; i++) {
+      values.add(i % 2 == 0 ? "a\u0000" : "a");
+    }
+
+    var order = sorter.order(values, locale);
+    for (var i = 1; i < order.length; i++) {
+      if (values.get(order[i]).equals(values.get(order[i - 1]))) {
+        assertThat(order[i]).isGreaterThan(order[i - 1]);
+      }
+    }
+  }
+
+  @Test
+  public void testSortsItemsByKey() {
+    record Person(String name, int age) {}
+
+    var people = List.of(new Person("Émile", 1), new Person("Zoë", 2), new Person("Adam", 3));
+    var sorted = CollationSorter.shared().sort(people, Person::name, locales.resolve("fr"));
+
+    assertThat(sorted).extracting(Person::age).containsExactly(3, 1, 2);
+    assertThat(
+            catchThrowable(
+                () -> CollationSorter.shared().sort(people, p -> null, locales.resolve("fr"))))
+        .isInstanceOf(NullPointerException.class);
+  }
+
+  @Test
+  public void testSharesFrozenCollators() {
+    var sorter = CollationSorter.shared();
+    var collator = sorter.collator(locales.resolve("de"));
+
+    assertThat(collator.isFrozen()).isTrue();
+    assertThat(sorter.collator(locales.resolve("de-u-co-phonebk"))).isNotSameAs(collator);
+    assertThat(sorter.collator(locales.resolve("DE"))).isSameAs(collator);
+  }
+
+  @Test
+  public void testParallel() {
+    var locale = locales.resolve("ja");
+    var values = names(new Random(7), 200_000);
+    try (var parallel = new ForkJoinPool(4);
+        var sequential = new ForkJoinPool(1)) {
+      assertThat(new CollationSorter(parallel).sort(values, locale))
+          .isEqualTo(new CollationSorter(sequential).sort(values, locale));
+    }
+  }
+
+  @Test
+  public void testThroughput() {
+    var sorter = CollationSorter.shared();
+    var locale = locales.resolve("de");
+    var collator = sorter.collator(locale);
+    var count = 200_000;
+    var values = names(new Random(1), count);
+
+    var sorterNanos = Long.MAX_VALUE;
+    var collatorNanos = Long.MAX_VALUE;
+    for (var run = 0; run < 3; run++) {
+      var t0 = System.nanoTime();
+      var sorted = sorter.sort(values, locale);
+      sorterNanos = Math.min(sorterNanos, System.nanoTime() - t0);
+
+      var t1 = System.nanoTime();
+      var array = values.toArray(String[]::new);
+      Arrays.sort(array, collator::compare);
+      collatorNanos = Math.min(collatorNanos, System.nanoTime() - t1);
+
+      assertThat(sorted).isEqualTo(Arrays.asList(array));
+    }
+
+    assertThat(sorterNanos).isLessThan(collatorNanos);
+  }
+
+  // Names of one to three words, drawn from Latin, CJK and other scripts, so that most of them are
+  // distinct but some are equal or differ only by case or accents.
+  private static List<String> names(Random random, int count) {
+    var names = new ArrayList<String>(count);
+    for (var i = 0; i < count; i++) {
+      var name = new StringBuilder();
+      var words = 1 + random.nextInt(3);
+      for (var w = 0; w < words; w++) {
+        if (w > 0) {
+          name.append(' ');
+        }
+        var pool =
+            switch (random.nextInt(4)) {
+              case 0, 1 -> LATIN;
+              case 2 -> CJK;
+              default -> OTHER;
+            };
+        name.append(pool[random.nextInt(pool.length)]);
+      }
+      names.add(name.toString());
+    }
+    return names;
+  }
+}
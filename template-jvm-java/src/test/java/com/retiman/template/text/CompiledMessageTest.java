@@ -0,0 +1,255 @@
+package com.retiman.template.text;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.ibm.icu.text.MessageFormat;
+import com.retiman.template.locale.LocaleRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public final class CompiledMessageTest {
+  private static final List<String> TAGS =
+      List.of("en de fr es pl ru cs ar he cy ga lt sv ja hi bn it pt-BR en-IN de-CH".split(" "));
+  private static final List<String> PATTERNS =
+      List.of(
+          "Hello, {0}!",
+          "{0} and {1}, but not {2}",
+          "{0}",
+          "{0, number}",
+          "{0, number, integer}",
+          "{0, number, percent}",
+          "{0, number, currency}",
+          "{0, number, #,##0.00}",
+          "{0, number, ::.00 group-off}",
+          "You have {0, plural, one {# file} other {# files}}.",
+          "{0, plural, =0 {no files} =1 {one file} one {# file} few {# files (few)} many {# files"
+              + " (many)} two {# files (two)} zero {# files (zero)} other {# files}}",
+          "{0, plural, offset:1 =0 {nobody} =1 {just you} one {you and # other} other {you and #"
+              + " others}}",
+          "{0, selectordinal, one {#st} two {#nd} few {#rd} other {#th}}",
+          "{0, plural, one {{0, number, .00} item} other {{0, number, .00} items}}",
+          "{0, plural, one {{0, number, ::.00} item} other {{0, number, ::.00} items}}",
+          "{1, select, female {{0, plural, one {She has # cat} other {She has # cats}}} male {{0,"
+              + " plural, one {He has # cat} other {He has # cats}}} other {{0, plural, one {They"
+              + " have # cat} other {They have # cats}}}}",
+          "{1, select, a {# is literal here} other {'{'quoted'}' and it''s {1}}}",
+          "'{0}' is not an argument, '' is a quote, {1}");
+  private static final Object[] VALUES = {
+    0,
+    1,
+    2,
+    3,
+    5,
+    11,
+    21,
+    22,
+    101,
+    1_000_000L,
+    -1,
+    -42,
+    0.5,
+    1.0,
+    1.5,
+    2.25,
+    -0.0,
+    1e20,
+    Long.MAX_VALUE,
+    Long.MIN_VALUE,
+    new BigDecimal("1.10"),
+    new BigDecimal("12345.678")
+  };
+
+  private final LocaleRegistry locales = LocaleRegistry.shared();
+
+  @Test
+  public void testMatchesIcu() {
+    for (var tag : TAGS) {
+      var locale = locales.resolve(tag);
+      for (var pattern : PATTERNS) {
+        var message = CompiledMessage.compile(pattern, locale);
+        var icu = new MessageFormat(pattern, locale.ulocale());
+        for (var value : VALUES) {
+          for (var gender : List.of("female", "male", "a", "other")) {
+            var arguments = new Object[] {value, gender, "z"};
+            assertThat(message.format(arguments))
+                .as("%s %s %s %s", tag, pattern, value, gender)
+                .isEqualTo(icu.format(arguments));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRandomCounts() {
+    var random = new Random(42);
+    for (var tag : TAGS) {
+      var locale = locales.resolve(tag);
+      for (var pattern : PATTERNS.subList(9, 16)) {
+        var message = CompiledMessage.compile(pattern, locale);
+        var icu = new MessageFormat(pattern, locale.ulocale());
+        for (var n = 0; n < 500; n++) {
+          Object value =
+              switch (n % 3) {
+                case 0 -> random.nextInt(2_000) - 10;
+                case 1 -> random.nextLong() >> random.nextInt(64);
+                default -> random.nextInt(100_000) / 100.0;
+              };
+          var arguments = new Object[] {value, "other"};
+          assertThat(message.format(arguments))
+              .as("%s %s %s", tag, pattern, value)
+              .isEqualTo(icu.format(arguments));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testNamedArguments() {
+    var pattern =
+        "{name} has {count, plural, one {# message} other {# messages}} in {folder}; {0} {missing}";
+    for (var tag : TAGS) {
+      var locale = locales.resolve(tag);
+      var message = CompiledMessage.compile(pattern, locale);
+      var icu = new MessageFormat(pattern, locale.ulocale());
+      var arguments = new HashMap<String, Object>();
+      arguments.put("name", "Alice");
+      arguments.put("count", 1_234);
+      arguments.put("folder", null);
+      arguments.put("0", 7);
+      assertThat(message.format(arguments)).isEqualTo(icu.format(arguments));
+    }
+
+    var message = CompiledMessage.compile(pattern, locales.resolve("en"));
+    assertThat(catchThrowable(() -> message.format(new Object[] {"Alice"})))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testMissingAndNullArguments() {
+    var pattern = "{0}, {1, number}, {2, plural, other {#}}, {3}";
+    var message = CompiledMessage.compile(pattern, locales.resolve("en"));
+    var icu = new MessageFormat(pattern, locales.resolve("en").ulocale());
+    for (var arguments :
+        List.of(new Object[0], new Object[] {null, null, null}, new Object[] {"a", 1})) {
+      assertThat(message.format(arguments)).isEqualTo(icu.format(arguments));
+    }
+    assertThat(catchThrowable(() -> message.format(new Object[] {"a", "not a number"})))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testUnsupportedArguments() {
+    var en = locales.resolve("en");
+    for (var pattern :
+        List.of(
+            "{0, date}",
+            "{0, time, short}",
+            "{0, spellout}",
+            "{0, choice, 0#none|1#some}",
+            "{0, plural, one {x}")) {
+      assertThat(catchThrowable(() -> CompiledMessage.compile(pattern, en)))
+          .as(pattern)
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Test
+  public void testFormatAll() {
+    var locale = locales.resolve("pl");
+    var message =
+        CompiledMessage.compile(
+            "{0} {0, plural, one {plik} few {pliki} many {plików} other {pliku}}", locale);
+    var argumentSets = new ArrayList<Object[]>();
+    var namedSets = new ArrayList<Map<String, ?>>();
+    for (var i = 0; i < 1_000; i++) {
+      argumentSets.add(new Object[] {i});
+      namedSets.add(Map.of("0", i));
+    }
+
+    var messages = message.formatAll(argumentSets);
+    assertThat(message.formatAllNamed(namedSets)).isEqualTo(messages);
+    var icu = new MessageFormat(message.pattern(), locale.ulocale());
+    for (var i = 0; i < messages.size(); i++) {
+      assertThat(messages.get(i)).isEqualTo(icu.format(argumentSets.get(i)));
+    }
+    assertThat(messages.subList(0, 6))
+        .containsExactly("0 plików", "1 plik", "2 pliki", "3 pliki", "4 pliki", "5 plików");
+  }
+
+  @Test
+  public void testCache() {
+    var source =
+        (MessageSource)
+            (id, locale) ->
+                switch (id) {
+                  case "files" -> "{0, plural, one {# file} other {# files}}";
+                  case "broken" -> "{0";
+                  default -> null;
+                };
+    var cache = new MessageCache(source, 2);
+    var en = locales.resolve("en");
+
+    assertThat(cache.format("files", en, 1)).isEqualTo("1 file");
+    assertThat(cache.message("files", en)).isSameAs(cache.message("files", en));
+    assertThat(cache.message("files", locales.resolve("de")))
+        .isNotSameAs(cache.message("files", en));
+    assertThat(cache.hitCount()).isEqualTo(3);
+    assertThat(cache.missCount()).isEqualTo(2);
+
+    // A full cache evicts the least recently used.
+    var fr = cache.message("files", locales.resolve("fr"));
+    assertThat(cache.message("files", locales.resolve("fr"))).isSameAs(fr);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.missCount()).isEqualTo(3);
+
+    assertThat(catchThrowable(() -> cache.message("nope", en)))
+        .isInstanceOf(MissingResourceException.class);
+    assertThat(catchThrowable(() -> cache.message("broken", en)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(catchThrowable(() -> new MessageCache(source, 0)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testThroughput() {
+    var locale = locales.resolve("ru");
+    var pattern =
+        "{1} has {0, plural, one {# new message} few {# new messages} many {# new messages} other"
+            + " {# new messages}}";
+    var message = CompiledMessage.compile(pattern, locale);
+    var icu = new MessageFormat(pattern, locale.ulocale());
+    var argumentSets = new ArrayList<Object[]>();
+    for (var i = 0; i < 1_000; i++) {
+      argumentSets.add(new Object[] {i, "Alice"});
+    }
+
+    var compiled = Long.MAX_VALUE;
+    var interpreted = Long.MAX_VALUE;
+    var out = new StringBuilder();
+    var calls = 200_000;
+    for (var run = 0; run < 3; run++) {
+      var start = System.nanoTime();
+      for (var i = 0; i < calls; i++) {
+        out.setLength(0);
+        message.format(argumentSets.get(i % 1_000), out);
+      }
+      compiled = Math.min(compiled, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      for (var i = 0; i < calls; i++) {
+        icu.format(argumentSets.get(i % 1_000));
+      }
+      interpreted = Math.min(interpreted, System.nanoTime() - start);
+    }
+
+    assertThat(compiled).isLessThan(interpreted);
+  }
+}
@@ -0,0 +1,111 @@
+package com.retiman.template.text;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.retiman.template.locale.LocaleRegistry;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public final class CompiledNumberFormatterTest {
+  private static final List<String> TAGS =
+      List.of(
+          ("en en-IN de de-CH fr es pl sv ru pt-BR it nl he ar ar-EG fa hi bn th-u-nu-thai ja zh ko"
+                  + " tr fi")
+              .split(" "));
+  private static final List<String> SKELETONS =
+      List.of(
+          "",
+          ".00",
+          ".0#",
+          ".###",
+          ".",
+          "precision-integer",
+          "group-off",
+          ",_ .00",
+          "group-min2",
+          ".000000",
+          "percent",
+          "currency/EUR .00",
+          "@@@",
+          "scale/100",
+          "sign-always");
+
+  private final LocaleRegistry locales = LocaleRegistry.shared();
+
+  @Test
+  public void testMatchesIcu() {
+    var random = new Random(42);
+    var out = new StringBuilder();
+    for (var tag : TAGS) {
+      for (var skeleton : SKELETONS) {
+        var formatter = CompiledNumberFormatter.compile(locales.resolve(tag), skeleton);
+        var icu = formatter.icu();
+        for (var n = 0; n < 2_000; n++) {
+          var value = random.nextLong() >> random.nextInt(64);
+          out.setLength(0);
+          assertThat(formatter.format(value, out).toString())
+              .as("%s %s %d", tag, skeleton, value)
+              .isEqualTo(icu.format(value).toString());
+
+          var scale = random.nextInt(20) - 1;
+          var decimal = BigDecimal.valueOf(value, scale);
+          out.setLength(0);
+          assertThat(formatter.formatScaled(value, scale, out).toString())
+              .as("%s %s %s", tag, skeleton, decimal)
+              .isEqualTo(icu.format(decimal).toString());
+          out.setLength(0);
+          assertThat(formatter.format(decimal, out).toString())
+              .isEqualTo(icu.format(decimal).toString());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFastPath() {
+    assertThat(CompiledNumberFormatter.compile(locales.resolve("en"), "").hasFastPath()).isTrue();
+    assertThat(CompiledNumberFormatter.compile(locales.resolve("en-IN"), ".00").hasFastPath())
+        .isTrue();
+    assertThat(CompiledNumberFormatter.compile(locales.resolve("de-CH"), ",_").hasFastPath())
+        .isTrue();
+    // Non-ASCII digits, and options the fast path does not do.
+    assertThat(CompiledNumberFormatter.compile(locales.resolve("ar-EG"), "").hasFastPath())
+        .isFalse();
+    assertThat(CompiledNumberFormatter.compile(locales.resolve("en"), "percent").hasFastPath())
+        .isFalse();
+
+    var out = new StringBuilder("Total: ");
+    var en = CompiledNumberFormatter.compile(locales.resolve("en-IN"), ".00");
+    assertThat(en.formatScaled(123_456_789, 2, out).toString()).isEqualTo("Total: 12,34,567.89");
+    var es = CompiledNumberFormatter.compile(locales.resolve("es"), "");
+    assertThat(es.format(1234, new StringBuilder()).toString()).isEqualTo("1234");
+    assertThat(es.format(12345, new StringBuilder()).toString()).isEqualTo("12.345");
+  }
+
+  @Test
+  public void testAppendable() throws Exception {
+    var formatter = CompiledNumberFormatter.compile(locales.resolve("de"), ".00");
+    var out = new StringWriter();
+    formatter.format(-1234567L, out);
+    out.append(' ');
+    formatter.formatScaled(15, 3, out);
+    out.append(' ');
+    formatter.format(0.125, out);
+    out.append(' ');
+    formatter.format(new BigDecimal("1e30"), out);
+
+    assertThat(out.toString())
+        .isEqualTo("-1.234.567,00 0,02 0,12 1.000.000.000.000.000.000.000.000.000.000,00");
+  }
+
+  @Test
+  public void testInvalidSkeleton() {
+    assertThat(
+            catchThrowable(() -> CompiledNumberFormatter.compile(locales.resolve("en"), "bogus")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,143 @@
+package com.retiman.template.text;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.ibm.icu.number.NumberFormatter;
+import com.retiman.template.locale.LocaleRegistry;
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+public final class NumberFormatterCacheTest {
+  // Amounts in cents, from -500,000.00 to 500,000.00.
+  private static final long[] VALUES =
+      new Random(1).longs(1_000_000, -50_000_000L, 50_000_000L).toArray();
+
+  private final LocaleRegistry locales = LocaleRegistry.shared();
+
+  @Test
+  public void testCaches() {
+    var cache = new NumberFormatterCache(2);
+    var en = locales.resolve("en");
+    var formatter = cache.formatter(en, ".00");
+
+    assertThat(cache.formatter(en, ".00")).isSameAs(formatter);
+    assertThat(cache.formatter(locales.resolve("en-US"))).isNotSameAs(formatter);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.hitCount()).isEqualTo(1);
+    assertThat(cache.missCount()).isEqualTo(2);
+
+    // A full cache evicts the least recently used.
+    var de = locales.resolve("de");
+    assertThat(cache.formatter(de, ".00")).isSameAs(cache.formatter(de, ".00"));
+    assertThat(cache.formatter(en, ".00")).isNotSameAs(formatter);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.missCount()).isEqualTo(4);
+
+    assertThat(catchThrowable(() -> new NumberFormatterCache(0)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(catchThrowable(() -> cache.formatter(en, "bogus")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testConcurrency() throws Exception {
+    var cache = new NumberFormatterCache(NumberFormatterCache.DEFAULT_MAXIMUM_SIZE);
+    var tags = List.of("en", "de", "fr", "en-IN", "es", "ar-EG", "ja", "sv");
+    var skeletons = List.of("", ".00", "group-off", "percent", ".0#");
+    var threads = new ArrayList<Thread>();
+    var failures = new ConcurrentLinkedQueue<String>();
+    var start = new CountDownLatch(1);
+    for (var t = 0; t < 8; t++) {
+      var seed = t;
+      threads.add(
+          Thread.ofPlatform()
+              .start(
+                  () -> {
+                    var random = new Random(seed);
+                    var out = new StringBuilder();
+                    try {
+                      start.await();
+                    } catch (InterruptedException e) {
+                      Thread.currentThread().interrupt();
+                      return;
+                    }
+                    for (var i = 0; i < 20_000; i++) {
+                      var locale = locales.resolve(tags.get(random.nextInt(tags.size())));
+                      var skeleton = skeletons.get(random.nextInt(skeletons.size()));
+                      var value = random.nextLong() >> random.nextInt(64);
+                      var scale = random.nextInt(6);
+                      out.setLength(0);
+                      cache.formatter(locale, skeleton).formatScaled(value, scale, out);
+
+                      // A fresh formatter, shared with no other thread.
+                      var expected =
+                          NumberFormatter.forSkeleton(skeleton)
+                              .locale(locale.ulocale())
+                              .format(BigDecimal.valueOf(value, scale))
+                              .toString();
+                      if (!out.toString().equals(expected)) {
+                        failures.add(
+                            locale.tag() + " " + skeleton + ": " + out + " != " + expected);
+                      }
+                    }
+                  }));
+    }
+    start.countDown();
+    for (var thread : threads) {
+      thread.join();
+    }
+
+    assertThat(failures).isEmpty();
+    assertThat(cache.size()).isEqualTo(tags.size() * skeletons.size());
+    assertThat(cache.hitCount() + cache.missCount()).isEqualTo(8 * 20_000);
+  }
+
+  @Test
+  public void testThroughput() {
+    var locale = locales.resolve("de");
+    var formatter = NumberFormatterCache.shared().formatter(locale, ".00");
+    var values = VALUES;
+
+    var out = new StringBuilder();
+    var cachedNanos = Long.MAX_VALUE;
+    var icuNanos = Long.MAX_VALUE;
+    var jdkNanos = Long.MAX_VALUE;
+    var length = 0L;
+    for (var run = 0; run < 3; run++) {
+      var t0 = System.nanoTime();
+      for (var value : values) {
+        out.setLength(0);
+        length += formatter.formatScaled(value, 2, out).length();
+      }
+      cachedNanos = Math.min(cachedNanos, System.nanoTime() - t0);
+
+      var t1 = System.nanoTime();
+      for (var value : values) {
+        out.setLength(0);
+        formatter.icu().format(BigDecimal.valueOf(value, 2)).appendTo(out);
+        length += out.length();
+      }
+      icuNanos = Math.min(icuNanos, System.nanoTime() - t1);
+
+      // What a caller does without a cache, since NumberFormat is not thread safe.
+      var t2 = System.nanoTime();
+      for (var value : values) {
+        var format = NumberFormat.getInstance(locale.locale());
+        format.setMinimumFractionDigits(2);
+        format.setMaximumFractionDigits(2);
+        length += format.format(BigDecimal.valueOf(value, 2)).length();
+      }
+      jdkNanos = Math.min(jdkNanos, System.nanoTime() - t2);
+    }
+
+    assertThat(length).isPositive();
+    assertThat(cachedNanos).isLessThan(icuNanos).isLessThan(jdkNanos);
+  }
+}
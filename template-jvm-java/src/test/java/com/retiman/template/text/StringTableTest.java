@@ -0,0 +1,347 @@
+package com.retiman.template.text;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.retiman.template.locale.LocaleRegistry;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class StringTableTest {
+  private static final List<String> LANGUAGES =
+      List.of(
+          ("en de fr es it pt nl sv da nb fi pl cs sk hu ro bg el ru uk tr he ar fa hi bn ta th vi"
+                  + " id ms ja ko zh ka hy lt lv et sl")
+              .split(" "));
+  private static final List<String> REGIONS =
+      List.of("US GB DE FR ES IT BR IN JP CA AU MX CH AT BE".split(" "));
+
+  private final LocaleRegistry locales = LocaleRegistry.shared();
+
+  @TempDir private Path temp;
+
+  @Test
+  public void testLookups() throws IOException {
+    write("messages", Map.of("hello", "Hello", "bye", "Goodbye", "title", "Title"));
+    write("messages_de", Map.of("hello", "Hallo", "bye", "Tschüss"));
+    write("messages_de_CH", Map.of("hello", "Grüezi"));
+    write("messages_iw", Map.of("hello", "שלום"));
+    write("messages_zh_Hant", Map.of("hello", "你好"));
+    write("messages_sr_Latn", Map.of("hello", "Zdravo"));
+    write("other_fr", Map.of("hello", "Bonjour"));
+    var file = temp.resolve("messages.strings");
+    StringTableCompiler.compile(temp, "messages", file);
+
+    try (var table = StringTable.open(file)) {
+      assertThat(table.keyCount()).isEqualTo(3);
+      assertThat(table.locales())
+          .extracting(l -> l.tag())
+          .containsExactly("de", "de-CH", "he", "sr-Latn", "und", "zh-Hant");
+
+      assertThat(get(table, "hello", "de-CH")).isEqualTo("Grüezi");
+      assertThat(get(table, "bye", "de-CH")).isEqualTo("Tschüss");
+      assertThat(get(table, "title", "de-CH")).isEqualTo("Title");
+      assertThat(get(table, "hello", "de-CH-1996")).isEqualTo("Grüezi");
+      assertThat(get(table, "hello", "de-AT")).isEqualTo("Hallo");
+      assertThat(get(table, "hello", "de-CH-u-co-phonebk")).isEqualTo("Grüezi");
+      // Canonicalization: "iw" is "he", and "sh" is "sr-Latn".
+      assertThat(get(table, "hello", "iw-IL")).isEqualTo("שלום");
+      assertThat(get(table, "hello", "sh")).isEqualTo("Zdravo");
+      assertThat(get(table, "hello", "zh-Hant-TW")).isEqualTo("你好");
+      // Implied scripts: Taiwan and Hong Kong write Traditional Chinese, and Montenegro Latin.
+      assertThat(get(table, "hello", "zh-TW")).isEqualTo("你好");
+      assertThat(get(table, "hello", "zh-HK")).isEqualTo("你好");
+      assertThat(get(table, "hello", "zh-CN")).isEqualTo("Hello");
+      assertThat(get(table, "hello", "sr-ME")).isEqualTo("Zdravo");
+      assertThat(get(table, "hello", "sr-RS")).isEqualTo("Hello");
+      assertThat(StringTable.fallbacks(locales.resolve("zh-TW")))
+          .containsExactly("zh-Hant-TW", "zh-Hant", "zh", "und");
+      assertThat(get(table, "hello", "fr")).isEqualTo("Hello");
+      assertThat(get(table, "missing", "de")).isNull();
+
+      var deCh = table.indexOf(locales.resolve("de-CH"));
+      assertThat(table.fallbacks(deCh))
+          .extracting(l -> l.tag())
+          .containsExactly("de-CH", "de", "und");
+      assertThat(table.indexOf(locales.resolve("de-CH-1996"))).isEqualTo(deCh);
+
+      var hello = table.get("hello", deCh);
+      assertThat(hello.length()).isEqualTo(6);
+      assertThat(hello.charAt(2)).isEqualTo('ü');
+      assertThat(hello.subSequence(3, 6).toString()).isEqualTo("ezi");
+      assertThat(table.get("title", deCh).subSequence(1, 3).toString()).isEqualTo("it");
+      assertThat(catchThrowable(() -> hello.charAt(6)))
+          .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+  }
+
+  @Test
+  public void testWithoutRoot() throws IOException {
+    write("messages_en", Map.of("hello", "Hello"));
+    var file = temp.resolve("messages.strings");
+    StringTableCompiler.compile(temp, "messages", file);
+
+    try (var table = StringTable.open(file)) {
+      assertThat(get(table, "hello", "en-GB")).isEqualTo("Hello");
+      assertThat(table.indexOf(locales.resolve("fr"))).isEqualTo(-1);
+      assertThat(table.get("hello", locales.resolve("fr"))).isNull();
+    }
+  }
+
+  @Test
+  public void testInvalid() throws IOException {
+    write("messages_he", Map.of("hello", "שלום"));
+    write("messages_iw", Map.of("hello", "שלום"));
+    assertThat(
+            catchThrowable(
+                () -> StringTableCompiler.compile(temp, "messages", temp.resolve("out"))))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("are for he");
+
+    var file = temp.resolve("messages_he.properties");
+    assertThat(catchThrowable(() -> StringTable.open(file))).isInstanceOf(IOException.class);
+  }
+
+  @Test
+  public void testMatchesResourceBundle() throws IOException {
+    var keys = generate(temp, 1, 1_000);
+    var file = temp.resolve("messages.strings");
+    StringTableCompiler.compile(temp, "messages", file);
+
+    var random = new Random(42);
+    var control =
+        ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_DEFAULT);
+    try (var table = StringTable.open(file);
+        var loader = new URLClassLoader(new URL[] {temp.toUri().toURL()}, null)) {
+      assertThat(table.locales()).hasSize(LANGUAGES.size() * 2 + 2);
+      // Locales that are in the table, and some that fall back to it, including by an implied
+      // script.
+      var tags = new ArrayList<String>();
+      table.locales().forEach(l -> tags.add(l.tag()));
+      tags.addAll(
+          List.of(
+              "de-LI", "pt-PT", "en-NZ", "xx", "fr-CA-x-test", "zh-TW", "zh-HK", "zh-MO", "zh-CN"));
+      for (var tag : tags) {
+        var locale = locales.resolve(tag);
+        var bundle = ResourceBundle.getBundle("messages", locale.locale(), loader, control);
+        for (var i = 0; i < 200; i++) {
+          var key = keys.get(random.nextInt(keys.size()));
+          assertThat(table.get(key, locale).toString())
+              .as("%s %s", tag, key)
+              .isEqualTo(bundle.getString(key));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSize() throws IOException {
+    // Regional variants repeat most of their language's strings, which the table stores once.
+    var strings = Files.createDirectory(temp.resolve("strings"));
+    var keys = generate(strings, 4, 1_000);
+    var file = temp.resolve("messages.strings");
+    StringTableCompiler.compile(strings, "messages", file);
+
+    try (var table = StringTable.open(file)) {
+      assertThat(table.locales()).hasSize(LANGUAGES.size() * 5 + 2);
+      assertThat(table.get(keys.getLast(), locales.resolve("zh-TW")))
+          .hasToString("zh-Hant string number 999");
+    }
+    assertThat(Files.size(file)).isLessThan(directorySize(strings) / 2);
+  }
+
+  @Test
+  @Tag("measurement")
+  public void testStartupAndHeap() throws Exception {
+    // 201 locales of 20,000 keys: 40 languages, each with four regional variants that repeat most
+    // of their language's strings, as exported translations do, and Traditional Chinese.
+    var strings = Files.createDirectory(temp.resolve("strings"));
+    var keys = generate(strings, 4, 20_000).size();
+    var table = temp.resolve("messages.strings");
+    run(List.of("-Xmx1g"), StringTableCompiler.class, table, strings, "messages");
+
+    var results = new LinkedHashMap<String, long[]>();
+    results.put("ResourceBundle", run(List.of("-Xmx2g"), Probe.class, "bundles", strings));
+    results.put("StringTable", run(List.of("-Xmx64m"), Probe.class, "table", table));
+    results.forEach(
+        (name, result) ->
+            System.out.printf(
+                "%s: %,d locales x %,d keys loaded in %,d ms (process %,d ms), %,d KB of heap%n",
+                name, LANGUAGES.size() * 5 + 1, keys, result[0], result[2], result[1] / 1024));
+    System.out.printf(
+        "Properties files %,d KB, string table %,d KB%n",
+        directorySize(strings) / 1024, Files.size(table) / 1024);
+
+    var bundles = results.get("ResourceBundle");
+    var mapped = results.get("StringTable");
+    assertThat(mapped[1]).isLessThan(bundles[1] / 10);
+  }
+
+  // Loads every locale's strings one way or the other in a fresh JVM, and prints the time it took
+  // and the heap that is left in use.
+  public static final class Probe {
+    public static void main(String[] args) throws Exception {
+      var memory = ManagementFactory.getMemoryMXBean();
+      var registry = LocaleRegistry.shared();
+      var tags = new ArrayList<String>();
+      for (var language : LANGUAGES) {
+        tags.add(language);
+        for (var r = 0; r < 4; r++) {
+          tags.add(language + "-" + region(language, r));
+        }
+      }
+      tags.replaceAll(tag -> registry.resolve(tag).tag());
+      System.gc();
+      var before = memory.getHeapMemoryUsage().getUsed();
+
+      var start = System.nanoTime();
+      var loaded = new ArrayList<Object>();
+      var length = 0L;
+      if (args[0].equals("bundles")) {
+        var loader = new URLClassLoader(new URL[] {Path.of(args[1]).toUri().toURL()}, null);
+        var control =
+            ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_DEFAULT);
+        for (var tag : tags) {
+          var bundle =
+              ResourceBundle.getBundle("messages", Locale.forLanguageTag(tag), loader, control);
+          length += bundle.getString("key.00042").length();
+          loaded.add(bundle);
+        }
+      } else {
+        var table = StringTable.open(Path.of(args[1]));
+        for (var tag : tags) {
+          length += table.get("key.00042", registry.resolve(tag)).length();
+        }
+        loaded.add(table);
+      }
+      var millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      System.gc();
+      var heap = Math.max(0, memory.getHeapMemoryUsage().getUsed() - before);
+      System.out.println(millis + " " + heap + " " + length + " " + loaded.size());
+    }
+  }
+
+  // Returns the time to load and the heap in use, as the probe printed them, and the time the whole
+  // process took.
+  private static long[] run(List<String> options, Class<?> main, Object... args)
+      throws IOException, InterruptedException {
+    var command = new ArrayList<String>();
+    command.add(ProcessHandle.current().info().command().orElse("java"));
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add("-XX:+UseSerialGC");
+    command.addAll(options);
+    command.add(main.getName());
+    for (var arg : args) {
+      command.add(arg.toString());
+    }
+
+    var start = System.nanoTime();
+    var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    var lines = new ArrayList<String>();
+    try (var out =
+        new BufferedReader(
+            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = out.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    assertThat(process.waitFor(5, TimeUnit.MINUTES)).isTrue();
+    var elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertThat(process.exitValue()).as(String.join("\n", lines)).isEqualTo(0);
+
+    if (main != Probe.class) {
+      return new long[] {0, 0, elapsed};
+    }
+    var fields = lines.getLast().split(" ");
+    return new long[] {Long.parseLong(fields[0]), Long.parseLong(fields[1]), elapsed};
+  }
+
+  // Writes root strings and 40 languages, each with some regional variants, and Traditional Chinese
+  // strings that only regions that imply the script find; returns the keys.
+  private static List<String> generate(Path directory, int regions, int keyCount)
+      throws IOException {
+    var keys = new ArrayList<String>(keyCount);
+    for (var k = 0; k < keyCount; k++) {
+      keys.add(String.format(Locale.ROOT, "key.%05d", k));
+    }
+
+    writeStrings(directory.resolve("messages.properties"), keys, k -> "Root string " + k);
+    for (var language : LANGUAGES) {
+      // Some languages get non-ASCII strings, which are stored as UTF-8.
+      var accent = language.hashCode() % 3 == 0 ? "é" : language.hashCode() % 3 == 1 ? "语" : "";
+      var values = new String[keyCount];
+      for (var k = 0; k < keyCount; k++) {
+        values[k] = language + accent + " string number " + k;
+      }
+      writeStrings(directory.resolve("messages_" + language + ".properties"), keys, k -> values[k]);
+
+      for (var r = 0; r < regions; r++) {
+        var region = region(language, r);
+        writeStrings(
+            directory.resolve("messages_" + language + "_" + region + ".properties"),
+            keys,
+            k -> k % 10 == 0 ? language + "-" + region + " string " + k : values[k]);
+      }
+    }
+    writeStrings(
+        directory.resolve("messages_zh_Hant.properties"),
+        keys,
+        k -> k % 2 == 0 ? "zh-Hant 語言 " + k : "zh-Hant string number " + k);
+    return keys;
+  }
+
+  private static void writeStrings(Path file, List<String> keys, IntFunction<String> values)
+      throws IOException {
+    try (var out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      for (var k = 0; k < keys.size(); k++) {
+        out.write(keys.get(k));
+        out.write('=');
+        out.write(values.apply(k));
+        out.write('\n');
+      }
+    }
+  }
+
+  // A different few regions for each language.
+  private static String region(String language, int r) {
+    return REGIONS.get((LANGUAGES.indexOf(language) + r) % REGIONS.size());
+  }
+
+  private void write(String name, Map<String, String> strings) throws IOException {
+    var keys = List.copyOf(strings.keySet());
+    writeStrings(temp.resolve(name + ".properties"), keys, k -> strings.get(keys.get(k)));
+  }
+
+  private String get(StringTable table, String key, String tag) {
+    var value = table.get(key, locales.resolve(tag));
+    return value != null ? value.toString() : null;
+  }
+
+  private static long directorySize(Path directory) throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.mapToLong(file -> file.toFile().length()).sum();
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package com.retiman.template.text;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.ibm.icu.text.Transliterator;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public final class TransliterationServiceTest {
+  private static final List<String> IDS =
+      List.of(
+          "Any-Latin",
+          "Han-Latin",
+          "Cyrillic-Latin",
+          "Greek-Latin",
+          "Any-Latin; Latin-ASCII",
+          "Han-Latin/Names",
+          "Latin-Cyrillic",
+          "Any-Upper");
+  private static final List<String> WORDS =
+      List.of(
+          ("北京 東京 上海 台北 张伟 王芳 Москва Санкт-Петербург Пётр Щукин Αθήνα Θεσσαλονίκη ψυχή"
+                  + " Hello world; search index 42 Ærøskøbing café naïve ソウル 서울 кошка; γάτα;")
+              .split(" "));
+  private static final List<String> TEXTS = texts(42, 5_000);
+
+  @TempDir private Path temp;
+
+  @Test
+  public void testMatchesIcu() {
+    try (var pool = new ForkJoinPool(4)) {
+      var service = new TransliterationService(pool);
+      for (var id : IDS) {
+        var transliterator = Transliterator.getInstance(id);
+        var expected = new ArrayList<String>();
+        for (var text : TEXTS) {
+          expected.add(transliterator.transliterate(text));
+        }
+
+        assertThat(service.transliterate(id, TEXTS)).as(id).isEqualTo(expected);
+        for (var i = 0; i < 100; i++) {
+          assertThat(service.transliterate(id, TEXTS.get(i))).isEqualTo(expected.get(i));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testVirtualThreads() throws Exception {
+    // A request per virtual thread, as HttpService runs them, borrows from the same few instances.
+    var id = "Han-Latin";
+    var transliterator = Transliterator.getInstance(id);
+    var service = TransliterationService.shared();
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      var futures = new ArrayList<Future<String>>();
+      for (var text : TEXTS) {
+        futures.add(executor.submit(() -> service.transliterate(id, text)));
+      }
+      for (var i = 0; i < futures.size(); i++) {
+        assertThat(futures.get(i).get()).isEqualTo(transliterator.transliterate(TEXTS.get(i)));
+      }
+    }
+  }
+
+  @Test
+  public void testPassesAscii() {
+    var service = TransliterationService.shared();
+    // Any-Latin by construction, and the others by filters that admit no ASCII.
+    assertThat(service.passesAscii("Any-Latin")).isTrue();
+    assertThat(service.passesAscii("Cyrillic-Latin")).isTrue();
+    assertThat(service.passesAscii("[:Cyrillic:] Cyrillic-Latin; Any-Latin")).isTrue();
+    // Han-Latin puts a space after "!" before a letter, although its source set has no ASCII;
+    // Greek-Latin turns ";" into "?", and the others change letters.
+    assertThat(service.passesAscii("Han-Latin")).isFalse();
+    assertThat(service.passesAscii("Greek-Latin")).isFalse();
+    assertThat(service.passesAscii("Latin-Cyrillic")).isFalse();
+    assertThat(service.passesAscii("Any-Upper")).isFalse();
+
+    var ascii = "plain ascii text";
+    assertThat(service.transliterate("Any-Latin", ascii)).isSameAs(ascii);
+    assertThat(service.transliterate("Greek-Latin", "a;b")).isEqualTo("a?b");
+    assertThat(catchThrowable(() -> service.passesAscii("Nonsense-Latin")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testRuleBasedTransforms() {
+    // Only a probe of three ASCII characters or more would find what this rule does.
+    var id = "Test-TransliterationServiceContext";
+    Transliterator.registerInstance(
+        Transliterator.createFromRules(id, "a b { c } > x;", Transliterator.FORWARD));
+    try {
+      var service = new TransliterationService(ForkJoinPool.commonPool());
+      assertThat(service.passesAscii(id)).isFalse();
+      assertThat(service.transliterate(id, "abc ab c")).isEqualTo("abx ab c");
+      assertThat(service.transliterate(id, List.of("abc", "cab", "ababc")))
+          .containsExactly("abx", "cab", "ababx");
+    } finally {
+      Transliterator.unregister(id);
+    }
+  }
+
+  @Test
+  public void testFile() throws IOException {
+    var lines = new ArrayList<>(TEXTS);
+    lines.set(10, "");
+    lines.set(20, "windows line\r");
+    var content = String.join("\n", lines);
+    var input = temp.resolve("input.txt");
+    Files.writeString(input, content, StandardCharsets.UTF_8);
+
+    // Lines are transliterated on their own; a whole text can differ, as context carries across
+    // lines.
+    var expected = new HashMap<String, String>();
+    for (var id : IDS) {
+      var transliterator = Transliterator.getInstance(id);
+      var result = new ArrayList<String>();
+      for (var line : lines) {
+        result.add(transliterator.transliterate(line));
+      }
+      expected.put(id, String.join("\n", result));
+    }
+
+    try (var pool = new ForkJoinPool(3)) {
+      // Small chunks, so that the file is split many times, at most lines.
+      var service = new TransliterationService(pool, 1_000);
+      for (var id : IDS) {
+        var output = temp.resolve("output.txt");
+        var written = service.transliterate(id, input, output);
+        assertThat(Files.readString(output, StandardCharsets.UTF_8))
+            .as(id)
+            .isEqualTo(expected.get(id));
+        assertThat(written).isEqualTo(Files.size(output));
+      }
+
+      // With and without a line break at the end, and empty.
+      for (var text : List.of("北京\n", "北京", "\n\n", "")) {
+        Files.writeString(input, text, StandardCharsets.UTF_8);
+        var output = temp.resolve("output.txt");
+        service.transliterate("Any-Latin", input, output);
+        assertThat(Files.readString(output, StandardCharsets.UTF_8))
+            .isEqualTo(Transliterator.getInstance("Any-Latin").transliterate(text));
+      }
+    }
+  }
+
+  @Test
+  public void testThroughput() {
+    var id = "Any-Latin";
+    var texts = texts(7, 50_000);
+    var service = TransliterationService.shared();
+    service.transliterate(id, texts);
+
+    // A transliterator per call is what code that cannot share one across threads ends up doing.
+    var perCall = Long.MAX_VALUE;
+    var calls = 2_000;
+    for (var run = 0; run < 3; run++) {
+      var start = System.nanoTime();
+      for (var i = 0; i < calls; i++) {
+        Transliterator.getInstance(id).transliterate(texts.get(i));
+      }
+      perCall = Math.min(perCall, System.nanoTime() - start);
+    }
+
+    var pooled = Long.MAX_VALUE;
+    try (var pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors())) {
+      var parallel = new TransliterationService(pool);
+      for (var run = 0; run < 3; run++) {
+        var start = System.nanoTime();
+        parallel.transliterate(id, texts);
+        pooled = Math.min(pooled, System.nanoTime() - start);
+      }
+    }
+
+    assertThat(pooled / texts.size()).isLessThan(perCall / calls);
+  }
+
+  // Short strings of words, about a third of them ASCII only, as search indexing sees them.
+  private static List<String> texts(long seed, int count) {
+    var random = new Random(seed);
+    var ascii = WORDS.stream().filter(w -> w.chars().allMatch(c -> c < 0x80)).toList();
+    var texts = new ArrayList<String>(count);
+    for (var i = 0; i < count; i++) {
+      var words = i % 3 == 0 ? ascii : WORDS;
+      var text = new StringBuilder();
+      for (var w = random.nextInt(4); w >= 0; w--) {
+        text.append(words.get(random.nextInt(words.size()))).append(' ');
+      }
+      texts.add(text.toString().strip());
+    }
+    return texts;
+  }
+}
@@ -0,0 +1,141 @@
+package com.retiman.template.time;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.retiman.template.testing.Allocations;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public final class CoarseClockTest {
+  @Test
+  public void testManualTicks() {
+    var source = new TestClock(1_000);
+    var clock = CoarseClock.manual(source);
+
+    source.now.set(2_500);
+
+    assertThat(clock.isManual()).isTrue();
+    assertThat(clock.millis()).isEqualTo(1_000);
+
+    clock.tick();
+
+    assertThat(clock.millis()).isEqualTo(2_500);
+    assertThat(clock.epochSecond()).isEqualTo(2);
+    assertThat(clock.instant()).isEqualTo(Instant.ofEpochMilli(2_500));
+  }
+
+  @Test
+  public void testZones() {
+    var source = new TestClock(Instant.parse("2025-04-01T14:00:00Z").toEpochMilli());
+    var clock = CoarseClock.manual(source);
+    var zone = ZoneId.of("America/New_York");
+    var zoned = clock.withZone(zone);
+
+    // The same conversion as TimeTest#testZonedDateTime, without reading the system clock.
+    assertThat(ZonedDateTime.now(zoned)).isEqualTo("2025-04-01T10:00-04:00[America/New_York]");
+    assertThat(zoned.getZone()).isEqualTo(zone);
+    assertThat(clock.withZone(ZoneOffset.UTC)).isSameAs(clock);
+
+    source.now.addAndGet(60_000);
+    clock.tick();
+
+    assertThat(zoned.millis()).isEqualTo(clock.millis());
+  }
+
+  @Test
+  public void testTicker() throws InterruptedException {
+    var source = new TestClock(0);
+    try (var clock = CoarseClock.start(source, Duration.ofMillis(1))) {
+      assertThat(clock.isManual()).isFalse();
+
+      source.now.set(42);
+      var deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+      while (clock.millis() != 42 && System.nanoTime() < deadline) {
+        Thread.sleep(1);
+      }
+
+      assertThat(clock.millis()).isEqualTo(42);
+    }
+  }
+
+  @Test
+  public void testCloseStopsTheTicker() {
+    var clock = CoarseClock.start(Duration.ofMillis(1));
+    var ticker =
+        Thread.getAllStackTraces().keySet().stream()
+            .filter(t -> t.getName().equals("coarse-clock-ticker") && t.isAlive())
+            .toList();
+
+    assertThat(ticker).isNotEmpty().allMatch(Thread::isDaemon);
+
+    clock.close();
+
+    assertThat(ticker).noneMatch(Thread::isAlive);
+
+    var millis = clock.millis();
+    assertThat(clock.millis()).isEqualTo(millis);
+  }
+
+  @Test
+  public void testInvalidResolution() {
+    assertThat(catchThrowable(() -> CoarseClock.start(Duration.ZERO)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testReadsDoNotAllocate() {
+    try (var clock = CoarseClock.start(Duration.ofMillis(1))) {
+      var sum = new long[1];
+      for (var i = 0; i < 10_000; i++) {
+        sum[0] += clock.millis() + clock.epochSecond();
+      }
+
+      var allocated =
+          Allocations.measure(
+              () -> {
+                for (var i = 0; i < 100_000; i++) {
+                  sum[0] += clock.millis() + clock.epochSecond();
+                }
+              });
+
+      assertThat(sum[0]).isPositive();
+      assertThat(allocated).isLessThan(4096);
+    }
+  }
+
+  // A source clock that tests can move by hand.
+  private static final class TestClock extends Clock {
+    private final AtomicLong now;
+
+    private TestClock(long millis) {
+      this.now = new AtomicLong(millis);
+    }
+
+    @Override
+    public long millis() {
+      return now.get();
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(now.get());
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
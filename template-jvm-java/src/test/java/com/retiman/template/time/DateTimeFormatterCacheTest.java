@@ -0,0 +1,84 @@
+package com.retiman.template.time;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.retiman.template.testing.Allocations;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+
+public final class DateTimeFormatterCacheTest {
+  @Test
+  public void testFormattersAreShared() {
+    var cache = new DateTimeFormatterCache(16);
+    var formatter = cache.formatter("yyyy-MM-dd HH:mm", Locale.US);
+    var datetime = LocalDateTime.of(2025, 4, 1, 14, 0);
+
+    // The same example as TimeTest#testDateTimeFormatter, without compiling the pattern again.
+    assertThat(datetime.format(formatter)).isEqualTo("2025-04-01 14:00");
+    assertThat(cache.formatter("yyyy-MM-dd HH:mm", Locale.US)).isSameAs(formatter);
+    assertThat(cache.formatter("yyyy-MM-dd HH:mm", Locale.FRANCE)).isNotSameAs(formatter);
+    assertThat(cache.hitCount()).isEqualTo(1);
+    assertThat(cache.missCount()).isEqualTo(2);
+    assertThat(cache.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void testLocalesMatter() {
+    var cache = new DateTimeFormatterCache(16);
+    var datetime = LocalDateTime.of(2025, 4, 1, 14, 0);
+
+    assertThat(datetime.format(cache.formatter("d MMMM", Locale.US))).isEqualTo("1 April");
+    assertThat(datetime.format(cache.formatter("d MMMM", Locale.FRANCE))).isEqualTo("1 avril");
+  }
+
+  @Test
+  public void testFixedWidthFormatters() {
+    var cache = new DateTimeFormatterCache(16);
+    var formatter = cache.fixedWidthFormatter("HH:mm:ss.SSS");
+
+    assertThat(cache.fixedWidthFormatter("HH:mm:ss.SSS")).isSameAs(formatter);
+    assertThat(catchThrowable(() -> cache.fixedWidthFormatter("d MMMM")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testBoundedSize() {
+    var cache = new DateTimeFormatterCache(4);
+    for (var i = 0; i < 100; i++) {
+      cache.formatter("'" + i + "' HH:mm", Locale.US);
+    }
+
+    // The least recently used are evicted, and the most recent kept.
+    assertThat(cache.size()).isEqualTo(4);
+    assertThat(cache.formatter("'99' HH:mm", Locale.US))
+        .isSameAs(cache.formatter("'99' HH:mm", Locale.US));
+    assertThat(cache.formatter("'0' HH:mm", Locale.US))
+        .isNotSameAs(cache.formatter("'1' HH:mm", Locale.US));
+    assertThat(cache.size()).isEqualTo(4);
+    assertThat(cache.missCount()).isEqualTo(102);
+  }
+
+  @Test
+  public void testLookupsDoNotCompile() {
+    var cache = new DateTimeFormatterCache(16);
+    for (var i = 0; i < 10_000; i++) {
+      cache.formatter("yyyy-MM-dd", Locale.US);
+      cache.fixedWidthFormatter("yyyy-MM-dd");
+    }
+
+    var allocated =
+        Allocations.measure(
+            () -> {
+              for (var i = 0; i < 100_000; i++) {
+                cache.formatter("yyyy-MM-dd", Locale.US);
+                cache.fixedWidthFormatter("yyyy-MM-dd");
+              }
+            });
+
+    // A hit allocates its key, and queues the read up for the eviction order, but no more.
+    assertThat(cache.missCount()).isEqualTo(2);
+    assertThat(allocated / 200_000).isLessThan(100);
+  }
+}
@@ -0,0 +1,205 @@
+package com.retiman.template.time;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.retiman.template.testing.Allocations;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public final class FixedWidthFormatterTest {
+  private static final List<String> PATTERNS =
+      List.of(
+          "yyyy-MM-dd HH:mm",
+          "yyyy-MM-dd",
+          "uuuu-MM-dd'T'HH:mm:ss.SSS",
+          "HH:mm:ss.SSS",
+          "HH:mm:ss.SSSSSSSSS",
+          "yyyyMMddHHmmssS",
+          "dd/MM/yyyy 'at' HH'h'mm",
+          "yyyy''MM''dd");
+
+  @Test
+  public void testRoundTripsAgainstJavaTime() {
+    var random = new Random(42);
+    var fields = new DateTimeFields();
+    for (var pattern : PATTERNS) {
+      var compiled = FixedWidthFormatter.compile(pattern);
+      var formatter = DateTimeFormatter.ofPattern(pattern, Locale.ROOT);
+      var chars = new char[compiled.width()];
+      var bytes = new byte[compiled.width()];
+
+      for (var i = 0; i < 10_000; i++) {
+        var datetime = randomDateTime(random);
+        var expected = formatter.format(datetime);
+
+        assertThat(compiled.format(datetime)).isEqualTo(expected);
+
+        compiled.format(fields.set(datetime), chars, 0);
+        compiled.format(fields, bytes, 0);
+
+        assertThat(new String(chars)).isEqualTo(expected);
+        assertThat(new String(bytes, StandardCharsets.US_ASCII)).isEqualTo(expected);
+
+        // Both parsers should agree on whatever the pattern kept of the original.
+        var parsed =
+            formatter.parseBest(expected, LocalDateTime::from, LocalDate::from, LocalTime::from);
+        compiled.parse(expected, fields);
+        switch (parsed) {
+          case LocalDateTime value -> assertThat(fields.toLocalDateTime()).isEqualTo(value);
+          case LocalDate value -> assertThat(fields.toLocalDate()).isEqualTo(value);
+          case LocalTime value -> assertThat(fields.toLocalTime()).isEqualTo(value);
+          default -> throw new AssertionError("Unexpected " + parsed);
+        }
+
+        compiled.parse(bytes, 0, fields);
+        assertThat(compiled.format(fields)).isEqualTo(expected);
+      }
+    }
+  }
+
+  @Test
+  public void testFractionsAreTruncated() {
+    var compiled = FixedWidthFormatter.compile("ss.SSS");
+    var time = LocalTime.of(0, 0, 7, 999_999_999);
+
+    assertThat(compiled.format(time)).isEqualTo("07.999");
+    assertThat(compiled.format(time)).isEqualTo(DateTimeFormatter.ofPattern("ss.SSS").format(time));
+  }
+
+  @Test
+  public void testOffsets() {
+    var compiled = FixedWidthFormatter.compile("HH:mm");
+    var fields = new DateTimeFields().setTime(9, 5, 0, 0);
+    var chars = "[....|.....]".toCharArray();
+
+    assertThat(compiled.format(fields, chars, 6)).isEqualTo(11);
+    assertThat(new String(chars)).isEqualTo("[....|09:05]");
+    assertThat(compiled.parse(new String(chars), 6, new DateTimeFields()).minute()).isEqualTo(5);
+  }
+
+  @Test
+  public void testNotFixedWidth() {
+    assertThat(FixedWidthFormatter.isFixedWidth("yyyy-MM-dd")).isTrue();
+    assertThat(FixedWidthFormatter.isFixedWidth("yy-MM-dd")).isFalse();
+    assertThat(FixedWidthFormatter.isFixedWidth("d MMM yyyy")).isFalse();
+    assertThat(FixedWidthFormatter.isFixedWidth("hh:mm a")).isFalse();
+    assertThat(FixedWidthFormatter.isFixedWidth("HH:mm[:ss]")).isFalse();
+    assertThat(FixedWidthFormatter.isFixedWidth("HH 'o''clock")).isFalse();
+  }
+
+  @Test
+  public void testStrictParsing() {
+    var compiled = FixedWidthFormatter.compile("yyyy-MM-dd");
+    var fields = new DateTimeFields();
+
+    var wrongLiteral = catchThrowable(() -> compiled.parse("2025/04/01", fields));
+    var notDigit = catchThrowable(() -> compiled.parse("2025-0x-01", fields));
+    var tooShort = catchThrowable(() -> compiled.parse("2025-4-01", fields));
+    var impossible = catchThrowable(() -> compiled.parse("2025-02-29", fields));
+    var noYearZero = catchThrowable(() -> compiled.parse("0000-01-01", fields));
+
+    assertThat(wrongLiteral)
+        .isInstanceOfSatisfying(
+            DateTimeParseException.class, e -> assertThat(e.getErrorIndex()).isEqualTo(4));
+    assertThat(notDigit)
+        .isInstanceOfSatisfying(
+            DateTimeParseException.class, e -> assertThat(e.getErrorIndex()).isEqualTo(6));
+    assertThat(tooShort).isInstanceOf(DateTimeParseException.class);
+    assertThat(impossible).isInstanceOf(DateTimeParseException.class);
+    assertThat(noYearZero).isInstanceOf(DateTimeParseException.class);
+    assertThat(compiled.parse("2024-02-29", fields).toLocalDate()).isEqualTo("2024-02-29");
+  }
+
+  @Test
+  public void testFormattingInvalidFields() {
+    var compiled = FixedWidthFormatter.compile("yyyy-MM-dd");
+
+    assertThat(catchThrowable(() -> compiled.format(new DateTimeFields().setDate(10_000, 1, 1))))
+        .isInstanceOf(DateTimeException.class);
+    assertThat(catchThrowable(() -> compiled.format(new DateTimeFields().setDate(2025, 13, 1))))
+        .isInstanceOf(DateTimeException.class);
+  }
+
+  @Test
+  public void testFormatAndParseDoNotAllocate() {
+    var compiled = FixedWidthFormatter.compile("uuuu-MM-dd'T'HH:mm:ss.SSS");
+    var fields = new DateTimeFields().setDate(2025, 4, 1).setTime(14, 0, 0, 0);
+    var parsed = new DateTimeFields();
+    var chars = new char[compiled.width()];
+    var bytes = new byte[compiled.width()];
+    for (var i = 0; i < 10_000; i++) {
+      roundTrip(compiled, fields, parsed, chars, bytes, i);
+    }
+
+    var allocated =
+        Allocations.measure(
+            () -> {
+              for (var i = 0; i < 100_000; i++) {
+                roundTrip(compiled, fields, parsed, chars, bytes, i);
+              }
+            });
+
+    assertThat(allocated).isLessThan(4096);
+  }
+
+  @Test
+  public void testMatchesJavaTime() {
+    var pattern = "uuuu-MM-dd'T'HH:mm:ss.SSS";
+    var formatter = DateTimeFormatter.ofPattern(pattern);
+    var compiled = FixedWidthFormatter.compile(pattern);
+    var start = LocalDateTime.of(2025, 4, 1, 14, 0);
+    var count = 1_000_000;
+
+    var expected = 0L;
+    for (var i = 0; i < count; i++) {
+      var datetime = start.plus(i, ChronoUnit.MILLIS);
+      expected += LocalDateTime.parse(formatter.format(datetime), formatter).getNano();
+    }
+
+    var fields = new DateTimeFields();
+    var chars = new char[compiled.width()];
+    var text = CharBuffer.wrap(chars);
+    var actual = 0L;
+    for (var i = 0; i < count; i++) {
+      var datetime = start.plus(i, ChronoUnit.MILLIS);
+      compiled.format(fields.set(datetime), chars, 0);
+      actual += compiled.parse(text, 0, fields).nano();
+    }
+
+    assertThat(actual).isEqualTo(expected);
+  }
+
+  private static void roundTrip(
+      FixedWidthFormatter compiled,
+      DateTimeFields fields,
+      DateTimeFields parsed,
+      char[] chars,
+      byte[] bytes,
+      int i) {
+    fields.setTime(i % 24, i % 60, i % 59, i % 1000 * 1_000_000);
+    compiled.format(fields, chars, 0);
+    compiled.format(fields, bytes, 0);
+    compiled.parse(bytes, 0, parsed);
+    if (parsed.minute() != fields.minute() || chars[14] != bytes[14]) {
+      throw new AssertionError("Mismatch for " + fields);
+    }
+  }
+
+  private static LocalDateTime randomDateTime(Random random) {
+    var day = LocalDate.of(1, 1, 1).toEpochDay() + random.nextLong(3_652_059);
+    return LocalDate.ofEpochDay(day)
+        .atTime(LocalTime.ofNanoOfDay(random.nextLong(86_400_000_000_000L)));
+  }
+}
@@ -0,0 +1,311 @@
+package com.retiman.template.time;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.retiman.template.testing.Allocations;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public final class Iso8601CodecTest {
+  private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+  @Test
+  public void testExamples() {
+    assertThat(encode(Instant.parse("2025-04-01T14:00:00Z"), 0)).isEqualTo("2025-04-01T14:00:00Z");
+    assertThat(encode(Instant.parse("2025-04-01T14:00:00.250Z"), 7200))
+        .isEqualTo("2025-04-01T16:00:00.25+02:00");
+    assertThat(encode(Instant.parse("1969-12-31T23:59:59.999999999Z"), -(5 * 3600 + 30)))
+        .isEqualTo("1969-12-31T18:59:29.999999999-05:00:30");
+    assertThat(encode(Instant.parse("+10000-01-01T00:00:00Z"), 0))
+        .isEqualTo("+10000-01-01T00:00:00Z");
+    assertThat(encode(Instant.parse("-0001-01-01T00:00:00Z"), 0))
+        .isEqualTo("-0001-01-01T00:00:00Z");
+  }
+
+  @Test
+  public void testEncodeAgainstJavaTime() {
+    var random = new Random(42);
+    var bytes = new byte[Iso8601Codec.MAXIMUM_LENGTH];
+    for (var i = 0; i < 200_000; i++) {
+      var instant = randomInstant(random);
+      var offset = randomOffset(random);
+      var expected = ISO.format(OffsetDateTime.ofInstant(instant, offset));
+
+      var end =
+          Iso8601Codec.encode(
+              instant.getEpochSecond(), instant.getNano(), offset.getTotalSeconds(), bytes, 0);
+
+      assertThat(new String(bytes, 0, end, StandardCharsets.US_ASCII)).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void testDecodeAgainstJavaTime() {
+    var random = new Random(43);
+    var timestamp = new Timestamp();
+    for (var i = 0; i < 200_000; i++) {
+      var expected = OffsetDateTime.ofInstant(randomInstant(random), randomOffset(random));
+      var bytes = ISO.format(expected).getBytes(StandardCharsets.US_ASCII);
+
+      var end = Iso8601Codec.decode(bytes, 0, bytes.length, timestamp);
+
+      assertThat(end).isEqualTo(bytes.length);
+      assertThat(timestamp.epochSecond()).isEqualTo(expected.toEpochSecond());
+      assertThat(timestamp.nano()).isEqualTo(expected.getNano());
+      assertThat(timestamp.offsetSeconds()).isEqualTo(expected.getOffset().getTotalSeconds());
+    }
+  }
+
+  @Test
+  public void testDecodeMutationsAgainstJavaTime() {
+    // Whatever the codec accepts, java.time must accept and agree with.  The codec may be stricter.
+    var random = new Random(44);
+    var timestamp = new Timestamp();
+    var alphabet = "0123456789-+:.TtZz ".getBytes(StandardCharsets.US_ASCII);
+    for (var i = 0; i < 200_000; i++) {
+      var text = ISO.format(OffsetDateTime.ofInstant(randomInstant(random), randomOffset(random)));
+      var bytes = text.getBytes(StandardCharsets.US_ASCII);
+      bytes[random.nextInt(bytes.length)] = alphabet[random.nextInt(alphabet.length)];
+      var mutated = new String(bytes, StandardCharsets.US_ASCII);
+
+      OffsetDateTime expected;
+      try {
+        expected = OffsetDateTime.parse(mutated, ISO);
+      } catch (DateTimeParseException e) {
+        expected = null;
+      }
+
+      try {
+        // Trailing bytes are not part of the timestamp, so the codec rejected the whole input.
+        if (Iso8601Codec.decode(bytes, 0, bytes.length, timestamp) != bytes.length) {
+          continue;
+        }
+      } catch (DateTimeParseException e) {
+        continue;
+      }
+
+      assertThat(expected).as(mutated).isNotNull();
+      assertThat(timestamp.toOffsetDateTime()).as(mutated).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void testZonedDateTimes() {
+    // The same instant as TimeTest#testZonedDateTime, across a daylight saving change.
+    var zone = ZoneId.of("America/New_York");
+    var start = ZonedDateTime.of(2025, 3, 8, 12, 0, 0, 0, zone);
+    var bytes = new byte[Iso8601Codec.MAXIMUM_LENGTH];
+    var timestamp = new Timestamp();
+    for (var hours = 0; hours < 48; hours++) {
+      var datetime = start.plusHours(hours);
+      var end =
+          Iso8601Codec.encode(
+              datetime.toEpochSecond(),
+              datetime.getNano(),
+              datetime.getOffset().getTotalSeconds(),
+              bytes,
+              0);
+
+      assertThat(new String(bytes, 0, end, StandardCharsets.US_ASCII))
+          .isEqualTo(ISO.format(datetime));
+      Iso8601Codec.decode(bytes, 0, end, timestamp);
+
+      assertThat(timestamp.toInstant()).isEqualTo(datetime.toInstant());
+    }
+  }
+
+  @Test
+  public void testEpochMillis() {
+    var bytes = new byte[Iso8601Codec.MAXIMUM_LENGTH];
+    var timestamp = new Timestamp();
+    var millis = -1L;
+
+    var end = Iso8601Codec.encodeEpochMilli(millis, 0, bytes, 0);
+
+    assertThat(new String(bytes, 0, end, StandardCharsets.US_ASCII))
+        .isEqualTo("1969-12-31T23:59:59.999Z");
+    Iso8601Codec.decode(bytes, 0, end, timestamp);
+
+    assertThat(timestamp.epochMilli()).isEqualTo(millis);
+  }
+
+  @Test
+  public void testByteBuffers() {
+    var timestamp = new Timestamp().set(1_743_516_000L, 500_000_000, 3600);
+    for (var buffer :
+        new ByteBuffer[] {
+          ByteBuffer.allocate(128).position(3), ByteBuffer.allocateDirect(128).position(3)
+        }) {
+      Iso8601Codec.encode(timestamp, buffer);
+      buffer.put((byte) ',');
+      Iso8601Codec.encode(timestamp, buffer);
+      buffer.flip().position(3);
+
+      var decoded = new Timestamp();
+      Iso8601Codec.decode(buffer, decoded);
+
+      assertThat(decoded.toOffsetDateTime()).isEqualTo(timestamp.toOffsetDateTime());
+      assertThat(buffer.get()).isEqualTo((byte) ',');
+      assertThat(Iso8601Codec.decode(buffer, decoded).epochSecond()).isEqualTo(1_743_516_000L);
+      assertThat(buffer.hasRemaining()).isFalse();
+    }
+  }
+
+  @Test
+  public void testOverflowWritesNothing() {
+    var bytes = new byte[10];
+    var buffer = ByteBuffer.allocate(10);
+
+    assertThat(catchThrowable(() -> Iso8601Codec.encode(0, 0, 0, bytes, 0)))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThat(catchThrowable(() -> Iso8601Codec.encode(0, 0, 0, buffer)))
+        .isInstanceOf(BufferOverflowException.class);
+    assertThat(bytes).containsOnly(0);
+    assertThat(buffer.position()).isZero();
+  }
+
+  @Test
+  public void testInvalidValues() {
+    var bytes = new byte[Iso8601Codec.MAXIMUM_LENGTH];
+
+    assertThat(catchThrowable(() -> Iso8601Codec.encode(0, -1, 0, bytes, 0)))
+        .isInstanceOf(DateTimeException.class);
+    assertThat(catchThrowable(() -> Iso8601Codec.encode(0, 0, 18 * 3600 + 1, bytes, 0)))
+        .isInstanceOf(DateTimeException.class);
+    assertThat(catchThrowable(() -> Iso8601Codec.encode(Long.MAX_VALUE / 2, 0, 0, bytes, 0)))
+        .isInstanceOf(DateTimeException.class);
+
+    for (var text :
+        new String[] {
+          "2025-02-29T00:00:00Z",
+          "2025-04-01T24:00:00Z",
+          "2025-04-01T14:00:00",
+          "2025-04-01T14:00:00+19:00",
+          "20250-04-01T14:00:00Z",
+          "2025-04-01 14:00:00Z",
+        }) {
+      var input = text.getBytes(StandardCharsets.US_ASCII);
+      var thrown =
+          catchThrowable(() -> Iso8601Codec.decode(input, 0, input.length, new Timestamp()));
+
+      assertThat(thrown).as(text).isInstanceOf(DateTimeParseException.class);
+      assertThat(catchThrowable(() -> OffsetDateTime.parse(text, ISO)))
+          .as(text)
+          .isInstanceOf(DateTimeParseException.class);
+    }
+  }
+
+  @Test
+  public void testLenientInputs() {
+    var timestamp = new Timestamp();
+    for (var text :
+        new String[] {"2025-04-01T14:00Z", "2025-04-01t14:00:00z", "2025-04-01T14:00:00.Z"}) {
+      var input = text.getBytes(StandardCharsets.US_ASCII);
+      Iso8601Codec.decode(input, 0, input.length, timestamp);
+
+      assertThat(timestamp.toOffsetDateTime()).isEqualTo(OffsetDateTime.parse(text, ISO));
+    }
+  }
+
+  @Test
+  public void testEncodeAndDecodeDoNotAllocate() {
+    var heap = ByteBuffer.allocate(Iso8601Codec.MAXIMUM_LENGTH);
+    var direct = ByteBuffer.allocateDirect(Iso8601Codec.MAXIMUM_LENGTH);
+    var timestamp = new Timestamp();
+    for (var i = 0; i < 10_000; i++) {
+      roundTrip(heap, direct, timestamp, i);
+    }
+
+    var allocated =
+        Allocations.measure(
+            () -> {
+              for (var i = 0; i < 100_000; i++) {
+                roundTrip(heap, direct, timestamp, i);
+              }
+            });
+
+    assertThat(allocated).isLessThan(4096);
+  }
+
+  @Test
+  public void testMatchesJavaTime() {
+    var count = 1_000_000;
+    var start = Instant.parse("2025-04-01T14:00:00Z");
+    var offset = ZoneOffset.ofHours(2);
+
+    var expected = 0L;
+    for (var i = 0; i < count; i++) {
+      var text = ISO.format(OffsetDateTime.ofInstant(start.plusMillis(i * 7L), offset));
+      expected += OffsetDateTime.parse(text, ISO).toEpochSecond();
+    }
+
+    var bytes = new byte[Iso8601Codec.MAXIMUM_LENGTH];
+    var timestamp = new Timestamp();
+    var actual = 0L;
+    for (var i = 0; i < count; i++) {
+      var end = Iso8601Codec.encodeEpochMilli(start.toEpochMilli() + i * 7L, 7200, bytes, 0);
+      Iso8601Codec.decode(bytes, 0, end, timestamp);
+      actual += timestamp.epochSecond();
+    }
+
+    assertThat(actual).isEqualTo(expected);
+  }
+
+  private static void roundTrip(ByteBuffer heap, ByteBuffer direct, Timestamp timestamp, int i) {
+    roundTrip(heap, timestamp, i);
+    roundTrip(direct, timestamp, i);
+  }
+
+  private static void roundTrip(ByteBuffer buffer, Timestamp timestamp, int i) {
+    buffer.clear();
+    Iso8601Codec.encode(1_743_516_000L + i, i * 1000, 3600, buffer);
+    buffer.flip();
+    if (Iso8601Codec.decode(buffer, timestamp).nano() != i * 1000) {
+      throw new AssertionError("Mismatch for " + timestamp);
+    }
+  }
+
+  private static String encode(Instant instant, int offsetSeconds) {
+    var bytes = new byte[Iso8601Codec.MAXIMUM_LENGTH];
+    var end =
+        Iso8601Codec.encode(instant.getEpochSecond(), instant.getNano(), offsetSeconds, bytes, 0);
+    return new String(bytes, 0, end, StandardCharsets.US_ASCII);
+  }
+
+  // Mostly modern dates, with enough of the extremes to exercise signed years and odd fractions.
+  private static Instant randomInstant(Random random) {
+    var low = LocalDate.of(-20_000, 1, 1).toEpochDay() * 86_400;
+    var high = LocalDate.of(20_000, 1, 1).toEpochDay() * 86_400;
+    var epochSecond =
+        random.nextInt(4) == 0 ? random.nextLong(low, high) : random.nextLong(0, 4_102_444_800L);
+    var nano =
+        switch (random.nextInt(4)) {
+          case 0 -> 0;
+          case 1 -> random.nextInt(1000) * 1_000_000;
+          case 2 -> random.nextInt(1_000_000) * 1000;
+          default -> random.nextInt(1_000_000_000);
+        };
+    return Instant.ofEpochSecond(epochSecond, nano);
+  }
+
+  private static ZoneOffset randomOffset(Random random) {
+    return switch (random.nextInt(4)) {
+      case 0 -> ZoneOffset.UTC;
+      case 1 -> ZoneOffset.ofTotalSeconds(random.nextInt(-18 * 4, 18 * 4 + 1) * 900);
+      default -> ZoneOffset.ofTotalSeconds(random.nextInt(-18 * 3600, 18 * 3600 + 1));
+    };
+  }
+}
@@ -0,0 +1,190 @@
+package com.retiman.template.time;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.retiman.template.testing.Allocations;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public final class ZoneTransitionTableTest {
+  private static final List<ZoneId> ZONES =
+      List.of(
+          ZoneId.of("America/New_York"),
+          ZoneId.of("Europe/London"),
+          ZoneId.of("Australia/Lord_Howe"),
+          ZoneId.of("Asia/Kolkata"),
+          ZoneId.of("America/Sao_Paulo"),
+          // Skipped December 30th, 2011 by moving across the date line.
+          ZoneId.of("Pacific/Apia"),
+          ZoneId.of("UTC"),
+          ZoneId.of("+05:30"));
+
+  // A little past both ends of the default window, so that the fallback is exercised too.
+  private static final long LOW = LocalDate.of(1960, 1, 1).toEpochDay() * 86_400_000L;
+  private static final long HIGH = LocalDate.of(2110, 1, 1).toEpochDay() * 86_400_000L;
+
+  @Test
+  public void testToLocalAgainstJavaTime() {
+    var random = new Random(42);
+    var fields = new DateTimeFields();
+    for (var zone : ZONES) {
+      var table = new ZoneTransitionTable(zone);
+      for (var i = 0; i < 100_000; i++) {
+        var epochMilli = random.nextLong(LOW, HIGH);
+        var expected = Instant.ofEpochMilli(epochMilli).atZone(zone);
+
+        assertThat(table.offsetSeconds(epochMilli))
+            .isEqualTo(expected.getOffset().getTotalSeconds());
+        assertThat(table.toLocal(epochMilli, fields).toLocalDateTime())
+            .isEqualTo(expected.toLocalDateTime());
+        assertThat(table.toPackedDate(epochMilli)).isEqualTo(packed(expected.toLocalDate()));
+      }
+    }
+  }
+
+  @Test
+  public void testToEpochMilliAgainstJavaTime() {
+    var random = new Random(43);
+    var fields = new DateTimeFields();
+    for (var zone : ZONES) {
+      var table = new ZoneTransitionTable(zone);
+      for (var i = 0; i < 100_000; i++) {
+        var local =
+            LocalDateTime.ofEpochSecond(random.nextLong(LOW, HIGH) / 1000, 0, ZoneOffset.UTC);
+        var expected = local.atZone(zone).toInstant().toEpochMilli();
+
+        assertThat(table.toEpochMilli(fields.set(local)))
+            .as("%s in %s", local, zone)
+            .isEqualTo(expected);
+      }
+    }
+  }
+
+  @Test
+  public void testTransitions() {
+    var zone = ZoneId.of("America/New_York");
+    var table = new ZoneTransitionTable(zone);
+    var fields = new DateTimeFields();
+
+    // Every instant around each transition in 2025, to the second.
+    for (var transition : zone.getRules().getTransitions()) {
+      if (transition.getDateTimeBefore().getYear() != 2025) {
+        continue;
+      }
+
+      var local = transition.getDateTimeBefore().minusHours(2);
+      for (var s = 0; s < 4 * 3600; s++, local = local.plusSeconds(1)) {
+        var expected = ZonedDateTime.of(local, zone).toInstant().toEpochMilli();
+        assertThat(table.toEpochMilli(fields.set(local))).as("%s", local).isEqualTo(expected);
+        assertThat(table.toLocal(expected, fields).toLocalDateTime())
+            .isEqualTo(Instant.ofEpochMilli(expected).atZone(zone).toLocalDateTime());
+      }
+    }
+  }
+
+  @Test
+  public void testGapsAndOverlaps() {
+    var table = new ZoneTransitionTable(ZoneId.of("America/New_York"));
+    var fields = new DateTimeFields();
+
+    // 02:30 does not exist on 2025-03-09, and is moved to 03:30 EDT.
+    var gap = table.toEpochMilli(fields.setDate(2025, 3, 9).setTime(2, 30, 0, 0));
+    // 01:30 happens twice on 2025-11-02, and the first one (EDT) wins.
+    var overlap = table.toEpochMilli(fields.setDate(2025, 11, 2).setTime(1, 30, 0, 0));
+
+    assertThat(Instant.ofEpochMilli(gap)).isEqualTo("2025-03-09T07:30:00Z");
+    assertThat(Instant.ofEpochMilli(overlap)).isEqualTo("2025-11-02T05:30:00Z");
+  }
+
+  @Test
+  public void testWindows() {
+    var table = new ZoneTransitionTable(ZoneId.of("Europe/London"), 2020, 2029);
+    var fixed = new ZoneTransitionTable(ZoneId.of("Asia/Kolkata"));
+
+    assertThat(table.transitionCount()).isEqualTo(20);
+    assertThat(fixed.transitionCount()).isZero();
+    assertThat(table.offsetSeconds(Instant.parse("2035-07-01T00:00:00Z").toEpochMilli()))
+        .isEqualTo(3600);
+  }
+
+  @Test
+  public void testBulkConversion() {
+    var zone = ZoneId.of("America/New_York");
+    var table = new ZoneTransitionTable(zone);
+    var epochMillis = new Random(44).longs(1_000_000, LOW, HIGH).toArray();
+
+    var parallel = new int[epochMillis.length];
+    try (var pool = new ForkJoinPool(4)) {
+      table.toPackedDates(epochMillis, parallel, pool);
+    }
+
+    for (var i = 0; i < epochMillis.length; i++) {
+      assertThat(parallel[i]).isEqualTo(table.toPackedDate(epochMillis[i]));
+    }
+    for (var i = 0; i < epochMillis.length; i += 1000) {
+      var expected = Instant.ofEpochMilli(epochMillis[i]).atZone(zone).toLocalDate();
+      assertThat(parallel[i]).isEqualTo(packed(expected));
+    }
+  }
+
+  @Test
+  public void testConversionsDoNotAllocate() {
+    var table = new ZoneTransitionTable(ZoneId.of("America/New_York"));
+    var fields = new DateTimeFields();
+    var start = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    for (var i = 0; i < 10_000; i++) {
+      roundTrip(table, fields, start + i * 3_600_000L);
+    }
+
+    var allocated =
+        Allocations.measure(
+            () -> {
+              for (var i = 0; i < 100_000; i++) {
+                roundTrip(table, fields, start + i * 3_600_000L);
+              }
+            });
+
+    assertThat(allocated).isLessThan(4096);
+  }
+
+  @Test
+  public void testMatchesJavaTime() {
+    var zone = ZoneId.of("America/New_York");
+    var table = new ZoneTransitionTable(zone);
+    var start = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    var count = 1_000_000;
+
+    var expected = 0L;
+    for (var i = 0; i < count; i++) {
+      expected += Instant.ofEpochMilli(start + i * 60_000L).atZone(zone).getHour();
+    }
+
+    var fields = new DateTimeFields();
+    var actual = 0L;
+    for (var i = 0; i < count; i++) {
+      actual += table.toLocal(start + i * 60_000L, fields).hour();
+    }
+
+    assertThat(actual).isEqualTo(expected);
+  }
+
+  private static void roundTrip(ZoneTransitionTable table, DateTimeFields fields, long epochMilli) {
+    // An instant in an overlap comes back as the earlier of the two, with the same local time.
+    var instant = table.toEpochMilli(table.toLocal(epochMilli, fields));
+    if (table.toLocalMilli(instant) != table.toLocalMilli(epochMilli)) {
+      throw new AssertionError("Mismatch for " + fields);
+    }
+  }
+
+  private static int packed(LocalDate date) {
+    return date.getYear() * 10_000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+  }
+}
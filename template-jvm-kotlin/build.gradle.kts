@@ -25,6 +25,7 @@ dependencies {
   implementation(kotlin("stdlib"))
   implementation(kotlin("reflect"))
   implementation("org.jetbrains.kotlinx:kotlinx-coroutines-core:1.8.0")
+  implementation(project(":template-jvm-java"))
 
   testImplementation("org.junit.jupiter:junit-jupiter-api:5.12.1")
   testImplementation("org.junit.jupiter:junit-jupiter-params:5.12.1")
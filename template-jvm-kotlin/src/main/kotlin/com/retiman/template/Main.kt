@@ -1,5 +1,16 @@
 package com.retiman.template
 
-fun main() {
+import com.retiman.template.locale.LocalePipeline
+import java.nio.file.Path
+import kotlinx.coroutines.runBlocking
+
+fun main(args: Array<String>) {
+  // With an input and an output file, canonicalizes the tags in one into the other.
+  if (args.size == 2) {
+    val lines = runBlocking { LocalePipeline().process(Path.of(args[0]), Path.of(args[1])) }
+    println("Canonicalized $lines tags")
+    return
+  }
+
   println("Hello, World!")
 }
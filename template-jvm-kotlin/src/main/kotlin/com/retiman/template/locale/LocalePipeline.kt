@@ -0,0 +1,96 @@
+package com.retiman.template.locale
+
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.async
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.withContext
+
+/**
+ * Canonicalizes language tags in bulk, e.g. batch files of billions of tags, one per line, in
+ * memory that does not grow with the input.
+ *
+ * Tags are read in batches on [Dispatchers.IO], canonicalized through the Java module's
+ * [LocaleRegistry] on at most [parallelism] threads of [Dispatchers.Default], and handed on in the
+ * order they were read. The stages are joined by buffers of [parallelism] batches, so a slow writer
+ * suspends canonicalization, which in turn suspends the reader; at most about `2 * parallelism + 2`
+ * batches are in memory at once.
+ *
+ * A blank line stays blank, so that output lines match input lines one for one.
+ */
+class LocalePipeline(
+  val parallelism: Int = Runtime.getRuntime().availableProcessors(),
+  val batchSize: Int = DEFAULT_BATCH_SIZE,
+  private val registry: LocaleRegistry = LocaleRegistry.shared(),
+) {
+  init {
+    require(parallelism > 0) { "Parallelism must be positive: $parallelism" }
+    require(batchSize > 0) { "Batch size must be positive: $batchSize" }
+  }
+
+  @OptIn(ExperimentalCoroutinesApi::class)
+  private val dispatcher = Dispatchers.Default.limitedParallelism(parallelism)
+
+  /** Reads the lines of a file in batches. */
+  fun read(input: Path): Flow<List<String>> =
+    flow {
+        Files.newBufferedReader(input).use { reader ->
+          var batch = ArrayList<String>(batchSize)
+          while (true) {
+            val line = reader.readLine() ?: break
+            batch.add(line)
+            if (batch.size == batchSize) {
+              emit(batch)
+              batch = ArrayList(batchSize)
+            }
+          }
+          if (batch.isNotEmpty()) {
+            emit(batch)
+          }
+        }
+      }
+      .flowOn(Dispatchers.IO)
+      .buffer(parallelism)
+
+  /** Canonicalizes batches of tags in parallel, and emits the results in the order of the input. */
+  fun canonicalize(batches: Flow<List<String>>): Flow<List<String>> = flow {
+    coroutineScope {
+      // Each batch starts as soon as it is read, and the buffer bounds how many are started before
+      // the oldest one is awaited.
+      batches
+        .map { batch -> async(dispatcher) { batch.map(::canonicalize) } }
+        .buffer(parallelism)
+        .collect { emit(it.await()) }
+    }
+  }
+
+  /** Returns the canonical form of one tag, e.g. "he" for "iw", or "" for a blank line. */
+  fun canonicalize(tag: String): String =
+    if (tag.isBlank()) "" else registry.resolve(tag.trim()).tag()
+
+  /** Canonicalizes a file of tags into another, line for line, and returns the number of lines. */
+  suspend fun process(input: Path, output: Path): Long =
+    withContext(Dispatchers.IO) {
+      var count = 0L
+      Files.newBufferedWriter(output).use { writer ->
+        canonicalize(read(input)).collect { batch ->
+          for (tag in batch) {
+            writer.append(tag).append('\n')
+          }
+          count += batch.size
+        }
+      }
+      count
+    }
+
+  companion object {
+    const val DEFAULT_BATCH_SIZE = 1024
+  }
+}
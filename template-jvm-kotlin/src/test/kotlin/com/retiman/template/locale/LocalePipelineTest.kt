@@ -0,0 +1,131 @@
+package com.retiman.template.locale
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.StringSpec
+import io.kotest.matchers.longs.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+import java.lang.management.ManagementFactory
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.io.path.deleteIfExists
+import kotlin.io.path.readLines
+import kotlinx.coroutines.runBlocking
+
+class LocalePipelineTest : StringSpec({
+  // Aliases, odd casing, blank lines and junk, as they turn up in real batch files.
+  val tags =
+    listOf("iw", "EN-us", "sh", "afr", "zh-hant-tw", "", "  de-DE  ", "no-bok", "x-private", "12")
+
+  fun write(lines: Long): Path {
+    val input = Files.createTempFile("tags", ".txt")
+    Files.newBufferedWriter(input).use { writer ->
+      for (i in 0 until lines) {
+        writer.append(tags[(i % tags.size).toInt()]).append('\n')
+      }
+    }
+    return input
+  }
+
+  "pipeline writes canonical tags in input order" {
+    val input = write(10_000)
+    val output = Files.createTempFile("canonical", ".txt")
+    try {
+      // Small batches and several workers, so that batches finish out of order.
+      val pipeline = LocalePipeline(parallelism = 4, batchSize = 7)
+      runBlocking { pipeline.process(input, output) } shouldBe 10_000
+
+      val expected =
+        input.readLines().map {
+          if (it.isBlank()) "" else LocaleRegistry.shared().resolve(it.trim()).tag()
+        }
+      output.readLines() shouldBe expected
+      output.readLines().take(5) shouldBe listOf("he", "en-US", "sr-Latn", "af", "zh-Hant-TW")
+    } finally {
+      input.deleteIfExists()
+      output.deleteIfExists()
+    }
+  }
+
+  "pipeline rejects bad settings" {
+    shouldThrow<IllegalArgumentException> { LocalePipeline(parallelism = 0) }
+    shouldThrow<IllegalArgumentException> { LocalePipeline(batchSize = 0) }
+  }
+
+  "pipeline throughput" {
+    val lines = 2_000_000L
+    val input = write(lines)
+    val output = Files.createTempFile("canonical", ".txt")
+    try {
+      for (parallelism in listOf(1, Runtime.getRuntime().availableProcessors())) {
+        val pipeline = LocalePipeline(parallelism = parallelism)
+        var nanos = 0L
+        repeat(2) {
+          val start = System.nanoTime()
+          runBlocking { pipeline.process(input, output) } shouldBe lines
+          nanos = System.nanoTime() - start
+        }
+        println(
+          String.format(
+            "Canonicalized %,d tags with parallelism %d: %,.0f tags/sec",
+            lines,
+            parallelism,
+            lines / (nanos / 1e9),
+          )
+        )
+      }
+    } finally {
+      input.deleteIfExists()
+      output.deleteIfExists()
+    }
+  }
+
+  "pipeline memory stays flat as input grows" {
+    val memory = ManagementFactory.getMemoryMXBean()
+    val output = Files.createTempFile("canonical", ".txt")
+
+    // Samples the heap while the pipeline runs, and returns the most it grew over the baseline.
+    fun growth(lines: Long): Long {
+      val input = write(lines)
+      try {
+        System.gc()
+        val baseline = memory.heapMemoryUsage.used
+        var peak = baseline
+        val sampler =
+          Thread.ofPlatform().daemon().start {
+            while (!Thread.currentThread().isInterrupted) {
+              peak = maxOf(peak, memory.heapMemoryUsage.used)
+              try {
+                Thread.sleep(5)
+              } catch (e: InterruptedException) {
+                break
+              }
+            }
+          }
+        runBlocking { LocalePipeline(batchSize = 256).process(input, output) } shouldBe lines
+        sampler.interrupt()
+        sampler.join()
+        return peak - baseline
+      } finally {
+        input.deleteIfExists()
+      }
+    }
+
+    try {
+      growth(200_000)
+      val small = growth(200_000)
+      val large = growth(2_000_000)
+      println(
+        String.format(
+          "Heap growth: %,dKB for 200,000 tags, %,dKB for 2,000,000 tags",
+          small shr 10,
+          large shr 10,
+        )
+      )
+      // Ten times the input, where holding on to it would take well over 100MB, grows the heap by
+      // no more than the young generation's churn.
+      large shouldBeLessThan maxOf(small * 2, 64L shl 20)
+    } finally {
+      output.deleteIfExists()
+    }
+  }
+})